@@ -30,6 +30,7 @@ public class AndroidCryptographer implements Cryptographer {
      */
     public void lock() {
         this.delegate = null;
+        DefaultCryptographer.clearDerivedKeyCache();
     }
     
     /**
@@ -1,6 +1,8 @@
 package com.reveila.android.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.time.Instant;
@@ -9,6 +11,7 @@ import com.reveila.data.Entity;
 import com.reveila.data.Repository;
 import com.reveila.system.SystemComponent;
 import com.reveila.system.Plugin;
+import com.reveila.ai.FlightRecord;
 import com.reveila.ai.FlightRecorder;
 
 /**
@@ -69,6 +72,45 @@ public class AndroidFlightRecorder extends SystemComponent implements FlightReco
         store(log);
     }
 
+    /**
+     * Stores a batch of records with a single repository write.
+     */
+    @Override
+    public void recordAll(List<FlightRecord> records) {
+        if (auditRepository == null) {
+            FlightRecorder.super.recordAll(records);
+            return;
+        }
+        List<Entity> logs = new ArrayList<>(records.size());
+        for (FlightRecord record : records) {
+            logs.add(toEntity(record));
+        }
+        try {
+            auditRepository.storeAll(logs);
+        } catch (Exception e) {
+            logger.severe("Failed to store " + logs.size() + " audit logs: " + e.getMessage());
+        }
+    }
+
+    private Entity toEntity(FlightRecord record) {
+        Object data = record.data();
+        Entity log;
+        switch (record.kind()) {
+            case REASONING -> {
+                log = createBaseLog(record.plugin(), "REASONING_TRACE");
+                log.getAttributes().put("inner_monologue", data);
+            }
+            case TOOL_OUTPUT -> log = createBaseLog(record.plugin(), "TOOL_OUTPUT: " + record.name());
+            case FORENSIC -> log = createBaseLog(record.plugin(), "FORENSIC_METRICS");
+            default -> log = createBaseLog(record.plugin(), record.name());
+        }
+        if (record.kind() != FlightRecord.Kind.REASONING && data != null) {
+            log.getAttributes().put("metadata", data.toString());
+        }
+        log.getAttributes().put("timestamp", Instant.ofEpochMilli(record.timestamp()).toString());
+        return log;
+    }
+
     private Entity createBaseLog(Plugin plugin, String action) {
         Map<String, Object> attributes = new HashMap<>();
         attributes.put("target_id", plugin.getTraceId());
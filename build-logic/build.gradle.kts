@@ -17,6 +17,7 @@ dependencies {
     implementation(libs.android.gradle.plugin)
     implementation(libs.shadow.gradle.plugin)
     implementation(libs.spring.boot.gradle.plugin)
+    implementation(libs.jmh.gradle.plugin)
     
     // THIS is the replacement for the "asProvider" or manual file pathing.
     // It allows your precompiled scripts (*.gradle.kts) to see the 'libs' catalog.
@@ -0,0 +1,105 @@
+// build-logic/src/main/kotlin/reveila.benchmarks.gradle.kts
+
+// JMH microbenchmark conventions. Benchmarks live in src/jmh/java and run with:
+//   ./gradlew :reveila:benchmarks:jmh
+// Results are written as JSON and can be diffed against a stored baseline:
+//   ./gradlew :reveila:benchmarks:jmhCompare      (fails on regressions)
+//   ./gradlew :reveila:benchmarks:jmhSaveBaseline (accepts the latest results)
+// Optional properties: -Pjmh.includes=<regex>, -Pjmh.threshold=0.10
+
+import groovy.json.JsonSlurper
+import me.champeau.jmh.JmhParameters
+import org.gradle.kotlin.dsl.configure
+
+plugins {
+    id("reveila.shared-lib")
+    id("me.champeau.jmh")
+}
+
+val libs = versionCatalogs.named("libs")
+
+val resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+val baselineFile = layout.projectDirectory.file("baseline/jmh-baseline.json")
+
+extensions.configure<JmhParameters> {
+    jmhVersion.set(libs.findVersion("jmh").get().toString())
+    resultFormat.set("JSON")
+    this.resultsFile.set(resultsFile)
+    failOnError.set(true)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.add(it) }
+}
+
+tasks.register<Copy>("jmhSaveBaseline") {
+    group = "benchmark"
+    description = "Stores the latest JMH results as the baseline for jmhCompare."
+    from(resultsFile)
+    into(baselineFile.asFile.parentFile)
+    rename { baselineFile.asFile.name }
+}
+
+tasks.register("jmhCompare") {
+    group = "benchmark"
+    description = "Compares the latest JMH results with the stored baseline and fails on regressions."
+
+    // Capture plain values at configuration time (Config Cache Safe)
+    val current = resultsFile.get().asFile
+    val baseline = baselineFile.asFile
+    val threshold = providers.gradleProperty("jmh.threshold").orNull?.toDouble() ?: 0.10
+
+    inputs.files(current, baseline).optional()
+
+    doLast {
+        if (!current.exists()) {
+            throw GradleException("No JMH results at $current. Run the 'jmh' task first.")
+        }
+        if (!baseline.exists()) {
+            logger.lifecycle("No baseline at $baseline; run 'jmhSaveBaseline' to create one.")
+            return@doLast
+        }
+
+        // Keyed by benchmark name plus @Param values so parameterised runs are compared like for like
+        fun load(file: File): Map<String, Map<*, *>> {
+            @Suppress("UNCHECKED_CAST")
+            val runs = JsonSlurper().parse(file) as List<Map<*, *>>
+            return runs.associateBy { "${it["benchmark"]}${it["params"] ?: ""}" }
+        }
+
+        val before = load(baseline)
+        val after = load(current)
+        val regressions = mutableListOf<String>()
+
+        println("\n--- JMH results vs baseline (threshold ${"%.0f".format(threshold * 100)}%) ---")
+        for ((key, run) in after) {
+            val metric = run["primaryMetric"] as Map<*, *>
+            val score = (metric["score"] as Number).toDouble()
+            val unit = metric["scoreUnit"]
+            val base = before[key]
+            if (base == null) {
+                println("NEW      $key: ${"%.3f".format(score)} $unit")
+                continue
+            }
+            val baseScore = ((base["primaryMetric"] as Map<*, *>)["score"] as Number).toDouble()
+            // Throughput: higher is better. Average/sample/single-shot time: lower is better.
+            val higherIsBetter = run["mode"] == "thrpt"
+            val change = if (baseScore == 0.0) 0.0 else (score - baseScore) / baseScore
+            val worse = if (higherIsBetter) -change else change
+            val status = when {
+                worse > threshold -> "REGRESS"
+                worse < -threshold -> "IMPROVE"
+                else -> "SAME"
+            }
+            println("%-8s %s: %.3f -> %.3f %s (%+.1f%%)".format(status, key, baseScore, score, unit, change * 100))
+            if (status == "REGRESS") {
+                regressions.add(key)
+            }
+        }
+        println("------------------------------------\n")
+
+        if (regressions.isNotEmpty()) {
+            throw GradleException("${regressions.size} benchmark(s) regressed beyond the threshold: $regressions")
+        }
+    }
+}
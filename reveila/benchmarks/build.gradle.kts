@@ -0,0 +1,7 @@
+plugins {
+    id("reveila.benchmarks")
+}
+
+dependencies {
+    "jmh"(project(":reveila:core"))
+}
@@ -0,0 +1,66 @@
+package com.reveila.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.reveila.system.ReflectionMethod;
+
+/**
+ * Method resolution and argument coercion for JSON-shaped arguments. The
+ * cached path through the proxy dispatch table is covered by
+ * {@link LocalInvokeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArgumentCoercionBenchmark {
+
+    private final BenchmarkSupport.Calculator target = new BenchmarkSupport.Calculator();
+    private Object[] numericArgs;
+    private Object[] mixedArgs;
+    private Method add;
+    private Method greet;
+    private ReflectionMethod.Invoker invoker;
+
+    @Setup
+    public void setUp() {
+        numericArgs = new Object[] { 2.0d, 3.0d };
+        mixedArgs = new Object[] { "Ada", Boolean.TRUE };
+        add = ReflectionMethod.findBestMethod(BenchmarkSupport.Calculator.class, "add", numericArgs);
+        greet = ReflectionMethod.findBestMethod(BenchmarkSupport.Calculator.class, "greet", mixedArgs);
+        invoker = ReflectionMethod.compile(add, numericArgs);
+    }
+
+    @Benchmark
+    public Method findBestMethod() {
+        return ReflectionMethod.findBestMethod(BenchmarkSupport.Calculator.class, "add", numericArgs);
+    }
+
+    @Benchmark
+    public Object[] coerceNumericArguments() {
+        return ReflectionMethod.coerceArguments(add, numericArgs);
+    }
+
+    @Benchmark
+    public Object compiledInvoke() throws Exception {
+        return invoker.invoke(target, numericArgs);
+    }
+
+    @Benchmark
+    public Object[] coerceMixedArguments() {
+        return ReflectionMethod.coerceArguments(greet, mixedArgs);
+    }
+
+    @Benchmark
+    public ReflectionMethod.Invoker compileInvoker() {
+        return ReflectionMethod.compile(add, numericArgs);
+    }
+}
@@ -0,0 +1,87 @@
+package com.reveila.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.security.auth.Subject;
+
+import com.reveila.crypto.Cryptographer;
+import com.reveila.event.EventManager;
+import com.reveila.system.Constants;
+import com.reveila.system.Manifest;
+import com.reveila.system.MetaObject;
+import com.reveila.system.PlatformAdapter;
+import com.reveila.system.RolePrincipal;
+import com.reveila.system.SystemContext;
+import com.reveila.system.SystemProxy;
+
+/**
+ * Builds a minimal in-memory {@link SystemContext} for benchmarks, without a
+ * platform adapter or any configuration on disk.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    static SystemContext newContext() {
+        Logger logger = Logger.getLogger("reveila.benchmarks");
+        logger.setLevel(Level.WARNING);
+        return new SystemContext(new Properties(), new EventManager(), logger, stub(Cryptographer.class),
+                stub(PlatformAdapter.class));
+    }
+
+    static SystemProxy newProxy(String name, Class<?> implementation, boolean threadSafe, List<String> requiredRoles) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(Constants.NAME, name);
+        map.put(Constants.CLASS, implementation.getName());
+        map.put(Constants.THREAD_SAFE, threadSafe);
+        Manifest manifest = new Manifest();
+        manifest.setName(name);
+        manifest.setImplementationClass(implementation.getName());
+        manifest.getRequiredRoles().addAll(requiredRoles);
+        return new SystemProxy(new MetaObject(map), manifest);
+    }
+
+    static Subject subject(String... roles) {
+        Subject subject = new Subject();
+        for (String role : roles) {
+            subject.getPrincipals().add(new RolePrincipal(role));
+        }
+        return subject;
+    }
+
+    /**
+     * An interface implementation whose methods are never expected to be
+     * called on the benchmarked paths.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.getName().equals("hashCode") ? System.identityHashCode(proxy)
+                        : method.getName().equals("equals") ? proxy == args[0] : type.getSimpleName() + " stub";
+            }
+            throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+        });
+    }
+
+    /**
+     * Component invoked by the benchmarks. Arguments arrive as JSON numbers
+     * (doubles) and strings, the same as a REST invocation.
+     */
+    public static class Calculator {
+        public long add(int a, long b) {
+            return a + b;
+        }
+
+        public String greet(String name, boolean formal) {
+            return (formal ? "Good day, " : "Hi, ") + name;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.reveila.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.reveila.util.json.JsonUtil;
+
+/**
+ * Request and response marshalling as done by {@code RemoteService.invoke}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonMarshallingBenchmark {
+
+    /** Number of records in the payload. */
+    @Param({ "1", "100" })
+    public int size;
+
+    private Map<String, Object> request;
+    private String response;
+
+    @Setup
+    public void setUp() throws Exception {
+        Object[] records = new Object[size];
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("id", i);
+            record.put("name", "record-" + i);
+            record.put("score", i * 0.5d);
+            record.put("tags", List.of("alpha", "beta"));
+            records[i] = record;
+        }
+        request = Map.of("methodName", "process", "args", records);
+        response = JsonUtil.toJsonString(records);
+    }
+
+    @Benchmark
+    public String serializeRequest() throws Exception {
+        return JsonUtil.toJsonString(request);
+    }
+
+    @Benchmark
+    public Object deserializeResponse() throws Exception {
+        return JsonUtil.toObject(response, Object.class);
+    }
+}
@@ -0,0 +1,72 @@
+package com.reveila.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.Subject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.reveila.system.SystemContext;
+import com.reveila.system.SystemProxy;
+
+/**
+ * The local invocation path taken by {@code Reveila.invoke}: proxy lookup with
+ * role check, exposed-method check, instance resolution and reflective call.
+ * Compares a thread-safe (singleton) component with one that is instantiated
+ * on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LocalInvokeBenchmark {
+
+    private SystemContext context;
+    private SystemProxy singleton;
+    private SystemProxy perCall;
+    private Subject subject;
+    private Object[] args;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkSupport.newContext();
+        singleton = BenchmarkSupport.newProxy("Singleton", BenchmarkSupport.Calculator.class, true, List.of("user"));
+        perCall = BenchmarkSupport.newProxy("PerCall", BenchmarkSupport.Calculator.class, false, List.of("user"));
+        context.add(singleton);
+        context.add(perCall);
+        subject = BenchmarkSupport.subject("user");
+        args = new Object[] { 2.0d, 3.0d };
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.getEventManager().shutdown();
+    }
+
+    @Benchmark
+    public Object proxyInvokeThreadSafe() throws Exception {
+        return singleton.invoke("add", args, subject);
+    }
+
+    @Benchmark
+    public Object proxyInvokeNewInstance() throws Exception {
+        return perCall.invoke("add", args, subject);
+    }
+
+    @Benchmark
+    public Object contextInvokeThreadSafe() throws Exception {
+        return context.getProxy("Singleton", subject).invoke("add", args, subject);
+    }
+
+    @Benchmark
+    public Object contextInvokeNewInstance() throws Exception {
+        return context.getProxy("PerCall", subject).invoke("add", args, subject);
+    }
+}
@@ -0,0 +1,73 @@
+package com.reveila.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.Subject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.reveila.system.SystemContext;
+
+/**
+ * Manifest role checks in {@code SystemContext.getProxy} as the number of
+ * registered components and of roles held by the caller grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoleCheckBenchmark {
+
+    @Param({ "10", "500" })
+    public int components;
+
+    @Param({ "1", "8" })
+    public int callerRoles;
+
+    private SystemContext context;
+    private Subject caller;
+    private String open;
+    private String restricted;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkSupport.newContext();
+        for (int i = 0; i < components; i++) {
+            List<String> roles = i % 2 == 0 ? List.of("*") : List.of("admin", "auditor", "operator");
+            context.add(BenchmarkSupport.newProxy("Component" + i, BenchmarkSupport.Calculator.class, true, roles));
+        }
+        open = "Component0";
+        restricted = "Component1";
+
+        // The matching role is held last, so every other role is checked first
+        String[] roles = new String[callerRoles];
+        for (int i = 0; i < callerRoles - 1; i++) {
+            roles[i] = "role" + i;
+        }
+        roles[callerRoles - 1] = "operator";
+        caller = BenchmarkSupport.subject(roles);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.getEventManager().shutdown();
+    }
+
+    @Benchmark
+    public Object openComponent() {
+        return context.getProxy(open, caller);
+    }
+
+    @Benchmark
+    public Object restrictedComponent() {
+        return context.getProxy(restricted, caller);
+    }
+}
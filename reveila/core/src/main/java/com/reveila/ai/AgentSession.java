@@ -2,6 +2,8 @@ package com.reveila.ai;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 /**
  * The AgentSession represents a stateful container for shared context
@@ -18,6 +20,9 @@ public class AgentSession {
     private final String parentTraceId;
     private final ReveilaChatMemory chatMemory;
     private final Map<String, Object> context;
+    private final AtomicLong contextBytes = new AtomicLong();
+    private volatile LongConsumer sizeListener;
+    private final RetrievalContext retrievalContext = new RetrievalContext();
 
     /**
      * Initializes a new AgentSession with a default message window of 20.
@@ -61,6 +66,16 @@ public class AgentSession {
         return chatMemory;
     }
 
+    /**
+     * Provides the tool and knowledge retrieval results kept for this session
+     * across turns.
+     * 
+     * @return The RetrievalContext instance.
+     */
+    public RetrievalContext getRetrievalContext() {
+        return retrievalContext;
+    }
+
     /**
      * Updates the session context with a new key-value pair.
      * 
@@ -68,7 +83,15 @@ public class AgentSession {
      * @param value The context value.
      */
     public void put(String key, Object value) {
-        context.put(key, value);
+        Object old = context.put(key, value);
+        long delta = entrySize(key, value) - (old != null ? entrySize(key, old) : 0);
+        if (delta != 0) {
+            contextBytes.addAndGet(delta);
+            LongConsumer listener = sizeListener;
+            if (listener != null) {
+                listener.accept(delta);
+            }
+        }
     }
 
     /**
@@ -89,4 +112,34 @@ public class AgentSession {
     public Map<String, Object> getContextMap() {
         return context;
     }
+
+    /**
+     * Estimates the memory held by this session: chat messages at 2 bytes per
+     * character, plus context entries written through {@link #put}. Changes
+     * made directly on {@link #getContextMap()} are not counted.
+     *
+     * @return The estimated size in bytes.
+     */
+    public long getEstimatedBytes() {
+        return chatMemory.getEstimatedBytes() + contextBytes.get();
+    }
+
+    /**
+     * Sets a listener that receives every change of
+     * {@link #getEstimatedBytes()} as it happens. Pass null to remove it.
+     */
+    public void setSizeListener(LongConsumer sizeListener) {
+        this.sizeListener = sizeListener;
+        chatMemory.setSizeListener(sizeListener);
+    }
+
+    private static long entrySize(String key, Object value) {
+        long size = key != null ? key.length() * 2L : 0;
+        if (value instanceof String s) {
+            size += s.length() * 2L;
+        } else if (value != null) {
+            size += 128; // Constant overhead for other objects
+        }
+        return size;
+    }
 }
@@ -1,27 +1,49 @@
 package com.reveila.ai;
 
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.reveila.system.SystemComponent;
 
 /**
  * Phase 5: Stateful Context Persistence.
  * Manages agent sessions and histories with automated size-based eviction.
- * 
+ *
  * Refactored to enforce ai.optimization.history limits as per ADR 0014.
- * 
+ * <p>
+ * Lookups go to a concurrent map and never block. Each session reports the
+ * change in its estimated size as messages and context entries come and go,
+ * so the running total is kept up to date without re-measuring anything.
+ * When the total exceeds the budget, sessions are evicted by a W-TinyLFU
+ * policy: new sessions enter a small LRU window, and a session leaving the
+ * window only displaces a main-region session if it has been used more often
+ * recently, which keeps busy conversations resident through bursts of one-off
+ * sessions.
+ *
  * @author CL
  */
 public class AgentSessionManager extends SystemComponent {
-    
-    // Using synchronized LinkedHashMap for basic LRU eviction support
-    private final Map<String, AgentSession> sessionStore = Collections.synchronizedMap(
-        new LinkedHashMap<String, AgentSession>(16, 0.75f, true)
-    );
-    
+
+    // Share of sessions kept in the admission window, and of the main region
+    // kept in its protected segment, as in W-TinyLFU
+    private static final double WINDOW_SHARE = 0.01;
+    private static final double PROTECTED_SHARE = 0.8;
+
+    private final Map<String, Node> sessionStore = new ConcurrentHashMap<>();
+    private final LongAdder totalBytes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Eviction policy state, guarded by policyLock
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final LinkedHashMap<String, Node> window = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Node> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Node> protectedRegion = new LinkedHashMap<>();
+    private final FrequencySketch sketch = new FrequencySketch(1024);
+
     private long maxHistorySizeBytes = Long.MAX_VALUE;
 
     @Override
@@ -46,7 +68,23 @@ public class AgentSessionManager extends SystemComponent {
 
     @Override
     protected void onStop() throws Exception {
-        sessionStore.clear();
+        policyLock.lock();
+        try {
+            for (Node node : sessionStore.values()) {
+                detach(node);
+            }
+            sessionStore.clear();
+            window.clear();
+            probation.clear();
+            protectedRegion.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public void setMaxHistorySizeBytes(long maxHistorySizeBytes) {
+        this.maxHistorySizeBytes = maxHistorySizeBytes;
+        evictIfNeeded(null);
     }
 
     /**
@@ -56,67 +94,191 @@ public class AgentSessionManager extends SystemComponent {
      * @param session The AgentSession instance.
      */
     public void saveSession(String id, AgentSession session) {
-        long newSessionSize = estimateSessionSize(session);
-        
-        synchronized (sessionStore) {
-            long currentTotalSize = calculateTotalSize();
-            
-            // Evict oldest sessions until we are within the limit
-            while (currentTotalSize + newSessionSize > maxHistorySizeBytes && !sessionStore.isEmpty()) {
-                String oldestId = sessionStore.keySet().iterator().next();
-                AgentSession removed = sessionStore.remove(oldestId);
-                if (removed != null) {
-                    currentTotalSize -= estimateSessionSize(removed);
-                    if (this.logger != null) {
-                        this.logger.info("Evicted session " + oldestId + " to respect history size limit.");
-                    }
+        policyLock.lock();
+        try {
+            Node existing = sessionStore.get(id);
+            if (existing != null && existing.session == session) {
+                recordAccess(existing);
+            } else {
+                if (existing != null) {
+                    removeNode(existing);
                 }
+                Node node = new Node(id, session);
+                sessionStore.put(id, node);
+                window.put(id, node);
+                sketch.increment(id);
+                node.attach();
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        evictIfNeeded(id);
+
+        policyLock.lock();
+        try {
+            // Within budget, sessions leaving the window enter the main region freely
+            int windowMax = Math.max(1, (int) (sessionStore.size() * WINDOW_SHARE));
+            Iterator<Node> it = window.values().iterator();
+            while (window.size() > windowMax && it.hasNext()) {
+                Node node = it.next();
+                it.remove();
+                probation.put(node.id, node);
             }
-            sessionStore.put(id, session);
+        } finally {
+            policyLock.unlock();
         }
     }
 
     public AgentSession getSession(String id) {
-        return sessionStore.get(id);
+        Node node = sessionStore.get(id);
+        if (node == null) {
+            return null;
+        }
+        // Recording the access is best effort; a busy policy lock is skipped
+        // rather than waited for, so readers never queue up behind eviction
+        if (policyLock.tryLock()) {
+            try {
+                if (!node.removed) {
+                    recordAccess(node);
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+        return node.session;
     }
 
     public void clear(String id) {
-        sessionStore.remove(id);
+        policyLock.lock();
+        try {
+            Node node = sessionStore.get(id);
+            if (node != null) {
+                removeNode(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
     }
 
-    private long calculateTotalSize() {
-        return sessionStore.values().stream()
-                .mapToLong(this::estimateSessionSize)
-                .sum();
+    /**
+     * @return The estimated size of all sessions held, in bytes.
+     */
+    public long getTotalSizeBytes() {
+        return totalBytes.sum();
+    }
+
+    public int getSessionCount() {
+        return sessionStore.size();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void recordAccess(Node node) {
+        sketch.increment(node.id);
+        if (window.containsKey(node.id)) {
+            window.remove(node.id);
+            window.put(node.id, node);
+        } else if (probation.remove(node.id) != null) {
+            protectedRegion.put(node.id, node);
+            demoteProtectedOverflow();
+        } else if (protectedRegion.remove(node.id) != null) {
+            protectedRegion.put(node.id, node);
+        }
+    }
+
+    private void demoteProtectedOverflow() {
+        int mainSize = probation.size() + protectedRegion.size();
+        int protectedMax = Math.max(1, (int) (mainSize * PROTECTED_SHARE));
+        Iterator<Node> it = protectedRegion.values().iterator();
+        while (protectedRegion.size() > protectedMax && it.hasNext()) {
+            Node node = it.next();
+            it.remove();
+            probation.put(node.id, node);
+        }
     }
 
     /**
-     * Estimates the memory footprint of a session based on message content.
-     * 1 character is estimated as 2 bytes.
+     * Evicts sessions until the total is within budget. The session being
+     * saved is never evicted, so a single oversized session is still kept.
      */
-    private long estimateSessionSize(AgentSession session) {
-        if (session == null) return 0;
-        
-        long size = 0;
-        // 1. Messages size
-        if (session.getChatMemory() != null) {
-            for (ReveilaMessage msg : session.getChatMemory().messages()) {
-                String text = msg.content();
-                if (text != null) {
-                    size += text.length() * 2L;
+    private void evictIfNeeded(String keep) {
+        if (totalBytes.sum() <= maxHistorySizeBytes) {
+            return;
+        }
+        policyLock.lock();
+        try {
+            while (totalBytes.sum() > maxHistorySizeBytes) {
+                int windowMax = Math.max(1, (int) (sessionStore.size() * WINDOW_SHARE));
+                Node candidate = window.size() > windowMax ? eldest(window, keep) : null;
+                Node victim = eldest(probation, keep);
+                if (victim == null) {
+                    victim = eldest(protectedRegion, keep);
+                }
+
+                Node evict;
+                if (candidate != null && victim != null) {
+                    // TinyLFU admission: the window's eldest only enters the
+                    // main region if it is used more often than the main
+                    // region's eldest
+                    if (sketch.frequency(candidate.id) > sketch.frequency(victim.id)) {
+                        window.remove(candidate.id);
+                        probation.put(candidate.id, candidate);
+                        evict = victim;
+                    } else {
+                        evict = candidate;
+                    }
+                } else if (victim != null) {
+                    evict = victim;
+                } else if (candidate != null) {
+                    evict = candidate;
+                } else {
+                    evict = eldest(window, keep);
+                }
+
+                if (evict == null) {
+                    break;
+                }
+                removeNode(evict);
+                evictions.increment();
+                if (this.logger != null) {
+                    this.logger.info("Evicted session " + evict.id + " to respect history size limit.");
                 }
             }
+        } finally {
+            policyLock.unlock();
         }
-        // 2. Context map size
-        for (Map.Entry<String, Object> entry : session.getContextMap().entrySet()) {
-            size += entry.getKey().length() * 2L;
-            if (entry.getValue() instanceof String s) {
-                size += s.length() * 2L;
-            } else {
-                size += 128; // Constant overhead for other objects
+    }
+
+    private static Node eldest(LinkedHashMap<String, Node> region, String keep) {
+        for (Node node : region.values()) {
+            if (!node.id.equals(keep)) {
+                return node;
             }
         }
-        return size;
+        return null;
+    }
+
+    private void removeNode(Node node) {
+        sessionStore.remove(node.id, node);
+        if (window.remove(node.id, node) || probation.remove(node.id, node)) {
+            // Removed
+        } else {
+            protectedRegion.remove(node.id, node);
+        }
+        detach(node);
+    }
+
+    private void detach(Node node) {
+        synchronized (node) {
+            if (node.removed) {
+                return;
+            }
+            node.removed = true;
+            node.session.setSizeListener(null);
+            totalBytes.add(-node.bytes);
+        }
     }
 
     /**
@@ -137,4 +299,105 @@ public class AgentSessionManager extends SystemComponent {
         AgentSession session = getSession(traceId);
         return session != null ? session.getContextMap() : new ConcurrentHashMap<>();
     }
+
+    /**
+     * A stored session together with the bytes it currently contributes to
+     * the total.
+     */
+    private final class Node {
+        private final String id;
+        private final AgentSession session;
+        private long bytes;
+        private boolean removed;
+
+        Node(String id, AgentSession session) {
+            this.id = id;
+            this.session = session;
+        }
+
+        void attach() {
+            session.setSizeListener(this::onResize);
+            resync();
+        }
+
+        /**
+         * The reported delta only signals a change: the session's size is
+         * re-read instead, so a change that lands while {@link #attach()} takes
+         * its snapshot is not counted twice.
+         */
+        private void onResize(long delta) {
+            if (resync() > 0) {
+                evictIfNeeded(id);
+            }
+        }
+
+        private synchronized long resync() {
+            if (removed) {
+                return 0;
+            }
+            long current = session.getEstimatedBytes();
+            long change = current - bytes;
+            bytes = current;
+            totalBytes.add(change);
+            return change;
+        }
+    }
+
+    /**
+     * Count-min sketch of recent access frequencies with 4-bit-style
+     * saturation and periodic halving, so old popularity fades.
+     */
+    static final class FrequencySketch {
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+        private final int[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int width) {
+            int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+            this.table = new int[SEEDS.length][size];
+            this.mask = size - 1;
+            this.sampleSize = 10 * size;
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = index(hash, i);
+                if (table[i][index] < MAX_COUNT) {
+                    table[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int i = 0; i < SEEDS.length; i++) {
+                min = Math.min(min, table[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9E3779B1;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (int[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
 }
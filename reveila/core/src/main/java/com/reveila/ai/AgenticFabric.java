@@ -1,17 +1,27 @@
 package com.reveila.ai;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import javax.security.auth.Subject;
 
 import org.json.JSONObject;
 
 import com.reveila.error.LlmException;
+import com.reveila.safety.ReveilaKillSwitch;
 import com.reveila.system.Constants;
 import com.reveila.system.Plugin;
 import com.reveila.system.Proxy;
@@ -23,13 +33,35 @@ import com.reveila.util.json.JsonUtil;
 
 public class AgenticFabric extends SystemComponent {
 
+    private static final String NO_DOCUMENTS = "No relevant internal documents found.";
+
     private ManagedInvocation bridge;
     private AgentSessionManager sessionManager;
     private OrchestrationService orchestrationService;
     private MetadataRegistry metadataRegistry;
     private LlmProviderFactory llmFactory;
     private DynamicToolProvider toolProvider;
+    private ReveilaKillSwitch killSwitch;
+    private ToolCallScheduler toolScheduler;
+    private final Consumer<String> sessionCloser = this::releaseSession;
+    private HistorySummarizer summarizer;
+    private ExecutorService toolExecutor;
     private int aiLoopLimit = 5;
+    private int maxParallelToolCalls = 4;
+    private long defaultToolTimeoutMs = 30_000;
+    private long toolDeadlineGraceMs = 5_000;
+    private boolean retrievalCacheEnabled = true;
+    private double retrievalSimilarityThreshold = 0.9;
+    private long retrievalMaxAgeMs = 10 * 60 * 1000L;
+    private int summaryTokenThreshold = 3000;
+    private int summaryKeepRecent = 6;
+    private int maxConcurrentSummaries = 2;
+    private boolean contextPackingEnabled = true;
+    private double knowledgeTokenShare = 0.25;
+    private int maxCachedTokenCounts = 10_000;
+    private final Map<Tokenizer, ContextPacker> packers = new ConcurrentHashMap<>();
+    private volatile List<LlmTool> registryTools;
+    private volatile long registryToolsVersion = -1;
     private static boolean showReasoning = false;
 
     public AgenticFabric() {
@@ -44,6 +76,98 @@ public class AgenticFabric extends SystemComponent {
         this.aiLoopLimit = aiLoopLimit;
     }
 
+    /**
+     * Sets how many tool calls of one session may run at the same time.
+     */
+    public void setMaxParallelToolCalls(int maxParallelToolCalls) {
+        this.maxParallelToolCalls = maxParallelToolCalls;
+    }
+
+    /**
+     * Sets the deadline for tool calls whose plugin declares no execution
+     * limit in its security perimeter.
+     */
+    public void setDefaultToolTimeoutMs(long defaultToolTimeoutMs) {
+        this.defaultToolTimeoutMs = defaultToolTimeoutMs;
+    }
+
+    /**
+     * Sets the time added to a perimeter's execution limit before a tool call
+     * is abandoned, leaving room for sandbox start-up and result transfer.
+     */
+    public void setToolDeadlineGraceMs(long toolDeadlineGraceMs) {
+        this.toolDeadlineGraceMs = toolDeadlineGraceMs;
+    }
+
+    /**
+     * Enables reusing a session's tool and knowledge retrieval across turns
+     * while the query stays on topic.
+     */
+    public void setRetrievalCacheEnabled(boolean retrievalCacheEnabled) {
+        this.retrievalCacheEnabled = retrievalCacheEnabled;
+    }
+
+    /**
+     * Sets the cosine similarity between a query and the one the session's
+     * retrieval was made for, below which tools and documents are retrieved
+     * again.
+     */
+    public void setRetrievalSimilarityThreshold(double retrievalSimilarityThreshold) {
+        this.retrievalSimilarityThreshold = retrievalSimilarityThreshold;
+    }
+
+    /**
+     * Sets how long a session's retrieval results are reused at most.
+     */
+    public void setRetrievalMaxAgeMs(long retrievalMaxAgeMs) {
+        this.retrievalMaxAgeMs = retrievalMaxAgeMs;
+    }
+
+    /**
+     * Sets the estimated history size, in tokens, at which a session's
+     * history is summarised in the background when optimising for cost.
+     */
+    public void setSummaryTokenThreshold(int summaryTokenThreshold) {
+        this.summaryTokenThreshold = summaryTokenThreshold;
+    }
+
+    /**
+     * Sets how many of the latest messages are kept verbatim when a history
+     * is summarised.
+     */
+    public void setSummaryKeepRecent(int summaryKeepRecent) {
+        this.summaryKeepRecent = summaryKeepRecent;
+    }
+
+    public void setMaxConcurrentSummaries(int maxConcurrentSummaries) {
+        this.maxConcurrentSummaries = maxConcurrentSummaries;
+    }
+
+    /**
+     * Enables packing requests into the provider's context window by token
+     * count. Without it every message in the session memory is sent.
+     */
+    public void setContextPackingEnabled(boolean contextPackingEnabled) {
+        this.contextPackingEnabled = contextPackingEnabled;
+    }
+
+    /**
+     * Sets the largest share of the prompt budget retrieved documents may take.
+     */
+    public void setKnowledgeTokenShare(double knowledgeTokenShare) {
+        this.knowledgeTokenShare = knowledgeTokenShare;
+        packers.clear();
+    }
+
+    public void setMaxCachedTokenCounts(int maxCachedTokenCounts) {
+        this.maxCachedTokenCounts = maxCachedTokenCounts;
+        packers.clear();
+    }
+
+    public void setKillSwitch(ReveilaKillSwitch killSwitch) {
+        this.killSwitch = killSwitch;
+    }
+
     @Override
     public void onStart() throws Exception {
         showReasoning = context.getProperties().getProperty("ai.show.reasoning", "false").equalsIgnoreCase("true");
@@ -100,6 +224,85 @@ public class AgenticFabric extends SystemComponent {
         } catch (IllegalArgumentException e) {
             // Optional for now
         }
+
+        // Queries are embedded through the factory's shared batching and cache
+        String embedder = context.getProperties().getProperty("ai.tool.embedding");
+        if (toolProvider != null && llmFactory != null && embedder != null && !embedder.isBlank()) {
+            ReveilaEmbeddingModel model = llmFactory.getEmbeddingModel(embedder);
+            if (model != null) {
+                toolProvider.setEmbeddingModel(model);
+            } else if (logger != null) {
+                logger.warning("Component '" + embedder + "' is not a ReveilaEmbeddingModel; tool queries are embedded without batching.");
+            }
+        }
+        if (toolProvider != null && toolProvider.getEmbeddingModel() == null) {
+            // Configured as a component but nothing to embed with: offer every registry tool
+            if (logger != null) {
+                logger.warning("DynamicToolProvider has no embedding model; set ai.tool.embedding to enable tool retrieval.");
+            }
+            this.toolProvider = null;
+        }
+
+        if (killSwitch == null) {
+            try {
+                Proxy p = context.getProxy("KillSwitch");
+                if (p instanceof SystemProxy sp && sp.getInstance() instanceof ReveilaKillSwitch ks) {
+                    this.killSwitch = ks;
+                }
+            } catch (IllegalArgumentException e) {
+                // Optional
+            }
+        }
+
+        // Not the platform job pool: it is small on some platforms and also runs
+        // start-up and scheduled jobs, which tool calls must not starve
+        ExecutorService executor = newToolExecutor();
+        this.toolExecutor = executor;
+        this.toolScheduler = new ToolCallScheduler(executor, maxParallelToolCalls);
+        if (orchestrationService != null) {
+            orchestrationService.addCloseListener(sessionCloser);
+        }
+        this.summarizer = new HistorySummarizer(executor, maxConcurrentSummaries);
+        summarizer.setTokenThreshold(summaryTokenThreshold);
+        summarizer.setKeepRecent(summaryKeepRecent);
+    }
+
+    /**
+     * @return A virtual thread per task where the runtime has them (Java 21+),
+     *         otherwise a cached pool of daemon threads.
+     */
+    private static ExecutorService newToolExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "Tool Call - " + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Cancels the tool calls currently running for a session. The agent loop
+     * of that session stops with a failure instead of asking the model again.
+     */
+    public void cancelToolCalls(String sessionId) {
+        if (toolScheduler != null) {
+            toolScheduler.cancel(sessionId);
+        }
+    }
+
+    /**
+     * Drops the tool call state held for a session. Called when a turn ends
+     * and when the session is closed.
+     */
+    private void releaseSession(String sessionId) {
+        ToolCallScheduler scheduler = toolScheduler;
+        if (scheduler != null) {
+            scheduler.release(sessionId);
+        }
     }
 
     /**
@@ -112,6 +315,18 @@ public class AgenticFabric extends SystemComponent {
      * @return A JSON object containing the result and the session id.
      */
     public JSONObject askAgent(String userIntent, String sessionId, String systemPrompt) {
+        return askAgent(userIntent, sessionId, systemPrompt, null);
+    }
+
+    /**
+     * Streaming variant of {@link #askAgent(String, String, String)}. Model
+     * output is forwarded to the listener token by token for every reasoning
+     * step while the final answer is still assembled as usual.
+     *
+     * @param listener Receives LLM chunks as they are generated; may be null.
+     */
+    public JSONObject askAgent(String userIntent, String sessionId, String systemPrompt,
+            Consumer<LlmChunk> listener) {
 
         if (sessionId == null || sessionId.isBlank()) {
             sessionId = java.util.UUID.randomUUID().toString();
@@ -130,7 +345,7 @@ public class AgenticFabric extends SystemComponent {
         Subject subject = new Subject();
         subject.getPrincipals().add(principal);
 
-        JSONObject jsonResponse = processIntent(session, subject, userIntent);
+        JSONObject jsonResponse = processIntent(session, subject, userIntent, listener);
         String interpretation = interpretAiResponse(jsonResponse);
         JSONObject uiResponse = new JSONObject();
         uiResponse.put("answer", interpretation);
@@ -256,11 +471,36 @@ public class AgenticFabric extends SystemComponent {
     }
 
     public JSONObject processIntent(AgentSession session, Subject subject, String intent) {
+        return processIntent(session, subject, intent, null);
+    }
+
+    /**
+     * Runs the agent loop for an intent, streaming each LLM response to the
+     * listener as it is generated.
+     *
+     * @param listener Receives LLM chunks as they are generated; may be null.
+     */
+    public JSONObject processIntent(AgentSession session, Subject subject, String intent,
+            Consumer<LlmChunk> listener) {
 
         Objects.requireNonNull(session, "AgentSession cannot be null.");
         Objects.requireNonNull(subject, "Subject cannot be null.");
         Objects.requireNonNull(intent, "Intent cannot be null.");
 
+        try {
+            return runAgentLoop(session, subject, intent, listener);
+        } catch (CancellationException e) {
+            recordAuditLog("CANCELLED", e.getMessage());
+            return buildErrorResponse("The request was cancelled: " + e.getMessage());
+        } finally {
+            // The turn is over; nothing of it needs scheduler state any more
+            releaseSession(session.getSessionId());
+        }
+    }
+
+    private JSONObject runAgentLoop(AgentSession session, Subject subject, String intent,
+            Consumer<LlmChunk> listener) {
+
         if (logger != null) {
             logger.info("Processing intent: " + intent);
         }
@@ -291,11 +531,14 @@ public class AgenticFabric extends SystemComponent {
         }
 
         String intentBuffer = intent;
+        if (toolScheduler != null) {
+            toolScheduler.reset(session.getSessionId());
+        }
 
         // Step 1: Execute initial LLM reasoning
         String response = null;
         try {
-            response = askAi(session, intentBuffer);
+            response = askAi(session, intentBuffer, intent, listener);
         } catch (LlmException e) {
             response = "ERROR: Failed to get response from LLM: " + e.getMessage();
             if (logger != null) {
@@ -314,7 +557,7 @@ public class AgenticFabric extends SystemComponent {
             if (validator.getMessage(response) == null) {
                 intentBuffer = "Invalid response from AI: " + response;
                 try {
-                    response = askAi(session, intentBuffer);
+                    response = askAi(session, intentBuffer, intent, listener);
                     continue;
                 } catch (LlmException e) {
                     response = "ERROR: Failed to get response from LLM: " + e.getMessage();
@@ -357,14 +600,17 @@ public class AgenticFabric extends SystemComponent {
                         } else {
                             StringBuilder toolResults = new StringBuilder();
                             if (toolCallObj instanceof org.json.JSONArray toolCallArray) {
+                                List<JSONObject> calls = new ArrayList<>(toolCallArray.length());
                                 for (int i = 0; i < toolCallArray.length(); i++) {
-                                    JSONObject singleToolCall = toolCallArray.getJSONObject(i);
-                                    String result = handleToolCall(session, singleToolCall, response);
-                                    toolResults.append("\n- Tool: ").append(singleToolCall.optString("method"))
-                                            .append("\n  Result: ").append(result);
+                                    calls.add(toolCallArray.getJSONObject(i));
+                                }
+                                List<String> results = handleToolCalls(session, calls, response);
+                                for (int i = 0; i < calls.size(); i++) {
+                                    toolResults.append("\n- Tool: ").append(calls.get(i).optString("method"))
+                                            .append("\n  Result: ").append(results.get(i));
                                 }
                             } else if (toolCallObj instanceof JSONObject singleToolCall) {
-                                String result = handleToolCall(session, singleToolCall, response);
+                                String result = handleToolCalls(session, List.of(singleToolCall), response).get(0);
                                 toolResults.append(result);
                             }
 
@@ -375,6 +621,9 @@ public class AgenticFabric extends SystemComponent {
                                     + " | Please analyze this information and provide the next step or final answer.";
                             recordAuditLog("TOOL_CALLED", "Called tools: " + toolCallObj.toString());
                         }
+                    } catch (CancellationException e) {
+                        recordAuditLog("TOOL_CALL_CANCELLED", e.getMessage());
+                        return buildErrorResponse("Tool execution was cancelled: " + e.getMessage());
                     } catch (Exception e) {
                         intentBuffer = "The AI requested a tool call, but the call could not be completed: "
                                 + e.getMessage()
@@ -388,7 +637,7 @@ public class AgenticFabric extends SystemComponent {
                 }
 
                 try {
-                    response = askAi(session, intentBuffer);
+                    response = askAi(session, intentBuffer, intent, listener);
                 } catch (LlmException e) {
                     response = "ERROR: Failed to get response from LLM: " + e.getMessage();
                     if (logger != null) {
@@ -396,6 +645,8 @@ public class AgenticFabric extends SystemComponent {
                     }
                     return buildErrorResponse(response);
                 }
+            } catch (CancellationException e) {
+                throw e;
             } catch (Throwable t) {
                 intentBuffer = "Exception occurred while processing response: "
                         + (t.getMessage() != null && !t.getMessage().isBlank() ? t.getMessage() : t.toString())
@@ -403,7 +654,7 @@ public class AgenticFabric extends SystemComponent {
                         + "\nOriginal response: " + response;
                 recordAuditLog("EXCEPTION", t.getMessage());
                 try {
-                    response = askAi(session, intentBuffer);
+                    response = askAi(session, intentBuffer, intent, listener);
                 } catch (LlmException e) {
                     response = "ERROR: Failed to get response from LLM: " + e.getMessage();
                     if (logger != null) {
@@ -419,7 +670,78 @@ public class AgenticFabric extends SystemComponent {
                         + " iteration(s).");
     }
 
-    private String handleToolCall(AgentSession session, JSONObject toolCallObj, String intent) throws Exception {
+    /**
+     * Executes the tool calls of one turn. The calls run concurrently, each
+     * bounded by its plugin's execution limit, and every outcome is recorded
+     * in chat memory in the order the model gave them, failures included. Only
+     * then does the first call that did not succeed end the turn with its
+     * exception, so the model still sees what the other calls did.
+     *
+     * @return The result text of every call, in order.
+     * @throws CancellationException If the session was killed or cancelled.
+     */
+    private List<String> handleToolCalls(AgentSession session, List<JSONObject> toolCallObjs, String intent)
+            throws Exception {
+
+        String sessionId = session.getSessionId();
+        List<ToolCallScheduler.Call<InvocationResult>> calls = new ArrayList<>(toolCallObjs.size());
+        for (JSONObject toolCallObj : toolCallObjs) {
+            PreparedCall prepared = prepareToolCall(session, toolCallObj);
+            calls.add(new ToolCallScheduler.Call<>(
+                    () -> bridge.invoke(prepared.toolCall(), prepared.perimeter(), intent, prepared.bridgeArgs()),
+                    deadlineMs(prepared.perimeter())));
+        }
+
+        List<ToolCallScheduler.Outcome<InvocationResult>> outcomes = toolScheduler.runAll(sessionId, calls,
+                () -> killSwitch != null && !killSwitch.isAuthorized(sessionId));
+
+        List<String> results = new ArrayList<>(outcomes.size());
+        Exception failure = null;
+        for (ToolCallScheduler.Outcome<InvocationResult> outcome : outcomes) {
+            Throwable error = outcome.error();
+            Exception e;
+            if (error == null) {
+                try {
+                    results.add(applyToolResult(session, outcome.value()));
+                    continue;
+                } catch (com.reveila.error.SecurityException approval) {
+                    // Already noted in memory as awaiting approval
+                    results.add(null);
+                    failure = firstFailure(failure, approval);
+                    continue;
+                } catch (Exception ex) {
+                    e = ex;
+                }
+            } else if (error instanceof TimeoutException) {
+                e = new RuntimeException("Tool execution failed: " + error.getMessage(), error);
+            } else if (error instanceof Exception ex) {
+                e = ex;
+            } else {
+                e = new RuntimeException("Tool execution failed: " + error, error);
+            }
+            session.getChatMemory().add(ReveilaMessage.tool("The tool call failed: "
+                    + (e.getMessage() != null && !e.getMessage().isBlank() ? e.getMessage() : e.toString())));
+            results.add(null);
+            failure = firstFailure(failure, e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    // A cancellation stops the loop, so it wins over any other failure
+    private static Exception firstFailure(Exception current, Exception next) {
+        if (current == null || (next instanceof CancellationException && !(current instanceof CancellationException))) {
+            return next;
+        }
+        return current;
+    }
+
+    private record PreparedCall(ToolCall toolCall, SecurityPerimeter perimeter, Map<String, Object> bridgeArgs) {
+    }
+
+    private PreparedCall prepareToolCall(AgentSession session, JSONObject toolCallObj) {
 
         Map<String, Object> bridgeArgs = new HashMap<>();
         bridgeArgs.put(AgentSession.ID, session.getSessionId());
@@ -449,7 +771,6 @@ public class AgenticFabric extends SystemComponent {
 
         bridgeArgs.put("arguments", toolCall.getArguments());
 
-        // Invoke the tool via the bridge and capture the output
         // The bridge performs parsing, security audit, and tool execution
         SecurityPerimeter activePerimeter = null;
         MetadataRegistry.PluginManifest manifest = metadataRegistry.getManifest(pluginId);
@@ -457,7 +778,21 @@ public class AgenticFabric extends SystemComponent {
             activePerimeter = manifest.defaultPerimeter();
         }
 
-        InvocationResult result = bridge.invoke(toolCall, activePerimeter, intent, bridgeArgs);
+        return new PreparedCall(toolCall, activePerimeter, bridgeArgs);
+    }
+
+    private long deadlineMs(SecurityPerimeter perimeter) {
+        if (perimeter != null && perimeter.maxExecutionSec() > 0) {
+            return perimeter.maxExecutionSec() * 1000L + toolDeadlineGraceMs;
+        }
+        return defaultToolTimeoutMs;
+    }
+
+    /**
+     * Records a tool's result in chat memory. Runs on the loop's thread, one
+     * result at a time, so the memory sees a deterministic order.
+     */
+    private String applyToolResult(AgentSession session, InvocationResult result) throws Exception {
 
         if (result.status() == InvocationResult.Status.SUCCESS) {
             // Step 4: Capture tool output and feed it back for the next reasoning iteration
@@ -487,10 +822,15 @@ public class AgenticFabric extends SystemComponent {
 
     /**
      * Internal call to the LLM Provider to get a single reasoning response.
+     * When a listener is given, the response is streamed to it as well.
+     * Tools and documents are retrieved for the retrieval query, which stays
+     * the user's intent while the AI loop feeds back tool results.
      * 
      * @throws LlmException
+     * @throws CancellationException If the listener stopped taking the stream.
      */
-    private String askAi(AgentSession session, String userPrompt) throws LlmException {
+    private String askAi(AgentSession session, String userPrompt, String retrievalQuery,
+            Consumer<LlmChunk> listener) throws LlmException {
 
         LlmProvider worker = llmFactory.getActiveProvider();
         if (worker == null) {
@@ -501,68 +841,78 @@ public class AgenticFabric extends SystemComponent {
         }
 
         // Tool RAG Implementation:
-        // Uses DynamicToolProvider to semantic search and rerank tools.
+        // Uses DynamicToolProvider to semantic search and rerank tools. The
+        // session reuses earlier results while the query embedding stays close.
+        // The AI loop repeats the same query, which the text check catches before embedding it.
+        RetrievalContext retrieval = session.getRetrievalContext();
+        long registryVersion = metadataRegistry.getVersion();
+        float[] queryVector = null;
+        boolean reuse = retrievalCacheEnabled && retrieval.matches(retrievalQuery, null, registryVersion,
+                retrievalSimilarityThreshold, retrievalMaxAgeMs);
+        if (!reuse) {
+            queryVector = embedQuery(retrievalQuery);
+            reuse = retrievalCacheEnabled && queryVector != null && retrieval.matches(retrievalQuery, queryVector,
+                    registryVersion, retrievalSimilarityThreshold, retrievalMaxAgeMs);
+        }
         java.util.List<LlmTool> tools;
-        if (toolProvider != null) {
-            tools = toolProvider.provideTools(userPrompt);
+        String knowledge;
+        if (reuse) {
+            tools = retrieval.getTools();
+            knowledge = retrieval.getKnowledge();
         } else {
-            // Fallback to manual mapping from full registry (legacy)
-            Map<String, Object> mcpData = metadataRegistry.exportToMCP();
-            @SuppressWarnings("unchecked")
-            java.util.List<Map<String, Object>> mcpTools = (java.util.List<Map<String, Object>>) mcpData.get("tools");
-            tools = new java.util.ArrayList<>();
-            if (mcpTools != null) {
-                for (Map<String, Object> toolMap : mcpTools) {
-                    LlmTool tool = new LlmTool();
-                    tool.setName((String) toolMap.get("name"));
-                    tool.setDescription((String) toolMap.get("description"));
-                    Object inputSchema = toolMap.get("inputSchema");
-                    if (inputSchema instanceof Map) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> schemaMap = (Map<String, Object>) inputSchema;
-                        tool.setParameterSchema(schemaMap);
-                    }
-                    tools.add(tool);
-                }
+            if (toolProvider != null) {
+                tools = queryVector != null
+                        ? toolProvider.provideTools(retrievalQuery, queryVector)
+                        : toolProvider.provideTools(retrievalQuery);
+            } else {
+                tools = getRegistryTools(registryVersion);
+            }
+            knowledge = searchKnowledgeVault(retrievalQuery);
+            if (knowledge != null) {
+                retrieval.update(retrievalQuery, queryVector, registryVersion, tools, knowledge);
+            } else {
+                // A failed lookup is not worth keeping; the next turn searches again
+                knowledge = NO_DOCUMENTS;
             }
         }
 
-        // Generate the dynamic system instruction
-        String systemInstructions = Prompt.getSystemPrompt(
-                "Reveila AI Agent",
-                "Available Tools: "
-                        + tools.stream().map(LlmTool::getName).collect(java.util.stream.Collectors.joining(", "))
-                        + "\n\n" +
-                        "Related Documents: " + searchKnowledgeVault(userPrompt),
-                "");
-
         // Optimization: Context Window Management (Summary Strategy)
-        if ("cost".equalsIgnoreCase(orchestrationService.getOptimizationPriority())) {
-            int historySize = session.getChatMemory().messages().size();
-            if (historySize > 10) {
-
-                String historyDump = session.getChatMemory().messages().toString();
-
-                LlmRequest summaryRequest = LlmRequest.builder()
-                        .addMessage(ReveilaMessage.system("System"))
-                        .addMessage(ReveilaMessage
-                                .user("Summarize the following chat history for context preservation: " + historyDump))
-                        .build();
-
-                String summary;
-                try {
-                    summary = worker.invoke(summaryRequest).getContent();
-                } catch (Exception e) {
-                    summary = "ERROR summarising context: " + e.getMessage();
-                }
-
-                session.getChatMemory().clear();
-                session.getChatMemory().add(ReveilaMessage.system("Summary of previous conversation: " + summary));
-            }
+        // Long histories are summarised in the background; this turn sends the history as it is
+        if (summarizer != null && "cost".equalsIgnoreCase(orchestrationService.getOptimizationPriority())) {
+            summarizer.maybeSummarize(session.getChatMemory(), worker);
         }
 
         // Maintain the chain of thought in the session chat memory
         session.getChatMemory().add(ReveilaMessage.user(userPrompt));
+        java.util.List<ReveilaMessage> history = session.getChatMemory().messages();
+
+        // Optimization: Context Window Management (Token Budget)
+        // Tools, documents and history are packed by priority into the provider's window
+        int budget = worker.getContextWindow() - worker.getMaxOutputTokens();
+        if (contextPackingEnabled && worker.getContextWindow() > 0) {
+            ContextPacker.Packed packed = getContextPacker(worker.getTokenizer()).pack(budget,
+                    Prompt.getSystemPrompt("Reveila AI Agent", "Available Tools: \n\nRelated Documents: ", ""),
+                    tools, knowledge, history);
+            if (packed.dropped() && logger != null) {
+                logger.fine("Packed request for [" + worker.getName() + "] into " + packed.tokens() + " of "
+                        + budget + " tokens: " + packed.tools().size() + "/" + tools.size() + " tools, "
+                        + packed.history().size() + "/" + history.size() + " messages.");
+            }
+            tools = packed.tools();
+            knowledge = packed.knowledge();
+            history = packed.history();
+        }
+
+        // Generate the dynamic system instruction, rebuilt only when its segments change
+        String segments = "Available Tools: "
+                + tools.stream().map(LlmTool::getName).collect(java.util.stream.Collectors.joining(", "))
+                + "\n\n" +
+                "Related Documents: " + knowledge;
+        String systemInstructions = retrieval.getSystemPrompt(segments);
+        if (systemInstructions == null) {
+            systemInstructions = Prompt.getSystemPrompt("Reveila AI Agent", segments, "");
+            retrieval.setSystemPrompt(segments, systemInstructions);
+        }
 
         LlmRequest.Builder requestBuilder = LlmRequest.builder()
                 .tools(tools);
@@ -575,7 +925,7 @@ public class AgenticFabric extends SystemComponent {
             logger.info("System Prompt used for request: " + systemInstructions);
         }
 
-        for (ReveilaMessage msg : session.getChatMemory().messages()) {
+        for (ReveilaMessage msg : history) {
             requestBuilder.addMessage(msg);
         }
 
@@ -586,10 +936,15 @@ public class AgenticFabric extends SystemComponent {
             if (debug && logger != null) {
                 logger.info("Invoking LLM provider [" + worker.getName() + "] with prompt: " + request.toString());
             }
-            response = worker.invoke(request).getContent();
+            response = listener != null
+                    ? worker.invokeStreaming(request, listener).getContent()
+                    : worker.invoke(request).getContent();
             if (debug && logger != null) {
                 logger.info("Received response from LLM provider [" + worker.getName() + "]: " + response);
             }
+        } catch (CancellationException e) {
+            // The caller went away; there is nobody to answer
+            throw e;
         } catch (Exception e) {
             ExceptionCollection ec = new ExceptionCollection();
             ec.addException(e);
@@ -614,11 +969,75 @@ public class AgenticFabric extends SystemComponent {
         return response;
     }
 
+    /**
+     * @return The query embedding used to detect topic drift, or null if no
+     *         embedding model is available.
+     */
+    private float[] embedQuery(String query) {
+        if (toolProvider == null) {
+            return null;
+        }
+        try {
+            return toolProvider.getEmbeddingModel().embed(query);
+        } catch (RuntimeException e) {
+            if (logger != null) {
+                logger.warning("Query embedding failed: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Fallback to manual mapping from full registry (legacy). The mapped tools
+     * are shared by all sessions until the registry changes.
+     */
+    private java.util.List<LlmTool> getRegistryTools(long registryVersion) {
+        java.util.List<LlmTool> cached = registryTools;
+        if (cached != null && registryToolsVersion == registryVersion) {
+            return cached;
+        }
+        Map<String, Object> mcpData = metadataRegistry.exportToMCP();
+        @SuppressWarnings("unchecked")
+        java.util.List<Map<String, Object>> mcpTools = (java.util.List<Map<String, Object>>) mcpData.get("tools");
+        java.util.List<LlmTool> tools = new java.util.ArrayList<>();
+        if (mcpTools != null) {
+            for (Map<String, Object> toolMap : mcpTools) {
+                LlmTool tool = new LlmTool();
+                tool.setName((String) toolMap.get("name"));
+                tool.setDescription((String) toolMap.get("description"));
+                Object inputSchema = toolMap.get("inputSchema");
+                if (inputSchema instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> schemaMap = (Map<String, Object>) inputSchema;
+                    tool.setParameterSchema(schemaMap);
+                }
+                tools.add(tool);
+            }
+        }
+        tools = java.util.List.copyOf(tools);
+        registryTools = tools;
+        registryToolsVersion = registryVersion;
+        return tools;
+    }
+
+    /**
+     * @return The packer for the tokenizer, whose cached counts are kept
+     *         across requests.
+     */
+    private ContextPacker getContextPacker(Tokenizer tokenizer) {
+        return packers.computeIfAbsent(tokenizer, t -> {
+            ContextPacker packer = new ContextPacker(t, maxCachedTokenCounts);
+            packer.setKnowledgeShare(knowledgeTokenShare);
+            return packer;
+        });
+    }
+
     /**
      * Semantic search for relevant documents in the Knowledge Vault.
      * 
      * @param query The user's message.
-     * @return A formatted string of relevant snippets.
+     * @return A formatted string of relevant snippets, or null if the search
+     *         failed.
      */
     private String searchKnowledgeVault(String query) {
         try {
@@ -626,7 +1045,7 @@ public class AgenticFabric extends SystemComponent {
             if (p != null) {
                 // KnowledgeVault component exists and has a search method
                 Object result = p.invoke("search", new Object[] { query, 3 });
-                String snippets = result != null ? result.toString() : "No relevant internal documents found.";
+                String snippets = result != null ? result.toString() : NO_DOCUMENTS;
                 if (debug && logger != null) {
                     logger.info("Knowledge Vault search result for [" + query + "]: " + snippets);
                 }
@@ -636,12 +1055,23 @@ public class AgenticFabric extends SystemComponent {
             if (logger != null) {
                 logger.warning("Knowledge Vault search failed: " + e.getMessage());
             }
+            return null;
         }
-        return "No relevant internal documents found.";
+        return NO_DOCUMENTS;
     }
 
     @Override
     protected void onStop() throws Exception {
+        if (orchestrationService != null) {
+            orchestrationService.removeCloseListener(sessionCloser);
+        }
+        if (toolExecutor != null) {
+            toolExecutor.shutdownNow();
+            toolExecutor = null;
+        }
+        toolScheduler = null;
+        summarizer = null;
+        packers.clear();
     }
 
     /**
@@ -1,9 +1,14 @@
 package com.reveila.ai;
 
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 import com.reveila.error.LlmException;
 import com.reveila.service.HttpClientService;
+import com.reveila.service.HttpEngine;
 import com.reveila.system.SystemComponent;
 import com.reveila.system.SystemProxy;
 
@@ -15,29 +20,50 @@ public abstract class BaseLlmProvider extends SystemComponent implements LlmProv
     protected String model;
     protected double temperature = 0.7;
     protected boolean enabled = true;
+    protected String httpProfile = "llm";
+    protected int contextWindow;
+    protected int maxOutputTokens;
+
+    // Pooled client of the shared HTTP engine, resolved once rather than per call
+    private volatile HttpEngine.Client httpClient;
 
     // Abstract methods to be implemented by specific providers
     protected abstract String buildRequestBody(LlmRequest request) throws LlmException;
     protected abstract LlmResponse parseResponse(String json) throws LlmException;
     protected abstract Map<String, String> getHeaders() throws LlmException;
 
+    /**
+     * Builds the request body for a streaming call. Providers that support
+     * streaming override this together with {@link #parseStreamLine(String)}.
+     *
+     * @return The body, or null if the provider cannot stream.
+     */
+    protected String buildStreamingRequestBody(LlmRequest request) throws LlmException {
+        return null;
+    }
+
+    /**
+     * Parses one line of a streaming response.
+     *
+     * @return The chunk carried by the line, or null if the line carries none
+     *         (blank lines, comments, keep-alives).
+     */
+    protected LlmChunk parseStreamLine(String line) throws LlmException {
+        return null;
+    }
+
     @Override
     protected void onStart() throws Exception {}
 
     @Override
-    protected void onStop() throws Exception {}
+    protected void onStop() throws Exception {
+        httpClient = null;
+    }
 
     @Override
     public LlmResponse invoke(LlmRequest request) throws com.reveila.error.LlmException {
         try {
-            HttpClientService httpService = getHttpClientService();
-            if (httpService == null) throw new com.reveila.error.LlmException("HttpClientService unavailable");
-
-            String url = getEndpoint();
-            String body = buildRequestBody(request);
-            Map<String, String> headers = getHeaders();
-
-            String responseJson = httpService.invokeRest(url, "POST", body, HttpClientService.JSON, headers);
+            String responseJson = getHttpClient().execute(buildHttpRequest(buildRequestBody(request)));
             return parseResponse(responseJson);
 
         } catch (Exception e) {
@@ -46,6 +72,95 @@ public abstract class BaseLlmProvider extends SystemComponent implements LlmProv
         }
     }
 
+    @Override
+    public CompletableFuture<LlmResponse> invokeAsync(LlmRequest request) {
+        try {
+            return getHttpClient().send(buildHttpRequest(buildRequestBody(request))).handle((responseJson, error) -> {
+                try {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause()
+                                : error;
+                        throw new LlmException(cause.getMessage(), cause);
+                    }
+                    return parseResponse(responseJson);
+                } catch (LlmException e) {
+                    logger.severe("Invoke failed for " + name + ": " + e.getMessage());
+                    throw new CompletionException(e);
+                }
+            });
+        } catch (Exception e) {
+            logger.severe("Invoke failed for " + name + ": " + e.getMessage());
+            return CompletableFuture.failedFuture(new LlmException(e.getMessage(), e));
+        }
+    }
+
+    private okhttp3.Request buildHttpRequest(String body) throws Exception {
+        return HttpEngine.newRequest(getEndpoint(), "POST", body, HttpClientService.JSON, getHeaders());
+    }
+
+    /**
+     * Streams the response to the consumer. A consumer that throws, e.g. the
+     * client of a server-sent event stream hung up, ends the call with a
+     * {@link CancellationException} rather than an {@link LlmException}: the
+     * model did nothing wrong and asking it again would not help.
+     */
+    @Override
+    public LlmResponse invokeStreaming(LlmRequest request, Consumer<LlmChunk> listener) throws LlmException {
+        Consumer<LlmChunk> consumer = chunk -> {
+            try {
+                listener.accept(chunk);
+            } catch (RuntimeException e) {
+                CancellationException gone = new CancellationException(
+                        "Stream listener stopped: " + (e.getMessage() != null ? e.getMessage() : e.toString()));
+                gone.initCause(e);
+                throw gone;
+            }
+        };
+        String body = buildStreamingRequestBody(request);
+        if (body == null) {
+            return LlmProvider.super.invokeStreaming(request, consumer);
+        }
+
+        try {
+            StringBuilder content = new StringBuilder();
+            String[] finishReason = new String[1];
+            boolean[] done = new boolean[1];
+
+            getHttpClient().stream(buildHttpRequest(body), line -> {
+                if (done[0]) return;
+                LlmChunk chunk;
+                try {
+                    chunk = parseStreamLine(line);
+                } catch (LlmException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+                if (chunk == null) return;
+                content.append(chunk.delta());
+                if (chunk.finishReason() != null) {
+                    finishReason[0] = chunk.finishReason();
+                }
+                if (!chunk.delta().isEmpty()) {
+                    consumer.accept(LlmChunk.of(chunk.delta()));
+                }
+                done[0] = chunk.done();
+            });
+
+            consumer.accept(LlmChunk.end(finishReason[0]));
+
+            LlmResponse response = new LlmResponse();
+            response.setContent(content.toString());
+            response.setFinishReason(finishReason[0]);
+            return response;
+
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.severe("Streaming invoke failed for " + name + ": " + e.getMessage());
+            throw new com.reveila.error.LlmException(e.getMessage(), e);
+        }
+    }
+
     protected String resolveApiKey() throws Exception {
         if (resolvedApiKey != null) return resolvedApiKey;
         if (apiKey != null && apiKey.startsWith("REF:")) {
@@ -57,6 +172,21 @@ public abstract class BaseLlmProvider extends SystemComponent implements LlmProv
         return resolvedApiKey;
     }
 
+    /**
+     * @return The pooled client of this provider's HTTP profile. The binding
+     *         is cached and renewed only when the profile is redefined.
+     */
+    protected HttpEngine.Client getHttpClient() throws LlmException {
+        HttpEngine.Client client = httpClient;
+        if (client == null || client.isRetired()) {
+            HttpClientService httpService = getHttpClientService();
+            if (httpService == null) throw new com.reveila.error.LlmException("HttpClientService unavailable");
+            client = httpService.getClient(httpProfile);
+            httpClient = client;
+        }
+        return client;
+    }
+
     protected HttpClientService getHttpClientService() {
         try {
             SystemProxy sp = context.getProxy("HttpClientService");
@@ -89,6 +219,29 @@ public abstract class BaseLlmProvider extends SystemComponent implements LlmProv
         if (temp < 0 || temp > 1) throw new IllegalArgumentException("Argument 'temp' must be between 0 and 1.");
         this.temperature = temp;
     }
+    /**
+     * Sets the HTTP engine profile (pool and dispatcher limits, retries,
+     * deadline) this provider sends its calls with.
+     */
+    public void setHttpProfile(String httpProfile) {
+        this.httpProfile = httpProfile;
+        this.httpClient = null;
+    }
+    @Override
+    public int getContextWindow() { return contextWindow; }
+    /**
+     * Sets the model's context window in tokens; 0 leaves requests unpacked.
+     */
+    public void setContextWindow(int contextWindow) {
+        if (contextWindow < 0) throw new IllegalArgumentException("Argument 'contextWindow' cannot be negative.");
+        this.contextWindow = contextWindow;
+    }
+    @Override
+    public int getMaxOutputTokens() { return maxOutputTokens; }
+    public void setMaxOutputTokens(int maxOutputTokens) {
+        if (maxOutputTokens < 0) throw new IllegalArgumentException("Argument 'maxOutputTokens' cannot be negative.");
+        this.maxOutputTokens = maxOutputTokens;
+    }
     public synchronized boolean isEnabled() { return enabled; }
     public synchronized void setEnabled(boolean enabled) { this.enabled = enabled; }
 }
\ No newline at end of file
@@ -0,0 +1,262 @@
+package com.reveila.ai;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Front end for an embedding model that coalesces concurrent requests.
+ * <p>
+ * Texts requested within a short window are sent to the delegate as one
+ * {@link ReveilaEmbeddingModel#embedAll(List)} call of up to
+ * {@code maxBatchSize} texts. The caller that opens a batch waits for the
+ * window to pass, or for the batch to fill, and then sends it on its own
+ * thread; other callers wait for their vectors. A text already waiting or in
+ * flight is not requested twice, and results are kept in an LRU cache keyed
+ * by the SHA-256 of the text.
+ *
+ * @author CL
+ */
+public class BatchingEmbeddingModel implements ReveilaEmbeddingModel {
+
+    private final ReveilaEmbeddingModel delegate;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchFull = lock.newCondition();
+    // Texts waiting in the open batch or sent to the delegate, guarded by lock
+    private final Map<String, CompletableFuture<float[]>> pending = new HashMap<>();
+    private Batch open;
+
+    private final Map<String, float[]> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+            return size() > maxCacheEntries;
+        }
+    };
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder embedded = new LongAdder();
+
+    private int maxBatchSize = 64;
+    private long windowNanos = TimeUnit.MILLISECONDS.toNanos(2);
+    private int maxCacheEntries = 10_000;
+
+    private static final class Batch {
+        private final LinkedHashMap<String, CompletableFuture<float[]>> items = new LinkedHashMap<>();
+    }
+
+    public BatchingEmbeddingModel(ReveilaEmbeddingModel delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+    }
+
+    public ReveilaEmbeddingModel getDelegate() {
+        return delegate;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Sets how long the first request of a batch waits for others to join.
+     * 0 sends every request at once, still coalescing duplicates in flight.
+     */
+    public void setWindowMicros(long windowMicros) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, windowMicros));
+    }
+
+    /**
+     * Sets the number of cached embeddings. 0 disables the cache.
+     */
+    public void setMaxCacheEntries(int maxCacheEntries) {
+        this.maxCacheEntries = Math.max(0, maxCacheEntries);
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return embedAll(List.of(text)).get(0);
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        Batch led = null;
+        for (String text : texts) {
+            requests.increment();
+            float[] cached = cached(text);
+            if (cached != null) {
+                cacheHits.increment();
+                futures.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+
+            Batch full = null;
+            CompletableFuture<float[]> future;
+            lock.lock();
+            try {
+                future = pending.get(text);
+                if (future != null) {
+                    coalesced.increment();
+                } else {
+                    if (open == null) {
+                        open = new Batch();
+                        led = open;
+                    }
+                    future = new CompletableFuture<>();
+                    open.items.put(text, future);
+                    pending.put(text, future);
+                    if (open.items.size() >= maxBatchSize) {
+                        full = open;
+                        open = null;
+                        batchFull.signalAll();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            futures.add(future);
+            if (full != null) {
+                send(full);
+            }
+        }
+
+        if (led != null) {
+            sendWhenDue(led);
+        }
+
+        List<float[]> vectors = new ArrayList<>(futures.size());
+        for (CompletableFuture<float[]> future : futures) {
+            try {
+                float[] vector = future.join();
+                vectors.add(vector != null ? vector.clone() : null);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return vectors;
+    }
+
+    /**
+     * @return Counts of requested texts, cache hits, requests joined to one
+     *         already pending, batches sent and texts embedded by the delegate.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.sum());
+        stats.put("cacheHits", cacheHits.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("batches", batches.sum());
+        stats.put("embedded", embedded.sum());
+        return stats;
+    }
+
+    private void sendWhenDue(Batch batch) {
+        boolean ours = false;
+        lock.lock();
+        try {
+            long remaining = windowNanos;
+            while (open == batch && remaining > 0) {
+                remaining = batchFull.awaitNanos(remaining);
+            }
+            if (open == batch) {
+                open = null;
+                ours = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (open == batch) {
+                open = null;
+                ours = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // A batch that filled up was sent by the caller that filled it
+        if (ours) {
+            send(batch);
+        }
+    }
+
+    private void send(Batch batch) {
+        List<String> texts = new ArrayList<>(batch.items.keySet());
+        batches.increment();
+        try {
+            List<float[]> vectors = delegate.embedAll(texts);
+            if (vectors == null || vectors.size() != texts.size()) {
+                throw new IllegalStateException("Embedding model returned " + (vectors == null ? 0 : vectors.size())
+                        + " vectors for " + texts.size() + " texts");
+            }
+            embedded.add(texts.size());
+            for (int i = 0; i < texts.size(); i++) {
+                remember(texts.get(i), vectors.get(i));
+                batch.items.get(texts.get(i)).complete(vectors.get(i));
+            }
+        } catch (Throwable t) {
+            // Every waiting caller must hear of it, whatever went wrong
+            batch.items.values().forEach(f -> f.completeExceptionally(t));
+            if (t instanceof Error e) {
+                throw e;
+            }
+        } finally {
+            lock.lock();
+            try {
+                batch.items.forEach(pending::remove);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private float[] cached(String text) {
+        if (maxCacheEntries == 0) {
+            return null;
+        }
+        String key = hash(text);
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void remember(String text, float[] vector) {
+        if (maxCacheEntries == 0 || vector == null) {
+            return;
+        }
+        String key = hash(text);
+        synchronized (cache) {
+            cache.put(key, vector);
+        }
+    }
+
+    private static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.reveila.ai;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.reveila.system.Plugin;
+import com.reveila.system.Proxy;
+import com.reveila.system.SystemComponent;
+import com.reveila.system.SystemProxy;
+
+/**
+ * FlightRecorder decorator that takes audit I/O off the caller's thread.
+ * <p>
+ * Records are queued in a bounded buffer and written to the delegate recorder
+ * by a single writer thread through {@link FlightRecorder#recordAll}, either
+ * when a batch fills up or when the flush interval elapses. When the buffer is
+ * full the overflow policy decides what happens to new records:
+ * <ul>
+ * <li>{@code block} - wait up to blockTimeoutMs for space, then drop.</li>
+ * <li>{@code drop} - drop immediately and count the loss.</li>
+ * <li>{@code spill} - append to a local JSON-lines segment file that the writer
+ * replays once the buffer has drained. Segments left over from a crash are
+ * replayed on the next start.</li>
+ * </ul>
+ * Pending records are flushed when the component stops or the JVM shuts down.
+ *
+ * @author CL
+ */
+public class BatchingFlightRecorder extends SystemComponent implements FlightRecorder {
+
+    public enum OverflowPolicy {
+        BLOCK, DROP, SPILL
+    }
+
+    private static final String SPILL_SUFFIX = ".jsonl";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Object spillLock = new Object();
+
+    private String delegate;
+    private int capacity = 8192;
+    private int batchSize = 256;
+    private long flushIntervalMs = 200;
+    private long blockTimeoutMs = 1000;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+    private String spillDirectory = "data/flight-recorder";
+    private long spillSegmentBytes = 16L * 1024 * 1024;
+
+    private FlightRecorder target;
+    private BlockingQueue<FlightRecord> queue;
+    private Path spillDir;
+    private BufferedWriter spillWriter;
+    private Path spillSegment;
+    private long spillSegmentSize;
+    private volatile boolean running;
+    private Thread writer;
+    private Thread shutdownHook;
+
+    public BatchingFlightRecorder() {
+    }
+
+    public void setDelegate(String delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public void setBlockTimeoutMs(long blockTimeoutMs) {
+        this.blockTimeoutMs = blockTimeoutMs;
+    }
+
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public void setSpillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    public void setSpillSegmentBytes(long spillSegmentBytes) {
+        this.spillSegmentBytes = spillSegmentBytes;
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public int getPendingCount() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    @Override
+    protected void onStart() throws Exception {
+        if (delegate == null || delegate.isBlank()) {
+            throw new IllegalStateException("BatchingFlightRecorder requires a 'delegate' recorder component.");
+        }
+        Proxy proxy = context.getProxy(delegate);
+        Object instance = proxy instanceof SystemProxy sp ? sp.getInstance() : null;
+        if (!(instance instanceof FlightRecorder)) {
+            throw new IllegalStateException("Component '" + delegate + "' is not a FlightRecorder.");
+        }
+        this.target = (FlightRecorder) instance;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+
+        String home = context.getProperties().getProperty("system.home");
+        this.spillDir = home != null ? Paths.get(home).resolve(spillDirectory) : Paths.get(spillDirectory);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "Flight Recorder Writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        shutdownHook = new Thread(this::shutdown, "Flight Recorder Shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    protected void onStop() throws Exception {
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM is already shutting down; the hook runs the same flush
+            }
+            shutdownHook = null;
+        }
+        shutdown();
+    }
+
+    @Override
+    public void recordStep(Plugin plugin, String stepName, Map<String, Object> data) {
+        submit(FlightRecord.step(plugin, stepName, data));
+    }
+
+    @Override
+    public void recordReasoning(Plugin plugin, String reasoning) {
+        submit(FlightRecord.reasoning(plugin, reasoning));
+    }
+
+    @Override
+    public void recordToolOutput(Plugin plugin, String toolName, Object output) {
+        submit(FlightRecord.toolOutput(plugin, toolName, output));
+    }
+
+    @Override
+    public void recordForensicMetadata(Plugin plugin, Map<String, Object> metadata) {
+        submit(FlightRecord.forensic(plugin, metadata));
+    }
+
+    @Override
+    public void recordAll(List<FlightRecord> records) {
+        for (FlightRecord record : records) {
+            submit(record);
+        }
+    }
+
+    /**
+     * Writes everything queued so far to the delegate on the calling thread.
+     */
+    public void flush() {
+        List<FlightRecord> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void submit(FlightRecord record) {
+        FlightRecord enriched = target.enrich(record);
+        if (!running) {
+            // Stopped or not yet started: keep the old synchronous behaviour
+            write(List.of(enriched));
+            return;
+        }
+        if (queue.offer(enriched)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    if (queue.offer(enriched, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped.increment();
+            }
+            case DROP -> dropped.increment();
+            case SPILL -> spill(List.of(enriched));
+        }
+    }
+
+    private void writeLoop() {
+        List<FlightRecord> batch = new ArrayList<>(batchSize);
+        replaySpill();
+        while (running) {
+            try {
+                FlightRecord first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    replaySpill();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    FlightRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+                batch.clear();
+                if (queue.size() < capacity / 2) {
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void write(List<FlightRecord> batch) {
+        try {
+            target.recordAll(batch);
+            written.add(batch.size());
+        } catch (Exception e) {
+            logger.warning("Failed to write " + batch.size() + " flight records: " + e.getMessage());
+            if (overflowPolicy == OverflowPolicy.SPILL && running) {
+                spill(batch);
+            } else {
+                failed.add(batch.size());
+            }
+        }
+    }
+
+    private void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread t = writer;
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        synchronized (spillLock) {
+            closeSpillWriter();
+        }
+    }
+
+    private void spill(List<FlightRecord> records) {
+        synchronized (spillLock) {
+            try {
+                if (spillWriter == null || spillSegmentSize >= spillSegmentBytes) {
+                    closeSpillWriter();
+                    Files.createDirectories(spillDir);
+                    spillSegment = spillDir.resolve("spill-" + System.currentTimeMillis() + "-" + System.nanoTime() + SPILL_SUFFIX);
+                    spillWriter = Files.newBufferedWriter(spillSegment, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    spillSegmentSize = 0;
+                }
+                for (FlightRecord record : records) {
+                    String line = mapper.writeValueAsString(toJson(record));
+                    spillWriter.write(line);
+                    spillWriter.newLine();
+                    spillSegmentSize += line.length() + 1;
+                }
+                spillWriter.flush();
+                spilled.add(records.size());
+            } catch (IOException e) {
+                logger.severe("Failed to spill flight records: " + e.getMessage());
+                dropped.add(records.size());
+            }
+        }
+    }
+
+    /**
+     * Feeds spilled segments back through the delegate, oldest first. The
+     * segment currently being appended to is closed first so it can be replayed
+     * as well.
+     */
+    private void replaySpill() {
+        List<Path> segments;
+        synchronized (spillLock) {
+            if (spillDir == null || !Files.isDirectory(spillDir)) {
+                return;
+            }
+            closeSpillWriter();
+            try (Stream<Path> files = Files.list(spillDir)) {
+                segments = files.filter(p -> p.getFileName().toString().endsWith(SPILL_SUFFIX)).sorted().toList();
+            } catch (IOException e) {
+                logger.warning("Failed to list flight recorder spill directory: " + e.getMessage());
+                return;
+            }
+        }
+
+        for (Path segment : segments) {
+            List<FlightRecord> batch = new ArrayList<>(batchSize);
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    batch.add(fromJson(mapper.readTree(line)));
+                    if (batch.size() >= batchSize) {
+                        target.recordAll(batch);
+                        written.add(batch.size());
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    target.recordAll(batch);
+                    written.add(batch.size());
+                }
+                Files.delete(segment);
+            } catch (Exception e) {
+                // Leave the segment in place; it is retried on the next replay
+                logger.warning("Failed to replay flight recorder segment " + segment.getFileName() + ": " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void closeSpillWriter() {
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close flight recorder spill segment " + spillSegment + ": " + e.getMessage());
+            }
+            spillWriter = null;
+            spillSegment = null;
+        }
+    }
+
+    private JsonNode toJson(FlightRecord record) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("kind", record.kind().name());
+        node.put("name", record.name());
+        node.put("timestamp", record.timestamp());
+        Plugin plugin = record.plugin();
+        if (plugin != null) {
+            ObjectNode p = node.putObject("plugin");
+            p.put("sessionId", plugin.getSessionId());
+            p.put("name", plugin.getName());
+            p.put("tenantId", plugin.getTenantId());
+            p.put("traceId", plugin.getTraceId());
+        }
+        Object data = record.data();
+        if (data != null) {
+            try {
+                node.set("data", mapper.valueToTree(data));
+            } catch (IllegalArgumentException e) {
+                node.put("data", data.toString());
+            }
+        }
+        return node;
+    }
+
+    private FlightRecord fromJson(JsonNode node) {
+        Plugin plugin = null;
+        JsonNode p = node.get("plugin");
+        if (p != null) {
+            plugin = new Plugin(UUID.fromString(p.path("sessionId").asText()), p.path("name").asText(null),
+                    p.path("tenantId").asText(null), p.path("traceId").asText(null));
+        }
+        JsonNode dataNode = node.get("data");
+        Object data = dataNode == null || dataNode.isNull() ? null
+                : dataNode.isTextual() ? dataNode.asText() : mapper.convertValue(dataNode, Object.class);
+        return new FlightRecord(FlightRecord.Kind.valueOf(node.path("kind").asText()), plugin,
+                node.path("name").asText(null), data, node.path("timestamp").asLong());
+    }
+}
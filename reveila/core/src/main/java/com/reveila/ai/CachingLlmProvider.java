@@ -0,0 +1,465 @@
+package com.reveila.ai;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reveila.error.LlmException;
+import com.reveila.util.json.JsonUtil;
+
+/**
+ * Response cache in front of an {@link LlmProvider}.
+ * <p>
+ * Caching is opt-in per calling component: only requests carrying the
+ * {@link #CACHE_SCOPE} metadata entry (usually the caller's component name)
+ * are looked up or stored, and entries are never shared between scopes. Other
+ * requests pass straight through.
+ * <p>
+ * The exact tier is keyed by a SHA-256 hash over the canonical form of the
+ * request: scope, model id, messages, temperature, tools and the remaining
+ * metadata (max_tokens and the like). When an embedding model is set, a
+ * semantic tier also reuses a response whose prompt embedding has a cosine
+ * similarity at or above the threshold with the new prompt, among entries of
+ * the same shape. Requests whose answer must not carry over to a merely
+ * similar prompt, such as governance verdicts, opt out of the semantic tier
+ * with {@link #CACHE_EXACT_ONLY}.
+ * <p>
+ * Entries expire after the TTL and are evicted least recently used once the
+ * estimated size of all cached responses exceeds the byte budget.
+ */
+public class CachingLlmProvider implements LlmProvider {
+
+    /**
+     * Request metadata key that opts a request into caching. The value names
+     * the cache scope, typically the calling component.
+     */
+    public static final String CACHE_SCOPE = "cache.scope";
+
+    /**
+     * Request metadata key that, set to true, limits the request to the exact
+     * tier.
+     */
+    public static final String CACHE_EXACT_ONLY = "cache.exactOnly";
+
+    // Rough per-entry bookkeeping cost: key strings, entry object, map node
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final LlmProvider delegate;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, ScopeStats> stats = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+
+    private ReveilaEmbeddingModel embeddingModel;
+    private double similarityThreshold = 0.95;
+    private long ttlMs = 10 * 60 * 1000L;
+    private long maxBytes = 16L * 1024 * 1024;
+    private long currentBytes;
+
+    public CachingLlmProvider(LlmProvider delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Argument 'delegate' must not be null");
+        }
+        this.delegate = delegate;
+    }
+
+    /**
+     * Enables the semantic tier. Pass null to use exact matching only.
+     */
+    public void setEmbeddingModel(ReveilaEmbeddingModel embeddingModel) {
+        this.embeddingModel = embeddingModel;
+    }
+
+    public void setSimilarityThreshold(double similarityThreshold) {
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evictToBudget();
+    }
+
+    public LlmProvider getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public LlmResponse invoke(LlmRequest request) throws LlmException {
+        String scope = scopeOf(request);
+        if (scope == null) {
+            return delegate.invoke(request);
+        }
+
+        Lookup lookup = lookup(scope, request);
+        if (lookup.hit != null) {
+            return lookup.hit;
+        }
+        LlmResponse response = delegate.invoke(request);
+        store(lookup, response);
+        return response;
+    }
+
+    @Override
+    public LlmResponse invokeStreaming(LlmRequest request, Consumer<LlmChunk> consumer) throws LlmException {
+        String scope = scopeOf(request);
+        if (scope == null) {
+            return delegate.invokeStreaming(request, consumer);
+        }
+
+        Lookup lookup = lookup(scope, request);
+        if (lookup.hit != null) {
+            // Replay as a single chunk, as providers without streaming support do
+            if (lookup.hit.getContent() != null && !lookup.hit.getContent().isEmpty()) {
+                consumer.accept(LlmChunk.of(lookup.hit.getContent()));
+            }
+            consumer.accept(LlmChunk.end(lookup.hit.getFinishReason()));
+            return lookup.hit;
+        }
+        LlmResponse response = delegate.invokeStreaming(request, consumer);
+        store(lookup, response);
+        return response;
+    }
+
+    /**
+     * Looks the request up on the calling thread, then on a miss delegates
+     * asynchronously and stores the response once it completes.
+     */
+    @Override
+    public CompletableFuture<LlmResponse> invokeAsync(LlmRequest request) {
+        String scope = scopeOf(request);
+        if (scope == null) {
+            return delegate.invokeAsync(request);
+        }
+
+        Lookup lookup = lookup(scope, request);
+        if (lookup.hit != null) {
+            return CompletableFuture.completedFuture(lookup.hit);
+        }
+        return delegate.invokeAsync(request).thenApply(response -> {
+            store(lookup, response);
+            return response;
+        });
+    }
+
+    /**
+     * Removes all entries. Statistics are kept.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Hit and miss counts per cache scope.
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        stats.forEach((scope, s) -> {
+            Map<String, Long> m = new LinkedHashMap<>();
+            m.put("hits", s.exactHits.sum());
+            m.put("semanticHits", s.semanticHits.sum());
+            m.put("misses", s.misses.sum());
+            result.put(scope, m);
+        });
+        return result;
+    }
+
+    @Override
+    public int getContextWindow() {
+        return delegate.getContextWindow();
+    }
+
+    @Override
+    public int getMaxOutputTokens() {
+        return delegate.getMaxOutputTokens();
+    }
+
+    @Override
+    public Tokenizer getTokenizer() {
+        return delegate.getTokenizer();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return delegate.isEnabled();
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    private static String scopeOf(LlmRequest request) {
+        Map<String, Object> metadata = request.getMetadata();
+        Object scope = metadata == null ? null : metadata.get(CACHE_SCOPE);
+        return scope == null ? null : scope.toString();
+    }
+
+    private static boolean isExactOnly(LlmRequest request) {
+        Map<String, Object> metadata = request.getMetadata();
+        Object exactOnly = metadata == null ? null : metadata.get(CACHE_EXACT_ONLY);
+        return Boolean.TRUE.equals(exactOnly) || "true".equalsIgnoreCase(String.valueOf(exactOnly));
+    }
+
+    private Lookup lookup(String scope, LlmRequest request) {
+        ScopeStats scopeStats = stats.computeIfAbsent(scope, s -> new ScopeStats());
+        String shape = shapeOf(scope, request);
+        String prompt = promptOf(request);
+        String key = sha256(shape + '\u0000' + prompt);
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    scopeStats.exactHits.increment();
+                    return new Lookup(key, shape, null, copyOf(entry.response));
+                }
+                remove(key);
+            }
+        }
+
+        float[] embedding = null;
+        ReveilaEmbeddingModel model = isExactOnly(request) ? null : this.embeddingModel;
+        if (model != null) {
+            try {
+                embedding = normalize(model.embed(prompt));
+            } catch (RuntimeException e) {
+                // The semantic tier is best effort; fall back to exact matching
+                embedding = null;
+            }
+            if (embedding != null) {
+                LlmResponse similar = findSimilar(shape, embedding, now);
+                if (similar != null) {
+                    scopeStats.semanticHits.increment();
+                    return new Lookup(key, shape, embedding, similar);
+                }
+            }
+        }
+
+        scopeStats.misses.increment();
+        return new Lookup(key, shape, embedding, null);
+    }
+
+    private synchronized LlmResponse findSimilar(String shape, float[] embedding, long now) {
+        Entry best = null;
+        double bestScore = similarityThreshold;
+        for (Entry entry : entries.values()) {
+            if (entry.embedding == null || entry.expiresAt <= now || !entry.shape.equals(shape)
+                    || entry.embedding.length != embedding.length) {
+                continue;
+            }
+            double score = dot(entry.embedding, embedding);
+            if (score >= bestScore) {
+                bestScore = score;
+                best = entry;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        // Touch the entry so it counts as recently used
+        entries.get(best.key);
+        return copyOf(best.response);
+    }
+
+    private void store(Lookup lookup, LlmResponse response) {
+        // Only complete answers are worth replaying
+        if (response == null || response.getContent() == null || response.getContent().isEmpty()
+                || "error".equalsIgnoreCase(response.getFinishReason())) {
+            return;
+        }
+        Entry entry = new Entry(lookup.key, lookup.shape, lookup.embedding, copyOf(response),
+                System.currentTimeMillis() + ttlMs);
+        synchronized (this) {
+            remove(lookup.key);
+            entries.put(lookup.key, entry);
+            currentBytes += entry.bytes;
+            evictToBudget();
+        }
+    }
+
+    private void remove(String key) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            currentBytes -= old.bytes;
+        }
+    }
+
+    private void evictToBudget() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            currentBytes -= eldest.bytes;
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Everything except the messages, so semantic matches are only considered
+     * between otherwise identical requests. The cache's own metadata keys are
+     * left out; all other metadata changes the answer and is included.
+     */
+    private static String shapeOf(String scope, LlmRequest request) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(scope).append('\u0000')
+                .append(request.getModelId() == null ? "" : request.getModelId()).append('\u0000')
+                .append(request.getTemperature() == null ? "" : request.getTemperature()).append('\u0000');
+        List<LlmTool> tools = request.getTools();
+        if (tools != null && !tools.isEmpty()) {
+            List<Object> canonical = new ArrayList<>(tools.size());
+            for (LlmTool tool : tools) {
+                try {
+                    canonical.add(JsonUtil.MAPPER.readValue(tool.toJsonString(), Object.class));
+                } catch (Exception e) {
+                    canonical.add(tool.getName());
+                }
+            }
+            try {
+                sb.append(CANONICAL_MAPPER.writeValueAsString(canonical));
+            } catch (Exception e) {
+                sb.append(canonical);
+            }
+        }
+        Map<String, Object> metadata = request.getMetadata();
+        if (metadata != null && !metadata.isEmpty()) {
+            Map<String, Object> extras = new TreeMap<>();
+            metadata.forEach((k, v) -> {
+                if (!CACHE_SCOPE.equals(k) && !CACHE_EXACT_ONLY.equals(k)) {
+                    extras.put(k, v);
+                }
+            });
+            if (!extras.isEmpty()) {
+                sb.append('\u0000');
+                try {
+                    sb.append(CANONICAL_MAPPER.writeValueAsString(extras));
+                } catch (Exception e) {
+                    sb.append(extras);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String promptOf(LlmRequest request) {
+        StringBuilder sb = new StringBuilder();
+        List<ReveilaMessage> messages = request.getMessages();
+        if (messages != null) {
+            for (ReveilaMessage message : messages) {
+                sb.append(message.role()).append(": ").append(message.content()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        if (vector == null || vector.length == 0) {
+            return null;
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = vector[i] * scale;
+        }
+        return unit;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Callers may mutate the response they get back, so the cache never hands
+     * out the instance it holds.
+     */
+    private static LlmResponse copyOf(LlmResponse response) {
+        return new LlmResponse(response.getContent(), response.getFinishReason(), response.getUsage(),
+                response.getToolCalls() == null ? null : new ArrayList<>(response.getToolCalls()),
+                response.getRequestId());
+    }
+
+    private static final class ScopeStats {
+        private final LongAdder exactHits = new LongAdder();
+        private final LongAdder semanticHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+
+    private record Lookup(String key, String shape, float[] embedding, LlmResponse hit) {
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String shape;
+        private final float[] embedding;
+        private final LlmResponse response;
+        private final long expiresAt;
+        private final long bytes;
+
+        Entry(String key, String shape, float[] embedding, LlmResponse response, long expiresAt) {
+            this.key = key;
+            this.shape = shape;
+            this.embedding = embedding;
+            this.response = response;
+            this.expiresAt = expiresAt;
+            this.bytes = ENTRY_OVERHEAD_BYTES + 2L * (key.length() + shape.length() + response.getContent().length())
+                    + (embedding == null ? 0 : 4L * embedding.length);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.reveila.ai;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fits the parts of a request into a model's prompt budget.
+ * <p>
+ * Parts are packed greedily by priority: the system prompt and the latest
+ * message always go in; then tools in their ranked order, retrieved
+ * knowledge up to its share of the budget, system messages of the history
+ * (summaries, carried-over context) and finally the history from the newest
+ * message back. History is cut at a point, never thinned out, and a tool
+ * result is not kept without the message before it.
+ * <p>
+ * Token counts come from the provider's {@link Tokenizer} and are cached by
+ * text, so messages and tool schemas are only counted once. Counts made while
+ * the tokenizer falls back to estimates are not cached, so exact counts take
+ * over once it recovers.
+ *
+ * @author CL
+ */
+public class ContextPacker {
+
+    /**
+     * The packed parts of a request.
+     *
+     * @param tools     Tools that fit, in their original order.
+     * @param knowledge Knowledge that fits, truncated if need be.
+     * @param history   Messages that fit, in their original order.
+     * @param tokens    Estimated prompt tokens of the packed parts.
+     * @param dropped   True if anything was left out or truncated.
+     */
+    public record Packed(List<LlmTool> tools, String knowledge, List<ReveilaMessage> history, int tokens,
+            boolean dropped) {
+    }
+
+    private final Tokenizer tokenizer;
+    private final Map<String, Integer> counts;
+    private double knowledgeShare = 0.25;
+
+    public ContextPacker(Tokenizer tokenizer, int maxCachedCounts) {
+        this.tokenizer = tokenizer != null ? tokenizer : Tokenizer.ESTIMATE;
+        int capacity = Math.max(1, maxCachedCounts);
+        this.counts = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Sets the largest share of the budget retrieved knowledge may take.
+     */
+    public void setKnowledgeShare(double knowledgeShare) {
+        this.knowledgeShare = Math.max(0, Math.min(1, knowledgeShare));
+    }
+
+    /**
+     * @param budget       Prompt tokens available; 0 or less packs everything.
+     * @param systemPrompt The system prompt without tools and knowledge.
+     * @param tools        Candidate tools, best first.
+     * @param knowledge    Retrieved knowledge; may be null.
+     * @param history      The chat history, oldest first; the last message is
+     *                     the one being answered.
+     */
+    public Packed pack(int budget, String systemPrompt, List<LlmTool> tools, String knowledge,
+            List<ReveilaMessage> history) {
+        int used = count(systemPrompt) + TokenEstimator.MESSAGE_OVERHEAD;
+        int last = history.size() - 1;
+        if (last >= 0) {
+            used += count(history.get(last));
+        }
+        if (budget <= 0) {
+            for (LlmTool tool : tools) {
+                used += count(tool);
+            }
+            used += count(knowledge);
+            for (int i = 0; i < last; i++) {
+                used += count(history.get(i));
+            }
+            return new Packed(tools, knowledge, history, used, false);
+        }
+
+        boolean dropped = false;
+        List<LlmTool> packedTools = new ArrayList<>(tools.size());
+        for (LlmTool tool : tools) {
+            int size = count(tool);
+            if (used + size <= budget) {
+                packedTools.add(tool);
+                used += size;
+            } else {
+                dropped = true;
+            }
+        }
+
+        String packedKnowledge = knowledge;
+        if (knowledge != null && !knowledge.isEmpty()) {
+            int allowance = Math.min(budget - used, (int) (budget * knowledgeShare));
+            packedKnowledge = truncate(knowledge, allowance);
+            dropped |= packedKnowledge.length() < knowledge.length();
+            used += count(packedKnowledge);
+        }
+
+        boolean[] keep = new boolean[history.size()];
+        if (last >= 0) {
+            keep[last] = true;
+        }
+        for (int i = 0; i < last; i++) {
+            ReveilaMessage message = history.get(i);
+            if (message.role() == LlmRole.SYSTEM) {
+                int size = count(message);
+                if (used + size <= budget) {
+                    keep[i] = true;
+                    used += size;
+                } else {
+                    dropped = true;
+                }
+            }
+        }
+        int cut = last;
+        while (cut > 0) {
+            ReveilaMessage message = history.get(cut - 1);
+            if (message.role() != LlmRole.SYSTEM) {
+                int size = count(message);
+                if (used + size > budget) {
+                    break;
+                }
+                used += size;
+            }
+            cut--;
+        }
+        // A tool result means nothing without the turn that asked for it
+        while (cut < last && history.get(cut).role() == LlmRole.TOOL) {
+            used -= count(history.get(cut));
+            cut++;
+        }
+        List<ReveilaMessage> packedHistory = new ArrayList<>(history.size());
+        for (int i = 0; i < history.size(); i++) {
+            if (keep[i] || (i >= cut && history.get(i).role() != LlmRole.SYSTEM)) {
+                packedHistory.add(history.get(i));
+            } else if (history.get(i).role() != LlmRole.SYSTEM) {
+                dropped = true;
+            }
+        }
+        return new Packed(packedTools, packedKnowledge, packedHistory, used, dropped);
+    }
+
+    /**
+     * @return The cached token count of the text.
+     */
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        synchronized (counts) {
+            Integer cached = counts.get(text);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        int count = tokenizer.count(text);
+        // Checked after counting, so a count that just failed over is left out
+        if (!tokenizer.isFallback()) {
+            synchronized (counts) {
+                counts.put(text, count);
+            }
+        }
+        return count;
+    }
+
+    public int count(ReveilaMessage message) {
+        return count(message.content()) + TokenEstimator.MESSAGE_OVERHEAD;
+    }
+
+    private int count(LlmTool tool) {
+        String schema;
+        try {
+            schema = tool.toJsonString();
+        } catch (Exception e) {
+            schema = tool.getDescription();
+        }
+        // The schema goes with the request, the name into the system prompt
+        return count(schema) + count(tool.getName()) + 1;
+    }
+
+    private String truncate(String text, int allowance) {
+        if (allowance <= 0) {
+            return "";
+        }
+        int tokens = count(text);
+        String result = text;
+        // Shrink in proportion until it fits; cuts are not worth caching
+        while (tokens > allowance && !result.isEmpty()) {
+            int length = (int) ((long) result.length() * allowance / tokens) - 1;
+            if (length > 0 && Character.isHighSurrogate(result.charAt(length - 1))) {
+                length--;
+            }
+            result = length > 0 ? result.substring(0, length) : "";
+            tokens = tokenizer.count(result);
+        }
+        return result;
+    }
+}
@@ -1,16 +1,36 @@
 package com.reveila.ai;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.reveila.system.SystemComponent;
 import com.reveila.util.json.JsonUtil;
 
 /**
  * Implementation of IntentValidator using Gemini for safety audits.
+ * <p>
+ * An {@link IntentPreClassifier} runs first and blocks clearly malicious
+ * intents without a model call; approving without the model is opt-in and
+ * limited to allowlisted plugin methods. Model verdicts are cached for a TTL
+ * under a fingerprint of plugin, method, argument values and normalised
+ * intent text, and guardrail audits under their exact input, so a repeated
+ * call is answered from memory.
+ * <p>
+ * {@link #evaluateCombined} judges the intent and the tool arguments with a
+ * single prompt instead of one model call each.
  * 
  * @author CL
  */
@@ -18,6 +38,72 @@ public class DefaultIntentValidator extends SystemComponent implements IntentVal
 
     private LlmProvider llmProvider;
     private String promptTemplate;
+    private String combinedTemplate;
+    private IntentPreClassifier preClassifier = new IntentPreClassifier();
+    private final Map<String, CachedVerdict> verdicts = new ConcurrentHashMap<>();
+    private final Map<String, CachedAudit> audits = new ConcurrentHashMap<>();
+    private final LongAdder fastBlocked = new LongAdder();
+    private final LongAdder fastAllowed = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder llmCalls = new LongAdder();
+    private long verdictCacheTtlMs = 10 * 60 * 1000L;
+    private int maxCachedVerdicts = 10_000;
+    private boolean fastPathEnabled = false;
+
+    /**
+     * Sets how long LLM verdicts are reused. 0 disables the verdict cache.
+     */
+    public void setVerdictCacheTtlMs(long verdictCacheTtlMs) {
+        this.verdictCacheTtlMs = verdictCacheTtlMs;
+    }
+
+    public void setMaxCachedVerdicts(int maxCachedVerdicts) {
+        this.maxCachedVerdicts = Math.max(1, maxCachedVerdicts);
+    }
+
+    /**
+     * Enables approving allowlisted calls the pre-classifier finds clearly
+     * harmless without asking the model. Blocking is always applied.
+     */
+    public void setFastPathEnabled(boolean fastPathEnabled) {
+        this.fastPathEnabled = fastPathEnabled;
+    }
+
+    /**
+     * Sets the {@code plugin.method} calls the fast path may approve.
+     */
+    public void setFastPathAllowlist(String[] allowedCalls) {
+        preClassifier.setAllowedCalls(allowedCalls == null ? null : java.util.List.of(allowedCalls));
+    }
+
+    /**
+     * Replaces the pre-classifier, including its allowlist.
+     */
+    public void setPreClassifier(IntentPreClassifier preClassifier) {
+        this.preClassifier = preClassifier;
+    }
+
+    /**
+     * Clears all cached verdicts, for example after the governance prompt or
+     * model has changed.
+     */
+    public void invalidateVerdicts() {
+        verdicts.clear();
+        audits.clear();
+    }
+
+    /**
+     * @return Counts of fast-path decisions, cache hits and model calls.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("fastBlocked", fastBlocked.sum());
+        stats.put("fastAllowed", fastAllowed.sum());
+        stats.put("cacheHits", cacheHits.sum());
+        stats.put("llmCalls", llmCalls.sum());
+        stats.put("cachedVerdicts", (long) verdicts.size());
+        return stats;
+    }
 
     @Override
     public void onStart() throws Exception {
@@ -34,6 +120,10 @@ public class DefaultIntentValidator extends SystemComponent implements IntentVal
                 if (Files.exists(path)) {
                     promptTemplate = new String(Files.readAllBytes(path), java.nio.charset.StandardCharsets.UTF_8);
                 }
+                Path combinedPath = path.resolveSibling("governance_evaluation_prompt.md");
+                if (Files.exists(combinedPath)) {
+                    combinedTemplate = new String(Files.readAllBytes(combinedPath), StandardCharsets.UTF_8);
+                }
             }
         }
     }
@@ -42,24 +132,29 @@ public class DefaultIntentValidator extends SystemComponent implements IntentVal
     protected void onStop() throws Exception {
     }
 
+    void configure(LlmProvider llmProvider, String promptTemplate, String combinedTemplate) {
+        this.llmProvider = llmProvider;
+        this.promptTemplate = promptTemplate;
+        this.combinedTemplate = combinedTemplate;
+    }
+
     @Override
     public void validateIntent(String intent) throws com.reveila.error.SecurityException {
+        validateIntent(intent, null, null);
+    }
+
+    @Override
+    public void validateIntent(String intent, String pluginId, Map<String, Object> arguments)
+            throws com.reveila.error.SecurityException {
         if (intent == null || intent.trim().isEmpty()) {
             throw new com.reveila.error.SecurityException("Intent cannot be null or empty");
         }
 
-        // Check for basic malicious patterns
-        String lowerIntent = intent.toLowerCase();
-        if (lowerIntent.contains("ignore previous") ||
-                lowerIntent.contains("ignore all") ||
-                lowerIntent.contains("disregard") ||
-                lowerIntent.contains("system prompt") ||
-                lowerIntent.contains("__proto__") ||
-                lowerIntent.contains("constructor") ||
-                lowerIntent.contains("../") ||
-                lowerIntent.contains("..\\")) {
-            throw new com.reveila.error.SecurityException(
-                    "Intent contains suspicious pattern that may indicate prompt injection or path traversal attack");
+        // Deterministic pre-classification: keyword automaton and argument shape rules
+        IntentPreClassifier.Verdict verdict = preClassifier.classify(intent, pluginId, arguments);
+        if (verdict.decision() == IntentPreClassifier.Decision.BLOCK) {
+            fastBlocked.increment();
+            throw new com.reveila.error.SecurityException(verdict.reason());
         }
 
         if (this.llmProvider == null) {
@@ -67,6 +162,23 @@ public class DefaultIntentValidator extends SystemComponent implements IntentVal
             return;
         }
 
+        if (fastPathEnabled && verdict.decision() == IntentPreClassifier.Decision.ALLOW) {
+            fastAllowed.increment();
+            return;
+        }
+
+        String fingerprint = verdictCacheTtlMs > 0 ? fingerprint(intent, pluginId, arguments) : null;
+        if (fingerprint != null) {
+            CachedVerdict cached = verdicts.get(fingerprint);
+            if (isLive(cached)) {
+                cacheHits.increment();
+                if (!cached.approved()) {
+                    throw new com.reveila.error.SecurityException("Intent validation failed: " + cached.reason());
+                }
+                return;
+            }
+        }
+
         // Use Gemini for advanced intent safety validation
         Properties replacements = new Properties();
         replacements.setProperty("intent", intent);
@@ -78,13 +190,23 @@ public class DefaultIntentValidator extends SystemComponent implements IntentVal
         try {
             LlmRequest request = LlmRequest.builder()
                     .addMessage(ReveilaMessage.user(validationPrompt))
+                    .addMetadata(CachingLlmProvider.CACHE_SCOPE, "DefaultIntentValidator")
+                    .addMetadata(CachingLlmProvider.CACHE_EXACT_ONLY, true)
                     .build();
+            llmCalls.increment();
             String jsonResponse = llmProvider.invoke(request).getContent();
             String cleanJson = JsonUtil.clean(jsonResponse);
             Map<String, Object> response = JsonUtil.parseJsonStringToMap(cleanJson);
 
-            boolean safe = (Boolean) response.getOrDefault("approved", false);
-            String reason = (String) response.getOrDefault("reasoning", "Unknown security concern");
+            // The bundled template answers with "safe"/"reason"
+            boolean safe = Boolean.TRUE.equals(response.getOrDefault("approved", response.get("safe")));
+            Object reasonValue = response.getOrDefault("reasoning", response.get("reason"));
+            String reason = reasonValue != null ? reasonValue.toString() : "Unknown security concern";
+
+            if (fingerprint != null) {
+                remember(verdicts, fingerprint, new CachedVerdict(safe, reason,
+                        System.currentTimeMillis() + verdictCacheTtlMs));
+            }
 
             if (!safe) {
                 throw new com.reveila.error.SecurityException(
@@ -114,6 +236,15 @@ public class DefaultIntentValidator extends SystemComponent implements IntentVal
      * Helper to get structured guardrail response for auditing.
      */
     public GuardrailResponse getGuardrailResponse(String pluginId, String maskedArgs, String systemContext) {
+        String auditKey = auditKey(pluginId, maskedArgs, systemContext);
+        if (auditKey != null) {
+            CachedAudit cached = audits.get(auditKey);
+            if (isLive(cached)) {
+                cacheHits.increment();
+                return cached.response();
+            }
+        }
+
         String auditPrompt = String.format("Audit the following tool call for plugin %s with arguments: %s", pluginId,
                 maskedArgs);
 
@@ -121,13 +252,20 @@ public class DefaultIntentValidator extends SystemComponent implements IntentVal
             LlmRequest request = LlmRequest.builder()
                     .addMessage(ReveilaMessage.system(systemContext))
                     .addMessage(ReveilaMessage.user(auditPrompt))
+                    .addMetadata(CachingLlmProvider.CACHE_SCOPE, "DefaultIntentValidator")
+                    .addMetadata(CachingLlmProvider.CACHE_EXACT_ONLY, true)
                     .build();
+            llmCalls.increment();
             String jsonResponse = llmProvider.invoke(request).getContent();
             Map<String, Object> map = JsonUtil.parseJsonStringToMap(jsonResponse);
             boolean approved = (Boolean) map.getOrDefault("approved", false);
             String reasoning = (String) map.getOrDefault("reasoning", "No reasoning provided");
             String status = (String) map.getOrDefault("status", "REJECTED");
-            return new GuardrailResponse(approved, reasoning, status);
+            GuardrailResponse response = new GuardrailResponse(approved, reasoning, status);
+            if (auditKey != null) {
+                remember(audits, auditKey, new CachedAudit(response, System.currentTimeMillis() + verdictCacheTtlMs));
+            }
+            return response;
         } catch (Exception e) {
             // Log the exception using ExceptionCollection so it's not totally lost
             com.reveila.util.ExceptionCollection ec = new com.reveila.util.ExceptionCollection(
@@ -137,4 +275,190 @@ public class DefaultIntentValidator extends SystemComponent implements IntentVal
             return GuardrailResponse.failSafe();
         }
     }
+
+    /**
+     * Evaluates the intent and the masked tool arguments together. Intents
+     * settled by the pre-classifier or the verdict cache only need the
+     * guardrail audit; otherwise one prompt returns the intent verdict, the
+     * safety verdict and the guardrail reasoning at once.
+     *
+     * @param intent        The intent to validate.
+     * @param pluginId      The target plugin ID.
+     * @param arguments     The raw tool arguments; may be null.
+     * @param maskedArgs    The masked arguments to audit.
+     * @param systemContext The context for the safety audit.
+     * @return The verdict, or null if the combined template is missing or the
+     *         model's answer is unusable, in which case the caller should fall
+     *         back to the staged checks.
+     */
+    public GovernanceVerdict evaluateCombined(String intent, String pluginId, Map<String, Object> arguments,
+            String maskedArgs, String systemContext) {
+        if (intent == null || intent.trim().isEmpty()) {
+            return GovernanceVerdict.intentRejected("Intent cannot be null or empty");
+        }
+        IntentPreClassifier.Verdict verdict = preClassifier.classify(intent, pluginId, arguments);
+        if (verdict.decision() == IntentPreClassifier.Decision.BLOCK) {
+            fastBlocked.increment();
+            return GovernanceVerdict.intentRejected(verdict.reason());
+        }
+        if (this.llmProvider == null) {
+            return new GovernanceVerdict(true, null, new GuardrailResponse(true, "Governance is disabled", "APPROVED"));
+        }
+
+        String fingerprint = verdictCacheTtlMs > 0 ? fingerprint(intent, pluginId, arguments) : null;
+        String intentReason = null;
+        if (fastPathEnabled && verdict.decision() == IntentPreClassifier.Decision.ALLOW) {
+            fastAllowed.increment();
+            intentReason = verdict.reason();
+        } else if (fingerprint != null) {
+            CachedVerdict cached = verdicts.get(fingerprint);
+            if (isLive(cached)) {
+                cacheHits.increment();
+                if (!cached.approved()) {
+                    return GovernanceVerdict.intentRejected("Intent validation failed: " + cached.reason());
+                }
+                intentReason = cached.reason();
+            }
+        }
+        if (intentReason != null) {
+            // The intent is settled; only the arguments need the model
+            return new GovernanceVerdict(true, intentReason, getGuardrailResponse(pluginId, maskedArgs, systemContext));
+        }
+        if (combinedTemplate == null) {
+            return null;
+        }
+
+        Properties replacements = new Properties();
+        replacements.setProperty("intent", intent);
+        replacements.setProperty("plugin", String.valueOf(pluginId));
+        replacements.setProperty("arguments", String.valueOf(maskedArgs));
+        String prompt = com.reveila.util.StringUtil.replace(combinedTemplate, "{{", "}}", replacements, true, true, null);
+        if (debug) {
+            logger.info("[DEBUG] Governance evaluation prompt: " + prompt);
+        }
+
+        try {
+            LlmRequest request = LlmRequest.builder()
+                    .addMessage(ReveilaMessage.system(systemContext))
+                    .addMessage(ReveilaMessage.user(prompt))
+                    .addMetadata(CachingLlmProvider.CACHE_SCOPE, "DefaultIntentValidator")
+                    .addMetadata(CachingLlmProvider.CACHE_EXACT_ONLY, true)
+                    .build();
+            llmCalls.increment();
+            String jsonResponse = llmProvider.invoke(request).getContent();
+            Map<String, Object> map = JsonUtil.parseJsonStringToMap(JsonUtil.clean(jsonResponse));
+            if (!(map.get("intent_safe") instanceof Boolean intentSafe)
+                    || !(map.get("approved") instanceof Boolean approved)) {
+                logger.warning("Combined governance response is missing verdicts; falling back to staged checks.");
+                return null;
+            }
+            Object reasonValue = map.get("intent_reason");
+            String reason = reasonValue != null ? reasonValue.toString() : "Unknown security concern";
+            Object reasoningValue = map.get("reasoning");
+            GuardrailResponse audit = new GuardrailResponse(approved,
+                    reasoningValue != null ? reasoningValue.toString() : "No reasoning provided",
+                    map.get("status") instanceof String status ? status : (approved ? "APPROVED" : "REJECTED"));
+
+            long expiresAt = System.currentTimeMillis() + verdictCacheTtlMs;
+            if (fingerprint != null) {
+                remember(verdicts, fingerprint, new CachedVerdict(intentSafe, reason, expiresAt));
+                remember(audits, auditKey(pluginId, maskedArgs, systemContext), new CachedAudit(audit, expiresAt));
+            }
+            return intentSafe
+                    ? new GovernanceVerdict(true, reason, audit)
+                    : GovernanceVerdict.intentRejected("Intent validation failed: " + reason);
+        } catch (Exception e) {
+            com.reveila.util.ExceptionCollection ec = new com.reveila.util.ExceptionCollection(
+                    "Combined governance evaluation failed", e);
+            logger.warning(ec.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Fingerprint of what the model's verdict depends on: plugin, method,
+     * every argument value and the intent, compared case- and
+     * whitespace-insensitively. A verdict is never reused for other values.
+     */
+    static String fingerprint(String intent, String pluginId, Map<String, Object> arguments) {
+        Object method = arguments != null ? arguments.get("method") : null;
+        StringBuilder sb = new StringBuilder();
+        sb.append(pluginId == null ? "" : pluginId).append('\u0000')
+                .append(method instanceof String m ? m : "").append('\u0000');
+        appendValue(sb, arguments, 0);
+        sb.append('\u0000').append(intent.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT));
+        return sha256(sb.toString());
+    }
+
+    private static void appendValue(StringBuilder sb, Object value, int depth) {
+        if (value == null) {
+            sb.append('0');
+        } else if (depth > 8) {
+            String text = String.valueOf(value);
+            sb.append('?').append(text.length()).append(':').append(text);
+        } else if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((k, v) -> sorted.put(String.valueOf(k), v));
+            sb.append('{');
+            sorted.forEach((k, v) -> {
+                sb.append(k.length()).append(':').append(k).append('=');
+                appendValue(sb, v, depth + 1);
+                sb.append(',');
+            });
+            sb.append('}');
+        } else if (value instanceof Collection<?> items) {
+            sb.append('[');
+            for (Object item : items) {
+                appendValue(sb, item, depth + 1);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else {
+            // Length-prefixed so that values cannot run into each other
+            String text = String.valueOf(value);
+            sb.append(value instanceof Number ? 'n' : value instanceof Boolean ? 'b' : 's')
+                    .append(text.length()).append(':').append(text);
+        }
+    }
+
+    private String auditKey(String pluginId, String maskedArgs, String systemContext) {
+        return verdictCacheTtlMs > 0 ? sha256(pluginId + '\u0000' + maskedArgs + '\u0000' + systemContext) : null;
+    }
+
+    private static boolean isLive(Object cached) {
+        return cached != null && expiresAt(cached) > System.currentTimeMillis();
+    }
+
+    private <V> void remember(Map<String, V> cache, String key, V value) {
+        if (cache.size() >= maxCachedVerdicts) {
+            long now = System.currentTimeMillis();
+            cache.values().removeIf(v -> expiresAt(v) <= now);
+            if (cache.size() >= maxCachedVerdicts) {
+                cache.clear();
+            }
+        }
+        cache.put(key, value);
+    }
+
+    private static long expiresAt(Object cached) {
+        if (cached instanceof CachedVerdict v) {
+            return v.expiresAt();
+        }
+        return cached instanceof CachedAudit a ? a.expiresAt() : 0;
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record CachedVerdict(boolean approved, String reason, long expiresAt) {
+    }
+
+    private record CachedAudit(GuardrailResponse response, long expiresAt) {
+    }
 }
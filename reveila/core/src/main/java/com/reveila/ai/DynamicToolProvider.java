@@ -5,25 +5,43 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.logging.Level;
 
 import com.reveila.persistence.VectorMatch;
 import com.reveila.persistence.VectorStore;
+import com.reveila.system.Proxy;
+import com.reveila.system.SystemComponent;
+import com.reveila.system.SystemProxy;
 
 /**
  * Semantic Tool Provider that dynamically discovers relevant tools based on the user's message.
  * It implements "Tool RAG" with a two-stage retrieval (Semantic Search + Reranking).
+ * <p>
+ * As a component it searches the configured vector store component (by default
+ * "ToolVectorStore") and keeps it in step with the {@link MetadataRegistry}:
+ * manifests are embedded when the registry changes, skipping those whose
+ * description is already stored. The query embedding model is set by
+ * AgenticFabric from the ai.tool.embedding property.
  * 
  * Android-native implementation with zero dependencies on LangChain4j.
  * 
  * @author CL
  */
-public class DynamicToolProvider {
-    private final VectorStore toolVectorStore;
-    private final MetadataRegistry registry;
-    private final ScoringModel reranker;
-    private final ReveilaEmbeddingModel embeddingModel;
-    private final String securityTier;
+public class DynamicToolProvider extends SystemComponent {
+    private VectorStore toolVectorStore;
+    private MetadataRegistry registry;
+    private ScoringModel reranker;
+    private volatile ReveilaEmbeddingModel embeddingModel;
+    private String securityTier = "";
     private int topK = 5;
+    private String vectorStoreName = "ToolVectorStore";
+    private String rerankerName;
+
+    private final Object indexLock = new Object();
+    private volatile long indexedVersion = -1;
+
+    public DynamicToolProvider() {
+    }
 
     public DynamicToolProvider(
             VectorStore toolVectorStore, 
@@ -42,11 +60,83 @@ public class DynamicToolProvider {
         this.topK = topK;
     }
 
+    /**
+     * Sets the lowest tier a tool must have to be offered. Empty offers every tier.
+     */
+    public void setSecurityTier(String securityTier) {
+        this.securityTier = securityTier != null ? securityTier : "";
+    }
+
+    public void setVectorStore(String vectorStoreName) {
+        this.vectorStoreName = vectorStoreName;
+    }
+
+    public void setReranker(String rerankerName) {
+        this.rerankerName = rerankerName;
+    }
+
+    @Override
+    protected void onStart() throws Exception {
+        Object store = instanceOf(vectorStoreName);
+        if (!(store instanceof VectorStore vectorStore)) {
+            throw new IllegalStateException("Component '" + vectorStoreName + "' is not a VectorStore.");
+        }
+        this.toolVectorStore = vectorStore;
+
+        if (!(instanceOf("MetadataRegistry") instanceof MetadataRegistry metadataRegistry)) {
+            throw new IllegalStateException("MetadataRegistry not found.");
+        }
+        this.registry = metadataRegistry;
+
+        if (rerankerName != null && !rerankerName.isBlank()) {
+            if (!(instanceOf(rerankerName.trim()) instanceof ScoringModel scoring)) {
+                throw new IllegalStateException("Component '" + rerankerName + "' is not a ScoringModel.");
+            }
+            this.reranker = scoring;
+        }
+        indexedVersion = -1;
+    }
+
+    @Override
+    protected void onStop() throws Exception {
+    }
+
+    private Object instanceOf(String name) throws Exception {
+        try {
+            Proxy p = context.getProxy(name);
+            return p instanceof SystemProxy sp ? sp.getInstance() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public ReveilaEmbeddingModel getEmbeddingModel() {
+        return embeddingModel;
+    }
+
+    /**
+     * Replaces the model queries are embedded with, e.g. by the batched and
+     * cached one from {@link LlmProviderFactory#getEmbeddingModel(String)}. It
+     * must produce vectors comparable to those in the tool store.
+     */
+    public void setEmbeddingModel(ReveilaEmbeddingModel embeddingModel) {
+        this.embeddingModel = Objects.requireNonNull(embeddingModel, "embeddingModel must not be null");
+    }
+
     public List<LlmTool> provideTools(String query) {
+        return provideTools(query, embeddingModel.embed(query));
+    }
+
+    /**
+     * Variant of {@link #provideTools(String)} for callers that already hold
+     * the query embedding.
+     */
+    public List<LlmTool> provideTools(String query, float[] queryVector) {
+        syncIndex();
+
         // Stage 1: Vector Search (Broad Recall)
         int searchLimit = (reranker != null) ? 20 : topK;
         
-        float[] queryVector = embeddingModel.embed(query);
         List<VectorMatch> matches = toolVectorStore.search(queryVector, searchLimit);
         List<String> candidateIds = matches.stream()
             .map(VectorMatch::id)
@@ -69,11 +159,7 @@ public class DynamicToolProvider {
             }
 
             List<String> candidateDescriptions = candidates.stream()
-                .map(m -> {
-                    String name = m.name();
-                    Map<String, Object> tools = m.tool_definitions();
-                    return (name != null ? name : "unknown") + ": " + (tools != null ? tools.toString() : "{}");
-                })
+                .map(DynamicToolProvider::describe)
                 .filter(s -> s != null)
                 .toList();
 
@@ -132,6 +218,52 @@ public class DynamicToolProvider {
         return tools;
     }
 
+    /**
+     * Embeds the registry's manifests into the tool store if the registry has
+     * changed since the last sync. Manifests whose stored description is
+     * unchanged, e.g. after restoring a snapshot, are not embedded again. On
+     * failure the store is searched as it is and the sync is retried on the
+     * next query.
+     */
+    private void syncIndex() {
+        long version = registry.getVersion();
+        if (version == indexedVersion) {
+            return;
+        }
+        synchronized (indexLock) {
+            if (version == indexedVersion) {
+                return;
+            }
+            List<String> ids = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            for (MetadataRegistry.PluginManifest manifest : registry.getManifests()) {
+                String id = manifest.plugin_id();
+                String text = describe(manifest);
+                if (id != null && !text.equals(toolVectorStore.getPayload(id))) {
+                    ids.add(id);
+                    texts.add(text);
+                }
+            }
+            try {
+                if (!ids.isEmpty()) {
+                    List<float[]> vectors = embeddingModel.embedAll(texts);
+                    for (int i = 0; i < ids.size(); i++) {
+                        toolVectorStore.insert(ids.get(i), vectors.get(i), texts.get(i));
+                    }
+                }
+                indexedVersion = version;
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Failed to index " + ids.size() + " tools; searching the existing index.", e);
+            }
+        }
+    }
+
+    private static String describe(MetadataRegistry.PluginManifest manifest) {
+        String name = manifest.name();
+        Map<String, Object> tools = manifest.tool_definitions();
+        return (name != null ? name : "unknown") + ": " + (tools != null ? tools.toString() : "{}");
+    }
+
     private LlmTool mapToLlmTool(MetadataRegistry.PluginManifest manifest) {
         LlmTool tool = new LlmTool();
         tool.setName(manifest.plugin_id());
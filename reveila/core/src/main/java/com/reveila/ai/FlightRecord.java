@@ -0,0 +1,54 @@
+package com.reveila.ai;
+
+import java.util.Map;
+
+import com.reveila.system.Plugin;
+
+/**
+ * A single FlightRecorder call captured as data, so it can be queued,
+ * written in batches or replayed later.
+ *
+ * @author CL
+ */
+public record FlightRecord(Kind kind, Plugin plugin, String name, Object data, long timestamp) {
+
+    public enum Kind {
+        STEP,
+        REASONING,
+        TOOL_OUTPUT,
+        FORENSIC
+    }
+
+    public static FlightRecord step(Plugin plugin, String stepName, Map<String, Object> data) {
+        return new FlightRecord(Kind.STEP, plugin, stepName, data, System.currentTimeMillis());
+    }
+
+    public static FlightRecord reasoning(Plugin plugin, String reasoning) {
+        return new FlightRecord(Kind.REASONING, plugin, null, reasoning, System.currentTimeMillis());
+    }
+
+    public static FlightRecord toolOutput(Plugin plugin, String toolName, Object output) {
+        return new FlightRecord(Kind.TOOL_OUTPUT, plugin, toolName, output, System.currentTimeMillis());
+    }
+
+    public static FlightRecord forensic(Plugin plugin, Map<String, Object> metadata) {
+        return new FlightRecord(Kind.FORENSIC, plugin, null, metadata, System.currentTimeMillis());
+    }
+
+    public FlightRecord withData(Object newData) {
+        return new FlightRecord(kind, plugin, name, newData, timestamp);
+    }
+
+    /**
+     * Replays this record against a recorder through the matching single-call method.
+     */
+    @SuppressWarnings("unchecked")
+    public void replay(FlightRecorder recorder) {
+        switch (kind) {
+            case STEP -> recorder.recordStep(plugin, name, (Map<String, Object>) data);
+            case REASONING -> recorder.recordReasoning(plugin, data != null ? data.toString() : null);
+            case TOOL_OUTPUT -> recorder.recordToolOutput(plugin, name, data);
+            case FORENSIC -> recorder.recordForensicMetadata(plugin, (Map<String, Object>) data);
+        }
+    }
+}
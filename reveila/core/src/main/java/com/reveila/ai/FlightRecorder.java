@@ -1,5 +1,6 @@
 package com.reveila.ai;
 
+import java.util.List;
 import java.util.Map;
 
 import com.reveila.system.Plugin;
@@ -44,4 +45,29 @@ public interface FlightRecorder {
      * @param metadata Map containing exit code, duration, memory peak, etc.
      */
     void recordForensicMetadata(Plugin plugin, Map<String, Object> metadata);
+
+    /**
+     * Called on the recording thread before a record is handed off to another
+     * thread, so implementations can attach thread-bound context (such as the
+     * current request) that is no longer available when the record is written.
+     *
+     * @param record The record about to be queued.
+     * @return The record to queue; by default the record itself.
+     */
+    default FlightRecord enrich(FlightRecord record) {
+        return record;
+    }
+
+    /**
+     * Writes a batch of records. The default replays them one by one;
+     * implementations backed by a repository should override it with a single
+     * bulk write.
+     *
+     * @param records The records, in recording order.
+     */
+    default void recordAll(List<FlightRecord> records) {
+        for (FlightRecord record : records) {
+            record.replay(this);
+        }
+    }
 }
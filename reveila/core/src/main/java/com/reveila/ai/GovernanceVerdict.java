@@ -0,0 +1,21 @@
+package com.reveila.ai;
+
+/**
+ * Outcome of the governance evaluation of one tool call: the intent verdict
+ * and the guardrail audit of its masked arguments.
+ * 
+ * @author CL
+ */
+public record GovernanceVerdict(boolean intentApproved, String intentReasoning, GuardrailResponse audit) {
+
+    /**
+     * Verdict for an intent that was rejected before its arguments were audited.
+     */
+    public static GovernanceVerdict intentRejected(String reasoning) {
+        return new GovernanceVerdict(false, reasoning, null);
+    }
+
+    public boolean approved() {
+        return intentApproved && audit != null && audit.approved();
+    }
+}
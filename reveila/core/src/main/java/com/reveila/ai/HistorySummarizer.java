@@ -0,0 +1,194 @@
+package com.reveila.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+/**
+ * Summarises long chat histories in the background.
+ * <p>
+ * When a history's estimated token count passes the threshold, everything
+ * but the most recent messages is condensed into one summary message, off the
+ * caller's thread. Summaries roll: an earlier summary at the head of the
+ * history is folded into the new one. Histories too large for one prompt are
+ * summarised chunk by chunk and the partial summaries combined. The result is
+ * swapped into the {@link ReveilaChatMemory} atomically in place of whatever
+ * is left of the summarised messages; a full memory window may have evicted
+ * some of them in the meantime.
+ * <p>
+ * At most one summary runs per history, and at most
+ * {@code maxConcurrent} overall; a history that cannot be summarised now is
+ * tried again on a later turn.
+ *
+ * @author CL
+ */
+public class HistorySummarizer {
+
+    public static final String SUMMARY_PREFIX = "Summary of previous conversation: ";
+
+    private static final Logger logger = Logger.getLogger(HistorySummarizer.class.getName());
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private final Set<ReveilaChatMemory> running = ConcurrentHashMap.newKeySet();
+    private int tokenThreshold = 3000;
+    private int keepRecent = 6;
+    private int chunkTokens = 2000;
+
+    public HistorySummarizer(Executor executor, int maxConcurrent) {
+        this.executor = executor;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * Sets the estimated history size in tokens that triggers a summary.
+     */
+    public void setTokenThreshold(int tokenThreshold) {
+        this.tokenThreshold = tokenThreshold;
+    }
+
+    /**
+     * Sets how many of the latest messages are kept verbatim.
+     */
+    public void setKeepRecent(int keepRecent) {
+        this.keepRecent = Math.max(0, keepRecent);
+    }
+
+    /**
+     * Sets the largest slice of history, in estimated tokens, summarised by a
+     * single model call.
+     */
+    public void setChunkTokens(int chunkTokens) {
+        this.chunkTokens = Math.max(1, chunkTokens);
+    }
+
+    /**
+     * Starts a background summary of the history if it is over the threshold
+     * and none is running for it yet.
+     *
+     * @return true if a summary was started.
+     */
+    public boolean maybeSummarize(ReveilaChatMemory memory, LlmProvider provider) {
+        if (memory.getEstimatedTokens() < tokenThreshold || provider == null) {
+            return false;
+        }
+        List<ReveilaMessage> snapshot = memory.messages();
+        int cut = snapshot.size() - keepRecent;
+        // Nothing worth condensing ahead of the recent messages
+        if (cut < 2 || snapshot.subList(0, cut).stream().allMatch(HistorySummarizer::isSummary)) {
+            return false;
+        }
+        if (!running.add(memory)) {
+            return false;
+        }
+        if (!permits.tryAcquire()) {
+            running.remove(memory);
+            return false;
+        }
+        List<ReveilaMessage> prefix = List.copyOf(snapshot.subList(0, cut));
+        try {
+            executor.execute(() -> {
+                try {
+                    String summary = summarize(prefix, provider);
+                    if (summary != null && !summary.isBlank()
+                            && !memory.replacePrefix(prefix, ReveilaMessage.system(SUMMARY_PREFIX + summary))) {
+                        logger.fine("History was cleared while it was summarised; summary discarded.");
+                    }
+                } catch (Exception e) {
+                    logger.warning("Background history summary failed: " + e.getMessage());
+                } finally {
+                    permits.release();
+                    running.remove(memory);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            running.remove(memory);
+            return false;
+        }
+    }
+
+    /**
+     * @return true while a summary of the history is being made.
+     */
+    public boolean isRunning(ReveilaChatMemory memory) {
+        return running.contains(memory);
+    }
+
+    String summarize(List<ReveilaMessage> prefix, LlmProvider provider) throws Exception {
+        String previous = null;
+        List<ReveilaMessage> newer = new ArrayList<>();
+        for (ReveilaMessage message : prefix) {
+            if (isSummary(message) && newer.isEmpty()) {
+                // Rolling: earlier summaries are folded into the new one
+                String text = message.content().substring(SUMMARY_PREFIX.length());
+                previous = previous == null ? text : previous + "\n" + text;
+            } else {
+                newer.add(message);
+            }
+        }
+
+        List<String> parts = new ArrayList<>();
+        List<ReveilaMessage> chunk = new ArrayList<>();
+        int chunkSize = 0;
+        for (ReveilaMessage message : newer) {
+            int size = TokenEstimator.estimate(message);
+            if (!chunk.isEmpty() && chunkSize + size > chunkTokens) {
+                parts.add(render(chunk));
+                chunk = new ArrayList<>();
+                chunkSize = 0;
+            }
+            chunk.add(message);
+            chunkSize += size;
+        }
+        if (!chunk.isEmpty()) {
+            parts.add(render(chunk));
+        }
+
+        if (parts.size() > 1) {
+            // Hierarchical: condense each slice, then combine the partial summaries
+            List<String> partials = new ArrayList<>(parts.size());
+            for (String part : parts) {
+                partials.add(ask(provider, "Summarize this part of a chat history for context preservation. "
+                        + "Keep facts, decisions, open questions and tool results:\n" + part));
+            }
+            parts = List.of(String.join("\n\n", partials));
+        }
+
+        String messages = parts.isEmpty() ? "" : parts.get(0);
+        if (previous == null) {
+            return ask(provider, "Summarize the following chat history for context preservation. "
+                    + "Keep facts, decisions, open questions and tool results:\n" + messages);
+        }
+        return ask(provider, "Update the summary of a conversation with the messages that followed it. "
+                + "Keep facts, decisions, open questions and tool results.\n\nSummary so far:\n" + previous
+                + "\n\nFollowing messages:\n" + messages);
+    }
+
+    private static String ask(LlmProvider provider, String prompt) throws Exception {
+        LlmRequest request = LlmRequest.builder()
+                .addMessage(ReveilaMessage.system("System"))
+                .addMessage(ReveilaMessage.user(prompt))
+                .build();
+        return provider.invoke(request).getContent();
+    }
+
+    private static String render(List<ReveilaMessage> messages) {
+        StringBuilder sb = new StringBuilder();
+        for (ReveilaMessage message : messages) {
+            sb.append(message.role()).append(": ").append(message.content()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static boolean isSummary(ReveilaMessage message) {
+        return message.role() == LlmRole.SYSTEM && message.content() != null
+                && message.content().startsWith(SUMMARY_PREFIX);
+    }
+}
@@ -0,0 +1,133 @@
+package com.reveila.ai;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.reveila.util.KeywordMatcher;
+
+/**
+ * Deterministic first pass of intent validation. Clearly malicious intents
+ * are blocked without an LLM call; everything else is left to the model,
+ * except calls the operator has explicitly allowlisted.
+ * <p>
+ * An intent is blocked when it contains one of the blocked patterns (prompt
+ * injection phrases, prototype pollution, path traversal). It is allowed only
+ * when its plugin and method are on the allowlist, it contains none of the
+ * sensitive terms, stays under the length limit and every argument value has
+ * a plain shape: numbers, booleans, and short strings without markup,
+ * quoting, paths, shell characters or blocked patterns. The absence of risky
+ * words alone never makes a request safe, so the allowlist is empty by
+ * default.
+ *
+ * @author CL
+ */
+public class IntentPreClassifier {
+
+    public enum Decision {
+        BLOCK, ALLOW, UNDECIDED
+    }
+
+    public record Verdict(Decision decision, String reason) {
+        static final Verdict UNDECIDED = new Verdict(Decision.UNDECIDED, null);
+    }
+
+    public static final List<String> DEFAULT_BLOCKED = List.of(
+            "ignore previous", "ignore all", "disregard", "system prompt",
+            "__proto__", "constructor", "../", "..\\");
+
+    public static final List<String> DEFAULT_SENSITIVE = List.of(
+            "password", "passwd", "secret", "token", "credential", "api key", "apikey", "private key",
+            "delete", "drop ", "truncate", "wipe", "format ", "shutdown", "kill",
+            "exec", "eval", "script", "shell", "sudo", "chmod", "rm -", "curl", "wget",
+            "http://", "https://", "file:", "<", "`", "${", "override", "bypass", "jailbreak",
+            "pretend", "roleplay", "instruction");
+
+    private static final Pattern PLAIN_VALUE = Pattern.compile("[\\p{L}\\p{N} _.,:@+#%()-]*");
+
+    private final KeywordMatcher blocked;
+    private final KeywordMatcher sensitive;
+    private volatile Set<String> allowedCalls = Set.of();
+    private int maxSafeIntentLength = 200;
+    private int maxSafeValueLength = 256;
+
+    public IntentPreClassifier() {
+        this(DEFAULT_BLOCKED, DEFAULT_SENSITIVE);
+    }
+
+    public IntentPreClassifier(Collection<String> blockedPatterns, Collection<String> sensitiveTerms) {
+        this.blocked = new KeywordMatcher(blockedPatterns);
+        this.sensitive = new KeywordMatcher(sensitiveTerms);
+    }
+
+    /**
+     * Sets the calls that may be allowed without a model call, as
+     * {@code plugin.method} entries.
+     */
+    public void setAllowedCalls(Collection<String> allowedCalls) {
+        this.allowedCalls = allowedCalls == null ? Set.of() : Set.copyOf(allowedCalls);
+    }
+
+    public void setMaxSafeIntentLength(int maxSafeIntentLength) {
+        this.maxSafeIntentLength = maxSafeIntentLength;
+    }
+
+    public void setMaxSafeValueLength(int maxSafeValueLength) {
+        this.maxSafeValueLength = maxSafeValueLength;
+    }
+
+    /**
+     * @param intent    The intent text.
+     * @param pluginId  The plugin the call targets; may be null.
+     * @param arguments The tool arguments; may be null.
+     */
+    public Verdict classify(String intent, String pluginId, Map<String, Object> arguments) {
+        String hit = blocked.findFirst(intent);
+        if (hit != null) {
+            return new Verdict(Decision.BLOCK, "Intent contains suspicious pattern '" + hit
+                    + "' that may indicate prompt injection or path traversal attack");
+        }
+        if (isAllowlisted(pluginId, arguments) && intent.length() <= maxSafeIntentLength
+                && !sensitive.matches(intent) && isPlain(arguments, 0)) {
+            return new Verdict(Decision.ALLOW, "No sensitive terms and plain arguments");
+        }
+        return Verdict.UNDECIDED;
+    }
+
+    private boolean isAllowlisted(String pluginId, Map<String, Object> arguments) {
+        Object method = arguments != null ? arguments.get("method") : null;
+        return pluginId != null && method instanceof String m && allowedCalls.contains(pluginId + "." + m);
+    }
+
+    private boolean isPlain(Object value, int depth) {
+        if (value == null || value instanceof Number || value instanceof Boolean) {
+            return true;
+        }
+        if (depth > 4) {
+            return false;
+        }
+        if (value instanceof CharSequence text) {
+            return text.length() <= maxSafeValueLength && PLAIN_VALUE.matcher(text).matches()
+                    && !sensitive.matches(text) && !blocked.matches(text);
+        }
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!isPlain(entry.getKey(), depth + 1) || !isPlain(entry.getValue(), depth + 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof Collection<?> items) {
+            for (Object item : items) {
+                if (!isPlain(item, depth + 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -15,6 +15,21 @@ public interface IntentValidator {
      */
     void validateIntent(String intent) throws com.reveila.error.SecurityException;
 
+    /**
+     * Validates an intent in the context of the tool call it triggers.
+     * Implementations may use the plugin and arguments to classify or cache
+     * the verdict.
+     *
+     * @param intent    The intent to validate.
+     * @param pluginId  The target plugin ID.
+     * @param arguments The tool arguments; may be null.
+     * @throws com.reveila.error.SecurityException If the intent is unauthorized or unknown.
+     */
+    default void validateIntent(String intent, String pluginId, java.util.Map<String, Object> arguments)
+            throws com.reveila.error.SecurityException {
+        validateIntent(intent);
+    }
+
     /**
      * Performs a safety audit on the tool arguments using a secondary guardrail model.
      *
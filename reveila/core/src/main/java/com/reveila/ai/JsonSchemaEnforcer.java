@@ -1,11 +1,22 @@
 package com.reveila.ai;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
@@ -15,24 +26,63 @@ import com.reveila.system.SystemComponent;
 /**
  * Validates model-generated arguments against JSON schemas defined in the MetadataRegistry.
  * Uses networknt json-schema-validator for production-grade enforcement.
+ * <p>
+ * Compiled schemas are cached per plugin ID together with a hash of the
+ * manifest's tool definitions. The cache is filled eagerly whenever the
+ * MetadataRegistry registers a manifest and refreshed when a manifest is
+ * re-registered with different content.
  *
  * @author CL
  */
 public class JsonSchemaEnforcer extends SystemComponent implements SchemaEnforcer {
     private MetadataRegistry registry;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
     private final JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+    private final Map<String, CompiledSchema> schemas = new ConcurrentHashMap<>();
+    private final Consumer<MetadataRegistry.PluginManifest> registrationListener = this::compile;
+    private boolean directMapValidation = true;
+
+    /**
+     * A compiled schema and the manifest it was compiled from.
+     * The manifest reference gives a cheap identity check on the hot path;
+     * the content hash is only consulted when the registry hands out a
+     * different manifest instance for the same plugin.
+     */
+    private record CompiledSchema(MetadataRegistry.PluginManifest source, String contentHash, JsonSchema schema) {
+    }
 
     public JsonSchemaEnforcer() {
     }
 
+    public boolean isDirectMapValidation() {
+        return directMapValidation;
+    }
+
+    /**
+     * When enabled (default), argument maps are converted into the validator's
+     * tree model directly instead of being serialized and re-parsed by Jackson.
+     * Disable it if plugins pass custom objects as argument values that rely on
+     * Jackson serialization.
+     */
+    public void setDirectMapValidation(boolean directMapValidation) {
+        this.directMapValidation = directMapValidation;
+    }
+
     @Override
     public void onStart() throws Exception {
         this.registry = (MetadataRegistry) context.getProxy("MetadataRegistry").getInstance();
+        registry.addRegistrationListener(registrationListener);
+        for (MetadataRegistry.PluginManifest manifest : registry.getManifests()) {
+            compile(manifest);
+        }
     }
 
     @Override
     protected void onStop() throws Exception {
+        if (registry != null) {
+            registry.removeRegistrationListener(registrationListener);
+        }
+        schemas.clear();
     }
 
     @Override
@@ -43,10 +93,8 @@ public class JsonSchemaEnforcer extends SystemComponent implements SchemaEnforce
         }
 
         try {
-            JsonNode schemaNode = mapper.valueToTree(manifest.toolDefinitions());
-            JsonNode dataNode = mapper.valueToTree(rawArguments);
-            
-            JsonSchema schema = factory.getSchema(schemaNode);
+            JsonSchema schema = getSchema(manifest);
+            JsonNode dataNode = directMapValidation ? toNode(rawArguments) : mapper.valueToTree(rawArguments);
             Set<ValidationMessage> errors = schema.validate(dataNode);
 
             if (!errors.isEmpty()) {
@@ -62,4 +110,78 @@ public class JsonSchemaEnforcer extends SystemComponent implements SchemaEnforce
             throw new RuntimeException("Error during schema validation for plugin " + pluginId, e);
         }
     }
+
+    private JsonSchema getSchema(MetadataRegistry.PluginManifest manifest) throws Exception {
+        CompiledSchema cached = schemas.get(manifest.id());
+        if (cached != null && cached.source() == manifest) {
+            return cached.schema();
+        }
+        return compile(manifest).schema();
+    }
+
+    /**
+     * Compiles and caches the schema of a manifest. If the cached entry has the
+     * same content hash, the existing compiled schema is kept and only
+     * re-associated with the new manifest instance.
+     */
+    private CompiledSchema compile(MetadataRegistry.PluginManifest manifest) {
+        JsonNode schemaNode = mapper.valueToTree(manifest.toolDefinitions());
+        String hash = contentHash(schemaNode);
+
+        CompiledSchema cached = schemas.get(manifest.id());
+        CompiledSchema compiled = cached != null && cached.contentHash().equals(hash)
+                ? new CompiledSchema(manifest, hash, cached.schema())
+                : new CompiledSchema(manifest, hash, factory.getSchema(schemaNode));
+        schemas.put(manifest.id(), compiled);
+        return compiled;
+    }
+
+    private String contentHash(JsonNode schemaNode) {
+        try {
+            // Map entries are written in key order, so equal definitions hash equally
+            byte[] canonical = mapper.writeValueAsString(schemaNode).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to hash tool definitions: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Builds the validator's tree model straight from the argument structure,
+     * avoiding Jackson's serialize-then-parse round trip of valueToTree.
+     * Values of other types fall back to Jackson conversion.
+     */
+    private JsonNode toNode(Object value) {
+        JsonNodeFactory nodes = mapper.getNodeFactory();
+        if (value == null) {
+            return nodes.nullNode();
+        } else if (value instanceof String s) {
+            return nodes.textNode(s);
+        } else if (value instanceof Boolean b) {
+            return nodes.booleanNode(b);
+        } else if (value instanceof Integer i) {
+            return nodes.numberNode(i);
+        } else if (value instanceof Long l) {
+            return nodes.numberNode(l);
+        } else if (value instanceof Double d) {
+            return nodes.numberNode(d);
+        } else if (value instanceof Float f) {
+            return nodes.numberNode(f);
+        } else if (value instanceof Map<?, ?> map) {
+            ObjectNode node = nodes.objectNode();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                node.set(String.valueOf(entry.getKey()), toNode(entry.getValue()));
+            }
+            return node;
+        } else if (value instanceof Collection<?> list) {
+            ArrayNode node = nodes.arrayNode(list.size());
+            for (Object item : list) {
+                node.add(toNode(item));
+            }
+            return node;
+        } else if (value instanceof Object[] array) {
+            return toNode(List.of(array));
+        }
+        return mapper.valueToTree(value);
+    }
 }
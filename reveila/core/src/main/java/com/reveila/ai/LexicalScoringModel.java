@@ -0,0 +1,146 @@
+package com.reveila.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Local ScoringModel that needs no LLM call. Candidates are ranked by BM25
+ * over their words, treating the candidate list itself as the corpus, and,
+ * when an embedding model is set, by the cosine similarity of query and
+ * candidate embeddings. The two signals are normalised to 0..1 and blended
+ * with a configurable weight.
+ *
+ * @author CL
+ */
+public class LexicalScoringModel implements ScoringModel {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReveilaEmbeddingModel embeddingModel;
+    private double semanticWeight = 0.5;
+
+    public LexicalScoringModel() {
+        this(null);
+    }
+
+    /**
+     * @param embeddingModel Adds a cosine similarity signal; may be null for
+     *                       BM25 only.
+     */
+    public LexicalScoringModel(ReveilaEmbeddingModel embeddingModel) {
+        this.embeddingModel = embeddingModel;
+    }
+
+    /**
+     * Sets the share of the semantic signal in the blended score, between 0
+     * (BM25 only) and 1 (cosine only). Ignored without an embedding model.
+     */
+    public void setSemanticWeight(double semanticWeight) {
+        this.semanticWeight = Math.max(0.0, Math.min(1.0, semanticWeight));
+    }
+
+    @Override
+    public List<Double> scoreAll(String query, List<String> candidates) {
+        Objects.requireNonNull(query, "query must not be null");
+        Objects.requireNonNull(candidates, "candidates must not be null");
+
+        List<Double> lexical = bm25(tokenize(query), candidates);
+        if (embeddingModel == null || semanticWeight == 0.0) {
+            return lexical;
+        }
+
+        // Query and candidates are embedded together in one request
+        List<String> texts = new ArrayList<>(candidates.size() + 1);
+        texts.add(query);
+        texts.addAll(candidates);
+        List<float[]> vectors = embeddingModel.embedAll(texts);
+        float[] q = vectors.get(0);
+        List<Double> scores = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            // Cosine in -1..1 mapped to 0..1
+            double semantic = (cosine(q, vectors.get(i + 1)) + 1.0) / 2.0;
+            scores.add((1.0 - semanticWeight) * lexical.get(i) + semanticWeight * semantic);
+        }
+        return scores;
+    }
+
+    private static List<Double> bm25(List<String> queryTerms, List<String> candidates) {
+        int n = candidates.size();
+        List<Map<String, Integer>> termFrequencies = new ArrayList<>(n);
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        int[] lengths = new int[n];
+        long totalLength = 0;
+
+        for (int i = 0; i < n; i++) {
+            List<String> terms = tokenize(candidates.get(i));
+            Map<String, Integer> tf = new HashMap<>();
+            for (String term : terms) {
+                tf.merge(term, 1, Integer::sum);
+            }
+            for (String term : tf.keySet()) {
+                documentFrequency.merge(term, 1, Integer::sum);
+            }
+            termFrequencies.add(tf);
+            lengths[i] = terms.size();
+            totalLength += terms.size();
+        }
+        double averageLength = n == 0 ? 0 : Math.max(1.0, (double) totalLength / n);
+
+        double[] raw = new double[n];
+        double max = 0;
+        for (int i = 0; i < n; i++) {
+            Map<String, Integer> tf = termFrequencies.get(i);
+            double score = 0;
+            for (String term : queryTerms) {
+                Integer f = tf.get(term);
+                if (f == null) {
+                    continue;
+                }
+                int df = documentFrequency.get(term);
+                double idf = Math.log(1.0 + (n - df + 0.5) / (df + 0.5));
+                score += idf * (f * (K1 + 1)) / (f + K1 * (1 - B + B * lengths[i] / averageLength));
+            }
+            raw[i] = score;
+            max = Math.max(max, score);
+        }
+
+        List<Double> scores = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            scores.add(max == 0 ? 0.0 : raw[i] / max);
+        }
+        return scores;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        // Split camelCase and snake_case identifiers so "getWeather" matches "weather"
+        String spaced = text.replaceAll("([a-z0-9])([A-Z])", "$1 $2").toLowerCase(Locale.ROOT);
+        for (String token : spaced.split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        if (a == null || b == null || a.length != b.length || a.length == 0) {
+            return 0.0;
+        }
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return na == 0 || nb == 0 ? 0.0 : dot / Math.sqrt(na * nb);
+    }
+}
@@ -0,0 +1,25 @@
+package com.reveila.ai;
+
+/**
+ * An incremental piece of an LLM completion delivered while streaming.
+ *
+ * @param delta        The text generated since the previous chunk (may be empty).
+ * @param finishReason The finish reason reported with the final chunk, or null.
+ * @param done         True for the terminal chunk of a stream.
+ */
+public record LlmChunk(String delta, String finishReason, boolean done) {
+
+    public LlmChunk {
+        if (delta == null) {
+            delta = "";
+        }
+    }
+
+    public static LlmChunk of(String delta) {
+        return new LlmChunk(delta, null, false);
+    }
+
+    public static LlmChunk end(String finishReason) {
+        return new LlmChunk("", finishReason, true);
+    }
+}
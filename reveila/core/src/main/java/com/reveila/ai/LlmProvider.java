@@ -1,15 +1,100 @@
 package com.reveila.ai;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+
 import com.reveila.error.LlmException;
 
 public interface LlmProvider {
 
     LlmResponse invoke(LlmRequest request) throws LlmException;
 
+    /**
+     * Invokes the model and delivers the completion incrementally as it is
+     * generated. The consumer receives every text delta followed by one
+     * terminal chunk. Providers without streaming support deliver the full
+     * completion as a single chunk.
+     *
+     * @param request  The request to send.
+     * @param consumer Receives chunks on the calling thread, in order.
+     * @return The aggregated response once the stream has finished.
+     */
+    default LlmResponse invokeStreaming(LlmRequest request, Consumer<LlmChunk> consumer) throws LlmException {
+        LlmResponse response = invoke(request);
+        if (response.getContent() != null && !response.getContent().isEmpty()) {
+            consumer.accept(LlmChunk.of(response.getContent()));
+        }
+        consumer.accept(LlmChunk.end(response.getFinishReason()));
+        return response;
+    }
+
+    /**
+     * Reactive variant of {@link #invokeStreaming(LlmRequest, Consumer)}. The
+     * request is sent when a subscriber attaches, and chunks are published with
+     * back-pressure honoured by blocking the producing thread.
+     */
+    default Flow.Publisher<LlmChunk> stream(LlmRequest request) {
+        return subscriber -> {
+            SubmissionPublisher<LlmChunk> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(subscriber);
+            CompletableFuture.runAsync(() -> {
+                try {
+                    invokeStreaming(request, publisher::submit);
+                    publisher.close();
+                } catch (Exception e) {
+                    publisher.closeExceptionally(e);
+                }
+            });
+        };
+    }
+
+    /**
+     * Invokes the model without blocking the caller. Providers with an
+     * asynchronous transport override this; the default runs
+     * {@link #invoke(LlmRequest)} on the common pool.
+     *
+     * @return A future completing with the response, or exceptionally with
+     *         the {@link LlmException} raised by the provider.
+     */
+    default CompletableFuture<LlmResponse> invokeAsync(LlmRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return invoke(request);
+            } catch (LlmException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * @return The model's context window in tokens, or 0 if unknown, in which
+     *         case requests are not packed to a budget.
+     */
+    default int getContextWindow() {
+        return 0;
+    }
+
+    /**
+     * @return Tokens of the context window kept free for the completion.
+     */
+    default int getMaxOutputTokens() {
+        return 0;
+    }
+
+    /**
+     * @return The tokenizer matching the model, used to budget prompts.
+     */
+    default Tokenizer getTokenizer() {
+        return Tokenizer.ESTIMATE;
+    }
+
     boolean isEnabled();
 
     boolean isConfigured();
 
     String getName();
 
-}
\ No newline at end of file
+}
@@ -13,6 +13,7 @@ public class LlmProviderFactory extends SystemComponent {
 
     private final Map<String, LlmProvider> providers = new LinkedHashMap<>();
     private LlmProvider activeProvider = null;
+    private final Map<String, ReveilaEmbeddingModel> embeddingModels = new java.util.concurrent.ConcurrentHashMap<>();
     
     public synchronized void setActiveProvider(String name) {
         if (name == null || name.isBlank()) throw new IllegalArgumentException("LLMProvider name cannot be null or blank.");
@@ -54,7 +55,7 @@ public class LlmProviderFactory extends SystemComponent {
     private void startAndAddProvider(String name, BaseLlmProvider provider) {
         try {
             provider.start();
-            providers.put(name.toLowerCase(), wrapWithTracker(provider));
+            providers.put(name.toLowerCase(), wrapWithCache(wrapWithTracker(provider)));
         } catch (Exception e) {
             logger.warning("Failed to start provider [" + name + "]: " + e.getMessage());
         }
@@ -91,6 +92,12 @@ public class LlmProviderFactory extends SystemComponent {
         provider.setModel((String) params.get("model"));
         provider.setApiKey((String) params.get("api.key"));
         provider.setTemperature(Double.parseDouble(String.valueOf(params.getOrDefault("temperature", 0.7))));
+        if (params.get("context.window") != null) {
+            provider.setContextWindow(Integer.parseInt(String.valueOf(params.get("context.window"))));
+        }
+        if (params.get("max.output.tokens") != null) {
+            provider.setMaxOutputTokens(Integer.parseInt(String.valueOf(params.get("max.output.tokens"))));
+        }
     }
 
     private LlmProvider wrapWithTracker(LlmProvider provider) {
@@ -104,6 +111,105 @@ public class LlmProviderFactory extends SystemComponent {
         }
     }
 
+    /**
+     * Puts a response cache in front of the provider unless disabled with
+     * ai.llm.cache.enabled=false. Only requests that opt in through
+     * {@link CachingLlmProvider#CACHE_SCOPE} are cached, and cache hits bypass
+     * the usage tracker since they cost nothing.
+     */
+    private LlmProvider wrapWithCache(LlmProvider provider) {
+        java.util.Properties props = context.getProperties();
+        if ("false".equalsIgnoreCase(props.getProperty("ai.llm.cache.enabled"))) {
+            return provider;
+        }
+
+        CachingLlmProvider cache = new CachingLlmProvider(provider);
+        try {
+            cache.setTtlMs(Long.parseLong(props.getProperty("ai.llm.cache.ttl", "600")) * 1000);
+            cache.setMaxBytes(parseSize(props.getProperty("ai.llm.cache.size", "16MB")));
+            cache.setSimilarityThreshold(Double.parseDouble(props.getProperty("ai.llm.cache.similarity", "0.95")));
+        } catch (NumberFormatException e) {
+            logger.warning("Invalid ai.llm.cache setting, using defaults: " + e.getMessage());
+        }
+
+        String embedder = props.getProperty("ai.llm.cache.embedding");
+        if (embedder != null && !embedder.isBlank()) {
+            ReveilaEmbeddingModel model = getEmbeddingModel(embedder);
+            if (model != null) {
+                cache.setEmbeddingModel(model);
+            } else {
+                logger.warning("Component '" + embedder + "' is not a ReveilaEmbeddingModel; semantic caching is disabled.");
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the named embedding model component behind a shared
+     * {@link BatchingEmbeddingModel}, so concurrent callers are coalesced into
+     * batched requests. Batching is tuned with ai.embedding.batch.size,
+     * ai.embedding.batch.window (microseconds) and ai.embedding.cache.entries.
+     *
+     * @return The batched model, or null if the component does not exist or is
+     *         not a ReveilaEmbeddingModel.
+     */
+    public ReveilaEmbeddingModel getEmbeddingModel(String componentName) {
+        String name = componentName.trim();
+        ReveilaEmbeddingModel model = embeddingModels.get(name);
+        if (model != null) {
+            return model;
+        }
+        try {
+            Object instance = context.getProxy(name).getInstance();
+            if (!(instance instanceof ReveilaEmbeddingModel embedding)) {
+                return null;
+            }
+            BatchingEmbeddingModel batching = embedding instanceof BatchingEmbeddingModel b ? b
+                    : new BatchingEmbeddingModel(embedding);
+            java.util.Properties props = context.getProperties();
+            try {
+                batching.setMaxBatchSize(Integer.parseInt(props.getProperty("ai.embedding.batch.size", "64")));
+                batching.setWindowMicros(Long.parseLong(props.getProperty("ai.embedding.batch.window", "2000")));
+                batching.setMaxCacheEntries(Integer.parseInt(props.getProperty("ai.embedding.cache.entries", "10000")));
+            } catch (NumberFormatException e) {
+                logger.warning("Invalid ai.embedding setting, using defaults: " + e.getMessage());
+            }
+            ReveilaEmbeddingModel existing = embeddingModels.putIfAbsent(name, batching);
+            return existing != null ? existing : batching;
+        } catch (Exception e) {
+            logger.warning("Failed to resolve embedding model '" + name + "': " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static long parseSize(String value) {
+        String v = value.trim().toUpperCase();
+        if (v.endsWith("MB")) {
+            return Long.parseLong(v.substring(0, v.length() - 2).trim()) * 1024 * 1024;
+        } else if (v.endsWith("KB")) {
+            return Long.parseLong(v.substring(0, v.length() - 2).trim()) * 1024;
+        }
+        return Long.parseLong(v);
+    }
+
+    /**
+     * @return Cache hit and miss counts per provider and cache scope.
+     */
+    public synchronized Map<String, Object> getCacheStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        providers.forEach((name, provider) -> {
+            if (provider instanceof CachingLlmProvider cache) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("entries", cache.size());
+                entry.put("bytes", cache.getCurrentBytes());
+                entry.put("evictions", cache.getEvictionCount());
+                entry.put("scopes", cache.getStats());
+                result.put(name, entry);
+            }
+        });
+        return result;
+    }
+
     public synchronized LlmProvider getActiveProvider() {
         if (activeProvider == null) {
             String configured = context.getProperties().getProperty("ai.worker.llm");
@@ -3,45 +3,223 @@ package com.reveila.ai;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.reveila.util.json.JsonUtil;
+
 /**
  * Implementation of ScoringModel that uses an LlmProvider to rank tools.
  * This acts as a surgical reranker in the Tool RAG pipeline.
- * 
+ * <p>
+ * In {@link Mode#BATCH} mode (the default) all candidates are scored by a
+ * single request that asks for a JSON array of scores; when the answer cannot
+ * be parsed, the candidates are scored one by one. {@link Mode#PARALLEL} sends
+ * one request per candidate, at most {@code maxParallelism} at a time, for
+ * providers that do not follow structured instructions well. If the provider
+ * fails and a fallback scorer is set, the fallback scores the candidates
+ * instead, without any LLM call.
+ *
  * @author CL
  */
 public class LlmScoringModel implements ScoringModel {
-    
-    private final LlmProvider provider;
+
+    public enum Mode {
+        /** One request scores a batch of candidates. */
+        BATCH,
+        /** One request per candidate, run concurrently. */
+        PARALLEL
+    }
+
     private static final Pattern SCORE_PATTERN = Pattern.compile("Score:\\s*(\\d+\\.?\\d*)");
+    private static final Pattern ARRAY_PATTERN = Pattern.compile("\\[[^\\[\\]]*\\]");
+
+    private final LlmProvider provider;
+    private Mode mode = Mode.BATCH;
+    private int batchSize = 20;
+    private int maxParallelism = 4;
+    private ExecutorService executor;
+    private ScoringModel fallback;
 
     public LlmScoringModel(LlmProvider provider) {
         this.provider = Objects.requireNonNull(provider, "provider must not be null");
     }
 
+    public void setMode(Mode mode) {
+        this.mode = Objects.requireNonNull(mode, "mode must not be null");
+    }
+
+    /**
+     * Sets the largest number of candidates scored by one batch request.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = Math.max(1, maxParallelism);
+    }
+
+    /**
+     * Sets the executor for concurrent requests, for example the platform's
+     * virtual-thread executor. Without one, a small daemon pool is created on
+     * first use.
+     */
+    public synchronized void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets a scorer used when the provider fails, such as
+     * {@link LexicalScoringModel}.
+     */
+    public void setFallback(ScoringModel fallback) {
+        this.fallback = fallback;
+    }
+
     @Override
     public List<Double> scoreAll(String query, List<String> candidates) throws Exception {
-        List<Double> scores = new ArrayList<>();
-        
-        for (String candidate : candidates) {
-            scores.add(scoreCandidate(query, candidate));
+        Objects.requireNonNull(query, "query must not be null");
+        Objects.requireNonNull(candidates, "candidates must not be null");
+        if (candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            if (mode == Mode.BATCH) {
+                return scoreBatched(query, candidates);
+            }
+            return scoreParallel(query, candidates);
+        } catch (Exception e) {
+            if (fallback != null) {
+                return fallback.scoreAll(query, candidates);
+            }
+            throw e;
+        }
+    }
+
+    private List<Double> scoreBatched(String query, List<String> candidates) throws Exception {
+        List<Double> scores = new ArrayList<>(candidates.size());
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            List<String> batch = candidates.subList(from, Math.min(candidates.size(), from + batchSize));
+            List<Double> batchScores = batch.size() == 1 ? null : scoreBatch(query, batch);
+            if (batchScores == null) {
+                // Model did not honour the format; score this batch one by one
+                batchScores = scoreParallel(query, batch);
+            }
+            scores.addAll(batchScores);
         }
-        
         return scores;
     }
 
+    /**
+     * @return One score per candidate, or null if the answer was unusable.
+     */
+    private List<Double> scoreBatch(String query, List<String> candidates) throws Exception {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("User Intent: ").append(query).append("\nTool Manifests:\n");
+        for (int i = 0; i < candidates.size(); i++) {
+            prompt.append('[').append(i).append("] ").append(Objects.requireNonNull(candidates.get(i),
+                    "candidate must not be null")).append('\n');
+        }
+        prompt.append("Evaluation:");
+
+        LlmRequest request = LlmRequest.builder()
+            .addMessage(ReveilaMessage.system("You are a surgical tool reranker. Your task is to evaluate the relevance of each tool to a user's intent. " +
+                "Respond ONLY with a JSON array of " + candidates.size() + " numbers, one per tool in the order given, " +
+                "each between 0.0 (irrelevant) and 1.0 (perfect match). Example: [0.9, 0.1]"))
+            .addMessage(ReveilaMessage.user(prompt.toString()))
+            .temperature(0.0)
+            .addMetadata(CachingLlmProvider.CACHE_SCOPE, "LlmScoringModel")
+            .addMetadata(CachingLlmProvider.CACHE_EXACT_ONLY, true)
+            .build();
+
+        LlmResponse response = provider.invoke(request);
+        return parseScores(response.getContent(), candidates.size());
+    }
+
+    static List<Double> parseScores(String content, int expected) {
+        if (content == null) {
+            return null;
+        }
+        Matcher matcher = ARRAY_PATTERN.matcher(content);
+        while (matcher.find()) {
+            try {
+                JsonNode node = JsonUtil.MAPPER.readTree(matcher.group());
+                if (node.isArray() && node.size() == expected) {
+                    List<Double> scores = new ArrayList<>(expected);
+                    for (JsonNode value : node) {
+                        if (!value.isNumber()) {
+                            return null;
+                        }
+                        scores.add(Math.max(0.0, Math.min(1.0, value.asDouble())));
+                    }
+                    return scores;
+                }
+            } catch (Exception e) {
+                // Not JSON; try the next bracketed span
+            }
+        }
+        return null;
+    }
+
+    private List<Double> scoreParallel(String query, List<String> candidates) throws Exception {
+        if (candidates.size() == 1 || maxParallelism == 1) {
+            List<Double> scores = new ArrayList<>(candidates.size());
+            for (String candidate : candidates) {
+                scores.add(scoreCandidate(query, candidate));
+            }
+            return scores;
+        }
+
+        Semaphore permits = new Semaphore(maxParallelism);
+        ExecutorService pool = executor();
+        List<Future<Double>> futures = new ArrayList<>(candidates.size());
+        try {
+            for (String candidate : candidates) {
+                futures.add(pool.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return scoreCandidate(query, candidate);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<Double> scores = new ArrayList<>(candidates.size());
+            for (Future<Double> future : futures) {
+                scores.add(future.get());
+            }
+            return scores;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ex ? ex : e;
+        } finally {
+            for (Future<Double> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
     private double scoreCandidate(String query, String candidate) throws Exception {
 
         Objects.requireNonNull(query, "query must not be null");
         Objects.requireNonNull(candidate, "candidate must not be null");
-        
+
         LlmRequest request = LlmRequest.builder()
             .addMessage(ReveilaMessage.system("You are a surgical tool reranker. Your task is to evaluate the relevance of a tool to a user's intent. " +
                 "Respond ONLY with 'Score: X.X' where X.X is between 0.0 (irrelevant) and 1.0 (perfect match)."))
             .addMessage(ReveilaMessage.user(String.format("User Intent: %s\nTool Manifest: %s\nEvaluation:", query, candidate)))
             .temperature(0.0)
+            .addMetadata(CachingLlmProvider.CACHE_SCOPE, "LlmScoringModel")
+            .addMetadata(CachingLlmProvider.CACHE_EXACT_ONLY, true)
             .build();
 
         LlmResponse response = provider.invoke(request);
@@ -52,7 +230,19 @@ public class LlmScoringModel implements ScoringModel {
                     return Double.parseDouble(matcher.group(1));
                 }
             }
-        
+
         return 0.0;
     }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger count = new AtomicInteger();
+            executor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "Scoring - " + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
 }
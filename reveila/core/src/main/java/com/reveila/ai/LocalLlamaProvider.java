@@ -3,6 +3,8 @@ package com.reveila.ai;
 import com.reveila.ai.util.GemmaPromptFormatter;
 import com.reveila.ai.util.Llama3PromptFormatter;
 import com.reveila.error.LlmException;
+import com.reveila.service.HttpClientService;
+import com.reveila.service.HttpEngine;
 
 import org.json.JSONObject;
 import java.util.HashMap;
@@ -10,10 +12,38 @@ import java.util.Map;
 
 public class LocalLlamaProvider extends BaseLlmProvider {
 
+    // How long to estimate token counts after the server failed to tokenize
+    private static final long TOKENIZE_BACKOFF_MS = 30_000;
+
+    private final Tokenizer tokenizer = new Tokenizer() {
+        @Override
+        public int count(String text) {
+            return countTokens(text);
+        }
+
+        @Override
+        public boolean isFallback() {
+            return isEstimating();
+        }
+    };
+    private volatile long tokenizeFailedAt;
+
     public LocalLlamaProvider() {
         super();
         // Default to the localhost server we set up in the ReveilaLlmService
         this.endpoint = "http://localhost:8888/completion";
+        // Matches the --ctx-size LocalLlmServer starts llama-server with
+        this.contextWindow = 2048;
+        this.maxOutputTokens = 1024;
+    }
+
+    /**
+     * Counts tokens with the vocabulary of the GGUF model the server has
+     * loaded, through its {@code /tokenize} endpoint.
+     */
+    @Override
+    public Tokenizer getTokenizer() {
+        return tokenizer;
     }
 
     @Override
@@ -36,12 +66,43 @@ public class LocalLlamaProvider extends BaseLlmProvider {
 
         body.put("prompt", formattedPrompt);
         body.put("temperature", temperature);
-        body.put("n_predict", 1024);
+        body.put("n_predict", maxOutputTokens > 0 ? maxOutputTokens : 1024);
         body.put("stream", false);
 
         return body.toString();
     }
 
+    @Override
+    protected String buildStreamingRequestBody(LlmRequest request) throws LlmException {
+        JSONObject body = new JSONObject(buildRequestBody(request));
+        body.put("stream", true);
+        return body.toString();
+    }
+
+    /**
+     * llama-server streams {@code /completion} as Server-Sent Events, one
+     * {@code data: {"content":"...","stop":false}} line per generated piece.
+     */
+    @Override
+    protected LlmChunk parseStreamLine(String line) throws LlmException {
+        if (line == null || !line.startsWith("data:")) {
+            return null;
+        }
+
+        String data = line.substring(5).trim();
+        if (data.isEmpty()) {
+            return null;
+        }
+
+        JSONObject event = new JSONObject(data);
+        String content = event.optString("content", "");
+        if (event.optBoolean("stop", false)) {
+            String finishReason = event.optBoolean("stopped_limit", false) ? "length" : "stop";
+            return new LlmChunk(content, finishReason, true);
+        }
+        return LlmChunk.of(content);
+    }
+
     @Override
     protected Map<String, String> getHeaders() throws LlmException {
         Map<String, String> headers = new HashMap<>();
@@ -61,6 +122,34 @@ public class LocalLlamaProvider extends BaseLlmProvider {
         return llmResponse;
     }
 
+    /**
+     * @return The exact token count from llama-server, or the estimate while
+     *         the server cannot be reached.
+     */
+    private int countTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        if (isEstimating()) {
+            return TokenEstimator.estimate(text);
+        }
+        try {
+            String url = endpoint.replaceFirst("/completion/?$", "") + "/tokenize";
+            String body = new JSONObject().put("content", text).toString();
+            String json = getHttpClient().execute(
+                    HttpEngine.newRequest(url, "POST", body, HttpClientService.JSON, getHeaders()));
+            return new JSONObject(json).getJSONArray("tokens").length();
+        } catch (Exception e) {
+            tokenizeFailedAt = System.currentTimeMillis();
+            logger.fine("Tokenize failed for " + name + ", estimating token counts: " + e.getMessage());
+            return TokenEstimator.estimate(text);
+        }
+    }
+
+    private boolean isEstimating() {
+        return System.currentTimeMillis() - tokenizeFailedAt < TOKENIZE_BACKOFF_MS || endpoint == null;
+    }
+
     @Override
     public boolean isConfigured() {
         return endpoint != null;
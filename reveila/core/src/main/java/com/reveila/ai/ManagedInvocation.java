@@ -15,19 +15,49 @@ public class ManagedInvocation extends SystemComponent {
     private FlightRecorder flightRecorder;
     private MetadataRegistry metadataRegistry;
     private SecretManager secretManager;
+    private boolean combinedGovernance = true;
+    private boolean stagedFallback = true;
+
+    private static final String SAFETY_CONTEXT = "Safety Guardrail Context";
     
     public ManagedInvocation() {
         // Dependencies will be wired via the SystemContext in onStart
     }
 
+    /**
+     * Evaluates intent and arguments with one model call instead of separate
+     * intent validation and safety audit calls.
+     */
+    public void setCombinedGovernance(boolean combinedGovernance) {
+        this.combinedGovernance = combinedGovernance;
+    }
+
+    /**
+     * Runs the staged checks when the combined evaluation has no usable
+     * answer. When disabled, such calls are refused.
+     */
+    public void setStagedFallback(boolean stagedFallback) {
+        this.stagedFallback = stagedFallback;
+    }
+
     @Override
     public void onStart() throws Exception {
-        this.intentValidator = getComponent("IntentValidator", IntentValidator.class);
-        this.schemaEnforcer = getComponent("SchemaEnforcer", SchemaEnforcer.class);
-        this.guardedRuntime = getComponent("GuardedRuntime", GuardedRuntime.class);
-        this.flightRecorder = getComponent("FlightRecorder", FlightRecorder.class);
-        this.metadataRegistry = getComponent("MetadataRegistry", MetadataRegistry.class);
-        this.secretManager = getComponent("SecretManager", SecretManager.class);
+        wire(getComponent("IntentValidator", IntentValidator.class),
+                getComponent("SchemaEnforcer", SchemaEnforcer.class),
+                getComponent("GuardedRuntime", GuardedRuntime.class),
+                getComponent("FlightRecorder", FlightRecorder.class),
+                getComponent("MetadataRegistry", MetadataRegistry.class),
+                getComponent("SecretManager", SecretManager.class));
+    }
+
+    void wire(IntentValidator intentValidator, SchemaEnforcer schemaEnforcer, GuardedRuntime guardedRuntime,
+            FlightRecorder flightRecorder, MetadataRegistry metadataRegistry, SecretManager secretManager) {
+        this.intentValidator = intentValidator;
+        this.schemaEnforcer = schemaEnforcer;
+        this.guardedRuntime = guardedRuntime;
+        this.flightRecorder = flightRecorder;
+        this.metadataRegistry = metadataRegistry;
+        this.secretManager = secretManager;
     }
 
     @Override
@@ -126,52 +156,71 @@ public class ManagedInvocation extends SystemComponent {
             traceId
         );
 
-        // Step 2: Validate Intent
-        try {
-            intentValidator.validateIntent(intent);
-        } catch (com.reveila.error.SecurityException e) {
-            flightRecorder.recordStep(plugin, "intent_blocked", Map.of(
-                    "intent", intent,
-                    "trace_id", traceId));
-            return InvocationResult.securityBreach("INTENT BLOCKED: " + e.getMessage());
-        }
+        // Extract the actual MCP arguments from the LLM, mapping from the metaInfo map
+        @SuppressWarnings("unchecked")
+        Map<String, Object> rawArguments = metaInfo.containsKey("arguments") 
+                ? (Map<String, Object>) metaInfo.get("arguments") 
+                : new java.util.HashMap<>();
+        Object rawCallArguments = metaInfo.containsKey("arguments") ? rawArguments : toolCall.getArguments();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> callArguments = rawCallArguments instanceof Map<?, ?> m
+                ? (Map<String, Object>) m
+                : null;
 
         // Phase 2: Metadata Check
         MetadataRegistry.PluginManifest manifest = metadataRegistry.getManifest(pluginId);
         if (manifest == null) {
+            // Step 2: Validate Intent, so a blocked intent is still reported as such
+            InvocationResult blocked = validateIntent(plugin, intent, pluginId, callArguments, traceId);
+            if (blocked != null) {
+                return blocked;
+            }
             throw new IllegalArgumentException("Invocation target not registered in Metadata Registry: " + pluginId);
         }
 
-        // Extract the actual MCP arguments from the LLM, mapping from the metaInfo map
-        @SuppressWarnings("unchecked")
-        Map<String, Object> rawArguments = metaInfo.containsKey("arguments") 
-                ? (Map<String, Object>) metaInfo.get("arguments") 
-                : new java.util.HashMap<>();
-
-        // Multi-Model Governance: Use OpenAI to simulate/generate response if needed,
-        // then Gemini for Safety Audit on masked arguments.
-        Map<String, Object> validatedArgs = schemaEnforcer.enforce(pluginId, rawArguments);
+        // Multi-Model Governance. Schema enforcement is a cheap local check and
+        // runs inline: this method already runs on a pool thread, and waiting on
+        // a task queued to a pool can starve it.
+        Map<String, Object> validatedArgs;
+        GovernanceVerdict verdict = null;
+        if (combinedGovernance && intentValidator instanceof DefaultIntentValidator validator) {
+            verdict = validator.evaluateCombined(intent, pluginId, callArguments,
+                    mask(manifest, rawArguments).toString(), SAFETY_CONTEXT);
+            if (verdict == null && !stagedFallback) {
+                flightRecorder.recordStep(plugin, "governance_unavailable", Map.of("pluginId", pluginId));
+                return InvocationResult.error("Governance Pipeline: Combined evaluation unavailable.");
+            }
+        }
+        if (verdict != null) {
+            if (!verdict.intentApproved()) {
+                return intentBlocked(plugin, intent, verdict.intentReasoning(), traceId);
+            }
+            validatedArgs = schemaEnforcer.enforce(pluginId, rawArguments);
+        } else {
+            // Step 2: Validate Intent
+            InvocationResult blocked = validateIntent(plugin, intent, pluginId, callArguments, traceId);
+            if (blocked != null) {
+                return blocked;
+            }
+            validatedArgs = schemaEnforcer.enforce(pluginId, rawArguments);
 
-        // Mask Sensitive Parameters before Safety Audit
-        Map<String, Object> maskedArgs = new java.util.HashMap<>(validatedArgs);
-        if (manifest.secretParameters() != null) {
-            for (String secretKey : manifest.secretParameters()) {
-                if (maskedArgs.containsKey(secretKey)) {
-                    maskedArgs.put(secretKey, "[REDACTED_SECRET]");
-                }
+            // Mask Sensitive Parameters before Safety Audit
+            String maskedArgs = mask(manifest, validatedArgs).toString();
+            boolean safe = intentValidator.performSafetyAudit(pluginId, maskedArgs, SAFETY_CONTEXT);
+            GuardrailResponse audit = new GuardrailResponse(safe, "", safe ? "APPROVED" : "REJECTED");
+            if (!safe && intentValidator instanceof DefaultIntentValidator validator) {
+                // Use structured audit to check for security breach
+                audit = validator.getGuardrailResponse(pluginId, maskedArgs, SAFETY_CONTEXT);
             }
+            verdict = new GovernanceVerdict(true, null, audit);
         }
 
-        boolean safe = intentValidator.performSafetyAudit(pluginId, maskedArgs.toString(), "Safety Guardrail Context");
-        if (!safe) {
+        if (!verdict.approved()) {
             flightRecorder.recordStep(plugin, "safety_audit_failed", Map.of("pluginId", pluginId));
-
-            // Use structured audit to check for security breach
-            if (intentValidator instanceof DefaultIntentValidator validator) {
-                GuardrailResponse audit = validator.getGuardrailResponse(pluginId, maskedArgs.toString(), "Safety Guardrail Context");
-                if ("REJECTED".equals(audit.status()) && audit.reasoning().contains("SECURITY_BREACH")) {
-                    return InvocationResult.securityBreach("Governance Pipeline: SECURITY_BREACH detected by Gemini RailGuard: " + audit.reasoning());
-                }
+            GuardrailResponse audit = verdict.audit();
+            if (audit != null && "REJECTED".equals(audit.status()) && audit.reasoning() != null
+                    && audit.reasoning().contains("SECURITY_BREACH")) {
+                return InvocationResult.securityBreach("Governance Pipeline: SECURITY_BREACH detected by Gemini RailGuard: " + audit.reasoning());
             }
 
             return InvocationResult.error("Governance Pipeline: Safety audit failed by Gemini RailGuard.");
@@ -205,7 +254,11 @@ public class ManagedInvocation extends SystemComponent {
         // 3. JIT Credential Injection
         Map<String, String> jitCreds = null;
         if (!activePerimeter.accessScopes().isEmpty()) {
-            jitCreds = secretManager.generateJitToken(plugin, activePerimeter.accessScopes().iterator().next());
+            // The token only needs to outlive the execution it was issued for
+            String scope = activePerimeter.accessScopes().iterator().next();
+            jitCreds = activePerimeter.maxExecutionSec() > 0
+                    ? secretManager.generateJitToken(plugin, scope, activePerimeter.maxExecutionSec() + 60L)
+                    : secretManager.generateJitToken(plugin, scope);
         }
 
         try {
@@ -259,6 +312,35 @@ public class ManagedInvocation extends SystemComponent {
                 .invoke(method, arguments != null ? arguments.values().toArray() : new Object[0]);
     }
 
+    private InvocationResult validateIntent(Plugin plugin, String intent, String pluginId,
+            Map<String, Object> arguments, String traceId) {
+        try {
+            intentValidator.validateIntent(intent, pluginId, arguments);
+            return null;
+        } catch (com.reveila.error.SecurityException e) {
+            return intentBlocked(plugin, intent, e.getMessage(), traceId);
+        }
+    }
+
+    private InvocationResult intentBlocked(Plugin plugin, String intent, String reason, String traceId) {
+        flightRecorder.recordStep(plugin, "intent_blocked", Map.of(
+                "intent", intent,
+                "trace_id", traceId));
+        return InvocationResult.securityBreach("INTENT BLOCKED: " + reason);
+    }
+
+    private static Map<String, Object> mask(MetadataRegistry.PluginManifest manifest, Map<String, Object> args) {
+        Map<String, Object> maskedArgs = new java.util.HashMap<>(args);
+        if (manifest.secretParameters() != null) {
+            for (String secretKey : manifest.secretParameters()) {
+                if (maskedArgs.containsKey(secretKey)) {
+                    maskedArgs.put(secretKey, "[REDACTED_SECRET]");
+                }
+            }
+        }
+        return maskedArgs;
+    }
+
     private boolean isHighRiskAction(MetadataRegistry.PluginManifest manifest, String intent,
             Map<String, Object> args) {
         if (manifest.hitlRequiredIntents() != null && manifest.hitlRequiredIntents().contains(intent)) {
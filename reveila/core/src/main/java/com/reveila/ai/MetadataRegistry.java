@@ -2,6 +2,7 @@ package com.reveila.ai;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -9,11 +10,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.reveila.data.Entity;
+import com.reveila.data.Page;
 import com.reveila.data.Repository;
 import com.reveila.system.Constants;
 import com.reveila.system.SystemComponent;
@@ -31,6 +37,16 @@ import com.reveila.system.SystemComponent;
  * registry ensures that security constraints are part of the plugin's core
  * registration contract.
  * 
+ * Repository lookups: ids the repository does not know are remembered for a
+ * short negative TTL, and concurrent misses for the same id share a single
+ * fetch, so a burst of requests for an unknown tool reaches the database at
+ * most once per TTL. All repository manifests can also be preloaded page by
+ * page at startup.
+ * 
+ * MCP export: every change to the registry bumps a version. The MCP snapshot
+ * is rebuilt only when the version changed and is tagged with an ETag that
+ * clients can send back to skip unchanged exports.
+ * 
  * @author CL
  */
 public class MetadataRegistry extends SystemComponent {
@@ -38,14 +54,100 @@ public class MetadataRegistry extends SystemComponent {
     private final Map<String, PluginManifest> plugins = new ConcurrentHashMap<>();
     private Repository<Entity, Map<String, Map<String, Object>>> agentRepository;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final List<Consumer<PluginManifest>> registrationListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> missingUntil = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<PluginManifest>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final String etagEpoch = Long.toHexString(System.nanoTime() ^ System.currentTimeMillis());
+    private volatile McpSnapshot mcpSnapshot;
+
+    private long negativeCacheTtlMs = 30_000;
+    private boolean preloadOnStart = true;
+    private int preloadPageSize = 200;
+
+    /**
+     * Sets how long an id the repository does not know is answered as missing
+     * without asking the repository again. 0 disables negative caching.
+     */
+    public void setNegativeCacheTtlMs(long negativeCacheTtlMs) {
+        this.negativeCacheTtlMs = negativeCacheTtlMs;
+    }
+
+    public void setPreloadOnStart(boolean preloadOnStart) {
+        this.preloadOnStart = preloadOnStart;
+    }
+
+    public void setPreloadPageSize(int preloadPageSize) {
+        this.preloadPageSize = Math.max(1, preloadPageSize);
+    }
+
+    void setRepository(Repository<Entity, Map<String, Map<String, Object>>> agentRepository) {
+        this.agentRepository = agentRepository;
+    }
 
     /**
-     * Registers a plugin manifest.
+     * Registers a plugin manifest, replacing any previous manifest with the
+     * same ID, and notifies registration listeners.
      *
      * @param manifest The plugin manifest to register.
      */
     public void register(PluginManifest manifest) {
         plugins.put(manifest.id(), manifest);
+        missingUntil.remove(manifest.id());
+        version.incrementAndGet();
+        notifyRegistered(manifest);
+    }
+
+    /**
+     * Drops a manifest and any negative entry for its id, so the next lookup
+     * goes back to the repository.
+     */
+    public void invalidate(String pluginId) {
+        missingUntil.remove(pluginId);
+        if (plugins.remove(pluginId) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return A counter that changes whenever a manifest is registered or
+     *         removed.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Adds a listener that is called whenever a manifest is registered or
+     * re-registered, including manifests loaded from the repository.
+     * Components use this to prepare or refresh derived data such as compiled
+     * schemas.
+     */
+    public void addRegistrationListener(Consumer<PluginManifest> listener) {
+        if (listener != null) {
+            registrationListeners.add(listener);
+        }
+    }
+
+    public void removeRegistrationListener(Consumer<PluginManifest> listener) {
+        registrationListeners.remove(listener);
+    }
+
+    /**
+     * @return A snapshot of all manifests currently held in memory.
+     */
+    public Collection<PluginManifest> getManifests() {
+        return List.copyOf(plugins.values());
+    }
+
+    private void notifyRegistered(PluginManifest manifest) {
+        for (Consumer<PluginManifest> listener : registrationListeners) {
+            try {
+                listener.accept(manifest);
+            } catch (Exception e) {
+                logger.warning("Manifest registration listener failed for " + manifest.id() + ": " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -62,28 +164,114 @@ public class MetadataRegistry extends SystemComponent {
         if (cached != null) {
             return cached;
         }
+        if (agentRepository == null || pluginId == null) {
+            return null;
+        }
 
-        // 2. Check L3 Database Repository
-        if (agentRepository != null) {
-            try {
-                Map<String, Map<String, Object>> key = Map.of("plugin_id", Map.of("value", pluginId));
-                Optional<Entity> opt = agentRepository.fetchById(key);
-                if (opt.isPresent()) {
-                    Entity entity = opt.get();
-                    Map<String, Object> attrs = entity.getAttributes();
-                    PluginManifest dbManifest = mapAttributesToManifest(pluginId, attrs);
-                    // Cache it for future
-                    if (dbManifest != null) {
-                        plugins.put(pluginId, dbManifest);
-                        return dbManifest;
+        // 2. Known to be missing
+        Long until = missingUntil.get(pluginId);
+        if (until != null) {
+            if (until > System.currentTimeMillis()) {
+                return null;
+            }
+            missingUntil.remove(pluginId, until);
+        }
+
+        // 3. Check L3 Database Repository, one fetch per id at a time
+        CompletableFuture<PluginManifest> mine = new CompletableFuture<>();
+        CompletableFuture<PluginManifest> running = inFlight.putIfAbsent(pluginId, mine);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            PluginManifest manifest = fetchManifest(pluginId);
+            mine.complete(manifest);
+            return manifest;
+        } catch (RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(pluginId, mine);
+        }
+    }
+
+    private PluginManifest fetchManifest(String pluginId) {
+        // Another thread may have finished loading it just before us
+        PluginManifest cached = plugins.get(pluginId);
+        if (cached != null) {
+            return cached;
+        }
+        Long until = missingUntil.get(pluginId);
+        if (until != null && until > System.currentTimeMillis()) {
+            return null;
+        }
+        try {
+            Map<String, Map<String, Object>> key = Map.of("plugin_id", Map.of("value", pluginId));
+            Optional<Entity> opt = agentRepository.fetchById(key);
+            if (opt.isPresent()) {
+                Entity entity = opt.get();
+                Map<String, Object> attrs = entity.getAttributes();
+                PluginManifest dbManifest = mapAttributesToManifest(pluginId, attrs);
+                // Cache it for future
+                if (dbManifest != null) {
+                    register(dbManifest);
+                    return dbManifest;
+                }
+            }
+            if (negativeCacheTtlMs > 0) {
+                missingUntil.put(pluginId, System.currentTimeMillis() + negativeCacheTtlMs);
+            }
+        } catch (Exception e) {
+            // Not cached as missing: the repository may just be unavailable
+            logger.warning("Failed to fetch agent manifest from repository: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Loads every manifest from the repository, page by page. Ids already held
+     * in memory (core agents and file-based plugins) are left as they are.
+     *
+     * @return The number of manifests loaded.
+     */
+    public int preloadAll() {
+        if (agentRepository == null) {
+            return 0;
+        }
+        int loaded = 0;
+        int page = 0;
+        try {
+            while (true) {
+                Page<Entity> result = agentRepository.fetchPage(null, null, null, page, preloadPageSize, false);
+                for (Entity entity : result.content()) {
+                    String id = idOf(entity);
+                    if (id == null || plugins.containsKey(id)) {
+                        continue;
+                    }
+                    PluginManifest manifest = mapAttributesToManifest(id, entity.getAttributes());
+                    if (manifest != null) {
+                        register(manifest);
+                        loaded++;
                     }
                 }
-            } catch (Exception e) {
-                logger.warning("Failed to fetch agent manifest from repository: " + e.getMessage());
+                if (!result.hasNext() || result.content().isEmpty()) {
+                    break;
+                }
+                page++;
             }
+        } catch (Exception e) {
+            logger.warning("Failed to preload agent manifests from repository: " + e.getMessage());
         }
+        return loaded;
+    }
 
-        return null;
+    private static String idOf(Entity entity) {
+        Object id = entity.getAttributes() != null ? entity.getAttributes().get("plugin_id") : null;
+        if (id == null && entity.getKey() != null) {
+            Map<String, Object> keyPart = entity.getKey().get("plugin_id");
+            id = keyPart != null ? keyPart.get("value") : null;
+        }
+        return id != null ? id.toString() : null;
     }
 
     private PluginManifest mapAttributesToManifest(String id, Map<String, Object> attrs) {
@@ -165,6 +353,35 @@ public class MetadataRegistry extends SystemComponent {
      * @return A map representing the MCP server capabilities and tools.
      */
     public Map<String, Object> exportToMCP() {
+        return mcpSnapshot().content();
+    }
+
+    /**
+     * Conditional variant of {@link #exportToMCP()}.
+     *
+     * @param ifNoneMatch The ETag of the export the caller already has; may be
+     *                    null.
+     * @return The export, or null if it has not changed since that ETag.
+     */
+    public Map<String, Object> exportToMCP(String ifNoneMatch) {
+        McpSnapshot snapshot = mcpSnapshot();
+        return snapshot.etag().equals(ifNoneMatch) ? null : snapshot.content();
+    }
+
+    /**
+     * @return The ETag of the current MCP export.
+     */
+    public String getMcpETag() {
+        return mcpSnapshot().etag();
+    }
+
+    private McpSnapshot mcpSnapshot() {
+        McpSnapshot snapshot = mcpSnapshot;
+        long current = version.get();
+        if (snapshot != null && snapshot.version() == current) {
+            return snapshot;
+        }
+
         java.util.List<Map<String, Object>> mcpTools = plugins.values().stream()
                 .filter(p -> p.toolDefinitions() != null && !p.toolDefinitions().isEmpty())
                 .map(p -> Map.<String, Object>of(
@@ -173,14 +390,25 @@ public class MetadataRegistry extends SystemComponent {
                         "inputSchema", p.toolDefinitions()))
                 .collect(java.util.stream.Collectors.toList());
 
-        return Map.of(
+        Map<String, Object> content = Map.of(
                 "capabilities", Map.of("tools", Map.of()),
-                "tools", mcpTools);
+                "tools", List.copyOf(mcpTools));
+
+        // Built from a version read before the scan, so a concurrent change
+        // only makes the next call rebuild again
+        snapshot = new McpSnapshot(current, "\"" + etagEpoch + "-" + current + "\"", content);
+        mcpSnapshot = snapshot;
+        return snapshot;
+    }
+
+    private record McpSnapshot(long version, String etag, Map<String, Object> content) {
     }
 
     @Override
     protected void onStop() throws Exception {
         plugins.clear();
+        missingUntil.clear();
+        version.incrementAndGet();
     }
 
     @Override
@@ -193,6 +421,14 @@ public class MetadataRegistry extends SystemComponent {
 
         // 3. Discover Plugin Manifests
         discoverPlugins();
+
+        // 4. Warm the cache from the repository
+        if (preloadOnStart) {
+            int loaded = preloadAll();
+            if (loaded > 0) {
+                logger.info("Preloaded " + loaded + " agent manifests from the repository.");
+            }
+        }
         
         logger.info("MetadataRegistry initialized. Loaded " + plugins.size() + " capability manifests.");
     }
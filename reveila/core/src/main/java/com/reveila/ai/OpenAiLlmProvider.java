@@ -47,6 +47,46 @@ public class OpenAiLlmProvider extends BaseLlmProvider {
         return body.toString();
     }
 
+    @Override
+    protected String buildStreamingRequestBody(LlmRequest request) throws LlmException {
+        // Reuse buildRequestBody so subclasses that adjust the payload stream the same request
+        JSONObject body = new JSONObject(buildRequestBody(request));
+        body.put("stream", true);
+        return body.toString();
+    }
+
+    /**
+     * Parses one Server-Sent Events line of an OpenAI-compatible chat stream,
+     * e.g. {@code data: {"choices":[{"delta":{"content":"Hi"}}]}} or
+     * {@code data: [DONE]}.
+     */
+    @Override
+    protected LlmChunk parseStreamLine(String line) throws LlmException {
+        if (line == null || !line.startsWith("data:")) {
+            return null; // blank separator, comment or other SSE field
+        }
+
+        String data = line.substring(5).trim();
+        if (data.isEmpty()) {
+            return null;
+        }
+        if ("[DONE]".equals(data)) {
+            return LlmChunk.end(null);
+        }
+
+        JSONObject event = new JSONObject(data);
+        JSONArray choices = event.optJSONArray("choices");
+        if (choices == null || choices.length() == 0) {
+            return null; // e.g. a trailing usage-only event
+        }
+
+        JSONObject choice = choices.getJSONObject(0);
+        JSONObject delta = choice.optJSONObject("delta");
+        String content = delta != null && !delta.isNull("content") ? delta.optString("content", "") : "";
+        String finishReason = choice.isNull("finish_reason") ? null : choice.optString("finish_reason", null);
+        return new LlmChunk(content, finishReason, false);
+    }
+
     @Override
     protected Map<String, String> getHeaders() throws LlmException {
         Map<String, String> headers = new HashMap<>();
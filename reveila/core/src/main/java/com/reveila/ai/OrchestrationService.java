@@ -1,8 +1,11 @@
 package com.reveila.ai;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import com.reveila.system.SystemComponent;
 
@@ -15,6 +18,7 @@ import com.reveila.system.SystemComponent;
 public class OrchestrationService extends SystemComponent {
     
     private final Map<String, AgentSession> sessions = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> closeListeners = new CopyOnWriteArrayList<>();
     private String optimizationPriority = "cost";
 
     public OrchestrationService() {
@@ -86,7 +90,25 @@ public class OrchestrationService extends SystemComponent {
      * @param sessionId The ID of the session to close.
      */
     public void closeSession(String sessionId) {
-        sessions.remove(sessionId);
+        if (sessions.remove(sessionId) != null) {
+            for (Consumer<String> listener : closeListeners) {
+                listener.accept(sessionId);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener that is told the ID of every closed session, so
+     * components can drop what they hold for it.
+     */
+    public void addCloseListener(Consumer<String> listener) {
+        if (listener != null && !closeListeners.contains(listener)) {
+            closeListeners.add(listener);
+        }
+    }
+
+    public void removeCloseListener(Consumer<String> listener) {
+        closeListeners.remove(listener);
     }
     
     /**
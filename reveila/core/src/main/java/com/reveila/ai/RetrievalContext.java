@@ -0,0 +1,114 @@
+package com.reveila.ai;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Retrieval results of an agent session, kept across turns.
+ * <p>
+ * Tools and knowledge snippets are retrieved for an anchor query and reused
+ * while later queries stay close to it: cosine similarity of the query
+ * embeddings at or above the threshold, or the same normalised text when no
+ * embedding is available. The system prompt assembled from them is memoised
+ * and only rebuilt when one of its segments changes.
+ *
+ * @author CL
+ */
+public class RetrievalContext {
+
+    private String anchorQuery;
+    private float[] anchorVector;
+    private long registryVersion;
+    private long retrievedAt;
+    private List<LlmTool> tools = List.of();
+    private String knowledge;
+
+    private String promptSegments;
+    private String systemPrompt;
+
+    private long hits;
+    private long refreshes;
+
+    /**
+     * @param query           The retrieval query of this turn.
+     * @param queryVector     Its embedding; may be null.
+     * @param registryVersion The current tool registry version.
+     * @param threshold       Minimum cosine similarity to the anchor query.
+     * @param maxAgeMs        Maximum age of the results; 0 for no limit.
+     * @return true if the cached results can be used for the query.
+     */
+    public synchronized boolean matches(String query, float[] queryVector, long registryVersion, double threshold,
+            long maxAgeMs) {
+        boolean fresh = anchorQuery != null
+                && this.registryVersion == registryVersion
+                && (maxAgeMs <= 0 || System.currentTimeMillis() - retrievedAt <= maxAgeMs)
+                && (normalize(query).equals(anchorQuery)
+                        || (queryVector != null && anchorVector != null
+                                && cosine(queryVector, anchorVector) >= threshold));
+        if (fresh) {
+            hits++;
+        }
+        return fresh;
+    }
+
+    /**
+     * Replaces the cached results with those retrieved for a new anchor query.
+     */
+    public synchronized void update(String query, float[] queryVector, long registryVersion, List<LlmTool> tools,
+            String knowledge) {
+        this.anchorQuery = normalize(query);
+        this.anchorVector = queryVector;
+        this.registryVersion = registryVersion;
+        this.retrievedAt = System.currentTimeMillis();
+        this.tools = List.copyOf(tools);
+        this.knowledge = knowledge;
+        refreshes++;
+    }
+
+    public synchronized List<LlmTool> getTools() {
+        return tools;
+    }
+
+    public synchronized String getKnowledge() {
+        return knowledge;
+    }
+
+    /**
+     * @param segments The rendered prompt segments the prompt is built from.
+     * @return The memoised system prompt for these segments, or null if they
+     *         changed since it was built.
+     */
+    public synchronized String getSystemPrompt(String segments) {
+        return segments.equals(promptSegments) ? systemPrompt : null;
+    }
+
+    public synchronized void setSystemPrompt(String segments, String systemPrompt) {
+        this.promptSegments = segments;
+        this.systemPrompt = systemPrompt;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getRefreshes() {
+        return refreshes;
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        if (a.length != b.length || a.length == 0) {
+            return -1;
+        }
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return na == 0 || nb == 0 ? -1 : dot / Math.sqrt(na * nb);
+    }
+}
@@ -2,31 +2,142 @@ package com.reveila.ai;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Collections;
+import java.util.function.LongConsumer;
 
 /**
  * Custom ChatMemory implementation for Reveila LLM interactions.
+ * <p>
+ * Keeps a running estimate of the memory held by its messages (2 bytes per
+ * character) and reports every change to an optional size listener, so
+ * owners can account for it without walking the history. A token estimate
+ * is kept alongside, for triggering summarisation.
+ * <p>
+ * Once full, the oldest message is evicted, except that a leading system
+ * message (a summary or carried-over context) is kept.
  */
 public class ReveilaChatMemory {
     private final int maxMessages;
-    private final List<ReveilaMessage> messages = Collections.synchronizedList(new ArrayList<>());
+    private final List<ReveilaMessage> messages = new ArrayList<>();
+    private long estimatedBytes;
+    private long estimatedTokens;
+    private volatile LongConsumer sizeListener;
 
     public ReveilaChatMemory(int maxMessages) {
         this.maxMessages = maxMessages;
     }
 
     public void add(ReveilaMessage message) {
-        messages.add(message);
-        while (messages.size() > maxMessages) {
-            messages.remove(0);
+        long delta;
+        synchronized (messages) {
+            delta = sizeOf(message);
+            estimatedTokens += TokenEstimator.estimate(message);
+            messages.add(message);
+            while (messages.size() > maxMessages) {
+                // A leading system message (summary, carried-over context) outlives the turns after it
+                int oldest = messages.size() > 1 && messages.get(0).role() == LlmRole.SYSTEM ? 1 : 0;
+                ReveilaMessage evicted = messages.remove(oldest);
+                delta -= sizeOf(evicted);
+                estimatedTokens -= TokenEstimator.estimate(evicted);
+            }
+            estimatedBytes += delta;
         }
+        fire(delta);
     }
 
     public List<ReveilaMessage> messages() {
-        return new ArrayList<>(messages);
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
     }
 
     public void clear() {
-        messages.clear();
+        long delta;
+        synchronized (messages) {
+            delta = -estimatedBytes;
+            messages.clear();
+            estimatedBytes = 0;
+            estimatedTokens = 0;
+        }
+        fire(delta);
+    }
+
+    /**
+     * Atomically replaces the oldest messages with a single message, provided
+     * the history still starts with the given ones, compared by identity.
+     * Messages evicted in the meantime are tolerated: whatever is left of the
+     * prefix is replaced. Messages added in the meantime are kept
+     * after the replacement.
+     *
+     * @param prefix      The messages expected at the start of the history.
+     * @param replacement The message to put in their place.
+     * @return false if none of the prefix is left at the start of the
+     *         history, for example after a clear; nothing is replaced then.
+     */
+    public boolean replacePrefix(List<ReveilaMessage> prefix, ReveilaMessage replacement) {
+        long delta;
+        synchronized (messages) {
+            if (prefix.isEmpty() || messages.isEmpty()) {
+                return false;
+            }
+            // Evicted messages leave gaps; what survives is still in prefix order
+            int remaining = 0;
+            for (ReveilaMessage expected : prefix) {
+                if (remaining < messages.size() && messages.get(remaining) == expected) {
+                    remaining++;
+                }
+            }
+            if (remaining == 0) {
+                return false;
+            }
+            delta = sizeOf(replacement);
+            estimatedTokens += TokenEstimator.estimate(replacement);
+            for (ReveilaMessage old : messages.subList(0, remaining)) {
+                delta -= sizeOf(old);
+                estimatedTokens -= TokenEstimator.estimate(old);
+            }
+            messages.subList(0, remaining).clear();
+            messages.add(0, replacement);
+            estimatedBytes += delta;
+        }
+        fire(delta);
+        return true;
+    }
+
+    /**
+     * @return The estimated number of tokens of the messages held.
+     */
+    public long getEstimatedTokens() {
+        synchronized (messages) {
+            return estimatedTokens;
+        }
+    }
+
+    /**
+     * @return The estimated size of the messages held, in bytes.
+     */
+    public long getEstimatedBytes() {
+        synchronized (messages) {
+            return estimatedBytes;
+        }
+    }
+
+    /**
+     * Sets a listener that receives the change in estimated bytes after every
+     * add, eviction or clear. Pass null to remove it.
+     */
+    public void setSizeListener(LongConsumer sizeListener) {
+        this.sizeListener = sizeListener;
+    }
+
+    static long sizeOf(ReveilaMessage message) {
+        String text = message == null ? null : message.content();
+        return text == null ? 0 : text.length() * 2L;
+    }
+
+    private void fire(long delta) {
+        LongConsumer listener = sizeListener;
+        if (listener != null && delta != 0) {
+            listener.accept(delta);
+        }
     }
 }
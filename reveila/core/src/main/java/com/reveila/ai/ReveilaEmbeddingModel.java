@@ -1,5 +1,8 @@
 package com.reveila.ai;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Native interface for generating vector embeddings.
  */
@@ -8,4 +11,17 @@ public interface ReveilaEmbeddingModel {
      * Generates a vector representation of the given text.
      */
     float[] embed(String text);
+
+    /**
+     * Generates vector representations of several texts, in the order given.
+     * Models whose backend accepts batches should override this to embed all
+     * texts with one request.
+     */
+    default List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
 }
@@ -1,9 +1,23 @@
 package com.reveila.ai;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 
 import com.reveila.crypto.Cryptographer;
 import com.reveila.data.Entity;
@@ -15,16 +29,99 @@ import com.reveila.system.SystemComponent;
  * Phase 3: JIT Token Management.
  * Generates short-lived credentials for agentic execution.
  * Handles encrypted storage of sovereign secrets.
- * 
+ * <p>
+ * Values read from the Sovereign Store are cached in memory, re-encrypted
+ * under a per-process AES-GCM key so plain text never sits in the heap
+ * between lookups. Each entry expires after its TTL; keys that were not found
+ * are remembered for a shorter negative TTL. A lookup late in an entry's life
+ * reloads it in the background so hot secrets never expire under load.
+ * Rotating a secret through {@link #storeSecret} or {@link #invalidate}
+ * replaces the cached copy at once. Every such write moves the key to a new
+ * version, and a load that started before it is not cached, so a slow lookup
+ * or refresh can never bring the old value back.
+ * <p>
+ * JIT tokens carry an expiry and are removed by a periodic sweep.
+ *
  * @author CL
  */
 public class SecretManager extends SystemComponent {
-    private final Map<String, String> jitTokens = new ConcurrentHashMap<>();
     private static final String ENC_PREFIX = "ENC:";
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+
+    private final Map<String, JitToken> jitTokens = new ConcurrentHashMap<>();
+    private final Map<String, CachedSecret> cache = new ConcurrentHashMap<>();
+    private final Map<String, Long> keyTtls = new ConcurrentHashMap<>();
+    // Version of the last write to each key, taken from the clock
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private volatile long clearedAt;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final SecureRandom random = new SecureRandom();
+
+    private SecretKey cacheKey;
+    private ScheduledExecutorService sweeper;
+    private long cacheTtlMs = 5 * 60 * 1000L;
+    private long negativeTtlMs = 30 * 1000L;
+    private double refreshAheadFactor = 0.8;
+    private long jitTokenTtlSec = 15 * 60;
+    private long sweepIntervalSec = 60;
+
+    /**
+     * Sets how long a secret read from the Sovereign Store is cached. 0
+     * disables the cache.
+     */
+    public void setCacheTtlMs(long cacheTtlMs) {
+        this.cacheTtlMs = cacheTtlMs;
+    }
+
+    /**
+     * Sets how long a key that was not found is remembered as missing.
+     */
+    public void setNegativeTtlMs(long negativeTtlMs) {
+        this.negativeTtlMs = negativeTtlMs;
+    }
+
+    /**
+     * Sets the share of an entry's TTL after which a lookup triggers a
+     * background reload. 1 or more disables refresh-ahead.
+     */
+    public void setRefreshAheadFactor(double refreshAheadFactor) {
+        this.refreshAheadFactor = refreshAheadFactor;
+    }
+
+    /**
+     * Overrides the cache TTL for a single key, for secrets that rotate more
+     * often than others.
+     */
+    public void setKeyTtl(String key, long ttlMs) {
+        keyTtls.put(key, ttlMs);
+    }
+
+    public void setJitTokenTtlSec(long jitTokenTtlSec) {
+        this.jitTokenTtlSec = jitTokenTtlSec;
+    }
+
+    public void setSweepIntervalSec(long sweepIntervalSec) {
+        this.sweepIntervalSec = sweepIntervalSec;
+    }
 
     @Override
     protected void onStart() throws Exception {
         logger.info("SecretManager (Sovereign Vault) starting...");
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256, random);
+        this.cacheKey = generator.generateKey();
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Secret Sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, sweepIntervalSec);
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.SECONDS);
+
         ensureSecretStoreExists();
     }
 
@@ -41,53 +138,201 @@ public class SecretManager extends SystemComponent {
 
     @Override
     protected void onStop() throws Exception {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+        cache.clear();
+        jitTokens.clear();
     }
 
     /**
      * Tiered secret retrieval logic.
      * 1. Memory (jitTokens)
      * 2. Environment (System.getenv)
-     * 3. Sovereign Store (DataService)
+     * 3. Cache of the Sovereign Store
+     * 4. Sovereign Store (DataService)
      *
      * @param secretKey The key or handle for the secret.
      * @return The resolved secret value, or null if not found.
      */
-    @SuppressWarnings("unchecked")
     public String getSecret(String secretKey) {
         // Level 1: Memory
-        String token = jitTokens.get(secretKey);
-        if (token != null)
-            return token;
+        JitToken token = jitTokens.get(secretKey);
+        if (token != null && !token.isExpired(System.currentTimeMillis()))
+            return token.value();
 
         // Level 2: Environment
         String envValue = System.getenv(secretKey);
         if (envValue != null)
             return envValue;
 
-        // Level 3: Sovereign Store
-        try {
-            // Expected ID format for the repository
-            Map<String, Map<String, Object>> id = Map.of("id", Map.of("value", secretKey));
-
-            Repository<Entity, Map<String, Map<String, Object>>> repo = (Repository<Entity, Map<String, Map<String, Object>>>) this.context
-                    .getProxy("DataService")
-                    .invoke("getRepository", new Object[] { "reveila_secrets" });
+        // Level 3: Cache
+        long now = System.currentTimeMillis();
+        CachedSecret cached = cacheKey != null ? cache.get(secretKey) : null;
+        if (cached != null && cached.expiresAt > now) {
+            hits.increment();
+            if (cached.value != null && now >= cached.refreshAt
+                    && cached.refreshing.compareAndSet(false, true)) {
+                refreshAsync(secretKey);
+            }
+            return cached.value == null ? null : open(cached.value);
+        }
+        misses.increment();
 
-            return repo.fetchById(id)
-                    .map(entity -> {
-                        String val = (String) entity.getAttributes().get("value");
-                        return decryptIfNeeded(val);
-                    })
-                    .orElse(null);
+        // Level 4: Sovereign Store
+        try {
+            long version = clock.get();
+            Optional<String> value = loadFromStore(secretKey);
+            cachePut(secretKey, value.orElse(null), version);
+            return value.orElse(null);
         } catch (Exception e) {
             logger.warning("Failed to retrieve secret from Sovereign Store: " + secretKey + ". Error: " + e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Drops the cached copy of a secret, for example after it was rotated
+     * outside this component.
+     */
+    public void invalidate(String secretKey) {
+        cache.compute(secretKey, (key, current) -> {
+            versions.put(key, clock.incrementAndGet());
+            return null;
+        });
+    }
+
+    public void invalidateAll() {
+        clearedAt = clock.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * @return Cache hit, miss and size counts.
+     */
+    public Map<String, Long> getCacheStats() {
+        return Map.of("hits", hits.sum(), "misses", misses.sum(), "size", (long) cache.size(),
+                "jitTokens", (long) jitTokens.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    Optional<String> loadFromStore(String secretKey) throws Exception {
+        // Expected ID format for the repository
+        Map<String, Map<String, Object>> id = Map.of("id", Map.of("value", secretKey));
+
+        Repository<Entity, Map<String, Map<String, Object>>> repo = (Repository<Entity, Map<String, Map<String, Object>>>) this.context
+                .getProxy("DataService")
+                .invoke("getRepository", new Object[] { "reveila_secrets" });
+
+        return repo.fetchById(id)
+                .map(entity -> {
+                    String val = (String) entity.getAttributes().get("value");
+                    return decryptIfNeeded(val);
+                });
+    }
+
+    private void refreshAsync(String secretKey) {
+        ScheduledExecutorService executor = sweeper;
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    long version = clock.get();
+                    cachePut(secretKey, loadFromStore(secretKey).orElse(null), version);
+                } catch (Exception e) {
+                    // Keep serving the current value until it expires
+                    CachedSecret current = cache.get(secretKey);
+                    if (current != null) {
+                        current.refreshing.set(false);
+                    }
+                    logger.fine("Background refresh of secret " + secretKey + " failed: " + e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Caches a value loaded from the store. The value is dropped if the key
+     * was written or invalidated after the given version was read, since the
+     * load may then have seen the old value.
+     *
+     * @param version The clock when the load started.
+     */
+    private void cachePut(String secretKey, String value, long version) {
+        if (cacheKey == null) {
+            return;
+        }
+        CachedSecret entry = newEntry(secretKey, value);
+        cache.compute(secretKey, (key, current) -> {
+            if (versions.getOrDefault(key, 0L) > version || clearedAt > version) {
+                if (current != null) {
+                    current.refreshing.set(false);
+                }
+                return current;
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * Caches a value that was just written, as a new version of the key.
+     */
+    private void cacheWrite(String secretKey, String value) {
+        if (cacheKey == null) {
+            return;
+        }
+        CachedSecret entry = newEntry(secretKey, value);
+        cache.compute(secretKey, (key, current) -> {
+            versions.put(key, clock.incrementAndGet());
+            return entry;
+        });
+    }
+
+    private CachedSecret newEntry(String secretKey, String value) {
+        long ttl = value == null ? negativeTtlMs : keyTtls.getOrDefault(secretKey, cacheTtlMs);
+        if (ttl <= 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long refreshAt = refreshAheadFactor >= 1 ? Long.MAX_VALUE : now + (long) (ttl * refreshAheadFactor);
+        return new CachedSecret(value == null ? null : seal(value), now + ttl, refreshAt);
+    }
+
+    private byte[] seal(String value) {
+        try {
+            byte[] iv = new byte[GCM_IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, cacheKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            byte[] encrypted = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = new byte[iv.length + encrypted.length];
+            System.arraycopy(iv, 0, sealed, 0, iv.length);
+            System.arraycopy(encrypted, 0, sealed, iv.length, encrypted.length);
+            return sealed;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to seal cached secret", e);
+        }
+    }
+
+    private String open(byte[] sealed) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, cacheKey, new GCMParameterSpec(GCM_TAG_BITS, sealed, 0, GCM_IV_BYTES));
+            byte[] plain = cipher.doFinal(sealed, GCM_IV_BYTES, sealed.length - GCM_IV_BYTES);
+            return new String(plain, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to open cached secret", e);
+        }
+    }
+
     /**
      * Stores a secret in the Sovereign Store, encrypting it first.
-     * 
+     *
      * @param key   The secret key.
      * @param value The plain text secret value.
      */
@@ -105,8 +350,11 @@ public class SecretManager extends SystemComponent {
                     .invoke("getRepository", new Object[] { "reveila_secrets" });
 
             repo.store(entity);
+            // Rotation: the next lookup must see the new value
+            cacheWrite(key, value);
             logger.info("Successfully stored encrypted secret: " + key);
         } catch (Exception e) {
+            invalidate(key);
             logger.severe("Failed to store secret '" + key + "': " + e.getMessage());
         }
     }
@@ -137,19 +385,73 @@ public class SecretManager extends SystemComponent {
     }
 
     /**
-     * Generates a short-lived JIT token for a specific agent and scope.
+     * Generates a short-lived JIT token for a specific agent and scope, valid
+     * for the configured JIT token TTL.
      *
      * @param plugin The agent plugin.
      * @param scope     The requested access scope.
-     * @return A map containing the temporary token.
+     * @return A map containing the temporary token and its expiry.
      */
     public Map<String, String> generateJitToken(Plugin plugin, String scope) {
+        return generateJitToken(plugin, scope, jitTokenTtlSec);
+    }
+
+    /**
+     * Generates a short-lived JIT token that expires after the given time.
+     *
+     * @param plugin     The agent plugin.
+     * @param scope      The requested access scope.
+     * @param ttlSeconds How long the token stays valid.
+     * @return A map containing the temporary token and its expiry in epoch
+     *         milliseconds.
+     */
+    public Map<String, String> generateJitToken(Plugin plugin, String scope, long ttlSeconds) {
         String token = "jit_" + UUID.randomUUID().toString().substring(0, 8);
-        jitTokens.put(token, plugin.getTraceId() + ":" + scope);
-        return Map.of("REVEILA_JIT_TOKEN", token);
+        long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Math.max(1, ttlSeconds));
+        jitTokens.put(token, new JitToken(plugin.getTraceId() + ":" + scope, expiresAt));
+        return Map.of("REVEILA_JIT_TOKEN", token, "REVEILA_JIT_TOKEN_EXPIRES_AT", Long.toString(expiresAt));
     }
 
     public boolean validateToken(String token) {
-        return jitTokens.containsKey(token);
+        JitToken jit = token != null ? jitTokens.get(token) : null;
+        if (jit == null) {
+            return false;
+        }
+        if (jit.isExpired(System.currentTimeMillis())) {
+            jitTokens.remove(token, jit);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes expired JIT tokens and cache entries.
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        jitTokens.values().removeIf(t -> t.isExpired(now));
+        cache.values().removeIf(c -> c.expiresAt <= now);
+    }
+
+    private record JitToken(String value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    /**
+     * A cached lookup. A null value records that the key does not exist.
+     */
+    private static final class CachedSecret {
+        private final byte[] value;
+        private final long expiresAt;
+        private final long refreshAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        CachedSecret(byte[] value, long expiresAt, long refreshAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
     }
 }
@@ -0,0 +1,49 @@
+package com.reveila.ai;
+
+/**
+ * Fast token count estimate for budgeting prompts without a tokenizer.
+ * <p>
+ * Latin text averages about four characters per token with BPE vocabularies;
+ * characters outside ASCII (CJK, emoji, accented runs) are counted as one
+ * token each, which overestimates slightly. Each message adds a small
+ * constant for its role and framing.
+ *
+ * @author CL
+ */
+public final class TokenEstimator {
+
+    /** Framing tokens added per chat message. */
+    public static final int MESSAGE_OVERHEAD = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                ascii++;
+            } else if (!Character.isLowSurrogate(c)) {
+                other++;
+            }
+        }
+        return (ascii + 3) / 4 + other;
+    }
+
+    public static int estimate(ReveilaMessage message) {
+        return message == null ? 0 : estimate(message.content()) + MESSAGE_OVERHEAD;
+    }
+
+    public static int estimate(Iterable<ReveilaMessage> messages) {
+        int total = 0;
+        for (ReveilaMessage message : messages) {
+            total += estimate(message);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,27 @@
+package com.reveila.ai;
+
+/**
+ * Counts the tokens a model sees for a piece of text.
+ * <p>
+ * Providers return the tokenizer that matches their model; the default is
+ * {@link #ESTIMATE}, a fast approximation of BPE vocabularies.
+ *
+ * @author CL
+ */
+@FunctionalInterface
+public interface Tokenizer {
+
+    /** Character-based approximation, see {@link TokenEstimator}. */
+    Tokenizer ESTIMATE = TokenEstimator::estimate;
+
+    int count(String text);
+
+    /**
+     * @return True while counts are estimates standing in for exact counts
+     *         the tokenizer cannot make right now; such counts should not be
+     *         cached.
+     */
+    default boolean isFallback() {
+        return false;
+    }
+}
@@ -0,0 +1,314 @@
+package com.reveila.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs the independent tool calls of one agent turn concurrently.
+ * <p>
+ * Calls are submitted to the executor the owner passes in, which should not be
+ * shared with other work (AgenticFabric uses virtual threads where the runtime
+ * has them). They are limited per session by a shared permit count, so
+ * several turns of the same session never run more than the cap at once. Every call has its
+ * own deadline, counted from the moment it starts; calls that overrun it are
+ * interrupted and reported as timed out. While a batch runs, the kill signal is
+ * polled and, once raised, every unfinished call is cancelled.
+ * <p>
+ * Outcomes are always returned in the order the calls were given, whatever
+ * order they completed in, so callers can record them deterministically.
+ *
+ * @author CL
+ */
+public class ToolCallScheduler {
+
+    // How often a waiting batch re-checks deadlines and the kill signal
+    private static final long POLL_INTERVAL_MS = 25;
+
+    private final ExecutorService executor;
+    private final int maxConcurrentPerSession;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final Set<String> cancelled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The permits of one session and the number of batches using them. A slot
+     * is dropped once no batch runs and every permit is back.
+     */
+    private static final class Slot {
+        private final Semaphore permits;
+        private int batches;
+
+        Slot(int permits) {
+            this.permits = new Semaphore(permits);
+        }
+    }
+
+    public ToolCallScheduler(ExecutorService executor, int maxConcurrentPerSession) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Argument 'executor' must not be null");
+        }
+        this.executor = executor;
+        this.maxConcurrentPerSession = Math.max(1, maxConcurrentPerSession);
+    }
+
+    public int getMaxConcurrentPerSession() {
+        return maxConcurrentPerSession;
+    }
+
+    /**
+     * One tool call of a batch.
+     *
+     * @param work      The call itself. It should respond to interruption.
+     * @param timeoutMs The call's deadline in milliseconds; 0 or less for none.
+     */
+    public record Call<T>(Callable<T> work, long timeoutMs) {
+    }
+
+    /**
+     * The result of one call: either a value or the error it failed with. A
+     * call that overran its deadline fails with a {@link TimeoutException}; one
+     * that was cancelled fails with a {@link CancellationException}.
+     */
+    public record Outcome<T>(T value, Throwable error) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Runs the calls and waits until every one of them has completed, failed,
+     * timed out or been cancelled.
+     *
+     * @param sessionId The session the calls belong to.
+     * @param calls     The calls of one turn.
+     * @param killed    Polled while the batch runs; true cancels the remaining
+     *                  calls. May be null.
+     * @return One outcome per call, in the order of {@code calls}.
+     */
+    public <T> List<Outcome<T>> runAll(String sessionId, List<Call<T>> calls, BooleanSupplier killed) {
+        int n = calls.size();
+        List<Outcome<T>> outcomes = new ArrayList<>(Collections.nCopies(n, null));
+        if (n == 0) {
+            return outcomes;
+        }
+
+        Slot slot = slots.compute(sessionId, (id, existing) -> {
+            Slot s = existing != null ? existing : new Slot(maxConcurrentPerSession);
+            synchronized (s) {
+                s.batches++;
+            }
+            return s;
+        });
+        ExecutorCompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Integer>> futures = new ArrayList<>(Collections.nCopies(n, null));
+        Map<Future<Integer>, Integer> indexes = new HashMap<>();
+        // Set by whoever gives a call's permit back: the call itself, or a canceller before it started
+        List<AtomicBoolean> claimed = new ArrayList<>(n);
+        List<T> values = new ArrayList<>(Collections.nCopies(n, null));
+        long[] deadlines = new long[n];
+        int next = 0;
+        int running = 0;
+
+        try {
+            while (next < n || running > 0) {
+                if (isKilled(sessionId, killed)) {
+                    for (int i = 0; i < n; i++) {
+                        if (outcomes.get(i) == null) {
+                            if (futures.get(i) != null) {
+                                cancel(sessionId, slot, futures.get(i), claimed.get(i));
+                            }
+                            outcomes.set(i, new Outcome<>(null,
+                                    new CancellationException("Tool call cancelled for session " + sessionId)));
+                        }
+                    }
+                    return outcomes;
+                }
+
+                // Start as many waiting calls as the session has permits for
+                while (next < n && slot.permits.tryAcquire()) {
+                    int index = next++;
+                    Call<T> call = calls.get(index);
+                    AtomicBoolean done = new AtomicBoolean();
+                    claimed.add(done);
+                    try {
+                        Future<Integer> future = completion.submit(() -> {
+                            if (!done.compareAndSet(false, true)) {
+                                throw new CancellationException();
+                            }
+                            try {
+                                values.set(index, call.work().call());
+                                return index;
+                            } finally {
+                                // Returned only once the call has really stopped, so the cap holds
+                                returnPermit(sessionId, slot);
+                            }
+                        });
+                        futures.set(index, future);
+                        indexes.put(future, index);
+                        deadlines[index] = call.timeoutMs() > 0
+                                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(call.timeoutMs())
+                                : Long.MAX_VALUE;
+                        running++;
+                    } catch (RejectedExecutionException e) {
+                        done.set(true);
+                        returnPermit(sessionId, slot);
+                        outcomes.set(index, new Outcome<>(null, e));
+                    }
+                }
+
+                if (running == 0) {
+                    if (next < n) {
+                        // Other turns of this session hold every permit
+                        Thread.sleep(POLL_INTERVAL_MS);
+                    }
+                    continue;
+                }
+
+                Future<Integer> done = completion.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                while (done != null) {
+                    Integer index = indexes.get(done);
+                    if (index != null && outcomes.get(index) == null) {
+                        outcomes.set(index, settle(done, values, index));
+                        running--;
+                    }
+                    done = completion.poll();
+                }
+
+                long now = System.nanoTime();
+                for (int i = 0; i < next; i++) {
+                    if (outcomes.get(i) == null && futures.get(i) != null && now - deadlines[i] > 0) {
+                        cancel(sessionId, slot, futures.get(i), claimed.get(i));
+                        running--;
+                        long timeoutMs = calls.get(i).timeoutMs();
+                        outcomes.set(i, new Outcome<>(null,
+                                new TimeoutException("Tool call exceeded its deadline of " + timeoutMs + " ms")));
+                    }
+                }
+            }
+            return outcomes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (int i = 0; i < n; i++) {
+                if (outcomes.get(i) == null) {
+                    if (futures.get(i) != null) {
+                        cancel(sessionId, slot, futures.get(i), claimed.get(i));
+                    }
+                    outcomes.set(i, new Outcome<>(null, new CancellationException("Interrupted")));
+                }
+            }
+            return outcomes;
+        } finally {
+            synchronized (slot) {
+                slot.batches--;
+            }
+            dropIfIdle(sessionId, slot);
+        }
+    }
+
+    /**
+     * Cancels the running batches of a session. The flag stays raised until
+     * {@link #reset(String)} is called.
+     */
+    public void cancel(String sessionId) {
+        if (sessionId != null) {
+            cancelled.add(sessionId);
+        }
+    }
+
+    /**
+     * Clears a cancellation so the session can run tool calls again.
+     */
+    public void reset(String sessionId) {
+        if (sessionId != null) {
+            cancelled.remove(sessionId);
+        }
+    }
+
+    /**
+     * Forgets everything held for a session, for example when it ends. Permits
+     * still held by running calls are kept until those calls stop.
+     */
+    public void release(String sessionId) {
+        if (sessionId != null) {
+            cancelled.remove(sessionId);
+            Slot slot = slots.get(sessionId);
+            if (slot != null) {
+                dropIfIdle(sessionId, slot);
+            }
+        }
+    }
+
+    /**
+     * @return The number of sessions holding scheduler state.
+     */
+    public int getSessionCount() {
+        return slots.size();
+    }
+
+    /**
+     * Interrupts a call. A call that had not started yet gives its permit
+     * back here; a running one gives it back when it stops.
+     */
+    private void cancel(String sessionId, Slot slot, Future<Integer> future, AtomicBoolean claimed) {
+        future.cancel(true);
+        if (claimed.compareAndSet(false, true)) {
+            returnPermit(sessionId, slot);
+        }
+    }
+
+    private void returnPermit(String sessionId, Slot slot) {
+        slot.permits.release();
+        dropIfIdle(sessionId, slot);
+    }
+
+    private void dropIfIdle(String sessionId, Slot slot) {
+        slots.computeIfPresent(sessionId, (id, current) -> {
+            synchronized (current) {
+                return current == slot && current.batches == 0
+                        && current.permits.availablePermits() == maxConcurrentPerSession ? null : current;
+            }
+        });
+    }
+
+    private boolean isKilled(String sessionId, BooleanSupplier killed) {
+        if (cancelled.contains(sessionId)) {
+            return true;
+        }
+        try {
+            return killed != null && killed.getAsBoolean();
+        } catch (RuntimeException e) {
+            // Fail safe: a kill switch that cannot answer stops the batch
+            return true;
+        }
+    }
+
+    private static <T> Outcome<T> settle(Future<Integer> done, List<T> values, int index) {
+        try {
+            done.get();
+            return new Outcome<>(values.get(index), null);
+        } catch (ExecutionException e) {
+            return new Outcome<>(null, e.getCause() != null ? e.getCause() : e);
+        } catch (CancellationException e) {
+            return new Outcome<>(null, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Outcome<>(null, e);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.reveila.ai;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 import org.json.JSONObject;
 
 import com.reveila.error.LlmException;
@@ -20,6 +23,31 @@ public class TrackedLlmProvider implements LlmProvider {
         LlmResponse response = delegate.invoke(request);
         long latency = System.currentTimeMillis() - startTime;
 
+        logUsageAsync(request, response, latency);
+        return response;
+    }
+
+    @Override
+    public LlmResponse invokeStreaming(LlmRequest request, Consumer<LlmChunk> consumer) throws LlmException {
+        long startTime = System.currentTimeMillis();
+        LlmResponse response = delegate.invokeStreaming(request, consumer);
+        long latency = System.currentTimeMillis() - startTime;
+
+        logUsageAsync(request, response, latency);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<LlmResponse> invokeAsync(LlmRequest request) {
+        long startTime = System.currentTimeMillis();
+        return delegate.invokeAsync(request).whenComplete((response, error) -> {
+            if (response != null) {
+                logUsageAsync(request, response, System.currentTimeMillis() - startTime);
+            }
+        });
+    }
+
+    private void logUsageAsync(LlmRequest request, LlmResponse response, long latency) {
         String tenantId = request.getMetadata().getOrDefault("tenantId", "default").toString();
         String requestId = response.getRequestId();
         String modelId = request.getModelId();
@@ -40,8 +68,21 @@ public class TrackedLlmProvider implements LlmProvider {
             }
             tracker.logUsage(tenantId, requestId, modelId, response.getUsage(), latency, securityData);
         }).start();
+    }
 
-        return response;
+    @Override
+    public int getContextWindow() {
+        return delegate.getContextWindow();
+    }
+
+    @Override
+    public int getMaxOutputTokens() {
+        return delegate.getMaxOutputTokens();
+    }
+
+    @Override
+    public Tokenizer getTokenizer() {
+        return delegate.getTokenizer();
     }
 
     @Override
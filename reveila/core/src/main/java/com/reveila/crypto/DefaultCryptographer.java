@@ -1,14 +1,22 @@
 package com.reveila.crypto;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
-import java.security.spec.KeySpec;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.GCMParameterSpec;
@@ -20,6 +28,13 @@ import javax.crypto.spec.SecretKeySpec;
  * and AES-GCM for authenticated encryption.
  * 
  * Works on any standard JVM (Spring Boot, Windows, Linux) and Android.
+ * <p>
+ * {@code Cipher} and {@code MessageDigest} instances are reused per thread,
+ * and keys derived from a password are cached by (password fingerprint,
+ * salt) so repeated wrap/unwrap calls pay for PBKDF2 only once. The
+ * fingerprint is an HMAC under a random per-process key, so the cache holds
+ * nothing that helps to guess the password. Cached key material can be wiped
+ * with {@link #clearDerivedKeyCache()}.
  * 
  * @author Charles Lee
  */
@@ -32,6 +47,26 @@ public class DefaultCryptographer implements Cryptographer {
     private static final int TAG_LENGTH = 128;
     private static final int KEY_LENGTH = 256;
     private static final int ITERATIONS = 65536;
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final int MAX_DERIVED_KEYS = 16;
+
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(AES_MODE);
+        } catch (Exception e) {
+            throw new IllegalStateException(AES_MODE + " is not available", e);
+        }
+    });
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private static final DerivedKeyCache DERIVED_KEYS = new DerivedKeyCache(MAX_DERIVED_KEYS);
 
     private final SecretKey secretKey;
     private final SecureRandom secureRandom = new SecureRandom();
@@ -51,10 +86,25 @@ public class DefaultCryptographer implements Cryptographer {
     }
 
     private static SecretKey deriveKey(String password, byte[] salt) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return DERIVED_KEYS.get(password, salt);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt) throws NoSuchAlgorithmException, InvalidKeySpecException {
         SecretKeyFactory factory = SecretKeyFactory.getInstance(KDF_ALGORITHM);
-        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, ITERATIONS, KEY_LENGTH);
-        SecretKey tmp = factory.generateSecret(spec);
-        return new SecretKeySpec(tmp.getEncoded(), "AES");
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, ITERATIONS, KEY_LENGTH);
+        try {
+            return factory.generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Wipes and forgets all keys derived from passwords, for example when a
+     * vault is locked.
+     */
+    public static void clearDerivedKeyCache() {
+        DERIVED_KEYS.clear();
     }
 
     public static byte[] generateRandomKey() {
@@ -72,7 +122,7 @@ public class DefaultCryptographer implements Cryptographer {
     public static String wrapKeyToBase64(byte[] rawKey, String password, String saltHex) throws Exception {
         byte[] salt = hexToBytes(saltHex);
         SecretKey kek = deriveKey(password, salt);
-        Cipher cipher = Cipher.getInstance(AES_MODE);
+        Cipher cipher = CIPHERS.get();
         byte[] iv = new byte[IV_LENGTH];
         new SecureRandom().nextBytes(iv);
         GCMParameterSpec parameterSpec = new GCMParameterSpec(TAG_LENGTH, iv);
@@ -97,7 +147,7 @@ public class DefaultCryptographer implements Cryptographer {
         byte[] iv = Arrays.copyOfRange(combinedData, 0, IV_LENGTH);
         byte[] ciphertext = Arrays.copyOfRange(combinedData, IV_LENGTH, combinedData.length);
 
-        Cipher cipher = Cipher.getInstance(AES_MODE);
+        Cipher cipher = CIPHERS.get();
         GCMParameterSpec parameterSpec = new GCMParameterSpec(TAG_LENGTH, iv);
         cipher.init(Cipher.DECRYPT_MODE, kek, parameterSpec);
         
@@ -126,40 +176,170 @@ public class DefaultCryptographer implements Cryptographer {
 
     @Override
     public byte[] encrypt(byte[] data) throws Exception {
-        Cipher cipher = Cipher.getInstance(AES_MODE);
+        return encrypt(CIPHERS.get(), data);
+    }
+
+    private byte[] encrypt(Cipher cipher, byte[] data) throws Exception {
         byte[] iv = new byte[IV_LENGTH];
         secureRandom.nextBytes(iv);
-        GCMParameterSpec parameterSpec = new GCMParameterSpec(TAG_LENGTH, iv);
-        
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
-        byte[] ciphertext = cipher.doFinal(data);
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
 
-        // Result: [IV (12)] + [CIPHERTEXT (N)]
-        byte[] combined = new byte[iv.length + ciphertext.length];
-        System.arraycopy(iv, 0, combined, 0, iv.length);
-        System.arraycopy(ciphertext, 0, combined, iv.length, ciphertext.length);
-        return combined;
+        // Result: [IV (12)] + [CIPHERTEXT (N)], written in place without copies
+        byte[] combined = new byte[IV_LENGTH + cipher.getOutputSize(data.length)];
+        System.arraycopy(iv, 0, combined, 0, IV_LENGTH);
+        int written = cipher.doFinal(data, 0, data.length, combined, IV_LENGTH);
+        return written + IV_LENGTH == combined.length ? combined : Arrays.copyOf(combined, IV_LENGTH + written);
     }
 
     @Override
     public byte[] decrypt(byte[] combinedData) throws Exception {
+        return decrypt(CIPHERS.get(), combinedData);
+    }
+
+    private byte[] decrypt(Cipher cipher, byte[] combinedData) throws Exception {
         if (combinedData.length < IV_LENGTH) {
             throw new IllegalArgumentException("Invalid encrypted data size.");
         }
 
-        byte[] iv = Arrays.copyOfRange(combinedData, 0, IV_LENGTH);
-        byte[] ciphertext = Arrays.copyOfRange(combinedData, IV_LENGTH, combinedData.length);
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, combinedData, 0, IV_LENGTH));
+        return cipher.doFinal(combinedData, IV_LENGTH, combinedData.length - IV_LENGTH);
+    }
+
+    /**
+     * Encrypts each item separately, in the same format as
+     * {@link #encrypt(byte[])}, reusing one cipher for the whole batch.
+     */
+    public List<byte[]> encryptAll(List<byte[]> items) throws Exception {
+        Cipher cipher = CIPHERS.get();
+        List<byte[]> result = new ArrayList<>(items.size());
+        for (byte[] item : items) {
+            result.add(encrypt(cipher, item));
+        }
+        return result;
+    }
 
+    /**
+     * Decrypts each item produced by {@link #encrypt(byte[])} or
+     * {@link #encryptAll(List)}, reusing one cipher for the whole batch.
+     */
+    public List<byte[]> decryptAll(List<byte[]> items) throws Exception {
+        Cipher cipher = CIPHERS.get();
+        List<byte[]> result = new ArrayList<>(items.size());
+        for (byte[] item : items) {
+            result.add(decrypt(cipher, item));
+        }
+        return result;
+    }
+
+    /**
+     * Encrypts a stream of any length into the same [IV] + [CIPHERTEXT + TAG]
+     * layout as {@link #encrypt(byte[])}. Neither stream is closed.
+     */
+    public void encrypt(InputStream in, OutputStream out) throws Exception {
         Cipher cipher = Cipher.getInstance(AES_MODE);
-        GCMParameterSpec parameterSpec = new GCMParameterSpec(TAG_LENGTH, iv);
-        cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
-        
-        return cipher.doFinal(ciphertext);
+        byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+        out.write(iv);
+        pump(cipher, in, out);
+    }
+
+    /**
+     * Decrypts a stream produced by {@link #encrypt(InputStream, OutputStream)}
+     * or {@link #encrypt(byte[])}. Neither stream is closed. The payload is
+     * read in chunks, but the cipher only releases the plaintext once the
+     * authentication tag has been verified, as GCM requires.
+     */
+    public void decrypt(InputStream in, OutputStream out) throws Exception {
+        byte[] iv = in.readNBytes(IV_LENGTH);
+        if (iv.length < IV_LENGTH) {
+            throw new IllegalArgumentException("Invalid encrypted data size.");
+        }
+        Cipher cipher = Cipher.getInstance(AES_MODE);
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+        pump(cipher, in, out);
+    }
+
+    private static void pump(Cipher cipher, InputStream in, OutputStream out) throws Exception {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            byte[] chunk = cipher.update(buffer, 0, n);
+            if (chunk != null && chunk.length > 0) {
+                out.write(chunk);
+            }
+        }
+        byte[] last = cipher.doFinal();
+        if (last != null && last.length > 0) {
+            out.write(last);
+        }
+        out.flush();
     }
 
     @Override
     public byte[] hash(byte[] data) throws Exception {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        MessageDigest digest = DIGESTS.get();
+        digest.reset();
         return digest.digest(data);
     }
+
+    /**
+     * Small LRU of password-derived keys. Entries are looked up by an HMAC
+     * fingerprint of password and salt, and their key bytes are zeroed when
+     * evicted or cleared.
+     */
+    private static final class DerivedKeyCache {
+        private final int capacity;
+        private final byte[] fingerprintKey = new byte[32];
+        private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        DerivedKeyCache(int capacity) {
+            this.capacity = capacity;
+            new SecureRandom().nextBytes(fingerprintKey);
+        }
+
+        SecretKey get(String password, byte[] salt) throws NoSuchAlgorithmException, InvalidKeySpecException {
+            String fingerprint = fingerprint(password, salt);
+            synchronized (this) {
+                byte[] key = entries.get(fingerprint);
+                if (key != null) {
+                    return new SecretKeySpec(key, "AES");
+                }
+            }
+            // Derive outside the lock; a concurrent duplicate derivation is harmless
+            byte[] key = pbkdf2(password, salt);
+            SecretKey secret = new SecretKeySpec(key, "AES");
+            synchronized (this) {
+                byte[] previous = entries.put(fingerprint, key);
+                if (previous != null && previous != key) {
+                    Arrays.fill(previous, (byte) 0);
+                }
+                Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+                while (entries.size() > capacity && it.hasNext()) {
+                    Arrays.fill(it.next().getValue(), (byte) 0);
+                    it.remove();
+                }
+            }
+            return secret;
+        }
+
+        synchronized void clear() {
+            for (byte[] key : entries.values()) {
+                Arrays.fill(key, (byte) 0);
+            }
+            entries.clear();
+        }
+
+        private String fingerprint(String password, byte[] salt) {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(fingerprintKey, "HmacSHA256"));
+                mac.update(salt);
+                mac.update((byte) 0);
+                return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        }
+    }
 }
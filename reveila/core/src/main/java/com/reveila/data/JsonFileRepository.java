@@ -1,30 +1,98 @@
 package com.reveila.data;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.reveila.system.PlatformAdapter;
 
-public class JsonFileRepository<T, ID> implements JavaObjectRepository<T, ID> {
+/**
+ * File-backed repository for Java objects, used where no database is available.
+ * <p>
+ * Entities are held in memory behind a primary-key index. Every change is
+ * appended to a JSON-lines write-ahead log ({@code <type>s.wal.jsonl}) and the
+ * log is periodically compacted into the snapshot file ({@code <type>s.json}).
+ * Compaction first writes a complete copy to {@code <type>s.json.tmp}, so a
+ * crash while rewriting the snapshot leaves a readable fallback; replaying the
+ * log is idempotent, so it is safe to replay it over either file. The copy is
+ * deleted once the snapshot is complete. {@link #close()} syncs and closes the
+ * log when the repository is no longer used.
+ * <p>
+ * {@link #fetchPage} evaluates {@link Filter} and {@link Sort} against entity
+ * properties (getters, record accessors or fields, with dotted paths for
+ * nested values). Attributes registered with {@link #addIndex(String)} get a
+ * secondary hash index used for EQUAL and IN conditions.
+ */
+public class JsonFileRepository<T, ID> implements JavaObjectRepository<T, ID>, AutoCloseable {
+
+    /**
+     * When appended log records are forced to disk.
+     */
+    public enum FsyncPolicy {
+        /** After every write; nothing acknowledged is lost on power failure. */
+        ALWAYS,
+        /** At most once per fsync interval, and on {@link #commit()}. */
+        INTERVAL,
+        /** Left to the operating system; only {@link #commit()} forces a sync. */
+        NEVER
+    }
+
+    private static final Object NULL_KEY = new Object();
+    private static final Function<Object, Object> NO_PROPERTY = target -> null;
+    private static final Map<Class<?>, Map<String, Function<Object, Object>>> ACCESSORS = new ConcurrentHashMap<>();
 
     private final String filePath;
+    private final String walPath;
+    private final String tempPath;
     private final Class<T> entityClass;
     private final Class<ID> idClass;
     private final String entityType;
     private final ObjectMapper mapper = EntityMapper.getObjectMapper();
-    private List<T> data = new ArrayList<>();
     private final PlatformAdapter platformAdapter;
     private Method getIdMethod;
+    private Method setIdMethod;
+
+    // Primary index in insertion order; entities without an ID get a synthetic key
+    private final Map<Object, T> data = new LinkedHashMap<>();
+    private final Map<String, Map<Object, Set<Object>>> indexes = new HashMap<>();
+
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+    private long fsyncIntervalMs = 1000;
+    private int compactionThreshold = 10000;
+    private OutputStream walFile;
+    private OutputStream wal;
+    private long walRecords;
+    private long lastSync;
 
     public JsonFileRepository(String dataDir, String entityType, Class<T> entityClass, Class<ID> idClass, PlatformAdapter platformAdapter) {
         this.filePath = dataDir + "/" + entityType.toLowerCase() + "s.json";
+        this.walPath = dataDir + "/" + entityType.toLowerCase() + "s.wal.jsonl";
+        this.tempPath = filePath + ".tmp";
         this.entityType = entityType;
         this.entityClass = entityClass;
         this.idClass = idClass;
@@ -34,29 +102,202 @@ public class JsonFileRepository<T, ID> implements JavaObjectRepository<T, ID> {
         } catch (NoSuchMethodException e) {
             this.getIdMethod = null;
         }
+        try {
+            this.setIdMethod = entityClass.getMethod("setId", idClass);
+        } catch (NoSuchMethodException e) {
+            this.setIdMethod = null;
+        }
         load();
     }
 
+    public synchronized FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public synchronized void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public synchronized void setFsyncIntervalMs(long fsyncIntervalMs) {
+        this.fsyncIntervalMs = fsyncIntervalMs;
+    }
+
+    /**
+     * Sets the number of log records after which the log is folded into the
+     * snapshot. Compaction also waits until the log is at least as long as the
+     * live data set, so large repositories are not rewritten too often.
+     */
+    public synchronized void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Declares a secondary hash index on an entity attribute (dotted paths are
+     * allowed). The index is built from the current data immediately.
+     */
+    public synchronized void addIndex(String attribute) {
+        Map<Object, Set<Object>> index = new HashMap<>();
+        indexes.put(attribute, index);
+        for (Map.Entry<Object, T> entry : data.entrySet()) {
+            index.computeIfAbsent(indexKey(attribute(entry.getValue(), attribute)), k -> new LinkedHashSet<>())
+                    .add(entry.getKey());
+        }
+    }
+
     private void load() {
-        try (java.io.InputStream is = platformAdapter.getFileInputStream(filePath)) {
-            if (is != null) {
-                data = mapper.readValue(is, mapper.getTypeFactory().constructCollectionType(List.class, entityClass));
+        if (!loadSnapshot(filePath)) {
+            loadSnapshot(tempPath);
+        }
+        replayLog();
+    }
+
+    private boolean loadSnapshot(String path) {
+        try (InputStream is = platformAdapter.getFileInputStream(path)) {
+            if (is == null) {
+                return false;
+            }
+            List<T> items = mapper.readValue(is, mapper.getTypeFactory().constructCollectionType(List.class, entityClass));
+            data.clear();
+            for (T item : items) {
+                data.put(keyOf(item), item);
+            }
+            return true;
+        } catch (IOException e) {
+            if (!path.equals(tempPath)) {
+                System.err.println("Failed to load JSON data from " + path + ": " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private void replayLog() {
+        try (InputStream is = platformAdapter.getFileInputStream(walPath)) {
+            if (is == null) {
+                return;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                walRecords++;
+                try {
+                    JsonNode record = mapper.readTree(line);
+                    if ("delete".equals(record.path("op").asText())) {
+                        data.remove(mapper.convertValue(record.get("id"), idClass));
+                    } else {
+                        T item = mapper.treeToValue(record.get("value"), entityClass);
+                        data.put(keyOf(item), item);
+                    }
+                } catch (IOException | IllegalArgumentException e) {
+                    // A torn final line from a crash mid-append; everything before it is intact
+                    System.err.println("Skipping unreadable log record in " + walPath + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            // No log yet
+        }
+    }
+
+    private void append(String op, Object id, T entity) {
+        try {
+            if (wal == null) {
+                walFile = platformAdapter.getFileOutputStream(walPath, true);
+                wal = new BufferedOutputStream(walFile);
+            }
+            ObjectNode record = mapper.createObjectNode();
+            record.put("op", op);
+            if (entity != null) {
+                record.set("value", mapper.valueToTree(entity));
             } else {
-                data = new ArrayList<>();
+                record.set("id", mapper.valueToTree(id));
             }
+            wal.write(mapper.writeValueAsBytes(record));
+            wal.write('\n');
+            walRecords++;
         } catch (IOException e) {
-            System.err.println("Failed to load JSON data from " + filePath + ": " + e.getMessage());
-            data = new ArrayList<>();
+            System.err.println("Failed to append to " + walPath + ": " + e.getMessage());
         }
     }
 
-    private synchronized void save() {
-        try (java.io.OutputStream os = platformAdapter.getFileOutputStream(filePath, false)) {
-            if (os != null) {
-                mapper.writerWithDefaultPrettyPrinter().writeValue(os, data);
+    private void sync(boolean force) {
+        if (wal == null) {
+            return;
+        }
+        try {
+            wal.flush();
+            long now = System.currentTimeMillis();
+            boolean due = switch (fsyncPolicy) {
+                case ALWAYS -> true;
+                case INTERVAL -> now - lastSync >= fsyncIntervalMs;
+                case NEVER -> false;
+            };
+            if ((force || due) && walFile instanceof FileOutputStream fos) {
+                fos.getFD().sync();
+                lastSync = now;
             }
         } catch (IOException e) {
-            System.err.println("Failed to save JSON data to " + filePath + ": " + e.getMessage());
+            System.err.println("Failed to sync " + walPath + ": " + e.getMessage());
+        }
+    }
+
+    private void afterWrite() {
+        sync(false);
+        if (walRecords >= compactionThreshold && walRecords >= data.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Folds the write-ahead log into the snapshot file and truncates the log.
+     */
+    public synchronized void compact() {
+        try {
+            writeSnapshot(tempPath);
+            writeSnapshot(filePath);
+            closeLog();
+            platformAdapter.getFileOutputStream(walPath, false).close();
+            platformAdapter.deleteFile(tempPath);
+            walRecords = 0;
+        } catch (IOException e) {
+            System.err.println("Failed to compact JSON data to " + filePath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Syncs and closes the write-ahead log. A later write reopens it.
+     */
+    @Override
+    public synchronized void close() {
+        sync(true);
+        try {
+            closeLog();
+        } catch (IOException e) {
+            System.err.println("Failed to close " + walPath + ": " + e.getMessage());
+        }
+    }
+
+    private void closeLog() throws IOException {
+        OutputStream log = wal;
+        wal = null;
+        walFile = null;
+        if (log != null) {
+            // Closes the file stream underneath as well
+            log.close();
+        }
+    }
+
+    private void writeSnapshot(String path) throws IOException {
+        try (OutputStream os = platformAdapter.getFileOutputStream(path, false)) {
+            if (os == null) {
+                throw new IOException("No output stream for " + path);
+            }
+            mapper.writeValue(new NonClosingOutputStream(os), data.values());
+            os.flush();
+            if (os instanceof FileOutputStream fos && fsyncPolicy != FsyncPolicy.NEVER) {
+                fos.getFD().sync();
+            }
         }
     }
 
@@ -91,38 +332,41 @@ public class JsonFileRepository<T, ID> implements JavaObjectRepository<T, ID> {
 
     @Override
     public synchronized List<T> fetchAll() {
-        return new ArrayList<>(data);
+        return new ArrayList<>(data.values());
     }
 
     @Override
     public synchronized Optional<T> fetchById(ID id) {
-        return data.stream().filter(item -> getId(item).equals(Optional.ofNullable(id))).findFirst();
+        return id == null ? Optional.empty() : Optional.ofNullable(data.get(id));
     }
 
     @Override
     public synchronized T store(T entity) {
-        Optional<ID> id = getId(entity);
-        data.removeIf(item -> getId(item).equals(id));
-        data.add(entity);
-        save();
+        put(entity);
+        afterWrite();
         return entity;
     }
 
     @Override
     public synchronized List<T> storeAll(Collection<T> entities) {
         for (T entity : entities) {
-            Optional<ID> id = getId(entity);
-            data.removeIf(item -> getId(item).equals(id));
+            put(entity);
         }
-        data.addAll(entities);
-        save();
+        afterWrite();
         return new ArrayList<>(entities);
     }
 
     @Override
     public synchronized void disposeById(ID id) {
-        data.removeIf(item -> getId(item).equals(Optional.ofNullable(id)));
-        save();
+        if (id == null) {
+            return;
+        }
+        T removed = data.remove(id);
+        if (removed != null) {
+            unindex(id, removed);
+            append("delete", id, null);
+            afterWrite();
+        }
     }
 
     @Override
@@ -132,23 +376,235 @@ public class JsonFileRepository<T, ID> implements JavaObjectRepository<T, ID> {
 
     @Override
     public synchronized boolean hasId(ID id) {
-        return data.stream().anyMatch(item -> getId(item).equals(Optional.ofNullable(id)));
+        return id != null && data.containsKey(id);
     }
 
     @Override
     public synchronized void commit() {
-        save();
+        sync(true);
     }
 
     @Override
     public synchronized Page<T> fetchPage(Filter filter, Sort sort, List<String> fetches, int page, int size, boolean includeCount) {
+        List<T> matches = new ArrayList<>();
+        for (T item : candidates(filter)) {
+            if (matches(item, filter)) {
+                matches.add(item);
+            }
+        }
+        if (sort != null && sort.field() != null) {
+            Comparator<T> comparator = Comparator.comparing(item -> attribute(item, sort.field()),
+                    Comparator.nullsLast(JsonFileRepository::compareValues));
+            matches.sort(sort.ascending() ? comparator : comparator.reversed());
+        }
+
         int start = page * size;
-        if (start >= data.size()) return new Page<T>(List.of(), page, size, false, (long)data.size());
-        
-        int end = Math.min(start + size, data.size());
-        List<T> content = data.subList(start, end);
-        boolean hasNext = end < data.size();
-        return new Page<T>(content, page, size, hasNext, (long)data.size());
+        if (start >= matches.size()) return new Page<T>(List.of(), page, size, false, (long) matches.size());
+
+        int end = Math.min(start + size, matches.size());
+        List<T> content = matches.subList(start, end);
+        boolean hasNext = end < matches.size();
+        return new Page<T>(content, page, size, hasNext, (long) matches.size());
+    }
+
+    private void put(T entity) {
+        Object key = keyOf(entity);
+        T previous = data.put(key, entity);
+        if (previous != null) {
+            unindex(key, previous);
+        }
+        for (Map.Entry<String, Map<Object, Set<Object>>> index : indexes.entrySet()) {
+            index.getValue().computeIfAbsent(indexKey(attribute(entity, index.getKey())), k -> new LinkedHashSet<>())
+                    .add(key);
+        }
+        append("put", key, entity);
+    }
+
+    private void unindex(Object key, T entity) {
+        for (Map.Entry<String, Map<Object, Set<Object>>> index : indexes.entrySet()) {
+            Object value = indexKey(attribute(entity, index.getKey()));
+            Set<Object> keys = index.getValue().get(value);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    index.getValue().remove(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Narrows the scan using secondary indexes where the filter allows it:
+     * one indexed EQUAL/IN condition for AND filters, or all conditions being
+     * indexed EQUAL/IN for OR filters.
+     */
+    private Collection<T> candidates(Filter filter) {
+        if (filter == null || filter.getConditions().isEmpty() || indexes.isEmpty()) {
+            return data.values();
+        }
+        boolean or = filter.getLogicalOp() == Filter.LogicalOp.OR;
+        Set<Object> keys = new LinkedHashSet<>();
+        boolean indexed = false;
+        for (Map.Entry<String, Filter.Criterion> condition : filter.getConditions().entrySet()) {
+            Map<Object, Set<Object>> index = indexes.get(condition.getKey());
+            Filter.Criterion criterion = condition.getValue();
+            boolean lookup = index != null && (criterion.operator() == Filter.SearchOp.EQUAL
+                    || (criterion.operator() == Filter.SearchOp.IN && criterion.value() instanceof Collection));
+            if (!lookup) {
+                if (or) {
+                    return data.values();
+                }
+                continue;
+            }
+            Collection<?> values = criterion.operator() == Filter.SearchOp.IN
+                    ? (Collection<?>) criterion.value()
+                    : java.util.Collections.singletonList(criterion.value());
+            for (Object value : values) {
+                keys.addAll(index.getOrDefault(indexKey(value), Set.of()));
+            }
+            indexed = true;
+            if (!or) {
+                break;
+            }
+        }
+        if (!indexed) {
+            return data.values();
+        }
+        List<T> result = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            result.add(data.get(key));
+        }
+        return result;
+    }
+
+    private boolean matches(T item, Filter filter) {
+        if (filter == null || filter.getConditions().isEmpty()) {
+            return true;
+        }
+        boolean or = filter.getLogicalOp() == Filter.LogicalOp.OR;
+        for (Map.Entry<String, Filter.Criterion> condition : filter.getConditions().entrySet()) {
+            boolean match = matches(attribute(item, condition.getKey()), condition.getValue());
+            if (or && match) {
+                return true;
+            }
+            if (!or && !match) {
+                return false;
+            }
+        }
+        return !or;
+    }
+
+    private static boolean matches(Object value, Filter.Criterion criterion) {
+        Object expected = criterion.value();
+        return switch (criterion.operator()) {
+            case EQUAL -> indexKey(value).equals(indexKey(expected));
+            case LIKE -> value != null && expected != null
+                    && value.toString().toLowerCase().contains(expected.toString().toLowerCase());
+            case IN -> expected instanceof Collection<?> options
+                    && options.stream().anyMatch(option -> indexKey(value).equals(indexKey(option)));
+            case GREATER_THAN -> value != null && expected != null && compareValues(value, expected) > 0;
+            case LESS_THAN -> value != null && expected != null && compareValues(value, expected) < 0;
+        };
+    }
+
+    /**
+     * Normalises a value for equality and hashing, so that numbers compare by
+     * value and IDs or enums match their string form (as sent by JSON clients).
+     */
+    private static Object indexKey(Object value) {
+        if (value == null) {
+            return NULL_KEY;
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString()).stripTrailingZeros();
+        }
+        return value.toString();
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        if (a instanceof Comparable && a.getClass().isInstance(b)) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    private Object attribute(Object target, String path) {
+        Object current = target;
+        for (String part : path.split("\\.")) {
+            if (current == null) {
+                return null;
+            }
+            if (current instanceof Map<?, ?> map) {
+                current = map.get(part);
+            } else {
+                Class<?> type = current.getClass();
+                current = ACCESSORS.computeIfAbsent(type, c -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(part, name -> accessor(type, name))
+                        .apply(current);
+            }
+        }
+        return current;
+    }
+
+    private static Function<Object, Object> accessor(Class<?> type, String name) {
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String candidate : new String[] { "get" + suffix, "is" + suffix, name }) {
+            try {
+                Method method = type.getMethod(candidate);
+                if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())) {
+                    method.setAccessible(true);
+                    return target -> invoke(method, target);
+                }
+            } catch (NoSuchMethodException | RuntimeException e) {
+                // Try the next naming convention
+            }
+        }
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                field.setAccessible(true);
+                return target -> {
+                    try {
+                        return field.get(target);
+                    } catch (IllegalAccessException e) {
+                        return null;
+                    }
+                };
+            } catch (NoSuchFieldException | RuntimeException e) {
+                // Look in the superclass
+            }
+        }
+        return NO_PROPERTY;
+    }
+
+    private static Object invoke(Method method, Object target) {
+        try {
+            return method.invoke(target);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private Object keyOf(T entity) {
+        Optional<ID> id = getId(entity);
+        if (id.isEmpty() && entity != null && setIdMethod != null) {
+            // Mirror generated IDs so entities without one do not overwrite each other
+            Object generated = idClass == UUID.class ? UUID.randomUUID()
+                    : idClass == String.class ? UUID.randomUUID().toString() : null;
+            if (generated != null) {
+                try {
+                    setIdMethod.invoke(entity, generated);
+                    id = getId(entity);
+                } catch (Exception e) {
+                    // Fall through to a synthetic key
+                }
+            }
+        }
+        return id.isPresent() ? id.get() : new Object();
     }
 
     private Optional<ID> getId(T entity) {
@@ -162,4 +618,24 @@ public class JsonFileRepository<T, ID> implements JavaObjectRepository<T, ID> {
             return Optional.empty();
         }
     }
+
+    /**
+     * Keeps Jackson from closing the underlying stream, so the snapshot can be
+     * flushed and synced before it is closed.
+     */
+    private static final class NonClosingOutputStream extends java.io.FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
@@ -1,23 +1,68 @@
 package com.reveila.event;
 
+import java.util.ArrayDeque;
 import java.util.EventObject;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * @author Charles Lee
- * 
+ *
  * This class implements an abstract event manager, which is designed to centralize
  * event management. All inter-service events are managed by this event manager.
+ * <p>
+ * Every consumer has its own bounded mailbox, so it sees events in the order
+ * they were dispatched and a slow consumer cannot hold up the others. Mailboxes
+ * are drained by a small fixed pool of dispatcher threads, one mailbox at a
+ * time per consumer. When a mailbox is full the overflow policy decides whether
+ * the oldest or the newest event is dropped, or whether the dispatching thread
+ * waits for room.
  */
 public class EventManager {
 
-	private List<EventConsumer> listeners = new LinkedList<EventConsumer>();
-	private ThreadGroup tGroup = new ThreadGroup("Event dispatching thread group");
+	public enum OverflowPolicy {
+		/** Discard the incoming event. */
+		DROP_NEWEST,
+		/** Discard the oldest queued event to make room. */
+		DROP_OLDEST,
+		/** Wait up to the block timeout for room, then discard the incoming event. */
+		BLOCK
+	}
+
+	/**
+	 * Events delivered to one consumer in a row before its dispatcher thread
+	 * moves on, so a busy consumer cannot monopolise the pool.
+	 */
+	private static final int DRAIN_BATCH = 64;
+
+	private final List<Mailbox> mailboxes = new CopyOnWriteArrayList<Mailbox>();
+	private final LongAdder dispatched = new LongAdder();
+	private final LongAdder delivered = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder latencyTotalNanos = new LongAdder();
+	private final LongAccumulator latencyMaxNanos = new LongAccumulator(Long::max, 0);
+
+	private ExecutorService executor;
+	private boolean ownsExecutor;
+	private int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private int mailboxCapacity = 1024;
+	private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+	private long blockTimeoutMs = 100;
 	private Logger logger;
-	
+
 	public void setLogger(Logger logger) {
 		synchronized (this) {
 			this.logger = logger;
@@ -27,15 +72,49 @@ public class EventManager {
 	public EventManager() {
 		super();
 	}
-	
+
+	/**
+	 * Sets the number of dispatcher threads. Takes effect if set before the
+	 * first event is dispatched.
+	 */
+	public synchronized void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets the capacity of each consumer's mailbox. Applies to consumers added
+	 * afterwards.
+	 */
+	public synchronized void setMailboxCapacity(int mailboxCapacity) {
+		this.mailboxCapacity = Math.max(1, mailboxCapacity);
+	}
+
+	public synchronized void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public synchronized void setBlockTimeoutMs(long blockTimeoutMs) {
+		this.blockTimeoutMs = blockTimeoutMs;
+	}
+
+	/**
+	 * Uses an externally managed executor (for example a virtual-thread
+	 * executor on platforms that have one) instead of the built-in pool. The
+	 * executor is not shut down by this event manager.
+	 */
+	public synchronized void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+		this.ownsExecutor = false;
+	}
+
 	public void addEventWatcher(EventConsumer l) {
 		if (l == null) {
 			throw new IllegalArgumentException("Argument 'EventReceiver' must not be null");
 		}
-		
+
 		synchronized (this) {
-			if (!this.listeners.contains(l)) {
-				this.listeners.add(l);
+			if (find(l) == null) {
+				this.mailboxes.add(new Mailbox(l, mailboxCapacity));
 			}
 		}
 	}
@@ -44,39 +123,259 @@ public class EventManager {
 		if (c == null) {
 			return;
 		}
-		
+
 		synchronized (this) {
-			if (this.listeners.contains(c)) {
-				this.listeners.remove(c);
+			Mailbox mailbox = find(c);
+			if (mailbox != null) {
+				this.mailboxes.remove(mailbox);
+				mailbox.close();
 			}
 		}
 	}
-	
+
+	/**
+	 * Queues an event for every registered consumer and returns immediately.
+	 */
 	public void dispatchEvent(EventObject event) {
-		Runnable r = new Runnable() {
-			public void run() {
-				Iterator<EventConsumer> i = listeners.iterator();
-				while (i.hasNext()) {
-					try {
-						i.next().notifyEvent(event);
-					} catch (Exception e) {
-						if (logger != null) {
-							logger.severe(e.toString() + e.getStackTrace());
-						} else {
-							e.printStackTrace();
-						}
-					}
-				}
-			}
-		};
-		
-		Thread t = new Thread(tGroup, r);
-		t.start();
+		if (event == null) {
+			return;
+		}
+		dispatched.increment();
+		long now = System.nanoTime();
+		for (Mailbox mailbox : mailboxes) {
+			mailbox.offer(event, now);
+		}
+	}
+
+	public long getDispatchedCount() {
+		return dispatched.sum();
+	}
+
+	public long getDeliveredCount() {
+		return delivered.sum();
+	}
+
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	/**
+	 * @return The number of events waiting in all mailboxes.
+	 */
+	public int getQueuedCount() {
+		int queued = 0;
+		for (Mailbox mailbox : mailboxes) {
+			queued += mailbox.size();
+		}
+		return queued;
+	}
+
+	/**
+	 * @return The mean time from dispatch to delivery, in microseconds.
+	 */
+	public double getAverageDispatchLatencyMicros() {
+		long count = delivered.sum() + failed.sum();
+		return count == 0 ? 0 : latencyTotalNanos.sum() / 1000.0 / count;
+	}
+
+	/**
+	 * @return The longest time from dispatch to delivery seen, in microseconds.
+	 */
+	public double getMaxDispatchLatencyMicros() {
+		return latencyMaxNanos.get() / 1000.0;
 	}
 
     public void clear() {
 		synchronized (this) {
-			listeners.clear();
+			for (Mailbox mailbox : mailboxes) {
+				mailbox.close();
+			}
+			mailboxes.clear();
 		}
     }
+
+	/**
+	 * Clears all consumers and stops the built-in dispatcher pool. Queued
+	 * events that have not been delivered yet are discarded.
+	 */
+	public void shutdown() {
+		ExecutorService toStop;
+		synchronized (this) {
+			clear();
+			toStop = ownsExecutor ? executor : null;
+			executor = null;
+		}
+		if (toStop != null) {
+			toStop.shutdown();
+		}
+	}
+
+	private Mailbox find(EventConsumer consumer) {
+		for (Mailbox mailbox : mailboxes) {
+			if (mailbox.consumer == consumer) {
+				return mailbox;
+			}
+		}
+		return null;
+	}
+
+	private synchronized ExecutorService executor() {
+		if (executor == null) {
+			AtomicInteger count = new AtomicInteger();
+			ThreadGroup group = new ThreadGroup("Event dispatching thread group");
+			ThreadFactory factory = r -> {
+				Thread t = new Thread(group, r, "Event Dispatcher - " + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			};
+			// Mailboxes bound the backlog; the pool queue only holds drain tasks,
+			// at most one per consumer
+			executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), factory);
+			ownsExecutor = true;
+		}
+		return executor;
+	}
+
+	private void log(String message, Throwable t) {
+		Logger l = logger;
+		if (l != null) {
+			l.log(Level.SEVERE, message, t);
+		} else {
+			t.printStackTrace();
+		}
+	}
+
+	/**
+	 * Ordered, bounded queue of events for one consumer. At most one drain task
+	 * per mailbox is scheduled at any time, which keeps delivery in order.
+	 */
+	private final class Mailbox implements Runnable {
+		private final EventConsumer consumer;
+		private final int capacity;
+		private final ArrayDeque<Envelope> queue = new ArrayDeque<Envelope>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean closed;
+
+		Mailbox(EventConsumer consumer, int capacity) {
+			this.consumer = consumer;
+			this.capacity = capacity;
+		}
+
+		void offer(EventObject event, long dispatchedAt) {
+			Envelope envelope = new Envelope(event, dispatchedAt);
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				if (queue.size() >= capacity) {
+					switch (overflowPolicy) {
+						case DROP_NEWEST:
+							dropped.increment();
+							return;
+						case DROP_OLDEST:
+							queue.pollFirst();
+							dropped.increment();
+							break;
+						case BLOCK:
+							long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+							while (queue.size() >= capacity && !closed) {
+								long remaining = deadline - System.nanoTime();
+								if (remaining <= 0) {
+									dropped.increment();
+									return;
+								}
+								try {
+									TimeUnit.NANOSECONDS.timedWait(this, remaining);
+								} catch (InterruptedException e) {
+									Thread.currentThread().interrupt();
+									dropped.increment();
+									return;
+								}
+							}
+							break;
+					}
+				}
+				queue.addLast(envelope);
+			}
+			schedule();
+		}
+
+		private void schedule() {
+			if (scheduled.compareAndSet(false, true)) {
+				try {
+					executor().execute(this);
+				} catch (RejectedExecutionException e) {
+					scheduled.set(false);
+					synchronized (this) {
+						dropped.add(queue.size());
+						queue.clear();
+					}
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < DRAIN_BATCH; i++) {
+					Envelope envelope;
+					synchronized (this) {
+						envelope = queue.pollFirst();
+						notifyAll();
+					}
+					if (envelope == null || closed) {
+						break;
+					}
+					deliver(envelope);
+				}
+			} finally {
+				scheduled.set(false);
+			}
+			boolean more;
+			synchronized (this) {
+				more = !queue.isEmpty() && !closed;
+			}
+			if (more) {
+				schedule();
+			}
+		}
+
+		private void deliver(Envelope envelope) {
+			long latency = System.nanoTime() - envelope.dispatchedAt;
+			latencyTotalNanos.add(latency);
+			latencyMaxNanos.accumulate(latency);
+			try {
+				consumer.notifyEvent(envelope.event);
+				delivered.increment();
+			} catch (Exception e) {
+				failed.increment();
+				log("Event consumer " + consumer + " failed to handle " + envelope.event, e);
+			}
+		}
+
+		synchronized int size() {
+			return queue.size();
+		}
+
+		synchronized void close() {
+			closed = true;
+			queue.clear();
+			notifyAll();
+		}
+	}
+
+	private static final class Envelope {
+		private final EventObject event;
+		private final long dispatchedAt;
+
+		Envelope(EventObject event, long dispatchedAt) {
+			this.event = event;
+			this.dispatchedAt = dispatchedAt;
+		}
+	}
 }
@@ -0,0 +1,839 @@
+package com.reveila.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory VectorStore backed by a Hierarchical Navigable Small World graph.
+ * <p>
+ * Vectors are kept in a single contiguous float array so similarity loops run
+ * over sequential memory, and the graph is stored as plain int arrays.
+ * Searches run concurrently under a shared lock while inserts take the
+ * exclusive lock, so there is at most one writer at a time.
+ * <p>
+ * Removed and replaced vectors stay in the graph as routing points. Once they
+ * make up more than the compaction threshold of all nodes, the graph is
+ * rebuilt from the live vectors, which frees their memory and keeps searches
+ * from wading through them; {@link #compact()} does the same on demand.
+ * <p>
+ * The index can be written to and restored from a memory-mapped snapshot
+ * file, by convention {@code system.home/data/<name>.hnsw}, so a restart does
+ * not need to re-embed and rebuild the graph.
+ *
+ * @author CL
+ */
+public class HnswVectorStore implements VectorStore {
+
+    public enum Metric {
+        /** Cosine similarity. Vectors are normalised on insert so scoring is a dot product. */
+        COSINE,
+        /** Raw inner product. */
+        DOT_PRODUCT
+    }
+
+    private static final int SNAPSHOT_MAGIC = 0x484E5357; // "HNSW"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+    // Small indexes are not worth rebuilding for a handful of removals
+    private static final int MIN_COMPACTION_NODES = 64;
+
+    private final int dimension;
+    private final Metric metric;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Random random = new Random(42);
+    private final ThreadLocal<VisitedSet> visitedSets = ThreadLocal.withInitial(VisitedSet::new);
+
+    private int m = 16;
+    private int efConstruction = 200;
+    private int efSearch = 64;
+    private double compactionThreshold = 0.3;
+
+    private float[] vectors;
+    private String[] ids;
+    private String[] payloads;
+    // links[node][level] = { count, neighbour... }
+    private int[][][] links;
+    private final BitSet deleted = new BitSet();
+    private final Map<String, Integer> nodesById = new HashMap<>();
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswVectorStore(int dimension, Metric metric) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Vector dimension must be positive: " + dimension);
+        }
+        this.dimension = dimension;
+        this.metric = metric != null ? metric : Metric.COSINE;
+        this.vectors = new float[INITIAL_CAPACITY * dimension];
+        this.ids = new String[INITIAL_CAPACITY];
+        this.payloads = new String[INITIAL_CAPACITY];
+        this.links = new int[INITIAL_CAPACITY][][];
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    /**
+     * Sets the number of neighbours kept per node on the upper layers. Layer 0
+     * keeps twice as many. Neighbour lists are sized by M, so it can only be
+     * set while the index is empty.
+     */
+    public void setM(int m) {
+        if (m < 2) {
+            throw new IllegalArgumentException("M must be at least 2: " + m);
+        }
+        lock.writeLock().lock();
+        try {
+            if (size > 0) {
+                throw new IllegalStateException("M cannot be changed once vectors have been inserted");
+            }
+            this.m = m;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    public void setEfConstruction(int efConstruction) {
+        this.efConstruction = Math.max(1, efConstruction);
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Sets the share of removed nodes above which the graph is rebuilt. 0
+     * disables automatic compaction.
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = Math.max(0, Math.min(1, compactionThreshold));
+    }
+
+    /**
+     * Rebuilds the graph from the live vectors only, dropping removed nodes.
+     * Blocks searches and inserts while it runs.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            rebuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    /**
+     * @return The number of live (non-removed) vectors in the index.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of nodes in the graph, including removed ones not yet
+     *         compacted away.
+     */
+    int graphSize() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts a vector. Inserting an existing ID replaces its vector and payload.
+     */
+    @Override
+    public void insert(String id, float[] vector, String payload) {
+        if (id == null) {
+            throw new IllegalArgumentException("Vector id must not be null");
+        }
+        float[] normalized = prepare(vector);
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = nodesById.remove(id);
+            if (previous != null) {
+                deleted.set(previous);
+            }
+            int node = allocate(id, normalized, payload);
+            nodesById.put(id, node);
+            link(node);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a vector from the search results. The node stays in the graph as
+     * a routing point until the index is compacted.
+     *
+     * @return true if the ID was present.
+     */
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodesById.remove(id);
+            if (node == null) {
+                return false;
+            }
+            deleted.set(node);
+            payloads[node] = null;
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String getPayload(String id) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodesById.get(id);
+            return node != null ? payloads[node] : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VectorMatch> search(float[] query, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        float[] q = prepare(query);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int ep = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                ep = greedyClosest(q, ep, level);
+            }
+            int ef = Math.max(efSearch, limit) + Math.min(deleted.cardinality(), limit);
+            NodeHeap results = searchLayer(q, ep, ef, 0);
+
+            int n = results.size();
+            int[] nodes = new int[n];
+            float[] scores = new float[n];
+            for (int i = n - 1; i >= 0; i--) {
+                scores[i] = results.topScore();
+                nodes[i] = results.pop();
+            }
+
+            List<VectorMatch> matches = new ArrayList<>(Math.min(limit, n));
+            for (int i = 0; i < n && matches.size() < limit; i++) {
+                int node = nodes[i];
+                if (!deleted.get(node)) {
+                    matches.add(new VectorMatch(ids[node], vectorOf(node), scores[i], payloads[node]));
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index to a memory-mapped snapshot file. The file is written
+     * next to the target and moved into place, so readers never observe a
+     * partial snapshot.
+     */
+    public void snapshot(Path file) throws IOException {
+        lock.readLock().lock();
+        try {
+            byte[][] idBytes = new byte[size][];
+            byte[][] payloadBytes = new byte[size][];
+            long bytes = 9L * Integer.BYTES + (long) size * dimension * Float.BYTES;
+            for (int node = 0; node < size; node++) {
+                bytes += Integer.BYTES + 1;
+                for (int[] level : links[node]) {
+                    bytes += (long) (level[0] + 1) * Integer.BYTES;
+                }
+                idBytes[node] = ids[node].getBytes(StandardCharsets.UTF_8);
+                payloadBytes[node] = payloads[node] != null ? payloads[node].getBytes(StandardCharsets.UTF_8) : null;
+                bytes += 2L * Integer.BYTES + idBytes[node].length
+                        + (payloadBytes[node] != null ? payloadBytes[node].length : 0);
+            }
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IOException("HNSW snapshot exceeds the 2 GB mapping limit: " + bytes + " bytes");
+            }
+
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION)
+                        .putInt(dimension).putInt(metric.ordinal())
+                        .putInt(m).putInt(efConstruction)
+                        .putInt(size).putInt(entryPoint).putInt(maxLevel);
+
+                int floats = size * dimension;
+                buffer.asFloatBuffer().put(vectors, 0, floats);
+                buffer.position(buffer.position() + floats * Float.BYTES);
+
+                for (int node = 0; node < size; node++) {
+                    buffer.putInt(links[node].length - 1);
+                    buffer.put((byte) (deleted.get(node) ? 1 : 0));
+                    for (int[] level : links[node]) {
+                        int count = level[0] + 1;
+                        buffer.asIntBuffer().put(level, 0, count);
+                        buffer.position(buffer.position() + count * Integer.BYTES);
+                    }
+                    putBytes(buffer, idBytes[node]);
+                    putBytes(buffer, payloadBytes[node]);
+                }
+                buffer.force();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restores an index previously written by {@link #snapshot(Path)}.
+     */
+    public static HnswVectorStore restore(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not an HNSW snapshot: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported HNSW snapshot version " + version + ": " + file);
+            }
+
+            int dimension = buffer.getInt();
+            Metric metric = Metric.values()[buffer.getInt()];
+            HnswVectorStore store = new HnswVectorStore(dimension, metric);
+            store.setM(buffer.getInt());
+            store.setEfConstruction(buffer.getInt());
+            int size = buffer.getInt();
+            store.entryPoint = buffer.getInt();
+            store.maxLevel = buffer.getInt();
+            store.ensureCapacity(size);
+
+            int floats = size * dimension;
+            buffer.asFloatBuffer().get(store.vectors, 0, floats);
+            buffer.position(buffer.position() + floats * Float.BYTES);
+
+            for (int node = 0; node < size; node++) {
+                int levels = buffer.getInt() + 1;
+                boolean removed = buffer.get() != 0;
+                int[][] nodeLinks = new int[levels][];
+                for (int level = 0; level < levels; level++) {
+                    int count = buffer.getInt();
+                    // Snapshots written before M was fixed may hold longer lists
+                    nodeLinks[level] = new int[Math.max(count, store.maxConnections(level)) + 1];
+                    nodeLinks[level][0] = count;
+                    buffer.asIntBuffer().get(nodeLinks[level], 1, count);
+                    buffer.position(buffer.position() + count * Integer.BYTES);
+                }
+                store.links[node] = nodeLinks;
+                store.ids[node] = getString(buffer);
+                store.payloads[node] = getString(buffer);
+                if (removed) {
+                    store.deleted.set(node);
+                } else {
+                    store.nodesById.put(store.ids[node], node);
+                }
+            }
+            store.size = size;
+            store.compactIfNeeded();
+            return store;
+        }
+    }
+
+    private void compactIfNeeded() {
+        int removed = deleted.cardinality();
+        if (compactionThreshold > 0 && removed >= MIN_COMPACTION_NODES && removed > compactionThreshold * size) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Re-inserts the live vectors into a fresh graph. Called under the write lock.
+     */
+    private void rebuild() {
+        int live = nodesById.size();
+        String[] liveIds = new String[live];
+        String[] livePayloads = new String[live];
+        float[] liveVectors = new float[live * dimension];
+        int n = 0;
+        for (int node = 0; node < size; node++) {
+            if (!deleted.get(node)) {
+                liveIds[n] = ids[node];
+                livePayloads[n] = payloads[node];
+                System.arraycopy(vectors, node * dimension, liveVectors, n * dimension, dimension);
+                n++;
+            }
+        }
+
+        int capacity = Math.max(INITIAL_CAPACITY, live);
+        vectors = new float[capacity * dimension];
+        ids = new String[capacity];
+        payloads = new String[capacity];
+        links = new int[capacity][][];
+        deleted.clear();
+        nodesById.clear();
+        size = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+
+        // Stored vectors are already normalised
+        for (int i = 0; i < n; i++) {
+            int node = allocate(liveIds[i],
+                    Arrays.copyOfRange(liveVectors, i * dimension, (i + 1) * dimension), livePayloads[i]);
+            nodesById.put(liveIds[i], node);
+            link(node);
+        }
+    }
+
+    private float[] prepare(float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension + " but got "
+                    + (vector == null ? "null" : vector.length));
+        }
+        float[] copy = Arrays.copyOf(vector, dimension);
+        if (metric == Metric.COSINE) {
+            double norm = 0;
+            for (float v : copy) {
+                norm += v * v;
+            }
+            if (norm > 0) {
+                float scale = (float) (1.0 / Math.sqrt(norm));
+                for (int i = 0; i < dimension; i++) {
+                    copy[i] *= scale;
+                }
+            }
+        }
+        return copy;
+    }
+
+    private int allocate(String id, float[] vector, String payload) {
+        ensureCapacity(size + 1);
+        int node = size;
+        System.arraycopy(vector, 0, vectors, node * dimension, dimension);
+        ids[node] = id;
+        payloads[node] = payload;
+
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) / Math.log(m));
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[maxConnections(l) + 1];
+        }
+        links[node] = nodeLinks;
+        size++;
+        return node;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = ids.length;
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity + (capacity >> 1));
+        vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+        ids = Arrays.copyOf(ids, newCapacity);
+        payloads = Arrays.copyOf(payloads, newCapacity);
+        links = Arrays.copyOf(links, newCapacity);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private void link(int node) {
+        int level = links[node].length - 1;
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] q = vectorOf(node);
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(q, ep, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            NodeHeap candidates = searchLayer(q, ep, efConstruction, l);
+            int[] ordered = candidates.drainDescending();
+            ep = ordered[0];
+
+            int[] selected = selectNeighbours(node, ordered, m);
+            int[] own = links[node][l];
+            own[0] = selected.length;
+            System.arraycopy(selected, 0, own, 1, selected.length);
+
+            for (int neighbour : selected) {
+                connect(neighbour, node, l);
+            }
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Adds a back-link and, if the neighbour is over capacity, prunes its
+     * connections with the same diversity heuristic used on insert.
+     */
+    private void connect(int node, int neighbour, int level) {
+        int[] list = links[node][level];
+        int count = list[0];
+        int max = Math.min(maxConnections(level), list.length - 1);
+        if (count < max) {
+            list[count + 1] = neighbour;
+            list[0] = count + 1;
+            return;
+        }
+
+        int offset = node * dimension;
+        int[] pool = Arrays.copyOfRange(list, 1, count + 2);
+        pool[count] = neighbour;
+        float[] scores = new float[pool.length];
+        for (int i = 0; i < pool.length; i++) {
+            scores[i] = dot(vectors, offset, pool[i] * dimension);
+        }
+        int[] ordered = sortDescending(pool, scores);
+        int[] selected = selectNeighbours(node, ordered, max);
+        list[0] = selected.length;
+        System.arraycopy(selected, 0, list, 1, selected.length);
+    }
+
+    private static int[] sortDescending(int[] nodes, float[] scores) {
+        NodeHeap heap = new NodeHeap(nodes.length, false);
+        for (int i = 0; i < nodes.length; i++) {
+            heap.push(nodes[i], scores[i]);
+        }
+        return heap.drainDescending();
+    }
+
+    /**
+     * Neighbour selection heuristic from the HNSW paper: a candidate is kept only
+     * if it is closer to the base node than to every neighbour already chosen,
+     * which keeps links spread across clusters. Remaining slots are filled with
+     * the closest pruned candidates.
+     *
+     * @param ordered Candidates sorted by descending similarity to {@code base}.
+     */
+    private int[] selectNeighbours(int base, int[] ordered, int max) {
+        int[] selected = new int[Math.min(max, ordered.length)];
+        int count = 0;
+        boolean[] taken = new boolean[ordered.length];
+        int baseOffset = base * dimension;
+
+        for (int i = 0; i < ordered.length && count < selected.length; i++) {
+            int candidate = ordered[i];
+            if (candidate == base) {
+                taken[i] = true;
+                continue;
+            }
+            int offset = candidate * dimension;
+            float toBase = dot(vectors, baseOffset, offset);
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (dot(vectors, offset, selected[j] * dimension) > toBase) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = candidate;
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < ordered.length && count < selected.length; i++) {
+            if (!taken[i]) {
+                selected[count++] = ordered[i];
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private int greedyClosest(float[] q, int ep, int level) {
+        int best = ep;
+        float bestScore = score(q, best);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[][] nodeLinks = links[best];
+            if (level >= nodeLinks.length) {
+                break;
+            }
+            int[] list = nodeLinks[level];
+            for (int i = 1; i <= list[0]; i++) {
+                int candidate = list[i];
+                float s = score(q, candidate);
+                if (s > bestScore) {
+                    bestScore = s;
+                    best = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first search of a single layer.
+     *
+     * @return A min-heap holding up to {@code ef} closest nodes.
+     */
+    private NodeHeap searchLayer(float[] q, int ep, int ef, int level) {
+        VisitedSet visited = visitedSets.get();
+        visited.reset(size);
+
+        NodeHeap candidates = new NodeHeap(ef, true);
+        NodeHeap results = new NodeHeap(ef + 1, false);
+        float epScore = score(q, ep);
+        visited.add(ep);
+        candidates.push(ep, epScore);
+        results.push(ep, epScore);
+
+        while (candidates.size() > 0) {
+            float candidateScore = candidates.topScore();
+            if (results.size() >= ef && candidateScore < results.topScore()) {
+                break;
+            }
+            int current = candidates.pop();
+            int[][] nodeLinks = links[current];
+            if (level >= nodeLinks.length) {
+                continue;
+            }
+            int[] list = nodeLinks[level];
+            for (int i = 1; i <= list[0]; i++) {
+                int neighbour = list[i];
+                if (!visited.add(neighbour)) {
+                    continue;
+                }
+                float s = score(q, neighbour);
+                if (results.size() < ef || s > results.topScore()) {
+                    candidates.push(neighbour, s);
+                    results.push(neighbour, s);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private float score(float[] q, int node) {
+        return dot(q, 0, vectors, node * dimension, dimension);
+    }
+
+    private float dot(float[] data, int a, int b) {
+        return dot(data, a, data, b, dimension);
+    }
+
+    /**
+     * Unrolled inner product; the independent accumulators let the JIT
+     * vectorise the loop.
+     */
+    private static float dot(float[] x, int xOffset, float[] y, int yOffset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int upper = length & ~3; i < upper; i += 4) {
+            s0 += x[xOffset + i] * y[yOffset + i];
+            s1 += x[xOffset + i + 1] * y[yOffset + i + 1];
+            s2 += x[xOffset + i + 2] * y[yOffset + i + 2];
+            s3 += x[xOffset + i + 3] * y[yOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += x[xOffset + i] * y[yOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private float[] vectorOf(int node) {
+        int offset = node * dimension;
+        return Arrays.copyOfRange(vectors, offset, offset + dimension);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Binary heap of (node, score) pairs, either max-first or min-first.
+     */
+    private static final class NodeHeap {
+        private final boolean maxFirst;
+        private int[] nodes;
+        private float[] scores;
+        private int size;
+
+        NodeHeap(int capacity, boolean maxFirst) {
+            this.maxFirst = maxFirst;
+            this.nodes = new int[Math.max(capacity, 4)];
+            this.scores = new float[nodes.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        float topScore() {
+            return scores[0];
+        }
+
+        void push(int node, float score) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(score, scores[parent])) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            int lastNode = nodes[--size];
+            float lastScore = scores[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && before(scores[right], scores[child])) {
+                    child = right;
+                }
+                if (!before(scores[child], lastScore)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            scores[i] = lastScore;
+            return top;
+        }
+
+        /**
+         * Empties a min-first heap into an array ordered best first.
+         */
+        int[] drainDescending() {
+            int[] ordered = new int[size];
+            for (int i = ordered.length - 1; i >= 0; i--) {
+                ordered[i] = pop();
+            }
+            return ordered;
+        }
+
+        private boolean before(float a, float b) {
+            return maxFirst ? a > b : a < b;
+        }
+    }
+
+    /**
+     * Generation-stamped visited marks, reused per thread to avoid allocating a
+     * set for every search.
+     */
+    private static final class VisitedSet {
+        private int[] marks = new int[0];
+        private int generation;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        boolean add(int node) {
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+}
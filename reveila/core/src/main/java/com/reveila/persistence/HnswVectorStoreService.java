@@ -0,0 +1,184 @@
+package com.reveila.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+
+import com.reveila.system.SystemComponent;
+
+/**
+ * Configurable {@link VectorStore} component backed by an {@link HnswVectorStore}.
+ * <p>
+ * On start the index is restored from {@code system.home/data/<snapshotName>.hnsw}
+ * if that file exists, and on stop it is written back if anything changed.
+ * A dimension of 0 takes the dimension from the snapshot or, for a new index,
+ * from the first vector inserted. A snapshot whose dimension or metric does
+ * not match the configuration is ignored, since its vectors came from another
+ * embedding model.
+ *
+ * @author CL
+ */
+public class HnswVectorStoreService extends SystemComponent implements VectorStore {
+
+    private int dimension;
+    private HnswVectorStore.Metric metric = HnswVectorStore.Metric.COSINE;
+    private int m = 16;
+    private int efConstruction = 200;
+    private int efSearch = 64;
+    private double compactionThreshold = 0.3;
+    private String snapshotName = "vectors";
+
+    private volatile HnswVectorStore store;
+    private volatile boolean dirty;
+    private Path snapshotFile;
+
+    public HnswVectorStoreService() {
+    }
+
+    public void setDimension(int dimension) {
+        this.dimension = Math.max(0, dimension);
+    }
+
+    public void setMetric(String metric) {
+        this.metric = HnswVectorStore.Metric.valueOf(metric.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public void setM(int m) {
+        this.m = m;
+    }
+
+    public void setEfConstruction(int efConstruction) {
+        this.efConstruction = efConstruction;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public void setSnapshotName(String snapshotName) {
+        this.snapshotName = snapshotName;
+    }
+
+    /**
+     * @return The number of live vectors in the index.
+     */
+    public int size() {
+        HnswVectorStore s = store;
+        return s != null ? s.size() : 0;
+    }
+
+    @Override
+    protected void onStart() throws Exception {
+        if (snapshotName == null || snapshotName.isBlank()) {
+            throw new IllegalStateException("HnswVectorStoreService requires a 'snapshotName'.");
+        }
+        String home = context.getProperties().getProperty("system.home");
+        Path dataDir = home != null ? Paths.get(home).resolve("data") : Paths.get("data");
+        this.snapshotFile = dataDir.resolve(snapshotName.trim() + ".hnsw");
+        this.store = load(snapshotFile);
+        this.dirty = false;
+    }
+
+    @Override
+    protected void onStop() throws Exception {
+        snapshot();
+        store = null;
+    }
+
+    /**
+     * Writes the index to its snapshot file if it changed since it was loaded
+     * or last written.
+     */
+    public void snapshot() throws IOException {
+        HnswVectorStore s = store;
+        if (s == null || !dirty || snapshotFile == null) {
+            return;
+        }
+        dirty = false;
+        try {
+            s.snapshot(snapshotFile);
+        } catch (IOException e) {
+            dirty = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void insert(String id, float[] vector, String payload) {
+        HnswVectorStore s = store;
+        if (s == null) {
+            s = create(vector.length);
+        }
+        s.insert(id, vector, payload);
+        dirty = true;
+    }
+
+    /**
+     * Removes a vector from the index.
+     *
+     * @return true if the ID was present.
+     */
+    public boolean remove(String id) {
+        HnswVectorStore s = store;
+        boolean removed = s != null && s.remove(id);
+        if (removed) {
+            dirty = true;
+        }
+        return removed;
+    }
+
+    @Override
+    public List<VectorMatch> search(float[] query, int limit) {
+        HnswVectorStore s = store;
+        return s != null ? s.search(query, limit) : List.of();
+    }
+
+    @Override
+    public String getPayload(String id) {
+        HnswVectorStore s = store;
+        return s != null ? s.getPayload(id) : null;
+    }
+
+    private HnswVectorStore load(Path file) {
+        if (Files.exists(file)) {
+            try {
+                HnswVectorStore restored = HnswVectorStore.restore(file);
+                if ((dimension == 0 || restored.getDimension() == dimension) && restored.getMetric() == metric) {
+                    restored.setEfSearch(efSearch);
+                    restored.setCompactionThreshold(compactionThreshold);
+                    logger.info("Restored " + restored.size() + " vectors from " + file);
+                    return restored;
+                }
+                logger.warning("Ignoring vector snapshot " + file + ": it holds " + restored.getDimension() + "-d "
+                        + restored.getMetric() + " vectors, configured for " + dimension + "-d " + metric + ".");
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.WARNING, "Failed to restore vector snapshot " + file + "; starting empty.", e);
+            }
+        }
+        return dimension > 0 ? newStore(dimension) : null;
+    }
+
+    private synchronized HnswVectorStore create(int vectorDimension) {
+        if (store == null) {
+            store = newStore(vectorDimension);
+        }
+        return store;
+    }
+
+    private HnswVectorStore newStore(int vectorDimension) {
+        HnswVectorStore s = new HnswVectorStore(vectorDimension, metric);
+        s.setM(m);
+        s.setEfConstruction(efConstruction);
+        s.setEfSearch(efSearch);
+        s.setCompactionThreshold(compactionThreshold);
+        return s;
+    }
+}
@@ -26,4 +26,15 @@ public interface VectorStore {
      * @return a list of VectorMatch representing the closest matches
      */
     List<VectorMatch> search(float[] query, int limit);
+
+    /**
+     * Returns the payload stored with a vector, so callers can tell whether it
+     * is still current without embedding it again.
+     *
+     * @param id the identifier of the vector
+     * @return the payload, or null if the id is absent or the store cannot look it up
+     */
+    default String getPayload(String id) {
+        return null;
+    }
 }
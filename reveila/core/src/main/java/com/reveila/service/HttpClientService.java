@@ -3,7 +3,7 @@ package com.reveila.service;
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
+import java.util.function.Consumer;
 
 import com.reveila.system.SystemComponent;
 
@@ -12,8 +12,6 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Request.Builder;
 import okhttp3.RequestBody;
-import okhttp3.Response;
-import okhttp3.ResponseBody;
 
 public class HttpClientService extends SystemComponent {
 
@@ -48,57 +46,62 @@ public class HttpClientService extends SystemComponent {
         this.readTimeout = readTimeout;
     }
 
-    // OkHttpClient is thread-safe and designed to be shared.
-    // Making it static ensures a single instance is reused across all invocations,
-    // which is more efficient as it allows for connection pooling.
-    private static OkHttpClient httpClient;
+    private String[] profiles = new String[0];
 
-    public String invokeRest(String url, String method, String payload, String payloadFormat, java.util.Map<String, String> headers) throws Exception {
-        Builder builder = new Request.Builder().url(url);
-
-        if (headers != null) {
-            for (java.util.Map.Entry<String, String> entry : headers.entrySet()) {
-                builder.addHeader(entry.getKey(), entry.getValue());
-            }
+    /**
+     * Sets the named client profiles of the shared {@link HttpEngine}, one per
+     * entry, e.g. {@code "llm: maxRequestsPerHost=64, deadlineMs=120000"}.
+     * Unnamed settings come from the default profile, which uses the timeouts
+     * above and can itself be tuned with a {@code "default: ..."} entry.
+     */
+    public void setProfiles(String[] profiles) {
+        for (String spec : profiles) {
+            HttpEngine.Profile.parse(spec, HttpEngine.Profile.defaults("check"));
         }
+        this.profiles = profiles.clone();
+    }
 
-        switch (method.toUpperCase()) {
-            case "GET":
-                builder = builder.get();
-                break;
-
-            case "POST":
-                builder = builder.post(RequestBody.create(payload, MediaType.get(payloadFormat)));
-                break;
-
-            case "PUT":
-                builder = builder.put(RequestBody.create(payload, MediaType.get(payloadFormat)));
-                break;
-
-            case "PATCH":
-                builder = builder.patch(RequestBody.create(payload, MediaType.get(payloadFormat)));
-                break;
-
-            case "DELETE":
-                builder = builder.delete(RequestBody.create(payload, MediaType.get(payloadFormat)));
-                break;
-
-            default:
-                throw new IllegalArgumentException("Unsupported HTTP method: " + method);
-        }
+    /**
+     * @return The pooled client of the named profile. Callers should keep the
+     *         returned client rather than looking it up per request.
+     */
+    public HttpEngine.Client getClient(String profile) {
+        return HttpEngine.shared().client(profile);
+    }
 
-        Request request = builder.build();
-        Response response = httpClient.newCall(request).execute();
+    public String invokeRest(String url, String method, String payload, String payloadFormat, java.util.Map<String, String> headers) throws Exception {
+        return getClient(HttpEngine.DEFAULT_PROFILE).execute(buildRequest(url, method, payload, payloadFormat, headers));
+    }
 
-        final ResponseBody responseBody = response.body();
-        final String responseBodyString = responseBody != null ? responseBody.string() : null;
+    /**
+     * Asynchronous form of
+     * {@link #invokeRest(String, String, String, String, java.util.Map)}. The
+     * call runs on the pooled dispatcher, so no thread waits for the response.
+     */
+    public CompletableFuture<String> invokeRestAsync(String url, String method, String payload, String payloadFormat,
+            java.util.Map<String, String> headers) {
+        return getClient(HttpEngine.DEFAULT_PROFILE).send(buildRequest(url, method, payload, payloadFormat, headers));
+    }
 
-        if (!response.isSuccessful()) {
-            throw new IOException("Remote invocation failed with HTTP code " + response.code() + " for " + url
-                    + ". Response body: " + responseBodyString);
-        }
+    /**
+     * Sends a request and hands the response body to the consumer line by line
+     * as it arrives, instead of buffering it. Suitable for Server-Sent Events
+     * and newline-delimited JSON streams. The read timeout applies between
+     * lines, not to the whole response.
+     *
+     * @param lineConsumer Receives each line without its terminator, on the
+     *                     calling thread.
+     * @throws IOException if the server responds with a non-success status.
+     */
+    public void invokeRestStreaming(String url, String method, String payload, String payloadFormat,
+            java.util.Map<String, String> headers, Consumer<String> lineConsumer) throws Exception {
+        getClient(HttpEngine.DEFAULT_PROFILE).stream(buildRequest(url, method, payload, payloadFormat, headers),
+                lineConsumer);
+    }
 
-        return responseBodyString;
+    private Request buildRequest(String url, String method, String payload, String payloadFormat,
+            java.util.Map<String, String> headers) {
+        return HttpEngine.newRequest(url, method, payload, payloadFormat, headers);
     }
 
     /**
@@ -112,6 +115,14 @@ public class HttpClientService extends SystemComponent {
      * @throws Exception
      */
     public String invokeRest(String... args) throws Exception {
+        return getClient(HttpEngine.DEFAULT_PROFILE).execute(buildRequest(args));
+    }
+
+    public CompletableFuture<Object> invokeRestAsync(String... args) {
+        return getClient(HttpEngine.DEFAULT_PROFILE).send(buildRequest(args)).thenApply(body -> body);
+    }
+
+    private Request buildRequest(String... args) {
         if (args.length < 1 || args.length > 4) {
             throw new IllegalArgumentException(
                     "Wrong number of arguments for invokeREST. Required: url. Optional: method, payload, payloadFormat.");
@@ -121,57 +132,7 @@ public class HttpClientService extends SystemComponent {
         String method = args.length >= 2 ? args[1].toUpperCase() : "GET";
         String payload = args.length >= 3 ? args[2] : "";
         String payloadFormat = args.length >= 4 ? args[3] : JSON;
-
-        Builder builder = new Request.Builder().url(url);
-
-        switch (method) {
-            case "GET":
-                builder = builder.get();
-                break;
-
-            case "POST":
-                builder = builder.post(RequestBody.create(payload, MediaType.get(payloadFormat)));
-                break;
-
-            case "PUT":
-                builder = builder.put(RequestBody.create(payload, MediaType.get(payloadFormat)));
-                break;
-
-            case "PATCH":
-                builder = builder.patch(RequestBody.create(payload, MediaType.get(payloadFormat)));
-                break;
-
-            case "DELETE":
-                builder = builder.delete(RequestBody.create(payload, MediaType.get(payloadFormat)));
-                break;
-
-            default:
-                throw new IllegalArgumentException("Unsupported HTTP method: " + method);
-        }
-
-        Request request = builder.build();
-        Response response = httpClient.newCall(request).execute();
-
-        // The response body can only be consumed once. Store it in a variable.
-        final ResponseBody responseBody = response.body();
-        final String responseBodyString = responseBody != null ? responseBody.string() : null;
-
-        if (!response.isSuccessful()) {
-            throw new IOException("Remote invocation failed with HTTP code " + response.code() + " for " + url
-                    + ". Response body: " + responseBodyString);
-        }
-
-        return responseBodyString;
-    }
-
-    public CompletableFuture<Object> invokeRestAsync(String... args) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return invokeRest(args);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        });
+        return buildRequest(url, method, payload, payloadFormat, null);
     }
 
     /*
@@ -202,71 +163,51 @@ public class HttpClientService extends SystemComponent {
      * "</soap:Envelope>";
      */
     public String invokeSoap(String url, String soapAction, String soapEnvelope) throws Exception {
+        return getClient(HttpEngine.DEFAULT_PROFILE).execute(buildSoapRequest(url, soapAction, soapEnvelope));
+    }
+
+    public CompletableFuture<Object> invokeSoapAsync(String url, String soapAction, String soapEnvelope) {
+        return getClient(HttpEngine.DEFAULT_PROFILE).send(buildSoapRequest(url, soapAction, soapEnvelope))
+                .thenApply(body -> body);
+    }
+
+    private Request buildSoapRequest(String url, String soapAction, String soapEnvelope) {
         RequestBody body = RequestBody.create(soapEnvelope, MediaType.get(SOAP));
         Builder builder = new Request.Builder().url(url).post(body);
         if (soapAction != null && !soapAction.isEmpty()) {
             builder = builder.addHeader("SOAPAction", soapAction);
         }
-        Request request = builder.build();
-        Response response = httpClient.newCall(request).execute();
-
-        // The response body can only be consumed once. Store it in a variable.
-        final ResponseBody responseBody = response.body();
-        final String responseBodyString = responseBody != null ? responseBody.string() : null;
-
-        if (!response.isSuccessful()) {
-            throw new IOException("Remote invocation failed with HTTP code " + response.code() + " for " + url
-                    + ". Response body: " + responseBodyString);
-        }
-
-        return responseBodyString;
-    }
-
-    public CompletableFuture<Object> invokeSoapAsync(String url, String soapAction, String soapEnvelope) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return invokeSoap(url, soapAction, soapEnvelope);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        });
+        return builder.build();
     }
 
     @Override
     protected void onStop() throws Exception {
-        if (httpClient != null) {
-            // 1. Stop accepting new requests
-            httpClient.dispatcher().executorService().shutdown();
-
-            // 2. Clear the connection pool
-            httpClient.connectionPool().evictAll();
-
-            // 3. Close the cache (if applicable)
-            if (httpClient.cache() != null) {
-                try {
-                    httpClient.cache().close();
-                } catch (IOException e) {
-                    logger.log(Level.WARNING, "Error closing HTTP client cache: " + e.getMessage(), e);
-                }
-            }
-
-            httpClient = null;
-        }
+        // Stops every pooled client; they are recreated on next use
+        HttpEngine.shared().shutdown();
     }
 
     @Override
     protected void onStart() throws Exception {
-        if (httpClient == null) {
-            httpClient = new OkHttpClient.Builder()
-                    .connectTimeout(this.connectTimeout, TimeUnit.SECONDS)
-                    .writeTimeout(this.writeTimeout, TimeUnit.SECONDS)
-                    .readTimeout(this.readTimeout, TimeUnit.SECONDS)
-                    .build();
+        HttpEngine engine = HttpEngine.shared();
+        HttpEngine.Profile base = HttpEngine.Profile.defaults(HttpEngine.DEFAULT_PROFILE)
+                .withTimeouts(this.connectTimeout, this.writeTimeout, this.readTimeout);
+        for (String spec : profiles) {
+            HttpEngine.Profile tuned = HttpEngine.Profile.parse(spec, base);
+            if (tuned.name().equals(HttpEngine.DEFAULT_PROFILE)) {
+                base = tuned;
+            }
+        }
+        engine.define(base);
+        for (String spec : profiles) {
+            HttpEngine.Profile profile = HttpEngine.Profile.parse(spec, base);
+            if (!profile.name().equals(HttpEngine.DEFAULT_PROFILE)) {
+                engine.define(profile);
+            }
         }
     }
 
     public OkHttpClient getClientWithTimeout(long connectTimeout, long writeTimeout, long readTimeout) {
-        return httpClient.newBuilder()
+        return getBaseClient().newBuilder()
                 .connectTimeout(connectTimeout, TimeUnit.SECONDS)
                 .writeTimeout(writeTimeout, TimeUnit.SECONDS)
                 .readTimeout(readTimeout, TimeUnit.SECONDS)
@@ -274,6 +215,6 @@ public class HttpClientService extends SystemComponent {
     }
 
     public OkHttpClient getBaseClient() {
-        return httpClient;
+        return getClient(HttpEngine.DEFAULT_PROFILE).getOkHttpClient();
     }
-}
\ No newline at end of file
+}
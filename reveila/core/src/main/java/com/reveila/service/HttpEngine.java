@@ -0,0 +1,458 @@
+package com.reveila.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * Process-wide HTTP engine shared by {@link HttpClientService},
+ * {@link RemoteService} and the LLM providers.
+ * <p>
+ * Clients are created lazily per named profile and reused by everyone asking
+ * for the same profile. Each profile has its own connection pool and
+ * dispatcher limits, so LLM traffic does not queue behind remote-node calls.
+ * Calls are sent asynchronously on the OkHttp dispatcher; blocking variants
+ * wait on the returned future instead of holding a connection-bound thread.
+ * Failed calls are retried a bounded number of times with jittered
+ * exponential backoff, within an optional overall deadline. Calls that may not
+ * be repeated safely (POST, PATCH) are only retried when the request cannot
+ * have reached the server: a refused connection, or a 429 or 503 answer with
+ * Retry-After.
+ *
+ * @author CL
+ */
+public final class HttpEngine {
+
+    public static final String DEFAULT_PROFILE = "default";
+
+    private static final Set<String> IDEMPOTENT = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(408, 429, 502, 503, 504);
+    // Statuses that tell a non-idempotent caller the request was not processed
+    private static final Set<Integer> REJECTED_STATUS = Set.of(429, 503);
+
+    /**
+     * Settings of one named client. Timeouts are in seconds, backoff and
+     * deadline in milliseconds. A deadline of 0 bounds each call by its
+     * timeouts only.
+     */
+    public record Profile(String name, int maxIdleConnections, long keepAliveSec, int maxRequests,
+            int maxRequestsPerHost, boolean http2, long connectTimeout, long writeTimeout, long readTimeout,
+            int maxRetries, long baseBackoffMs, long maxBackoffMs, long deadlineMs) {
+
+        public static Profile defaults(String name) {
+            return new Profile(name, 32, 300, 128, 32, true, 10, 10, 30, 2, 200, 5000, 0);
+        }
+
+        public Profile withName(String newName) {
+            return new Profile(newName, maxIdleConnections, keepAliveSec, maxRequests, maxRequestsPerHost, http2,
+                    connectTimeout, writeTimeout, readTimeout, maxRetries, baseBackoffMs, maxBackoffMs, deadlineMs);
+        }
+
+        public Profile withTimeouts(long connect, long write, long read) {
+            return new Profile(name, maxIdleConnections, keepAliveSec, maxRequests, maxRequestsPerHost, http2,
+                    connect, write, read, maxRetries, baseBackoffMs, maxBackoffMs, deadlineMs);
+        }
+
+        /**
+         * Parses a profile specification of the form
+         * {@code "llm: maxRequestsPerHost=64, deadlineMs=120000, http2=true"}.
+         * Settings not named in the specification are taken from the base.
+         *
+         * @throws IllegalArgumentException if a key is unknown or a value is invalid.
+         */
+        public static Profile parse(String spec, Profile base) {
+            int colon = spec.indexOf(':');
+            String name = (colon < 0 ? spec : spec.substring(0, colon)).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("HTTP profile without a name: " + spec);
+            }
+            int maxIdle = base.maxIdleConnections(), maxRequests = base.maxRequests(),
+                    perHost = base.maxRequestsPerHost(), retries = base.maxRetries();
+            long keepAlive = base.keepAliveSec(), connect = base.connectTimeout(), write = base.writeTimeout(),
+                    read = base.readTimeout(), backoff = base.baseBackoffMs(), maxBackoff = base.maxBackoffMs(),
+                    deadline = base.deadlineMs();
+            boolean http2 = base.http2();
+            if (colon >= 0) {
+                for (String setting : spec.substring(colon + 1).split(",")) {
+                    if (setting.isBlank()) {
+                        continue;
+                    }
+                    String[] kv = setting.split("=", 2);
+                    if (kv.length != 2) {
+                        throw new IllegalArgumentException("Invalid HTTP profile setting '" + setting + "' in " + spec);
+                    }
+                    String value = kv[1].trim();
+                    switch (kv[0].trim()) {
+                        case "maxIdleConnections" -> maxIdle = Integer.parseInt(value);
+                        case "keepAliveSec" -> keepAlive = Long.parseLong(value);
+                        case "maxRequests" -> maxRequests = Integer.parseInt(value);
+                        case "maxRequestsPerHost" -> perHost = Integer.parseInt(value);
+                        case "http2" -> http2 = Boolean.parseBoolean(value);
+                        case "connectTimeout" -> connect = Long.parseLong(value);
+                        case "writeTimeout" -> write = Long.parseLong(value);
+                        case "readTimeout" -> read = Long.parseLong(value);
+                        case "maxRetries" -> retries = Integer.parseInt(value);
+                        case "baseBackoffMs" -> backoff = Long.parseLong(value);
+                        case "maxBackoffMs" -> maxBackoff = Long.parseLong(value);
+                        case "deadlineMs" -> deadline = Long.parseLong(value);
+                        default -> throw new IllegalArgumentException(
+                                "Unknown HTTP profile setting '" + kv[0].trim() + "' in " + spec);
+                    }
+                }
+            }
+            return new Profile(name, maxIdle, keepAlive, maxRequests, perHost, http2, connect, write, read,
+                    retries, backoff, maxBackoff, deadline);
+        }
+    }
+
+    private static final HttpEngine SHARED = new HttpEngine();
+
+    public static HttpEngine shared() {
+        return SHARED;
+    }
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService retryScheduler;
+
+    /**
+     * Defines or replaces a profile. A client already created for the profile
+     * (or, for the default profile, for any undefined profile derived from it)
+     * is retired: its in-flight calls finish and later lookups get a client
+     * with the new settings.
+     */
+    public void define(Profile profile) {
+        profiles.put(profile.name(), profile);
+        boolean isDefault = DEFAULT_PROFILE.equals(profile.name());
+        clients.entrySet().removeIf(entry -> {
+            String name = entry.getKey();
+            if (!name.equals(profile.name()) && !(isDefault && !profiles.containsKey(name))) {
+                return false;
+            }
+            entry.getValue().retired = true;
+            entry.getValue().http.connectionPool().evictAll();
+            return true;
+        });
+    }
+
+    /**
+     * @return The named profile, or the default profile under that name if it
+     *         has not been defined.
+     */
+    public Profile profile(String name) {
+        Profile profile = profiles.get(name);
+        if (profile != null) {
+            return profile;
+        }
+        return profiles.getOrDefault(DEFAULT_PROFILE, Profile.defaults(DEFAULT_PROFILE)).withName(name);
+    }
+
+    public Client client(String profileName) {
+        String name = profileName == null || profileName.isBlank() ? DEFAULT_PROFILE : profileName;
+        return clients.computeIfAbsent(name, n -> new Client(profile(n)));
+    }
+
+    /**
+     * Stops all clients. Clients requested afterwards are created afresh.
+     */
+    public synchronized void shutdown() {
+        for (Client client : clients.values()) {
+            client.retired = true;
+            client.http.dispatcher().executorService().shutdown();
+            client.http.connectionPool().evictAll();
+        }
+        clients.clear();
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+            retryScheduler = null;
+        }
+    }
+
+    /**
+     * Builds a request. The payload is ignored for GET.
+     *
+     * @throws IllegalArgumentException if the method is not supported.
+     */
+    public static Request newRequest(String url, String method, String payload, String payloadFormat,
+            Map<String, String> headers) {
+        Request.Builder builder = new Request.Builder().url(url);
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                builder.addHeader(entry.getKey(), entry.getValue());
+            }
+        }
+        String verb = method.toUpperCase(Locale.ROOT);
+        if ("GET".equals(verb)) {
+            return builder.get().build();
+        }
+        if (!Set.of("POST", "PUT", "PATCH", "DELETE").contains(verb)) {
+            throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+        }
+        RequestBody body = RequestBody.create(payload != null ? payload : "", MediaType.get(payloadFormat));
+        return builder.method(verb, body).build();
+    }
+
+    private ScheduledExecutorService retryScheduler() {
+        ScheduledExecutorService scheduler = retryScheduler;
+        if (scheduler == null) {
+            synchronized (this) {
+                scheduler = retryScheduler;
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "HTTP Retry");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    retryScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * A pooled client bound to one profile.
+     */
+    public final class Client {
+
+        private final Profile profile;
+        private final OkHttpClient http;
+        private volatile boolean retired;
+
+        private Client(Profile profile) {
+            this.profile = profile;
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(profile.maxRequests());
+            dispatcher.setMaxRequestsPerHost(profile.maxRequestsPerHost());
+            this.http = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(profile.maxIdleConnections(), profile.keepAliveSec(),
+                            TimeUnit.SECONDS))
+                    .protocols(profile.http2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                            : List.of(Protocol.HTTP_1_1))
+                    .connectTimeout(profile.connectTimeout(), TimeUnit.SECONDS)
+                    .writeTimeout(profile.writeTimeout(), TimeUnit.SECONDS)
+                    .readTimeout(profile.readTimeout(), TimeUnit.SECONDS)
+                    .build();
+        }
+
+        public Profile getProfile() {
+            return profile;
+        }
+
+        /**
+         * @return true once the profile was redefined or the engine shut down.
+         *         Callers caching a client should then look it up again.
+         */
+        public boolean isRetired() {
+            return retired;
+        }
+
+        /**
+         * @return The underlying client, for callers that need custom settings
+         *         via {@link OkHttpClient#newBuilder()}; derived clients share
+         *         this client's pool and dispatcher.
+         */
+        public OkHttpClient getOkHttpClient() {
+            return http;
+        }
+
+        /**
+         * Sends a request asynchronously. The future completes with the response
+         * body, or exceptionally with an IOException for transport failures and
+         * non-success responses that are not retried. Cancelling the future
+         * cancels the call in flight.
+         */
+        public CompletableFuture<String> send(Request request) {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            AtomicReference<Call> current = new AtomicReference<>();
+            result.whenComplete((value, error) -> {
+                Call call = current.get();
+                if (result.isCancelled() && call != null) {
+                    call.cancel();
+                }
+            });
+            long deadline = profile.deadlineMs() > 0 ? System.currentTimeMillis() + profile.deadlineMs() : 0;
+            attempt(request, 0, deadline, current, result);
+            return result;
+        }
+
+        /**
+         * Blocking form of {@link #send(Request)}.
+         */
+        public String execute(Request request) throws IOException {
+            return await(send(request));
+        }
+
+        /**
+         * Sends a request and hands the response body to the consumer line by
+         * line on the calling thread. Streams are not retried and not bounded
+         * by the profile deadline; the read timeout applies between lines.
+         */
+        public void stream(Request request, Consumer<String> lineConsumer) throws IOException {
+            try (Response response = http.newCall(request).execute()) {
+                final ResponseBody responseBody = response.body();
+                if (!response.isSuccessful()) {
+                    throw failure(request, response.code(), responseBody != null ? responseBody.string() : null);
+                }
+                if (responseBody == null) {
+                    return;
+                }
+                BufferedSource source = responseBody.source();
+                String line;
+                while ((line = source.readUtf8Line()) != null) {
+                    lineConsumer.accept(line);
+                }
+            }
+        }
+
+        private void attempt(Request request, int attempt, long deadline, AtomicReference<Call> current,
+                CompletableFuture<String> result) {
+            if (result.isDone()) {
+                return;
+            }
+            Call call = http.newCall(request);
+            if (deadline > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    result.completeExceptionally(new InterruptedIOException("Deadline exceeded for " + request.url()));
+                    return;
+                }
+                call.timeout().timeout(remaining, TimeUnit.MILLISECONDS);
+            }
+            current.set(call);
+            if (result.isCancelled()) {
+                call.cancel();
+                return;
+            }
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call failed, IOException e) {
+                    boolean retryable = !failed.isCanceled()
+                            && (IDEMPOTENT.contains(request.method()) || e instanceof ConnectException);
+                    if (!retryable || !retry(request, attempt, deadline, current, result, 0)) {
+                        result.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void onResponse(Call done, Response response) {
+                    try (response) {
+                        ResponseBody responseBody = response.body();
+                        String body = responseBody != null ? responseBody.string() : null;
+                        if (response.isSuccessful()) {
+                            result.complete(body);
+                            return;
+                        }
+                        long retryAfter = retryAfterMs(response.header("Retry-After"));
+                        boolean retryable = IDEMPOTENT.contains(request.method())
+                                ? RETRYABLE_STATUS.contains(response.code())
+                                : REJECTED_STATUS.contains(response.code()) && retryAfter >= 0;
+                        if (!retryable || !retry(request, attempt, deadline, current, result,
+                                Math.max(0, retryAfter))) {
+                            result.completeExceptionally(failure(request, response.code(), body));
+                        }
+                    } catch (IOException e) {
+                        onFailure(done, e);
+                    }
+                }
+            });
+        }
+
+        private boolean retry(Request request, int attempt, long deadline, AtomicReference<Call> current,
+                CompletableFuture<String> result, long retryAfterMs) {
+            if (attempt >= profile.maxRetries() || result.isDone() || retryAfterMs > profile.maxBackoffMs()) {
+                return false;
+            }
+            // Full jitter: uniform in [0, min(max, base * 2^attempt)]
+            long ceiling = Math.min(profile.maxBackoffMs(), profile.baseBackoffMs() << Math.min(attempt, 20));
+            long delay = Math.max(retryAfterMs, ThreadLocalRandom.current().nextLong(ceiling + 1));
+            if (deadline > 0 && System.currentTimeMillis() + delay >= deadline) {
+                return false;
+            }
+            retryScheduler().schedule(() -> attempt(request, attempt + 1, deadline, current, result),
+                    delay, TimeUnit.MILLISECONDS);
+            return true;
+        }
+    }
+
+    /**
+     * Waits for a call started with {@link Client#send(Request)}, rethrowing
+     * its failure as an IOException. An interrupted wait cancels the call.
+     */
+    public static String await(CompletableFuture<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for HTTP response");
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("HTTP call cancelled");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static IOException failure(Request request, int code, String body) {
+        return new IOException("Remote invocation failed with HTTP code " + code + " for " + request.url()
+                + ". Response body: " + body);
+    }
+
+    /**
+     * @return The delay a Retry-After header asks for, or -1 if there is none.
+     */
+    private static long retryAfterMs(String header) {
+        if (header == null || header.isBlank()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(header.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            try {
+                long at = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                return Math.max(0, at - System.currentTimeMillis());
+            } catch (DateTimeParseException unparsable) {
+                return -1;
+            }
+        }
+    }
+}
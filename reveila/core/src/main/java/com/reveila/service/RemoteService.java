@@ -1,6 +1,7 @@
 package com.reveila.service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URL;
 import java.util.Collections;
@@ -8,7 +9,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 import com.reveila.error.ConfigurationException;
 import com.reveila.error.SystemException;
@@ -18,11 +21,8 @@ import com.reveila.util.json.JsonException;
 import com.reveila.util.json.JsonUtil;
 
 import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
-import okhttp3.Response;
-import okhttp3.ResponseBody;
 
 /**
  * A system component that can invoke methods on a remote Reveila instance via its REST API.
@@ -33,14 +33,9 @@ public class RemoteService extends SystemComponent {
     
     public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
-    // OkHttpClient is thread-safe and designed to be shared.
-    // Making it static ensures a single instance is reused across all invocations,
-    // which is more efficient as it allows for connection pooling.
-    private static final OkHttpClient client = new OkHttpClient.Builder()
-            .connectTimeout(10, TimeUnit.SECONDS)
-            .writeTimeout(10, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .build();
+    // Pooled client of the shared HTTP engine, resolved once per profile
+    private volatile String httpProfile = "remote";
+    private volatile HttpEngine.Client client;
 
     private Map<URL, Number> configs = Collections.synchronizedMap(new HashMap<URL, Number>());
     private PerformanceTracker nodePerformanceTracker = PerformanceTracker.getInstance();
@@ -74,6 +69,15 @@ public class RemoteService extends SystemComponent {
         }
     }
 
+    /**
+     * Sets the {@link HttpEngine} profile used for remote calls. Profiles are
+     * defined on HttpClientService; an undefined profile uses the defaults.
+     */
+    public void setHttpProfile(String httpProfile) {
+        this.httpProfile = httpProfile;
+        this.client = null;
+    }
+
     public void addRemoteNode(String urlAndPriority) throws SystemException {
         try {
             String[] array = urlAndPriority.split(",");
@@ -92,13 +96,17 @@ public class RemoteService extends SystemComponent {
     public synchronized void onStart() throws Exception {
         Set<Entry<URL, Number>> entrySet = configs.entrySet();
         for (Entry<URL, Number> entry : entrySet) {
-            nodePerformanceTracker.track(entry.getValue(), entry.getKey());
+            // The configured priority seeds the node's latency estimate
+            nodePerformanceTracker.register(entry.getKey(), entry.getValue().longValue());
         }
     }
 
     @Override
     public synchronized void onStop() throws Exception {
-        nodePerformanceTracker.clear();
+        client = null;
+        for (URL url : configs.keySet()) {
+            nodePerformanceTracker.remove(url);
+        }
     }
 
     public Object invoke(String componentName, String methodName) throws IOException, JsonException {
@@ -125,6 +133,35 @@ public class RemoteService extends SystemComponent {
      * parameters as an array or individual arguments.
      */
     public Object invoke(Object... remoteCallArgs) throws IOException, JsonException {
+        try {
+            return invokeAsync(remoteCallArgs).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for remote invocation");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof JsonException je) {
+                throw je;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Asynchronous form of {@link #invoke(Object...)}. The call is sent on the
+     * pooled dispatcher and the node's latency and failures are recorded when
+     * it completes.
+     *
+     * @return A future completing with the decoded result, or exceptionally
+     *         with an IOException or JsonException.
+     */
+    public CompletableFuture<Object> invokeAsync(Object... remoteCallArgs) throws JsonException {
         if (remoteCallArgs == null || remoteCallArgs.length < 2) {
             throw new IllegalArgumentException(
                 "The remote 'invoke' requires at least 2 arguments: componentName, and methodName");
@@ -135,6 +172,7 @@ public class RemoteService extends SystemComponent {
         String componentName;
         String methodName;
         URL baseUrl;
+        boolean picked = false;
 
         if (remoteCallArgs[0] instanceof URL) {
             baseUrl = (URL) remoteCallArgs[0];
@@ -144,13 +182,27 @@ public class RemoteService extends SystemComponent {
         } else {
             baseUrl = nodePerformanceTracker.getBestNodeUrl();
             if (baseUrl == null) {
-                throw new IllegalStateException("No 'BaseURL' argument specified in the component configuration. "
-                + "To use ReveilaRemote, you must specify at least one valid end-point URL.");
+                throw new IllegalStateException("No remote node available. Either no 'BaseURL' argument is specified "
+                + "in the component configuration, or the circuits of all configured end-points are open.");
             }
+            picked = true;
             componentName = (String) remoteCallArgs[0];
             methodName = (String) remoteCallArgs[1];
         }
         
+        try {
+            return invokeNode(baseUrl, componentName, methodName, remoteCallArgs, argOffset, startTime);
+        } catch (JsonException | RuntimeException e) {
+            // The request was never sent, so a trial claimed by picking the node is handed back
+            if (picked) {
+                nodePerformanceTracker.abandon(baseUrl);
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Object> invokeNode(URL baseUrl, String componentName, String methodName,
+            Object[] remoteCallArgs, int argOffset, long startTime) throws JsonException {
         Object[] args;
         if (remoteCallArgs.length > argOffset && remoteCallArgs[argOffset] instanceof Object[]) {
             args = (Object[]) remoteCallArgs[argOffset];
@@ -174,20 +226,38 @@ public class RemoteService extends SystemComponent {
 
         // Log the remote call
         logger.info("Remote invocation: URL: " + url + " target component: " + componentName + " target method: " + methodName);
-        Response response = client.newCall(request).execute();
-        // The response body can only be consumed once. We read it into a string
-        // to allow logging it in case of an error.
-        final ResponseBody responseBody = response.body();
-        final String responseBodyString = responseBody != null ? responseBody.string() : null;
-
-        Long timeUsed = System.currentTimeMillis() - startTime;
-        if (!response.isSuccessful()) {
-            nodePerformanceTracker.track(Long.valueOf(timeUsed + PerformanceTracker.DEFAULT_PENALTY_MS), baseUrl); // Penalize failed calls
-            throw new IOException("Remote invocation failed with HTTP code " + response.code() + " for " + url
-                    + ". Body: " + responseBodyString);
+        nodePerformanceTracker.begin(baseUrl);
+        CompletableFuture<String> call;
+        try {
+            call = client().send(request);
+        } catch (RuntimeException e) {
+            nodePerformanceTracker.fail(baseUrl, System.currentTimeMillis() - startTime);
+            throw e;
+        }
+
+        return call.handle((responseBodyString, error) -> {
+            long timeUsed = System.currentTimeMillis() - startTime;
+            if (error != null) {
+                // Failed calls count towards opening the node's circuit
+                nodePerformanceTracker.fail(baseUrl, timeUsed);
+                throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            }
+            nodePerformanceTracker.complete(baseUrl, timeUsed);
+            try {
+                return (responseBodyString == null || responseBodyString.isEmpty()) ? null
+                        : JsonUtil.toObject(responseBodyString, Object.class);
+            } catch (JsonException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private HttpEngine.Client client() {
+        HttpEngine.Client bound = client;
+        if (bound == null || bound.isRetired()) {
+            bound = HttpEngine.shared().client(httpProfile);
+            client = bound;
         }
-        nodePerformanceTracker.track(timeUsed, baseUrl);
-        return (responseBodyString == null || responseBodyString.isEmpty()) ? null
-                : JsonUtil.toObject(responseBodyString, Object.class);
+        return bound;
     }
-}
\ No newline at end of file
+}
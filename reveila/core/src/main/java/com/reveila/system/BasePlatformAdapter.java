@@ -1,6 +1,7 @@
 package com.reveila.system;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -11,7 +12,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
@@ -133,11 +133,13 @@ public abstract class BasePlatformAdapter implements PlatformAdapter {
     @Override
     public OutputStream getFileOutputStream(String path, boolean append) throws IOException {
         Path absolutePath = FileUtil.toSafePath(this.systemHome.getSystemHome(), path);
-        if (append) {
-            return Files.newOutputStream(absolutePath, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-        } else {
-            return Files.newOutputStream(absolutePath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-        }
+        // A FileOutputStream lets callers that need durability fsync through getFD()
+        return new FileOutputStream(absolutePath.toFile(), append);
+    }
+
+    @Override
+    public boolean deleteFile(String path) throws IOException {
+        return Files.deleteIfExists(FileUtil.toSafePath(this.systemHome.getSystemHome(), path));
     }
 
     @Override
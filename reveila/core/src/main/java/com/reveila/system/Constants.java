@@ -70,6 +70,9 @@ public final class Constants {
 	public static final String HOT_DEPLOY = "hot-deploy";
 	public static final String DEPENDENCIES = "dependencies";
 	public static final String COMPONENT_START_TIMEOUT = "component.start.timeout";
+	public static final String EVENT_DISPATCH_THREADS = "event.dispatch.threads";
+	public static final String EVENT_MAILBOX_CAPACITY = "event.mailbox.capacity";
+	public static final String EVENT_OVERFLOW_POLICY = "event.overflow.policy";
 	public static final String LOG_CONSOLE_ENABLED = "log.console.enabled";
 	public static final String ISOLATION = "isolation";
 	public static final String SECURITY_PERIMETER = "security-perimeter";
@@ -0,0 +1,101 @@
+package com.reveila.system;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-proxy cache of resolved method calls.
+ * <p>
+ * Entries are keyed by the target class, the method name and the runtime
+ * classes of the arguments, so a lookup for a previously seen call shape
+ * skips {@link ReflectionMethod#findBestMethod} and the per-argument coercion
+ * analysis entirely. The owning proxy clears the table whenever its
+ * implementation is hot-swapped.
+ *
+ * @author Charles Lee
+ */
+final class MethodDispatchTable {
+
+	/**
+	 * Upper bound on cached call shapes. Components normally see a handful;
+	 * the bound only protects against callers that generate unbounded argument
+	 * class combinations.
+	 */
+	private static final int MAX_ENTRIES = 512;
+
+	private final Map<Key, ReflectionMethod.Invoker> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the invoker for the given call shape, resolving and caching it on
+	 * first use.
+	 *
+	 * @return The invoker, or null if no compatible method exists.
+	 */
+	ReflectionMethod.Invoker lookup(Class<?> targetClass, String methodName, Object[] args) {
+		Key key = new Key(targetClass, methodName, args);
+		ReflectionMethod.Invoker invoker = entries.get(key);
+		if (invoker != null) {
+			return invoker;
+		}
+
+		Method method = ReflectionMethod.findBestMethod(targetClass, methodName, args);
+		if (method == null) {
+			return null;
+		}
+
+		invoker = ReflectionMethod.compile(method, args);
+		if (entries.size() >= MAX_ENTRIES) {
+			entries.clear();
+		}
+		ReflectionMethod.Invoker existing = entries.putIfAbsent(key, invoker);
+		return existing != null ? existing : invoker;
+	}
+
+	void invalidate() {
+		entries.clear();
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	private static final class Key {
+		private final Class<?> targetClass;
+		private final String methodName;
+		private final Class<?>[] argTypes;
+		private final int hash;
+
+		Key(Class<?> targetClass, String methodName, Object[] args) {
+			this.targetClass = targetClass;
+			this.methodName = methodName;
+			int n = args == null ? 0 : args.length;
+			this.argTypes = new Class<?>[n];
+			for (int i = 0; i < n; i++) {
+				argTypes[i] = args[i] == null ? null : args[i].getClass();
+			}
+			this.hash = 31 * (31 * targetClass.hashCode() + methodName.hashCode()) + Arrays.hashCode(argTypes);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return hash == other.hash
+					&& targetClass == other.targetClass
+					&& methodName.equals(other.methodName)
+					&& Arrays.equals(argTypes, other.argTypes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
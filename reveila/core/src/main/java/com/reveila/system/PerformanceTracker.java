@@ -1,68 +1,477 @@
 package com.reveila.system;
 
 import java.net.URL;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Tracks the health and latency of the nodes in a Reveila cluster and picks
+ * the node to route the next request to.
+ * <p>
+ * Each node keeps an exponentially weighted moving average of its latency, a
+ * log-linear latency histogram for percentiles, a count of requests in flight
+ * and a circuit breaker. Selection uses power-of-two-choices by default: two
+ * random healthy nodes are compared by {@code ewma * (inFlight + 1)} and the
+ * cheaper one wins, which spreads load instead of sending everything to the
+ * single fastest node. Least-outstanding-requests selection is also available.
+ * <p>
+ * Callers bracket a request with {@link #begin(URL)} and either
+ * {@link #complete(URL, long)} or {@link #fail(URL, long)}. After
+ * {@code failureThreshold} consecutive failures a node's circuit opens and it
+ * receives no traffic for {@code openDurationMs}; then a single trial request
+ * is let through, which closes the circuit on success or reopens it on failure.
+ * A trial that reports neither within {@code trialTimeoutMs} is given up, and
+ * the next caller gets to make one; callers that picked a node but never sent
+ * the request can hand the trial back at once with {@link #abandon(URL)}.
+ * <p>
+ * All methods are thread-safe.
+ */
 public class PerformanceTracker {
 
+    /**
+     * @deprecated Failed calls now open the node's circuit instead of adding a
+     *             fixed penalty; see {@link #fail(URL, long)}.
+     */
+    @Deprecated
     public static final long DEFAULT_PENALTY_MS = 5000;
-	
-    private int capacity = 1000;
-    private NavigableMap<Number, URL> tracker = null;
-    private static PerformanceTracker sharedInstance = null;
+
+    public enum Strategy {
+        POWER_OF_TWO_CHOICES,
+        LEAST_OUTSTANDING_REQUESTS
+    }
+
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Point-in-time view of a node, for monitoring.
+     */
+    public record NodeStats(URL url, double ewmaMs, double p50Ms, double p99Ms, int inFlight,
+            long successes, long failures, CircuitState circuit) {
+    }
+
+    private static final PerformanceTracker sharedInstance = new PerformanceTracker();
+
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    private volatile Node[] snapshot = new Node[0];
+
+    private volatile int capacity = 1000;
+    private volatile Strategy strategy = Strategy.POWER_OF_TWO_CHOICES;
+    private volatile long decayWindowMs = 10_000;
+    private volatile long staleAfterMs = 30_000;
+    private volatile long histogramWindowMs = 60_000;
+    private volatile int failureThreshold = 5;
+    private volatile long openDurationMs = 10_000;
+    private volatile long trialTimeoutMs = 30_000;
 
     public static PerformanceTracker getInstance() {
-        if (sharedInstance == null) {
-            sharedInstance = new PerformanceTracker();
-        }
         return sharedInstance;
     }
 
-    public synchronized void track(Number timeUsed, URL url) {
+    public PerformanceTracker() {
+        super();
+    }
+
+    /**
+     * Adds a node to the cluster if it is not tracked yet.
+     *
+     * @param url The node's base URL.
+     * @param initialLatencyMs The latency to assume until the first sample,
+     *            e.g. a configured priority.
+     */
+    public void register(URL url, long initialLatencyMs) {
+        if (url == null) {
+            return;
+        }
+        // Nodes beyond capacity are not tracked (and never selected)
+        nodes.computeIfAbsent(url.toExternalForm(), k -> nodes.size() < capacity ? new Node(url, initialLatencyMs) : null);
+        refreshSnapshot();
+    }
+
+    public void remove(URL url) {
+        if (url != null && nodes.remove(url.toExternalForm()) != null) {
+            refreshSnapshot();
+        }
+    }
+
+    /**
+     * Records a latency sample for a node, registering it if necessary. Does
+     * not affect the in-flight count; use begin/complete to bracket requests.
+     */
+    public void track(Number timeUsed, URL url) {
         if (url == null || timeUsed == null) {
             return; // Ignore
         }
+        Node node = node(url, timeUsed.longValue());
+        if (node != null) {
+            node.recordLatency(timeUsed.doubleValue());
+        }
+    }
+
+    /**
+     * Marks the start of a request to a node.
+     */
+    public void begin(URL url) {
+        Node node = url != null ? node(url, 0) : null;
+        if (node != null) {
+            node.inFlight.incrementAndGet();
+        }
+    }
 
-        tracker.put(timeUsed, url);
-        if (tracker.size() > capacity) {
-            tracker.pollLastEntry();
+    /**
+     * Marks a request started with {@link #begin(URL)} as successful.
+     */
+    public void complete(URL url, long timeUsedMs) {
+        Node node = url != null ? nodes.get(url.toExternalForm()) : null;
+        if (node == null) {
+            return;
         }
+        node.inFlight.decrementAndGet();
+        node.recordLatency(timeUsedMs);
+        node.successes.incrementAndGet();
+        node.consecutiveFailures.set(0);
+        node.closeCircuit();
     }
 
-    public synchronized int size() {
-        return tracker.size();
+    /**
+     * Marks a request started with {@link #begin(URL)} as failed. The latency
+     * still counts towards the node's average, and enough consecutive failures
+     * open its circuit.
+     */
+    public void fail(URL url, long timeUsedMs) {
+        Node node = url != null ? nodes.get(url.toExternalForm()) : null;
+        if (node == null) {
+            return;
+        }
+        node.inFlight.decrementAndGet();
+        node.recordLatency(timeUsedMs);
+        node.failures.incrementAndGet();
+        int failures = node.consecutiveFailures.incrementAndGet();
+        if (node.trialUntil.get() != 0 || failures >= failureThreshold) {
+            node.openCircuit(System.currentTimeMillis() + openDurationMs);
+        }
     }
 
-    public synchronized URL getBestNodeUrl() {
-        Map.Entry<Number, URL> entry = tracker.firstEntry();
-        if (entry != null) {
-            return entry.getValue();
+    /**
+     * Gives back a node returned by {@link #getBestNodeUrl()} whose request
+     * was never started, so a claimed trial does not block the node until its
+     * timeout.
+     */
+    public void abandon(URL url) {
+        Node node = url != null ? nodes.get(url.toExternalForm()) : null;
+        if (node != null) {
+            node.trialUntil.set(0);
         }
-        return null; // No valid node found
     }
 
-    public synchronized int getCapacity() {
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Picks the node for the next request according to the current strategy.
+     * A node whose circuit is half-open is only returned while no trial request
+     * is running against it; returning it claims the trial.
+     *
+     * @return The chosen node, or null if no node is available.
+     */
+    public URL getBestNodeUrl() {
+        Node[] all = snapshot;
+        long now = System.currentTimeMillis();
+        List<Node> available = new ArrayList<>(all.length);
+        for (Node node : all) {
+            if (node.allowsRequest(now)) {
+                available.add(node);
+            }
+        }
+        if (available.isEmpty()) {
+            return null; // No valid node found
+        }
+
+        Node chosen;
+        if (available.size() == 1) {
+            chosen = available.get(0);
+        } else if (strategy == Strategy.LEAST_OUTSTANDING_REQUESTS) {
+            chosen = available.get(0);
+            for (Node node : available) {
+                int diff = node.inFlight.get() - chosen.inFlight.get();
+                if (diff < 0 || (diff == 0 && node.cost(now) < chosen.cost(now))) {
+                    chosen = node;
+                }
+            }
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(available.size());
+            int second = random.nextInt(available.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            Node a = available.get(first);
+            Node b = available.get(second);
+            chosen = a.cost(now) <= b.cost(now) ? a : b;
+        }
+
+        if (chosen.circuitState(now) == CircuitState.HALF_OPEN && !chosen.claimTrial(now)) {
+            // Another caller claimed the trial request in the meantime
+            return null;
+        }
+        return chosen.url;
+    }
+
+    public NodeStats getStats(URL url) {
+        Node node = url != null ? nodes.get(url.toExternalForm()) : null;
+        return node != null ? node.stats() : null;
+    }
+
+    public List<NodeStats> getAllStats() {
+        return Arrays.stream(snapshot).map(Node::stats).toList();
+    }
+
+    public int getCapacity() {
         return capacity;
     }
 
-    public synchronized void setCapacity(int capacity) {
+    /**
+     * Sets the maximum number of nodes tracked.
+     */
+    public void setCapacity(int capacity) {
         this.capacity = capacity;
-        if (tracker.size() > capacity) {
-            while (tracker.size() > capacity) {
-                tracker.pollLastEntry();
-            }
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Sets the time constant of the latency average: a sample this old carries
+     * about a third of its original weight.
+     */
+    public void setDecayWindowMs(long decayWindowMs) {
+        this.decayWindowMs = decayWindowMs;
+    }
+
+    /**
+     * Sets how long a node may go without samples before its average is treated
+     * as unknown, so it is probed again rather than avoided forever.
+     */
+    public void setStaleAfterMs(long staleAfterMs) {
+        this.staleAfterMs = staleAfterMs;
+    }
+
+    public void setHistogramWindowMs(long histogramWindowMs) {
+        this.histogramWindowMs = histogramWindowMs;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public void setOpenDurationMs(long openDurationMs) {
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * Sets how long a half-open node waits for its trial request to report
+     * before another caller may make one.
+     */
+    public void setTrialTimeoutMs(long trialTimeoutMs) {
+        this.trialTimeoutMs = trialTimeoutMs;
+    }
+
+    public void clear() {
+        nodes.clear();
+        refreshSnapshot();
+    }
+
+    private Node node(URL url, long initialLatencyMs) {
+        Node node = nodes.get(url.toExternalForm());
+        if (node == null) {
+            register(url, initialLatencyMs);
+            node = nodes.get(url.toExternalForm());
         }
+        return node;
     }
 
-    public PerformanceTracker() {
-        super();
-        this.tracker = Collections.synchronizedNavigableMap(new TreeMap<Number, URL>());
+    private synchronized void refreshSnapshot() {
+        snapshot = nodes.values().toArray(new Node[0]);
+    }
+
+    private final class Node {
+        final URL url;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicLong successes = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        // Deadline of the running trial request; 0 while there is none
+        final AtomicLong trialUntil = new AtomicLong();
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // EWMA state, updated together under the node's lock
+        private double ewma;
+        private long lastSample;
+        private volatile long openUntil;
+
+        Node(URL url, long initialLatencyMs) {
+            this.url = url;
+            this.ewma = initialLatencyMs;
+            this.lastSample = System.currentTimeMillis();
+        }
+
+        synchronized void recordLatency(double ms) {
+            long now = System.currentTimeMillis();
+            double w = Math.exp(-(double) Math.max(0, now - lastSample) / decayWindowMs);
+            ewma = ewma * w + ms * (1 - w);
+            lastSample = now;
+            histogram.record(ms, now, histogramWindowMs);
+        }
+
+        synchronized double ewma() {
+            return ewma;
+        }
+
+        /**
+         * Expected cost of sending one more request: the latency average scaled
+         * by the queue in front of it. Stale nodes cost nothing so they get
+         * re-probed.
+         */
+        double cost(long now) {
+            double average;
+            long last;
+            synchronized (this) {
+                average = ewma;
+                last = lastSample;
+            }
+            if (now - last > staleAfterMs && inFlight.get() == 0) {
+                return 0;
+            }
+            return average * (inFlight.get() + 1);
+        }
+
+        CircuitState circuitState(long now) {
+            long until = openUntil;
+            if (until == 0) {
+                return CircuitState.CLOSED;
+            }
+            return now < until ? CircuitState.OPEN : CircuitState.HALF_OPEN;
+        }
+
+        boolean allowsRequest(long now) {
+            CircuitState state = circuitState(now);
+            return state == CircuitState.CLOSED || (state == CircuitState.HALF_OPEN && !trialRunning(now));
+        }
+
+        boolean trialRunning(long now) {
+            long until = trialUntil.get();
+            return until != 0 && now < until;
+        }
+
+        boolean claimTrial(long now) {
+            long until = trialUntil.get();
+            return (until == 0 || now >= until) && trialUntil.compareAndSet(until, now + trialTimeoutMs);
+        }
+
+        void openCircuit(long until) {
+            openUntil = until;
+            trialUntil.set(0);
+        }
+
+        void closeCircuit() {
+            openUntil = 0;
+            trialUntil.set(0);
+        }
+
+        NodeStats stats() {
+            long now = System.currentTimeMillis();
+            return new NodeStats(url, ewma(), histogram.percentile(0.5, now, histogramWindowMs),
+                    histogram.percentile(0.99, now, histogramWindowMs), inFlight.get(), successes.get(),
+                    failures.get(), circuitState(now));
+        }
     }
 
-    public synchronized void clear() {
-        tracker.clear();
+    /**
+     * Log-linear histogram in the style of HdrHistogram: each power of two is
+     * split into 8 sub-buckets, giving about 12% relative precision over the
+     * whole range of microsecond latencies. Two windows are kept and rotated so
+     * percentiles reflect roughly the last one to two windows.
+     */
+    private static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+        private AtomicLongArray current = new AtomicLongArray(BUCKETS);
+        private AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+        private long windowStart = System.currentTimeMillis();
+
+        synchronized void record(double ms, long now, long windowMs) {
+            rotate(now, windowMs);
+            long micros = Math.max(0, (long) (ms * 1000));
+            current.incrementAndGet(index(micros));
+        }
+
+        synchronized double percentile(double quantile, long now, long windowMs) {
+            rotate(now, windowMs);
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += current.get(i) + previous.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += current.get(i) + previous.get(i);
+                if (seen >= rank) {
+                    return upperBound(i) / 1000.0;
+                }
+            }
+            return upperBound(BUCKETS - 1) / 1000.0;
+        }
+
+        private void rotate(long now, long windowMs) {
+            if (now - windowStart < windowMs) {
+                return;
+            }
+            if (now - windowStart >= 2 * windowMs) {
+                previous = new AtomicLongArray(BUCKETS);
+            } else {
+                previous = current;
+            }
+            current = new AtomicLongArray(BUCKETS);
+            windowStart = now;
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int sub = index % SUB_BUCKETS;
+            long base = 1L << exponent;
+            long width = base >>> SUB_BUCKET_BITS;
+            return base + (sub + 1) * width - 1;
+        }
     }
 }
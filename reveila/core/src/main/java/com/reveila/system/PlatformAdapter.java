@@ -25,6 +25,7 @@ public interface PlatformAdapter {
     public Properties getProperties();
     public InputStream getFileInputStream(String relativePath) throws IOException;
     public OutputStream getFileOutputStream(String relativePath, boolean append) throws IOException;
+    public boolean deleteFile(String relativePath) throws IOException;
     public String[] listRelativePaths(String relativeDirectory, String ext) throws IOException;
     public Logger getLogger();
     public void registerAutoCall(String componentName, String methodName, long delaySeconds, long intervalSeconds, EventConsumer eventConsumer, Subject subject) throws Exception;
@@ -1,17 +1,70 @@
 package com.reveila.system;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.reveila.util.json.JsonUtil;
 
 /**
  * The Mini-Reveila Runtime (Reveila Worker Agent).
  * ADR 0006: Executes plugin code in total isolation within a container.
+ * <p>
+ * Runs once per container by default, configured through environment
+ * variables. With {@code --serve} it stays up as a warm pool worker and reads
+ * invocations from stdin, answering on stdout. Both directions use frames of a
+ * 4-byte big-endian length followed by a UTF-8 JSON object:
+ * <ul>
+ * <li>{@code {"type":"invoke","id":..,"pluginClass":..,"method":..,"args":[..],"env":{..}}}
+ * answered with {@code {"id":..,"status":"SUCCESS"|"ERROR","data":..,"error":..}}</li>
+ * <li>{@code {"type":"ping","id":..}} answered with {@code {"id":..,"status":"PONG"}}</li>
+ * <li>{@code {"type":"shutdown"}} ends the loop.</li>
+ * </ul>
+ * A {@code {"type":"ready"}} frame is written once at startup.
+ * <p>
+ * Plugins read per-call values such as {@code TRACE_ID},
+ * {@code REVEILA_JIT_TOKEN} and credentials through {@link #getenv(String)}.
+ * In a one-shot container these are environment variables. A warm worker's
+ * environment is fixed when it starts, so they come from the invocation's
+ * {@code env} instead.
  * 
  * @author CL
  */
 public class PluginRunner {
+
+    public static final String SERVE_FLAG = "--serve";
+
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+    private static volatile Map<String, String> callEnv = Map.of();
+
     public static void main(String[] args) {
+        if (args != null && args.length > 0 && SERVE_FLAG.equals(args[0])) {
+            // Frames own stdout; anything the plugin prints goes to stderr
+            PrintStream frames = System.out;
+            System.setOut(System.err);
+            try {
+                serve(System.in, frames);
+                System.exit(0);
+            } catch (IOException e) {
+                System.err.println("--- Worker loop failed ---");
+                e.printStackTrace();
+                System.exit(1);
+            }
+        }
+
         String pluginId = System.getenv("PLUGIN_ID");
         String pluginClass = System.getenv("PLUGIN_CLASS");
         String methodName = System.getenv("METHOD_NAME");
@@ -73,6 +126,160 @@ public class PluginRunner {
         }
     }
 
+    /**
+     * Reads a per-call variable: from the current invocation in a warm worker,
+     * otherwise from the environment.
+     *
+     * @return The value, or null if it is not set.
+     */
+    public static String getenv(String name) {
+        String value = callEnv.get(name);
+        return value != null ? value : System.getenv(name);
+    }
+
+    /**
+     * Serves framed invocations until stdin closes or a shutdown frame arrives.
+     */
+    public static void serve(InputStream in, OutputStream out) throws IOException {
+        DataInputStream input = new DataInputStream(in);
+        DataOutputStream output = new DataOutputStream(out);
+        writeFrame(output, Map.of("type", "ready"));
+
+        Map<String, Object> request;
+        while ((request = readFrame(input)) != null) {
+            String type = String.valueOf(request.get("type"));
+            Object id = request.get("id");
+            if ("shutdown".equals(type)) {
+                break;
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("id", id);
+            if ("ping".equals(type)) {
+                response.put("status", "PONG");
+            } else if ("invoke".equals(type)) {
+                Set<String> tempBefore = listTempFiles();
+                try {
+                    response.put("data", invoke(request));
+                    response.put("status", "SUCCESS");
+                } catch (Throwable t) {
+                    Throwable cause = t instanceof java.lang.reflect.InvocationTargetException && t.getCause() != null
+                            ? t.getCause()
+                            : t;
+                    response.put("status", "ERROR");
+                    response.put("error", cause.getClass().getName() + ": " + cause.getMessage());
+                } finally {
+                    scrub(tempBefore);
+                }
+            } else {
+                response.put("status", "ERROR");
+                response.put("error", "Unknown frame type: " + type);
+            }
+            writeFrame(output, response);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object invoke(Map<String, Object> request) throws Exception {
+        String pluginClass = (String) request.get("pluginClass");
+        String methodName = (String) request.get("method");
+        Object argsValue = request.get("args");
+        Object[] methodArgs = argsValue instanceof List ? ((List<Object>) argsValue).toArray() : new Object[0];
+
+        // Per-call values are scoped to one invocation, see getenv
+        Object env = request.get("env");
+        if (env instanceof Map) {
+            Map<String, String> values = new HashMap<>();
+            ((Map<String, Object>) env).forEach((k, v) -> values.put(k, String.valueOf(v)));
+            callEnv = values;
+        }
+
+        // A fresh instance per invocation so no plugin state survives between calls
+        Class<?> clazz = Class.forName(pluginClass);
+        Object instance = clazz.getDeclaredConstructor().newInstance();
+        java.lang.reflect.Method method = ReflectionMethod.findBestMethod(clazz, methodName, methodArgs);
+        if (method == null) {
+            throw new NoSuchMethodException("Could not find method " + methodName + " on class " + pluginClass);
+        }
+        return method.invoke(instance, ReflectionMethod.coerceArguments(method, methodArgs));
+    }
+
+    /**
+     * Removes per-invocation credentials and any temporary files the plugin
+     * left behind, so the next invocation starts clean.
+     */
+    private static void scrub(Set<String> tempBefore) {
+        callEnv = Map.of();
+        File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!tempBefore.contains(file.getName())) {
+                    delete(file);
+                }
+            }
+        }
+    }
+
+    private static Set<String> listTempFiles() {
+        Set<String> names = new HashSet<>();
+        String[] files = new File(System.getProperty("java.io.tmpdir")).list();
+        if (files != null) {
+            names.addAll(List.of(files));
+        }
+        return names;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Writes one length-prefixed JSON frame and flushes.
+     */
+    public static void writeFrame(DataOutputStream out, Map<String, Object> frame) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = JsonUtil.toJsonString(frame).getBytes(StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IOException("Failed to serialize frame: " + e.getMessage(), e);
+        }
+        synchronized (out) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads one length-prefixed JSON frame.
+     *
+     * @return The frame, or null if the stream ended cleanly between frames.
+     */
+    public static Map<String, Object> readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        try {
+            return JsonUtil.parseJsonStringToMap(new String(bytes, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IOException("Malformed frame: " + e.getMessage(), e);
+        }
+    }
+
     private static void reportResult(String callbackUrl, String traceId, String pluginId, String methodName, Object result) {
         if (callbackUrl == null || callbackUrl.isEmpty()) {
             System.out.println("No callback URL provided. Result not reported.");
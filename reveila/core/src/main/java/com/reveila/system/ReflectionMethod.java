@@ -1,9 +1,32 @@
 package com.reveila.system;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
 
 public class ReflectionMethod {
 
+	private static final Map<Class<?>, Class<?>> WRAPPER_TO_PRIMITIVE = Map.of(
+			Boolean.class, boolean.class,
+			Byte.class, byte.class,
+			Character.class, char.class,
+			Short.class, short.class,
+			Integer.class, int.class,
+			Long.class, long.class,
+			Float.class, float.class,
+			Double.class, double.class,
+			Void.class, void.class);
+
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
 	/**
 	 * Finds the best-matching method for a given name and arguments.
 	 * This implementation finds the first method that is compatible with the
@@ -85,15 +108,7 @@ public class ReflectionMethod {
 
 		// Handle primitive wrapper types (e.g., int.class can accept an Integer).
 		if (targetType.isPrimitive()) {
-			try {
-				// Every wrapper class (Integer, Boolean, etc.) has a static field
-				// 'TYPE' that holds its corresponding primitive class (int.class,
-				// boolean.class).
-				return sourceType.getField("TYPE").get(null).equals(targetType);
-			} catch (Exception e) {
-				// This will fail if sourceType is not a wrapper type; fall through to return
-				// false.
-			}
+			return targetType == WRAPPER_TO_PRIMITIVE.get(sourceType);
 		}
 
 		return false;
@@ -182,44 +197,54 @@ public class ReflectionMethod {
 	}
 
 	private static Object coerceArg(Class<?> paramType, Object arg) {
-		if (arg == null) {
+		return converterFor(paramType, arg == null ? null : arg.getClass()).apply(arg);
+	}
+
+	/**
+	 * Selects the coercion applied to an argument of the given runtime class
+	 * when it is passed to a parameter of the given type. The selection depends
+	 * only on the two classes, so it can be computed once and reused for every
+	 * call with the same argument signature.
+	 */
+	private static UnaryOperator<Object> converterFor(Class<?> paramType, Class<?> argClass) {
+		if (argClass == null) {
 			// Handle primitives: null cannot be coerced to int/long/etc.
-			return paramType.isPrimitive() ? defaultValue(paramType) : null;
+			final Object fallback = paramType.isPrimitive() ? defaultValue(paramType) : null;
+			return arg -> fallback;
 		}
 
 		// If already assignable, return as is (prevents unnecessary String conversion)
-		if (paramType.isAssignableFrom(arg.getClass())) {
-			return arg;
+		if (paramType.isAssignableFrom(argClass)) {
+			return UnaryOperator.identity();
 		}
 
 		// Handle Numeric Coercion (Common for JSON/JS numbers)
-		if (arg instanceof Number) {
-			Number n = (Number) arg;
+		if (Number.class.isAssignableFrom(argClass)) {
 			if (paramType == int.class || paramType == Integer.class)
-				return n.intValue();
+				return arg -> ((Number) arg).intValue();
 			if (paramType == long.class || paramType == Long.class)
-				return n.longValue();
+				return arg -> ((Number) arg).longValue();
 			if (paramType == double.class || paramType == Double.class)
-				return n.doubleValue();
+				return arg -> ((Number) arg).doubleValue();
 			if (paramType == float.class || paramType == Float.class)
-				return n.floatValue();
+				return arg -> ((Number) arg).floatValue();
 			if (paramType == short.class || paramType == Short.class)
-				return n.shortValue();
+				return arg -> ((Number) arg).shortValue();
 			if (paramType == byte.class || paramType == Byte.class)
-				return n.byteValue();
+				return arg -> ((Number) arg).byteValue();
 		}
 
 		// Handle String Coercion
 		if (paramType == String.class) {
-			return String.valueOf(arg);
+			return String::valueOf;
 		}
 
 		// Handle Boolean Coercion (e.g. "true" -> true)
-		if ((paramType == boolean.class || paramType == Boolean.class) && arg instanceof String) {
-			return Boolean.parseBoolean((String) arg);
+		if ((paramType == boolean.class || paramType == Boolean.class) && argClass == String.class) {
+			return arg -> Boolean.parseBoolean((String) arg);
 		}
 
-		return arg;
+		return UnaryOperator.identity();
 	}
 
 	private static Object defaultValue(Class<?> type) {
@@ -227,8 +252,162 @@ public class ReflectionMethod {
 			return false;
 		if (type == void.class)
 			return null;
+		if (type == char.class)
+			return (char) 0;
+		if (type == byte.class)
+			return (byte) 0;
+		if (type == short.class)
+			return (short) 0;
+		if (type == long.class)
+			return 0L;
+		if (type == float.class)
+			return 0f;
+		if (type == double.class)
+			return 0d;
 		if (type.isPrimitive())
 			return 0;
 		return null;
 	}
+
+	/**
+	 * Resolves the given method once for the runtime classes of the supplied
+	 * arguments. The returned invoker applies the same unwrapping, coercion and
+	 * varargs packaging as {@link #coerceArguments(Method, Object[])}, but with
+	 * every decision precomputed, and dispatches through a {@link MethodHandle}
+	 * instead of {@link Method#invoke(Object, Object...)}.
+	 * <p>
+	 * The invoker is only valid for later calls whose arguments have exactly the
+	 * same runtime classes (and nulls in the same positions).
+	 *
+	 * @param method The method selected by {@link #findBestMethod}.
+	 * @param args   Sample arguments defining the argument-class signature.
+	 * @return A reusable invoker for the signature.
+	 */
+	public static Invoker compile(Method method, Object[] args) {
+		if (args == null)
+			args = new Object[0];
+
+		Class<?>[] paramTypes = method.getParameterTypes();
+		int paramCount = paramTypes.length;
+
+		boolean unwrap = paramCount == 1 && args.length == 1 && args[0] instanceof Object[]
+				&& !paramTypes[0].isAssignableFrom(args[0].getClass());
+		if (unwrap) {
+			args = (Object[]) args[0];
+		}
+
+		boolean varArgs = method.isVarArgs();
+		if (varArgs) {
+			if (args.length < paramCount - 1) {
+				throw new IllegalArgumentException(String.format(
+						"Varargs method %s expects at least %d arguments, but received %d.",
+						method.getName(), paramCount - 1, args.length));
+			}
+		} else if (args.length != paramCount) {
+			throw new IllegalArgumentException(String.format(
+					"Method %s expects %d arguments, but received %d.",
+					method.getName(), paramCount, args.length));
+		}
+
+		List<UnaryOperator<Object>> converters = new ArrayList<>(args.length);
+		int fixedParamCount = varArgs ? paramCount - 1 : paramCount;
+		Class<?> varargComponentType = varArgs ? paramTypes[fixedParamCount].getComponentType() : null;
+		for (int i = 0; i < args.length; i++) {
+			Class<?> target = i < fixedParamCount ? paramTypes[i] : varargComponentType;
+			converters.add(converterFor(target, args[i] == null ? null : args[i].getClass()));
+		}
+
+		return new Invoker(method, toHandle(method), unwrap, fixedParamCount, varargComponentType,
+				List.copyOf(converters));
+	}
+
+	private static MethodHandle toHandle(Method method) {
+		try {
+			MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+			if (method.isVarArgs()) {
+				handle = handle.asFixedArity();
+			}
+			handle = handle.asSpreader(Object[].class, method.getParameterCount());
+			if (Modifier.isStatic(method.getModifiers())) {
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			}
+			return handle.asType(INVOKER_TYPE);
+		} catch (IllegalAccessException e) {
+			// Not publicly accessible (e.g. declared by a non-public class);
+			// fall back to reflection, which reports the access error per call.
+			return null;
+		}
+	}
+
+	/**
+	 * A method call resolved for one argument-class signature. Instances are
+	 * immutable and safe to share between threads.
+	 */
+	public static final class Invoker {
+
+		private final Method method;
+		private final MethodHandle handle;
+		private final boolean unwrap;
+		private final int fixedParamCount;
+		private final Class<?> varargComponentType;
+		private final List<UnaryOperator<Object>> converters;
+
+		private Invoker(Method method, MethodHandle handle, boolean unwrap, int fixedParamCount,
+				Class<?> varargComponentType, List<UnaryOperator<Object>> converters) {
+			this.method = method;
+			this.handle = handle;
+			this.unwrap = unwrap;
+			this.fixedParamCount = fixedParamCount;
+			this.varargComponentType = varargComponentType;
+			this.converters = converters;
+		}
+
+		public Method getMethod() {
+			return method;
+		}
+
+		/**
+		 * Invokes the resolved method on the target.
+		 *
+		 * @throws InvocationTargetException if the underlying method throws.
+		 */
+		public Object invoke(Object target, Object[] args) throws Exception {
+			Object[] finalArgs = prepareArguments(args);
+			if (handle == null) {
+				return method.invoke(target, finalArgs);
+			}
+			try {
+				return (Object) handle.invokeExact(target, finalArgs);
+			} catch (Throwable t) {
+				throw new InvocationTargetException(t);
+			}
+		}
+
+		private Object[] prepareArguments(Object[] args) {
+			if (args == null)
+				args = new Object[0];
+			if (unwrap)
+				args = (Object[]) args[0];
+
+			if (varargComponentType == null) {
+				Object[] coerced = new Object[args.length];
+				for (int i = 0; i < args.length; i++) {
+					coerced[i] = converters.get(i).apply(args[i]);
+				}
+				return coerced;
+			}
+
+			Object[] finalArgs = new Object[fixedParamCount + 1];
+			for (int i = 0; i < fixedParamCount; i++) {
+				finalArgs[i] = converters.get(i).apply(args[i]);
+			}
+			int varargLen = args.length - fixedParamCount;
+			Object varargArray = Array.newInstance(varargComponentType, varargLen);
+			for (int i = 0; i < varargLen; i++) {
+				Array.set(varargArray, i, converters.get(fixedParamCount + i).apply(args[fixedParamCount + i]));
+			}
+			finalArgs[fixedParamCount] = varargArray;
+			return finalArgs;
+		}
+	}
 }
@@ -19,6 +19,8 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -83,7 +85,9 @@ public class Reveila implements AutoCloseable, EventConsumer {
 		error = !stopComponents();
 
 		if (systemContext != null) {
+			EventManager eventManager = systemContext.getEventManager();
 			systemContext.clear();
+			eventManager.shutdown();
 		}
 
 		if (platformAdapter != null) {
@@ -155,6 +159,10 @@ public class Reveila implements AutoCloseable, EventConsumer {
 					.equalsIgnoreCase(this.properties.getProperty(Constants.STANDALONE_MODE));
 		} catch (Exception e) {
 		}
+		if (!standalone) {
+			// The local node competes for requests alongside the remote ones
+			PerformanceTracker.getInstance().register(this.localUrl, 0);
+		}
 
 		createSystemContext(this.properties);
 		this.platformAdapter.plug(this);
@@ -296,9 +304,29 @@ public class Reveila implements AutoCloseable, EventConsumer {
 		return "Reveila"; // Default fallback
 	}
 
+	private void configureEventManager(EventManager eventManager, Properties props) {
+		String threads = props.getProperty(Constants.EVENT_DISPATCH_THREADS);
+		String capacity = props.getProperty(Constants.EVENT_MAILBOX_CAPACITY);
+		String policy = props.getProperty(Constants.EVENT_OVERFLOW_POLICY);
+		try {
+			if (threads != null && !threads.isBlank()) {
+				eventManager.setThreads(Integer.parseInt(threads.trim()));
+			}
+			if (capacity != null && !capacity.isBlank()) {
+				eventManager.setMailboxCapacity(Integer.parseInt(capacity.trim()));
+			}
+			if (policy != null && !policy.isBlank()) {
+				eventManager.setOverflowPolicy(EventManager.OverflowPolicy.valueOf(policy.trim().toUpperCase()));
+			}
+		} catch (IllegalArgumentException e) {
+			logger.warning(() -> "Invalid event manager setting, using defaults for the rest: " + e.getMessage());
+		}
+	}
+
 	private void createSystemContext(Properties props) throws Exception {
 		EventManager eventManager = new EventManager();
 		eventManager.setLogger(this.logger);
+		configureEventManager(eventManager, props);
 
 		Cryptographer encrypter = this.platformAdapter.getCryptographer();
 		if (encrypter == null) {
@@ -508,6 +536,19 @@ public class Reveila implements AutoCloseable, EventConsumer {
 		return manifest;
 	}
 
+	/**
+	 * Starts the given components as a dependency graph. Every component is
+	 * registered with the system context up front; each one is then started on
+	 * the platform executor as soon as all of its declared dependencies within
+	 * the same batch have started, so independent components boot concurrently
+	 * and the total start-up time follows the critical path of the graph.
+	 * <p>
+	 * The start timeout applies to each component individually. A component
+	 * whose dependency failed is not started. In strict mode the first failure
+	 * also prevents any further components from being started.
+	 *
+	 * @param metaObjectList The components, topologically sorted.
+	 */
 	private void startComponents(String tag, List<MetaObject> metaObjectList, long timeoutSeconds) throws Exception {
 
 		if (metaObjectList == null || metaObjectList.isEmpty()) {
@@ -515,19 +556,19 @@ public class Reveila implements AutoCloseable, EventConsumer {
 		}
 
 		if (startedProxies == null) {
-			startedProxies = new ArrayList<>();
+			startedProxies = Collections.synchronizedList(new ArrayList<>());
 		}
 
+		boolean debug = "true".equalsIgnoreCase(this.properties.getProperty("debug"));
+		boolean track = "true".equalsIgnoreCase(this.properties.getProperty("track"));
+
+		Map<String, SystemProxy> proxies = new java.util.LinkedHashMap<>();
 		for (MetaObject mObj : metaObjectList) {
-			boolean debug = "true".equalsIgnoreCase(this.properties.getProperty("debug"));
-			boolean track = "true".equalsIgnoreCase(this.properties.getProperty("track"));
 			Manifest manifest = createManifest(tag, mObj);
 			String type = manifest.getComponentType();
 			SystemProxy proxy = new SystemProxy(mObj, manifest);
 			proxy.setDebug(debug);
 			proxy.setManaged(track);
-			Subject subject = new Subject();
-			subject.getPrincipals().add(new RolePrincipal(type));
 			if (!Constants.COMPONENT.equalsIgnoreCase(type)) {
 				// treat as plugin - set plugin classloader
 				try {
@@ -545,59 +586,148 @@ public class Reveila implements AutoCloseable, EventConsumer {
 				}
 			}
 			systemContext.add(proxy);
-			try {
-				if (!mObj.isAutoStart()) {
-					logger.info(() -> "ℹ️ Skipping auto-start for " + tag + ": " + mObj.getName());
-					continue;
+			proxies.put(mObj.getName(), proxy);
+		}
+
+		// Schedule in topological order so every dependency already has a future.
+		AtomicBoolean aborted = new AtomicBoolean(false);
+		Map<String, CompletableFuture<Void>> starts = new java.util.LinkedHashMap<>();
+		for (MetaObject mObj : metaObjectList) {
+			List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+			for (String dName : mObj.getDependencies()) {
+				CompletableFuture<Void> dependency = starts.get(dName);
+				if (dependency != null) {
+					dependencies.add(dependency);
 				}
+			}
+			starts.put(mObj.getName(),
+					scheduleStart(tag, mObj, proxies.get(mObj.getName()), dependencies, timeoutSeconds, aborted));
+		}
 
-				Map<String, Object> autoRunConf = mObj.getAutoRunConf();
+		try {
+			CompletableFuture.allOf(starts.values().toArray(new CompletableFuture<?>[0])).get();
+		} catch (InterruptedException e) {
+			aborted.set(true);
+			Thread.currentThread().interrupt();
+			handleStartError("Interrupted while starting " + tag + "s.", e);
+		} catch (ExecutionException e) {
+			// Individual failures are reported below
+		}
+
+		// Report root causes before the components that were skipped because of them
+		List<String> failed = new ArrayList<>();
+		List<String> skipped = new ArrayList<>();
+		for (Map.Entry<String, CompletableFuture<Void>> entry : starts.entrySet()) {
+			Throwable cause = getStartFailure(entry.getValue());
+			if (cause instanceof StartSkippedException) {
+				skipped.add(entry.getKey());
+			} else if (cause != null) {
+				failed.add(entry.getKey());
+			}
+		}
+		failed.addAll(skipped);
+
+		// Clean up every failed component before reporting, since in strict mode
+		// the first report ends the start-up
+		List<String> messages = new ArrayList<>();
+		for (String name : failed) {
+			SystemProxy proxy = proxies.get(name);
+			Throwable cause = getStartFailure(starts.get(name));
+			String msg;
+			if (cause instanceof TimeoutException) {
+				msg = "⏱️ Timeout: Component [" + name + "] failed to start within " + timeoutSeconds + " seconds.";
+			} else if (cause instanceof StartSkippedException) {
+				msg = "⛔ Skipped " + tag + " [" + name + "]: " + cause.getMessage();
+			} else {
+				msg = "❌ Failed to start " + tag + " [" + name + "].";
+			}
+			try {
+				proxy.stop(); // Attempt to stop the proxy after a failed or timed out start
+			} catch (Exception ex) {
+				msg = msg + "\n⚠️ Failed to stop " + tag + " after start up error: " + name + " - "
+						+ ex.getMessage();
+			}
 
-				CompletableFuture<Void> startFuture = CompletableFuture.runAsync(() -> {
-					try {
-						proxy.start();
-						setupAutoCall(proxy, autoRunConf, subject);
-					} catch (Exception e) {
-						throw new RuntimeException(e);
-					}
-				}, startExecutor);
+			systemContext.remove(proxy);
+			platformAdapter.unregisterAutoCall(proxy.getName());
+			messages.add(msg);
+		}
 
-				// Wait for completion or timeout
-				startFuture.get(timeoutSeconds, TimeUnit.SECONDS);
+		for (int i = 0; i < failed.size(); i++) {
+			handleStartError(messages.get(i), getStartFailure(starts.get(failed.get(i))));
+		}
+	}
 
-				logger.info(() -> "✅ Started " + tag + ": " + mObj.getName());
-				startedProxies.add(proxy); // Track successful starts
-			} catch (TimeoutException e) {
-				String msg = "⏱️ Timeout: Component [" + mObj.getName() + "] failed to start within "
-						+ timeoutSeconds + " seconds.";
-				try {
-					proxy.stop(); // Attempt to stop the proxy if start timed out
-				} catch (Exception ex) {
-					msg = msg + "\n⚠️ Failed to stop " + tag + " after start timeout: " + mObj.getName() + " - "
-							+ ex.getMessage();
-				}
+	/**
+	 * Starts one component once all of its dependencies have started.
+	 *
+	 * @return A future that completes when the component is running, or
+	 *         exceptionally if it failed, timed out or was skipped.
+	 */
+	private CompletableFuture<Void> scheduleStart(String tag, MetaObject mObj, SystemProxy proxy,
+			List<CompletableFuture<Void>> dependencies, long timeoutSeconds, AtomicBoolean aborted) {
 
-				systemContext.remove(proxy);
-				platformAdapter.unregisterAutoCall(proxy.getName());
+		CompletableFuture<Void> ready = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]));
+		return ready.handle((v, error) -> error).thenCompose(error -> {
+			if (error != null) {
+				return CompletableFuture.failedFuture(new StartSkippedException("a dependency failed to start."));
+			}
+			if (aborted.get()) {
+				return CompletableFuture.failedFuture(new StartSkippedException("start-up was aborted."));
+			}
+			if (!mObj.isAutoStart()) {
+				logger.info(() -> "ℹ️ Skipping auto-start for " + tag + ": " + mObj.getName());
+				return CompletableFuture.completedFuture(null);
+			}
 
-				handleStartError(msg, e);
-			} catch (Exception t) {
-				if (t instanceof InterruptedException) {
-					Thread.currentThread().interrupt();
-				}
-				String msg = "❌ Failed to start " + tag + " [" + mObj.getName() + "].";
+			Subject subject = new Subject();
+			subject.getPrincipals().add(new RolePrincipal(tag));
+			Map<String, Object> autoRunConf = mObj.getAutoRunConf();
+
+			return CompletableFuture.runAsync(() -> {
 				try {
-					proxy.stop(); // Attempt to stop the proxy if start timed out
-				} catch (Exception ex) {
-					msg = msg + "\n⚠️ Failed to stop " + tag + " after start up error: " + mObj.getName() + " - "
-							+ ex.getMessage();
+					proxy.start();
+					setupAutoCall(proxy, autoRunConf, subject);
+				} catch (Exception e) {
+					throw new CompletionException(e);
 				}
+			}, startExecutor)
+					.orTimeout(timeoutSeconds, TimeUnit.SECONDS)
+					.whenComplete((r, t) -> {
+						if (t == null) {
+							logger.info(() -> "✅ Started " + tag + ": " + mObj.getName());
+							startedProxies.add(proxy); // Track successful starts in completion order
+						} else if (strictMode) {
+							aborted.set(true);
+						}
+					});
+		});
+	}
 
-				systemContext.remove(proxy);
-				platformAdapter.unregisterAutoCall(proxy.getName());
-
-				handleStartError(msg, t);
+	private Throwable getStartFailure(CompletableFuture<Void> future) {
+		if (!future.isCompletedExceptionally()) {
+			return null;
+		}
+		try {
+			future.join();
+			return null;
+		} catch (CompletionException | java.util.concurrent.CancellationException e) {
+			Throwable cause = e;
+			while (cause instanceof CompletionException && cause.getCause() != null) {
+				cause = cause.getCause();
 			}
+			return cause;
+		}
+	}
+
+	/**
+	 * Signals that a component was not started because of another failure.
+	 */
+	private static final class StartSkippedException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		StartSkippedException(String message) {
+			super(message);
 		}
 	}
 
@@ -606,10 +736,17 @@ public class Reveila implements AutoCloseable, EventConsumer {
 			return true;
 		}
 
-		// Stop in reverse order of starting (LIFO)
+		// Stop in reverse order of starting (LIFO). Components are recorded as they
+		// finish starting, so every dependent is stopped before its dependencies.
+		List<SystemProxy> toStop;
+		synchronized (startedProxies) {
+			toStop = new ArrayList<>(startedProxies);
+			startedProxies.clear();
+		}
+
 		boolean success = true;
-		Collections.reverse(startedProxies);
-		for (SystemProxy p : startedProxies) {
+		Collections.reverse(toStop);
+		for (SystemProxy p : toStop) {
 			try {
 				p.stop();
 			} catch (Exception e) {
@@ -618,7 +755,6 @@ public class Reveila implements AutoCloseable, EventConsumer {
 			}
 		}
 
-		startedProxies.clear();
 		return success;
 	}
 
@@ -675,25 +811,20 @@ public class Reveila implements AutoCloseable, EventConsumer {
 					+ methodName);
 		}
 
+		PerformanceTracker tracker = PerformanceTracker.getInstance();
 		if (standalone == false) {
-			// Use the fastest node in the cluster to handle the request
-			URL url = PerformanceTracker.getInstance().getBestNodeUrl();
+			// Let the tracker spread requests across the healthy nodes of the cluster
+			URL url = tracker.getBestNodeUrl();
 
-			if (!this.localUrl.equals(url)) {
+			if (url != null && !this.localUrl.toExternalForm().equals(url.toExternalForm())) {
 				try {
-					// Perform remote invocation
+					// Perform remote invocation; RemoteService records the node's
+					// latency and failures, which drive its circuit breaker
 					Proxy proxy = systemContext.getProxy(Constants.REMOTE_REVEILA, subject);
-					startTime = System.currentTimeMillis();
-					Object result = proxy.invoke("invoke", new Object[] { url, componentName, methodName, params });
-					Long timeUsed = System.currentTimeMillis() - startTime;
-					PerformanceTracker.getInstance().track(timeUsed, url); // Track remote invocation time
-					return result;
+					return proxy.invoke("invoke", new Object[] { url, componentName, methodName, params });
 				} catch (IllegalArgumentException e) {
 					// Ignore, Remote Reveila not configured
 				} catch (Exception e) {
-					// Penalize the failed remote node
-					PerformanceTracker.getInstance()
-							.track(Long.valueOf(PerformanceTracker.DEFAULT_PENALTY_MS), url);
 					logger.severe(() -> "Remote invocation failed. Falling back to local invocation. Error: " + e.getMessage());
 					e.printStackTrace();
 				}
@@ -704,15 +835,16 @@ public class Reveila implements AutoCloseable, EventConsumer {
 		// Also as backup for when there is no better remote option,
 		// or when remote invocation failed.
 
+		tracker.begin(this.localUrl);
+		startTime = System.currentTimeMillis();
 		try {
 			Proxy proxy = systemContext.getProxy(componentName, subject);
-			startTime = System.currentTimeMillis();
-			Object result = proxy.invoke(methodName, params);
-			Long timeUsed = System.currentTimeMillis() - startTime;
-			PerformanceTracker.getInstance().track(timeUsed, this.localUrl); // Track local invocation time
-			return result;
+			return proxy.invoke(methodName, params);
 		} catch (IllegalArgumentException e) {
 			throw new ConfigurationException("Component '" + componentName + "' not found.", e);
+		} finally {
+			// Application errors are not node failures, so the local node always completes
+			tracker.complete(this.localUrl, System.currentTimeMillis() - startTime);
 		}
 
 	}
@@ -1,6 +1,5 @@
 package com.reveila.system;
 
-import java.util.Collection;
 import java.util.EventObject;
 import java.util.List;
 import java.util.Map;
@@ -190,17 +189,12 @@ public final class SystemContext {
 		}
 	}
 
+	/**
+	 * Queues the event for every registered consumer. Delivery is asynchronous
+	 * and ordered per consumer; see {@link EventManager}.
+	 */
 	public void notifyEvent(EventObject evtObj) {
-		Collection<SystemProxy> proxies = this.proxiesByName.values();
-		for (SystemProxy proxy : proxies) {
-			if (proxy instanceof EventConsumer) {
-				try {
-					((EventConsumer) proxy).notifyEvent(evtObj);
-				} catch (Throwable t) {
-					logger.severe(t.toString() + t.getStackTrace());
-				}
-			}
-		}
+		eventManager.dispatchEvent(evtObj);
 	}
 
 }
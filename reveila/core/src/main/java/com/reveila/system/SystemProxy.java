@@ -1,6 +1,5 @@
 package com.reveila.system;
 
-import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -29,6 +28,7 @@ public final class SystemProxy extends SystemComponent implements Proxy {
 
 	private final AtomicReference<ClassLoader> loaderRef = new AtomicReference<>();
 	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final MethodDispatchTable dispatchTable = new MethodDispatchTable();
 	private MetaObject metaObject;
 	private volatile Class<?> implementationClass;
 
@@ -62,6 +62,8 @@ public final class SystemProxy extends SystemComponent implements Proxy {
 		ClassLoader oldLoader = loaderRef.getAndSet(newLoader);
 		this.implementationClass = null;
 		this.singletonInstance = null;
+		// Resolved methods hold references into the old implementation classes
+		this.dispatchTable.invalidate();
 		lock.writeLock().unlock();
 
 		return oldLoader;
@@ -626,29 +628,11 @@ public final class SystemProxy extends SystemComponent implements Proxy {
 		return requiredRoles;
 	}
 
-	private Object[] prepareVarargsForReflection(Method method, Object[] args) {
-		int parameterCount = method.getParameterCount();
-		Object[] finalArgs = new Object[parameterCount];
-
-		// Copy fixed arguments
-		System.arraycopy(args, 0, finalArgs, 0, parameterCount - 1);
-
-		// Package the rest into the vararg array
-		Class<?> varargComponentType = method.getParameterTypes()[parameterCount - 1].getComponentType();
-		int varargLen = args.length - (parameterCount - 1);
-		Object varargArray = Array.newInstance(varargComponentType, varargLen);
-
-		for (int i = 0; i < varargLen; i++) {
-			Array.set(varargArray, i, args[parameterCount - 1 + i]);
-		}
-
-		finalArgs[parameterCount - 1] = varargArray;
-		return finalArgs;
-	}
-
 	/**
 	 * Invokes a method on a newly created object instance using reflection.
 	 * This version finds the method based on its name and the number of arguments.
+	 * The resolved method is cached per argument-class signature, so repeated
+	 * calls of the same shape dispatch through a prepared method handle.
 	 * This method should only be called from a trusted source, as it does not
 	 * perform security checks.
 	 *
@@ -668,21 +652,14 @@ public final class SystemProxy extends SystemComponent implements Proxy {
 
 		try {
 			Object target = getInstance();
-			Method methodToInvoke = ReflectionMethod.findBestMethod(target.getClass(), methodName, args);
+			ReflectionMethod.Invoker invoker = dispatchTable.lookup(target.getClass(), methodName, args);
 
-			if (methodToInvoke == null) {
+			if (invoker == null) {
 				throw new NoSuchMethodException(
 						"Method not found: " + this.toString() + "." + getMethodSignature(methodName, args));
 			}
 
-			Object[] coercedArgs = ReflectionMethod.coerceArguments(methodToInvoke, args);
-
-			// The "Bridge" logic
-			Object[] finalArgs = methodToInvoke.isVarArgs()
-					? prepareVarargsForReflection(methodToInvoke, coercedArgs)
-					: coercedArgs;
-
-			return methodToInvoke.invoke(target, finalArgs);
+			return invoker.invoke(target, args);
 		} catch (InvocationTargetException e) {
 			// If the underlying method threw an exception, throw its cause
 			// to avoid double-wrapping InvocationTargetException.
@@ -0,0 +1,135 @@
+package com.reveila.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Case-insensitive multi-keyword matcher built on an Aho-Corasick automaton.
+ * Scans a text once, whatever the number of keywords, and reports the first or
+ * all keywords it contains. Instances are immutable and thread-safe.
+ *
+ * @author CL
+ */
+public final class KeywordMatcher {
+
+    private static final class Node {
+        private final Map<Character, Node> next = new HashMap<>();
+        private Node fail;
+        // Longest keyword ending here, directly or through the fail chain
+        private String output;
+        private Node outputLink;
+    }
+
+    private final Node root = new Node();
+    private final List<String> keywords;
+
+    public KeywordMatcher(Collection<String> keywords) {
+        List<String> normalized = new ArrayList<>();
+        for (String keyword : keywords) {
+            if (keyword != null && !keyword.isEmpty()) {
+                String k = keyword.toLowerCase(Locale.ROOT);
+                normalized.add(k);
+                insert(k);
+            }
+        }
+        this.keywords = List.copyOf(normalized);
+        link();
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * @return The first keyword found in the text, or null if none occurs.
+     */
+    public String findFirst(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        Node state = root;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, Character.toLowerCase(text.charAt(i)));
+            if (state.output != null) {
+                return state.output;
+            }
+            if (state.outputLink != null) {
+                return state.outputLink.output;
+            }
+        }
+        return null;
+    }
+
+    public boolean matches(CharSequence text) {
+        return findFirst(text) != null;
+    }
+
+    /**
+     * @return Every keyword occurrence in the text, in the order they end.
+     */
+    public List<String> findAll(CharSequence text) {
+        List<String> found = new ArrayList<>();
+        if (text == null) {
+            return found;
+        }
+        Node state = root;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, Character.toLowerCase(text.charAt(i)));
+            for (Node n = state.output != null ? state : state.outputLink; n != null; n = n.outputLink) {
+                found.add(n.output);
+            }
+        }
+        return found;
+    }
+
+    private Node step(Node state, char c) {
+        while (true) {
+            Node next = state.next.get(c);
+            if (next != null) {
+                return next;
+            }
+            if (state == root) {
+                return root;
+            }
+            state = state.fail;
+        }
+    }
+
+    private void insert(String keyword) {
+        Node node = root;
+        for (int i = 0; i < keyword.length(); i++) {
+            node = node.next.computeIfAbsent(keyword.charAt(i), c -> new Node());
+        }
+        node.output = keyword;
+    }
+
+    private void link() {
+        Queue<Node> queue = new ArrayDeque<>();
+        root.fail = root;
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> entry : node.next.entrySet()) {
+                char c = entry.getKey();
+                Node child = entry.getValue();
+                Node f = node.fail;
+                while (f != root && !f.next.containsKey(c)) {
+                    f = f.fail;
+                }
+                Node target = f.next.get(c);
+                child.fail = target != null && target != child ? target : root;
+                child.outputLink = child.fail.output != null ? child.fail : child.fail.outputLink;
+                queue.add(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.LongConsumer;
+
+import org.junit.jupiter.api.Test;
+
+public class AgentSessionManagerTest {
+
+    private static AgentSession session(String id, int chars) {
+        AgentSession session = new AgentSession(id, id);
+        session.getChatMemory().add(ReveilaMessage.user("x".repeat(chars)));
+        return session;
+    }
+
+    @Test
+    void tracksSizeAsMessagesComeAndGo() {
+        AgentSessionManager manager = new AgentSessionManager();
+        AgentSession a = new AgentSession("a", "a", 2);
+        manager.saveSession("a", a);
+        assertEquals(0, manager.getTotalSizeBytes());
+
+        a.getChatMemory().add(ReveilaMessage.user("hello"));
+        a.getChatMemory().add(ReveilaMessage.user("world!"));
+        assertEquals(22, manager.getTotalSizeBytes());
+
+        // Window of 2: the first message is evicted
+        a.getChatMemory().add(ReveilaMessage.user("abc"));
+        assertEquals(18, manager.getTotalSizeBytes());
+
+        a.put("k", "v");
+        assertEquals(22, manager.getTotalSizeBytes());
+
+        manager.clear("a");
+        assertEquals(0, manager.getTotalSizeBytes());
+
+        // Detached sessions no longer count
+        a.getChatMemory().add(ReveilaMessage.user("more"));
+        assertEquals(0, manager.getTotalSizeBytes());
+    }
+
+    @Test
+    void countsAResizeDuringAttachOnce() {
+        AgentSessionManager manager = new AgentSessionManager();
+        AgentSession a = new AgentSession("a", "a") {
+            @Override
+            public void setSizeListener(LongConsumer sizeListener) {
+                super.setSizeListener(sizeListener);
+                if (sizeListener != null) {
+                    // Grows after the listener is set, before the manager reads its size
+                    getChatMemory().add(ReveilaMessage.user("hello"));
+                }
+            }
+        };
+        manager.saveSession("a", a);
+
+        assertEquals(10, a.getEstimatedBytes());
+        assertEquals(10, manager.getTotalSizeBytes());
+    }
+
+    @Test
+    void evictsToBudgetAndKeepsFrequentlyUsedSessions() {
+        AgentSessionManager manager = new AgentSessionManager();
+        manager.setMaxHistorySizeBytes(10 * 200);
+
+        manager.saveSession("hot", session("hot", 100));
+        for (int i = 0; i < 5; i++) {
+            manager.saveSession("warm-" + i, session("warm-" + i, 100));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(manager.getSession("hot"));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            manager.saveSession("once-" + i, session("once-" + i, 100));
+            assertTrue(manager.getTotalSizeBytes() <= 10 * 200);
+        }
+
+        assertNotNull(manager.getSession("hot"));
+        assertNotNull(manager.getSession("once-49"));
+        // A one-off session leaving the window does not displace the main region
+        assertNull(manager.getSession("once-48"));
+        assertTrue(manager.getEvictionCount() > 0);
+    }
+
+    @Test
+    void growingSessionTriggersEviction() {
+        AgentSessionManager manager = new AgentSessionManager();
+        manager.setMaxHistorySizeBytes(1000);
+        manager.saveSession("old", session("old", 200));
+        AgentSession growing = session("growing", 100);
+        manager.saveSession("growing", growing);
+
+        growing.getChatMemory().add(ReveilaMessage.user("y".repeat(250)));
+
+        assertNull(manager.getSession("old"));
+        assertEquals(700, manager.getTotalSizeBytes());
+    }
+}
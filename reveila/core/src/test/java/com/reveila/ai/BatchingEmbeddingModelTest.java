@@ -0,0 +1,120 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchingEmbeddingModelTest {
+
+    /** Embeds a text as {length, first char}, recording each batch it receives. */
+    private static class RecordingModel implements ReveilaEmbeddingModel {
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+        @Override
+        public float[] embed(String text) {
+            return new float[] { text.length(), text.charAt(0) };
+        }
+
+        @Override
+        public List<float[]> embedAll(List<String> texts) {
+            batches.add(List.copyOf(texts));
+            return ReveilaEmbeddingModel.super.embedAll(texts);
+        }
+    }
+
+    @Test
+    void coalescesConcurrentCallsIntoFewBatches() throws Exception {
+        RecordingModel model = new RecordingModel();
+        BatchingEmbeddingModel batching = new BatchingEmbeddingModel(model);
+        batching.setWindowMicros(50_000);
+        batching.setMaxBatchSize(64);
+
+        int callers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<float[]>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                // Every text is requested twice
+                String text = "text-" + (i % 8);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return batching.embed(text);
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < callers; i++) {
+                assertArrayEquals(model.embed("text-" + (i % 8)), results.get(i).get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int sent = model.batches.stream().mapToInt(List::size).sum();
+        assertEquals(8, sent);
+        assertTrue(model.batches.size() < callers);
+    }
+
+    @Test
+    void splitsLargeRequestsAndServesRepeatsFromCache() {
+        RecordingModel model = new RecordingModel();
+        BatchingEmbeddingModel batching = new BatchingEmbeddingModel(model);
+        batching.setMaxBatchSize(4);
+        List<String> texts = List.of("a", "bb", "ccc", "dddd", "eeeee", "a");
+
+        List<float[]> first = batching.embedAll(texts);
+        List<float[]> second = batching.embedAll(texts);
+
+        assertEquals(6, first.size());
+        assertArrayEquals(new float[] { 5, 'e' }, first.get(4));
+        assertArrayEquals(first.get(5), first.get(0));
+        assertEquals(List.of(List.of("a", "bb", "ccc", "dddd"), List.of("eeeee")), model.batches);
+        assertArrayEquals(first.get(3), second.get(3));
+        // The repeated "a" of the first call is served from the first batch's results
+        assertEquals(7L, batching.getStats().get("cacheHits"));
+    }
+
+    @Test
+    void failsEveryWaitingCallerWhenTheModelThrowsAnError() throws Exception {
+        BatchingEmbeddingModel batching = new BatchingEmbeddingModel(new RecordingModel() {
+            @Override
+            public List<float[]> embedAll(List<String> texts) {
+                throw new AssertionError("model crashed");
+            }
+        });
+        batching.setWindowMicros(50_000);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<float[]>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return batching.embed("same text");
+                }));
+            }
+            start.countDown();
+            for (Future<float[]> result : results) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(AssertionError.class, e.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class CachingLlmProviderTest {
+
+    private static class CountingProvider implements LlmProvider {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public LlmResponse invoke(LlmRequest request) {
+            int n = calls.incrementAndGet();
+            return new LlmResponse("answer " + n, "stop", null, null, "req-" + n);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isConfigured() {
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+    }
+
+    private static LlmRequest request(String scope, String prompt) {
+        LlmRequest.Builder builder = LlmRequest.builder().addMessage(ReveilaMessage.user(prompt)).temperature(0.0);
+        if (scope != null) {
+            builder.addMetadata(CachingLlmProvider.CACHE_SCOPE, scope);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testExactMatchIsServedFromCache() throws Exception {
+        CountingProvider delegate = new CountingProvider();
+        CachingLlmProvider cache = new CachingLlmProvider(delegate);
+
+        assertEquals("answer 1", cache.invoke(request("validator", "is this safe?")).getContent());
+        assertEquals("answer 1", cache.invoke(request("validator", "is this safe?")).getContent());
+        assertEquals("answer 2", cache.invoke(request("validator", "something else")).getContent());
+        // Scopes do not share entries
+        assertEquals("answer 3", cache.invoke(request("reranker", "is this safe?")).getContent());
+        assertEquals(3, delegate.calls.get());
+        assertEquals(1L, cache.getStats().get("validator").get("hits"));
+    }
+
+    @Test
+    public void testAsyncMissIsStoredAndHitCompletesImmediately() throws Exception {
+        CountingProvider delegate = new CountingProvider();
+        CachingLlmProvider cache = new CachingLlmProvider(delegate);
+
+        assertEquals("answer 1", cache.invokeAsync(request("validator", "is this safe?")).get().getContent());
+        CompletableFuture<LlmResponse> hit = cache.invokeAsync(request("validator", "is this safe?"));
+        assertTrue(hit.isDone());
+        assertEquals("answer 1", hit.get().getContent());
+        assertEquals(1, delegate.calls.get());
+    }
+
+    @Test
+    public void testRequestsWithoutScopeAreNotCached() throws Exception {
+        CountingProvider delegate = new CountingProvider();
+        CachingLlmProvider cache = new CachingLlmProvider(delegate);
+
+        cache.invoke(request(null, "hello"));
+        cache.invoke(request(null, "hello"));
+        assertEquals(2, delegate.calls.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSemanticMatchAboveThreshold() throws Exception {
+        CountingProvider delegate = new CountingProvider();
+        CachingLlmProvider cache = new CachingLlmProvider(delegate);
+        // Embeds by the count of 'a' and 'b' characters
+        cache.setEmbeddingModel(text -> new float[] {
+                text.chars().filter(c -> c == 'a').count(), text.chars().filter(c -> c == 'b').count() });
+        cache.setSimilarityThreshold(0.99);
+
+        cache.invoke(request("validator", "aaaa b"));
+        assertEquals("answer 1", cache.invoke(request("validator", "aaaa  b")).getContent());
+        assertEquals("answer 2", cache.invoke(request("validator", "bbbb a")).getContent());
+        assertEquals(1L, cache.getStats().get("validator").get("semanticHits"));
+    }
+
+    @Test
+    public void testExactOnlyRequestsSkipTheSemanticTier() throws Exception {
+        CountingProvider delegate = new CountingProvider();
+        CachingLlmProvider cache = new CachingLlmProvider(delegate);
+        cache.setEmbeddingModel(text -> new float[] { text.chars().filter(c -> c == 'a').count(), 1 });
+        cache.setSimilarityThreshold(0.99);
+
+        LlmRequest.Builder first = LlmRequest.builder().addMessage(ReveilaMessage.user("aaaa b"))
+                .addMetadata(CachingLlmProvider.CACHE_SCOPE, "governance")
+                .addMetadata(CachingLlmProvider.CACHE_EXACT_ONLY, true);
+        LlmRequest.Builder similar = LlmRequest.builder().addMessage(ReveilaMessage.user("aaaa  b"))
+                .addMetadata(CachingLlmProvider.CACHE_SCOPE, "governance")
+                .addMetadata(CachingLlmProvider.CACHE_EXACT_ONLY, true);
+
+        cache.invoke(first.build());
+        assertEquals("answer 2", cache.invoke(similar.build()).getContent());
+        assertEquals("answer 1", cache.invoke(first.build()).getContent());
+        assertEquals(0L, cache.getStats().get("governance").get("semanticHits"));
+    }
+
+    @Test
+    public void testMetadataIsPartOfTheKey() throws Exception {
+        CountingProvider delegate = new CountingProvider();
+        CachingLlmProvider cache = new CachingLlmProvider(delegate);
+
+        cache.invoke(LlmRequest.builder().addMessage(ReveilaMessage.user("p"))
+                .addMetadata(CachingLlmProvider.CACHE_SCOPE, "s").addMetadata("max_tokens", 16).build());
+        assertEquals("answer 2", cache.invoke(LlmRequest.builder().addMessage(ReveilaMessage.user("p"))
+                .addMetadata(CachingLlmProvider.CACHE_SCOPE, "s").addMetadata("max_tokens", 512).build())
+                .getContent());
+        assertEquals("answer 1", cache.invoke(LlmRequest.builder().addMessage(ReveilaMessage.user("p"))
+                .addMetadata(CachingLlmProvider.CACHE_SCOPE, "s").addMetadata("max_tokens", 16).build())
+                .getContent());
+    }
+
+    @Test
+    public void testExpiryAndByteBudget() throws Exception {
+        CountingProvider delegate = new CountingProvider();
+        CachingLlmProvider cache = new CachingLlmProvider(delegate);
+        cache.setTtlMs(-1);
+        cache.invoke(request("s", "p"));
+        cache.invoke(request("s", "p"));
+        assertEquals(2, delegate.calls.get());
+
+        cache.setTtlMs(60_000);
+        cache.setMaxBytes(2_000);
+        for (int i = 0; i < 20; i++) {
+            cache.invoke(request("s", "prompt " + i));
+        }
+        assertTrue(cache.getCurrentBytes() <= 2_000);
+        assertTrue(cache.getEvictionCount() > 0);
+        // The most recent entry survives
+        int before = delegate.calls.get();
+        cache.invoke(request("s", "prompt 19"));
+        assertEquals(before, delegate.calls.get());
+    }
+}
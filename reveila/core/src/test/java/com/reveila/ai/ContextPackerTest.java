@@ -0,0 +1,126 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class ContextPackerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    // One token per word keeps the arithmetic readable
+    private final Tokenizer words = text -> {
+        calls.incrementAndGet();
+        return text.isBlank() ? 0 : text.trim().split("\\s+").length;
+    };
+
+    private static String text(int words) {
+        return "w ".repeat(words).trim();
+    }
+
+    private static LlmTool tool(String name) {
+        LlmTool tool = new LlmTool();
+        tool.setName(name);
+        tool.setDescription(text(20));
+        return tool;
+    }
+
+    @Test
+    void keepsNewestHistoryAndPinnedSummaryWithinBudget() {
+        ContextPacker packer = new ContextPacker(words, 100);
+        ReveilaMessage summary = ReveilaMessage.system(text(10));
+        List<ReveilaMessage> history = List.of(
+                summary,
+                ReveilaMessage.user(text(30)),
+                ReveilaMessage.assistant(text(10)),
+                ReveilaMessage.tool(text(10)),
+                ReveilaMessage.assistant(text(10)),
+                ReveilaMessage.user(text(10)));
+
+        // Prompt 10+4, latest 14, summary 14, then three more of 14 fit and the 34 does not
+        ContextPacker.Packed packed = packer.pack(90, text(10), List.of(), null, history);
+
+        assertEquals(List.of(summary, history.get(2), history.get(3), history.get(4), history.get(5)),
+                packed.history());
+        assertEquals(84, packed.tokens());
+        assertTrue(packed.dropped());
+    }
+
+    @Test
+    void dropsToolResultsCutOffFromTheirTurn() {
+        ContextPacker packer = new ContextPacker(words, 100);
+        List<ReveilaMessage> history = List.of(
+                ReveilaMessage.assistant(text(30)),
+                ReveilaMessage.tool(text(10)),
+                ReveilaMessage.user(text(10)));
+
+        ContextPacker.Packed packed = packer.pack(50, text(10), List.of(), null, history);
+
+        assertEquals(List.of(history.get(2)), packed.history());
+        assertEquals(28, packed.tokens());
+    }
+
+    @Test
+    void packsToolsByRankAndCapsKnowledge() throws Exception {
+        ContextPacker packer = new ContextPacker(words, 100);
+        packer.setKnowledgeShare(0.5);
+        List<LlmTool> tools = List.of(tool("first"), tool("second"), tool("third"));
+        int toolSize = packer.count(tools.get(0).toJsonString()) + 2;
+        // Prompt and latest message take 28, two tools fit and 10 are left
+        int budget = 28 + 2 * toolSize + 10;
+
+        ContextPacker.Packed packed = packer.pack(budget, text(10), tools, text(100),
+                List.of(ReveilaMessage.user(text(10))));
+
+        assertEquals(List.of(tools.get(0), tools.get(1)), packed.tools());
+        int knowledge = words.count(packed.knowledge());
+        assertTrue(knowledge > 0 && knowledge <= 10);
+        assertTrue(packed.tokens() <= budget);
+        assertTrue(packed.dropped());
+    }
+
+    @Test
+    void sendsEverythingWithoutABudgetAndCachesCounts() {
+        ContextPacker packer = new ContextPacker(words, 100);
+        List<ReveilaMessage> history = List.of(ReveilaMessage.user(text(30)), ReveilaMessage.user(text(10)));
+
+        ContextPacker.Packed packed = packer.pack(0, text(10), List.of(), "some documents", history);
+        assertEquals(history, packed.history());
+        assertEquals("some documents", packed.knowledge());
+        assertFalse(packed.dropped());
+
+        int counted = calls.get();
+        packer.pack(0, text(10), List.of(), "some documents", history);
+        assertEquals(counted, calls.get());
+    }
+
+    @Test
+    void doesNotCacheCountsMadeInFallback() {
+        AtomicBoolean fallback = new AtomicBoolean(true);
+        ContextPacker packer = new ContextPacker(new Tokenizer() {
+            @Override
+            public int count(String text) {
+                return fallback.get() ? TokenEstimator.estimate(text) : words.count(text);
+            }
+
+            @Override
+            public boolean isFallback() {
+                return fallback.get();
+            }
+        }, 100);
+        String message = "supercalifragilistic expialidocious";
+
+        assertEquals(TokenEstimator.estimate(message), packer.count(message));
+        fallback.set(false);
+        assertEquals(2, packer.count(message));
+        int counted = calls.get();
+        assertEquals(2, packer.count(message));
+        assertEquals(counted, calls.get());
+    }
+}
@@ -0,0 +1,54 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import com.reveila.persistence.HnswVectorStore;
+
+public class DynamicToolProviderTest {
+
+    private final List<String> embedded = new CopyOnWriteArrayList<>();
+
+    /** Places each text on the axis of the first topic it mentions. */
+    private final ReveilaEmbeddingModel model = text -> {
+        embedded.add(text);
+        String lower = text.toLowerCase();
+        if (lower.contains("weather")) {
+            return new float[] { 1, 0, 0 };
+        }
+        if (lower.contains("calendar")) {
+            return new float[] { 0, 1, 0 };
+        }
+        return new float[] { 0, 0, 1 };
+    };
+
+    private static MetadataRegistry.PluginManifest manifest(String id, String name) {
+        return new MetadataRegistry.PluginManifest(id, name, "1.0", Map.of("type", "object"), "Tier 3",
+                new SecurityPerimeter(Set.of(), Set.of(), true, 128, 1, 5, false), Set.of(), Set.of());
+    }
+
+    @Test
+    void indexesTheRegistryOnceAndThenOnlyWhatChanged() {
+        MetadataRegistry registry = new MetadataRegistry();
+        registry.register(manifest("weather", "Weather"));
+        registry.register(manifest("calendar", "Calendar"));
+        DynamicToolProvider provider = new DynamicToolProvider(new HnswVectorStore(3, HnswVectorStore.Metric.COSINE),
+                registry, null, model, "");
+        provider.setTopK(1);
+
+        assertEquals("weather", provider.provideTools("What's the weather?").get(0).getName());
+        assertEquals("calendar", provider.provideTools("Open my calendar").get(0).getName());
+        // Two manifests plus two queries
+        assertEquals(4, embedded.size());
+
+        registry.register(manifest("notes", "Notes"));
+        assertEquals("notes", provider.provideTools("Take a note").get(0).getName());
+        assertEquals(Set.of("Notes: {type=object}", "Take a note"), Set.copyOf(embedded.subList(4, embedded.size())));
+    }
+}
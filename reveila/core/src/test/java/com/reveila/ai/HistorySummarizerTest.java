@@ -0,0 +1,144 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.Test;
+
+import com.reveila.error.LlmException;
+
+public class HistorySummarizerTest {
+
+    /** Answers every prompt with "S<n>" and records the prompts. */
+    private static class SummaryProvider implements LlmProvider {
+        final List<String> prompts = new ArrayList<>();
+
+        @Override
+        public LlmResponse invoke(LlmRequest request) throws LlmException {
+            prompts.add(request.getMessages().get(1).content());
+            return new LlmResponse("S" + prompts.size(), "stop", null, null, null);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isConfigured() {
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "summary";
+        }
+    }
+
+    private static ReveilaChatMemory history(int messages) {
+        ReveilaChatMemory memory = new ReveilaChatMemory(100);
+        for (int i = 0; i < messages; i++) {
+            memory.add(ReveilaMessage.user("message " + i + " " + "x".repeat(100)));
+        }
+        return memory;
+    }
+
+    @Test
+    void summarisesAllButRecentMessagesAndRollsEarlierSummaries() {
+        Executor direct = Runnable::run;
+        HistorySummarizer summarizer = new HistorySummarizer(direct, 1);
+        summarizer.setTokenThreshold(200);
+        summarizer.setKeepRecent(2);
+        SummaryProvider provider = new SummaryProvider();
+        ReveilaChatMemory memory = history(8);
+        long before = memory.getEstimatedTokens();
+
+        assertTrue(summarizer.maybeSummarize(memory, provider));
+
+        List<ReveilaMessage> messages = memory.messages();
+        assertEquals(3, messages.size());
+        assertEquals(HistorySummarizer.SUMMARY_PREFIX + "S1", messages.get(0).content());
+        assertTrue(messages.get(1).content().startsWith("message 6"));
+        assertTrue(memory.getEstimatedTokens() < before);
+
+        for (int i = 8; i < 12; i++) {
+            memory.add(ReveilaMessage.user("message " + i + " " + "x".repeat(100)));
+        }
+        assertTrue(summarizer.maybeSummarize(memory, provider));
+
+        assertTrue(provider.prompts.get(1).contains("Summary so far:\nS1"));
+        assertEquals(HistorySummarizer.SUMMARY_PREFIX + "S2", memory.messages().get(0).content());
+    }
+
+    @Test
+    void appliesSummaryAfterTheWindowEvictedPartOfIt() {
+        List<Runnable> deferred = new ArrayList<>();
+        HistorySummarizer summarizer = new HistorySummarizer(deferred::add, 1);
+        summarizer.setTokenThreshold(200);
+        summarizer.setKeepRecent(6);
+        ReveilaChatMemory memory = new ReveilaChatMemory(10);
+        for (int i = 0; i < 10; i++) {
+            memory.add(ReveilaMessage.user("message " + i + " " + "x".repeat(100)));
+        }
+
+        assertTrue(summarizer.maybeSummarize(memory, new SummaryProvider()));
+        // The next turn fills the window and evicts the oldest summarised message
+        memory.add(ReveilaMessage.user("message 10"));
+        deferred.get(0).run();
+
+        List<ReveilaMessage> messages = memory.messages();
+        assertEquals(8, messages.size());
+        assertEquals(HistorySummarizer.SUMMARY_PREFIX + "S1", messages.get(0).content());
+        assertTrue(messages.get(1).content().startsWith("message 4"));
+        assertEquals("message 10", messages.get(7).content());
+        assertEquals(TokenEstimator.estimate(messages), memory.getEstimatedTokens());
+        assertFalse(summarizer.isRunning(memory));
+
+        // Later turns evict the oldest messages after the summary, not the summary
+        for (int i = 11; i < 14; i++) {
+            memory.add(ReveilaMessage.user("message " + i));
+        }
+        assertEquals(10, memory.messages().size());
+        assertEquals(HistorySummarizer.SUMMARY_PREFIX + "S1", memory.messages().get(0).content());
+        assertTrue(memory.messages().get(1).content().startsWith("message 5"));
+    }
+
+    @Test
+    void discardsSummaryOnceAllOfItWasEvicted() {
+        List<Runnable> deferred = new ArrayList<>();
+        HistorySummarizer summarizer = new HistorySummarizer(deferred::add, 1);
+        summarizer.setTokenThreshold(200);
+        summarizer.setKeepRecent(6);
+        ReveilaChatMemory memory = new ReveilaChatMemory(10);
+        for (int i = 0; i < 10; i++) {
+            memory.add(ReveilaMessage.user("message " + i + " " + "x".repeat(100)));
+        }
+
+        assertTrue(summarizer.maybeSummarize(memory, new SummaryProvider()));
+        for (int i = 10; i < 14; i++) {
+            memory.add(ReveilaMessage.user("message " + i));
+        }
+        deferred.get(0).run();
+
+        assertEquals(10, memory.messages().size());
+        assertTrue(memory.messages().get(0).content().startsWith("message 4"));
+    }
+
+    @Test
+    void staysBelowThresholdAndDiscardsStaleSummaries() {
+        HistorySummarizer summarizer = new HistorySummarizer(Runnable::run, 1);
+        summarizer.setTokenThreshold(10_000);
+        assertFalse(summarizer.maybeSummarize(history(8), new SummaryProvider()));
+
+        ReveilaChatMemory memory = history(4);
+        List<ReveilaMessage> prefix = memory.messages().subList(0, 2);
+        memory.clear();
+        assertFalse(memory.replacePrefix(prefix, ReveilaMessage.system("stale")));
+        assertEquals(0, memory.getEstimatedTokens());
+    }
+}
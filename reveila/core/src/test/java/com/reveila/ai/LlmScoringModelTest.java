@@ -0,0 +1,94 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.reveila.error.LlmException;
+
+public class LlmScoringModelTest {
+
+    private static class ScriptedProvider implements LlmProvider {
+        final AtomicInteger calls = new AtomicInteger();
+        final Function<LlmRequest, String> answer;
+
+        ScriptedProvider(Function<LlmRequest, String> answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        public LlmResponse invoke(LlmRequest request) throws LlmException {
+            calls.incrementAndGet();
+            return new LlmResponse(answer.apply(request), "stop", null, null, null);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isConfigured() {
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "scripted";
+        }
+    }
+
+    private static final List<String> CANDIDATES = List.of(
+            "weather: get the weather forecast for a city",
+            "calendar: create a calendar event",
+            "email: send an email message");
+
+    @Test
+    void scoresAllCandidatesWithOneRequest() throws Exception {
+        ScriptedProvider provider = new ScriptedProvider(r -> "Here you go: [0.9, 0.2, 1.5]");
+        LlmScoringModel model = new LlmScoringModel(provider);
+
+        List<Double> scores = model.scoreAll("what's the weather", CANDIDATES);
+
+        assertEquals(List.of(0.9, 0.2, 1.0), scores);
+        assertEquals(1, provider.calls.get());
+    }
+
+    @Test
+    void fallsBackToPerCandidateRequestsOnUnusableBatchAnswer() throws Exception {
+        ScriptedProvider provider = new ScriptedProvider(r -> {
+            String prompt = r.getMessages().get(1).content();
+            if (prompt.contains("Tool Manifests:")) {
+                return "[0.5]"; // Wrong length
+            }
+            return prompt.contains("weather") ? "Score: 0.8" : "Score: 0.1";
+        });
+        LlmScoringModel model = new LlmScoringModel(provider);
+
+        List<Double> scores = model.scoreAll("forecast", CANDIDATES);
+
+        assertEquals(List.of(0.8, 0.1, 0.1), scores);
+        assertEquals(4, provider.calls.get());
+    }
+
+    @Test
+    void usesLocalScorerWhenProviderFails() throws Exception {
+        LlmProvider failing = new ScriptedProvider(r -> {
+            throw new IllegalStateException("offline");
+        });
+        LlmScoringModel model = new LlmScoringModel(failing);
+        model.setMode(LlmScoringModel.Mode.PARALLEL);
+        model.setFallback(new LexicalScoringModel());
+
+        List<Double> scores = model.scoreAll("send email to Bob", CANDIDATES);
+
+        assertEquals(1.0, scores.get(2));
+        assertTrue(scores.get(0) < scores.get(2));
+        assertTrue(scores.get(1) < scores.get(2));
+    }
+}
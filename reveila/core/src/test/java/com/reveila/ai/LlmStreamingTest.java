@@ -0,0 +1,99 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.reveila.error.LlmException;
+import com.reveila.service.HttpEngine;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class LlmStreamingTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final HttpEngine engine = new HttpEngine();
+    private OpenAiLlmProvider provider;
+
+    @BeforeEach
+    void start() throws IOException {
+        server.start();
+        engine.define(HttpEngine.Profile.parse("default: baseBackoffMs=10, maxBackoffMs=50",
+                HttpEngine.Profile.defaults(HttpEngine.DEFAULT_PROFILE)));
+        provider = new OpenAiLlmProvider() {
+            @Override
+            protected HttpEngine.Client getHttpClient() {
+                return engine.client("default");
+            }
+        };
+        provider.setName("test");
+        provider.setApiKey("test-key");
+        provider.setModel("test-model");
+        provider.setEndpoint(server.url("/v1/chat/completions").toString());
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.shutdown();
+        engine.shutdown();
+    }
+
+    private static LlmRequest request() {
+        return LlmRequest.builder().addMessage(ReveilaMessage.user("Say hello")).build();
+    }
+
+    private static String event(String content, String finishReason) {
+        return "data: {\"choices\":[{\"delta\":{\"content\":\"" + content + "\"},\"finish_reason\":"
+                + (finishReason != null ? "\"" + finishReason + "\"" : "null") + "}]}\n\n";
+    }
+
+    private void enqueueStream(String body) {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/event-stream").setBody(body));
+    }
+
+    @Test
+    void streamsServerSentEventsInOrder() throws Exception {
+        enqueueStream(": keep-alive\n\n" + event("Hel", null) + event("lo", null) + event("!", "stop")
+                + "data: [DONE]\n\n" + event("ignored", null));
+        List<LlmChunk> chunks = new ArrayList<>();
+
+        LlmResponse response = provider.invokeStreaming(request(), chunks::add);
+
+        assertEquals("Hello!", response.getContent());
+        assertEquals("stop", response.getFinishReason());
+        assertEquals(List.of("Hel", "lo", "!", ""), chunks.stream().map(LlmChunk::delta).toList());
+        assertTrue(chunks.get(chunks.size() - 1).done());
+        assertTrue(server.takeRequest().getBody().readUtf8().contains("\"stream\":true"));
+    }
+
+    @Test
+    void aListenerThatHangsUpCancelsTheCall() {
+        enqueueStream(event("Hel", null) + event("lo", null) + "data: [DONE]\n\n");
+
+        CancellationException e = assertThrows(CancellationException.class,
+                () -> provider.invokeStreaming(request(), chunk -> {
+                    throw new UncheckedIOException(new IOException("Broken pipe"));
+                }));
+        assertInstanceOf(UncheckedIOException.class, e.getCause());
+    }
+
+    @Test
+    void aFailingServerIsAnLlmException() {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("{\"error\":\"boom\"}"));
+
+        assertThrows(LlmException.class, () -> provider.invokeStreaming(request(), chunk -> {
+        }));
+    }
+}
@@ -0,0 +1,169 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.reveila.error.LlmException;
+import com.reveila.system.Plugin;
+
+public class ManagedInvocationTest {
+
+    private static final String PLUGIN = "weather";
+    private static final String INTENT = "look up the forecast for Paris";
+
+    /**
+     * Answers each governance prompt by its kind and records which were asked.
+     */
+    private static class GovernanceProvider implements LlmProvider {
+        final List<String> asked = new CopyOnWriteArrayList<>();
+        volatile String combinedAnswer;
+
+        @Override
+        public LlmResponse invoke(LlmRequest request) throws LlmException {
+            List<ReveilaMessage> messages = request.getMessages();
+            String prompt = messages.get(messages.size() - 1).content();
+            String answer;
+            if (prompt.startsWith("COMBINED")) {
+                asked.add("combined");
+                answer = combinedAnswer;
+            } else if (prompt.startsWith("INTENT")) {
+                asked.add("intent");
+                answer = "{\"safe\": true, \"reason\": \"Reads public data\"}";
+            } else {
+                asked.add("audit");
+                answer = "{\"approved\": true, \"reasoning\": \"Harmless\", \"status\": \"APPROVED\"}";
+            }
+            return new LlmResponse(answer, "stop", null, null, null);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isConfigured() {
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "governance";
+        }
+    }
+
+    private static class NullRecorder implements FlightRecorder {
+        @Override
+        public void recordStep(Plugin plugin, String stepName, Map<String, Object> data) {
+        }
+
+        @Override
+        public void recordReasoning(Plugin plugin, String reasoning) {
+        }
+
+        @Override
+        public void recordToolOutput(Plugin plugin, String toolName, Object output) {
+        }
+
+        @Override
+        public void recordForensicMetadata(Plugin plugin, Map<String, Object> metadata) {
+        }
+    }
+
+    private static final SecurityPerimeter OPEN = new SecurityPerimeter(Set.of(), Set.of(), false, 512, 1, 30,
+            false);
+
+    private final GovernanceProvider provider = new GovernanceProvider();
+    private final DefaultIntentValidator validator = new DefaultIntentValidator();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final ManagedInvocation invocation = new ManagedInvocation();
+
+    ManagedInvocationTest() {
+        validator.configure(provider, "INTENT {{intent}}", "COMBINED {{intent}} {{plugin}} {{arguments}}");
+        MetadataRegistry registry = new MetadataRegistry();
+        registry.register(new MetadataRegistry.PluginManifest(PLUGIN, "Weather", "1.0", Map.of(), "community", OPEN,
+                Set.of(), Set.of()));
+        GuardedRuntime runtime = new GuardedRuntime() {
+            @Override
+            public InvocationResult execute(Plugin plugin, SecurityPerimeter perimeter, Map<String, Object> arguments,
+                    Map<String, String> jitCredentials) {
+                executions.incrementAndGet();
+                return InvocationResult.success("sunny");
+            }
+
+            @Override
+            public boolean suspend(Map<String, String> jitCredentials) {
+                return true;
+            }
+
+            @Override
+            public boolean resume(Map<String, String> jitCredentials) {
+                return true;
+            }
+        };
+        invocation.wire(validator, (pluginId, arguments) -> arguments, runtime, new NullRecorder(), registry,
+                new SecretManager());
+    }
+
+    private InvocationResult invoke() {
+        ToolCall call = new ToolCall();
+        call.setFunctionName(PLUGIN);
+        return invocation.invoke(call, OPEN, INTENT, Map.of("arguments", Map.of("city", "Paris")));
+    }
+
+    @Test
+    void aCombinedVerdictTakesOneModelCall() {
+        provider.combinedAnswer = "{\"intent_safe\": true, \"intent_reason\": \"Reads public data\","
+                + " \"approved\": true, \"reasoning\": \"Harmless\", \"status\": \"APPROVED\"}";
+
+        assertEquals(InvocationResult.Status.SUCCESS, invoke().status());
+        assertEquals(List.of("combined"), provider.asked);
+        assertEquals(1, executions.get());
+
+        // Both halves of the verdict are cached
+        assertEquals(InvocationResult.Status.SUCCESS, invoke().status());
+        assertEquals(List.of("combined"), provider.asked);
+    }
+
+    @Test
+    void aCombinedRejectionBlocksTheIntent() {
+        provider.combinedAnswer = "{\"intent_safe\": false, \"intent_reason\": \"Exfiltrates data\","
+                + " \"approved\": false, \"reasoning\": \"Unsafe\", \"status\": \"REJECTED\"}";
+
+        InvocationResult result = invoke();
+
+        assertEquals(InvocationResult.Status.SECURITY_BREACH, result.status());
+        assertTrue(result.message().contains("Exfiltrates data"));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void anUnusableAnswerFallsBackToTheStagedChecks() {
+        provider.combinedAnswer = "{\"verdict\": \"looks fine\"}";
+
+        assertEquals(InvocationResult.Status.SUCCESS, invoke().status());
+        assertEquals(List.of("combined", "intent", "audit"), provider.asked);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void withoutStagedFallbackAnUnusableAnswerIsRefused() {
+        invocation.setStagedFallback(false);
+        provider.combinedAnswer = "not json at all";
+
+        InvocationResult result = invoke();
+
+        assertEquals(InvocationResult.Status.ERROR, result.status());
+        assertTrue(result.message().contains("Combined evaluation unavailable"));
+        assertEquals(List.of("combined"), provider.asked);
+        assertEquals(0, executions.get());
+    }
+}
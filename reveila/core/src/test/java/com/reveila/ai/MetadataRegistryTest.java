@@ -0,0 +1,162 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.reveila.data.Entity;
+import com.reveila.data.Page;
+import com.reveila.data.Repository;
+
+public class MetadataRegistryTest {
+
+    private final Map<String, Map<String, Object>> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final AtomicInteger pages = new AtomicInteger();
+    private volatile CountDownLatch fetching;
+    private volatile CountDownLatch proceed;
+
+    /** Serves the rows by id and in pages; nothing else is needed. */
+    @SuppressWarnings("unchecked")
+    private Repository<Entity, Map<String, Map<String, Object>>> repository() {
+        return (Repository<Entity, Map<String, Map<String, Object>>>) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { Repository.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "fetchById" -> {
+                        fetches.incrementAndGet();
+                        if (proceed != null) {
+                            fetching.countDown();
+                            proceed.await(5, TimeUnit.SECONDS);
+                        }
+                        String id = (String) ((Map<String, Map<String, Object>>) args[0]).get("plugin_id")
+                                .get("value");
+                        yield Optional.ofNullable(rows.get(id)).map(attrs -> entity(id, attrs));
+                    }
+                    case "fetchPage" -> {
+                        pages.incrementAndGet();
+                        int page = (Integer) args[3];
+                        int size = (Integer) args[4];
+                        List<String> ids = new ArrayList<>(rows.keySet());
+                        ids.sort(null);
+                        List<Entity> content = new ArrayList<>();
+                        for (int i = page * size; i < Math.min(ids.size(), (page + 1) * size); i++) {
+                            content.add(entity(ids.get(i), rows.get(ids.get(i))));
+                        }
+                        yield new Page<>(content, page, size, (page + 1) * size < ids.size());
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Entity entity(String id, Map<String, Object> attrs) {
+        return new Entity("agent_manifest", Map.of("plugin_id", Map.of("value", id)), attrs);
+    }
+
+    private MetadataRegistry registry() {
+        MetadataRegistry registry = new MetadataRegistry();
+        registry.setRepository(repository());
+        return registry;
+    }
+
+    private static MetadataRegistry.PluginManifest manifest(String id) {
+        return new MetadataRegistry.PluginManifest(id, id, "1.0", Map.of("type", "object"), "Tier 3",
+                new SecurityPerimeter(Set.of(), Set.of(), true, 128, 1, 5, false), Set.of(), Set.of());
+    }
+
+    @Test
+    void missingIdsAreRememberedForTheNegativeTtl() throws Exception {
+        MetadataRegistry registry = registry();
+        registry.setNegativeCacheTtlMs(100);
+
+        assertNull(registry.getManifest("ghost"));
+        assertNull(registry.getManifest("ghost"));
+        assertEquals(1, fetches.get());
+
+        rows.put("ghost", Map.of("name", "Ghost"));
+        Thread.sleep(150);
+        assertEquals("Ghost", registry.getManifest("ghost").name());
+        assertEquals(2, fetches.get());
+
+        // Registering an id forgets that it was missing
+        assertNull(registry.getManifest("late"));
+        registry.register(manifest("late"));
+        assertNotNull(registry.getManifest("late"));
+        assertEquals(3, fetches.get());
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() throws Exception {
+        MetadataRegistry registry = registry();
+        rows.put("slow", Map.of("name", "Slow"));
+        fetching = new CountDownLatch(1);
+        proceed = new CountDownLatch(1);
+
+        List<CompletableFuture<MetadataRegistry.PluginManifest>> lookups = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            lookups.add(CompletableFuture.supplyAsync(() -> registry.getManifest("slow")));
+        }
+        assertTrue(fetching.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        proceed.countDown();
+
+        MetadataRegistry.PluginManifest first = lookups.get(0).get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<MetadataRegistry.PluginManifest> lookup : lookups) {
+            assertSame(first, lookup.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void preloadAllLoadsEveryPageOnce() {
+        MetadataRegistry registry = registry();
+        registry.setPreloadPageSize(2);
+        for (String id : List.of("a", "b", "c", "d", "e")) {
+            rows.put(id, Map.of("name", id.toUpperCase()));
+        }
+        MetadataRegistry.PluginManifest local = manifest("c");
+        registry.register(local);
+
+        assertEquals(4, registry.preloadAll());
+        assertEquals(3, pages.get());
+
+        // Manifests already held in memory are not replaced
+        assertSame(local, registry.getManifest("c"));
+        assertEquals("E", registry.getManifest("e").name());
+        assertEquals(0, fetches.get());
+    }
+
+    @Test
+    void mcpExportIsRevalidatedByETag() {
+        MetadataRegistry registry = new MetadataRegistry();
+        registry.register(manifest("weather"));
+
+        String etag = registry.getMcpETag();
+        Map<String, Object> export = registry.exportToMCP();
+        assertSame(export, registry.exportToMCP());
+        assertNull(registry.exportToMCP(etag));
+        assertSame(export, registry.exportToMCP("\"stale\""));
+
+        registry.register(manifest("calendar"));
+        String changed = registry.getMcpETag();
+        assertNotEquals(etag, changed);
+        assertEquals(2, ((List<?>) registry.exportToMCP(etag).get("tools")).size());
+        assertNull(registry.exportToMCP(changed));
+    }
+}
@@ -0,0 +1,40 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RetrievalContextTest {
+
+    @Test
+    void reusesResultsUntilQueryDriftsOrRegistryChanges() {
+        RetrievalContext retrieval = new RetrievalContext();
+        float[] weather = { 1f, 0f, 0f };
+        assertFalse(retrieval.matches("weather in Paris", weather, 1, 0.9, 0));
+
+        retrieval.update("weather in Paris", weather, 1, List.of(new LlmTool()), "docs");
+
+        assertTrue(retrieval.matches("Weather  in paris", null, 1, 0.9, 0));
+        assertTrue(retrieval.matches("and tomorrow?", new float[] { 0.95f, 0.1f, 0f }, 1, 0.9, 0));
+        assertFalse(retrieval.matches("book a flight", new float[] { 0f, 1f, 0f }, 1, 0.9, 0));
+        assertFalse(retrieval.matches("weather in Paris", weather, 2, 0.9, 0));
+        assertEquals(2, retrieval.getHits());
+        assertEquals("docs", retrieval.getKnowledge());
+    }
+
+    @Test
+    void memoisesSystemPromptPerSegments() {
+        RetrievalContext retrieval = new RetrievalContext();
+        assertNull(retrieval.getSystemPrompt("tools: a"));
+
+        retrieval.setSystemPrompt("tools: a", "prompt a");
+
+        assertEquals("prompt a", retrieval.getSystemPrompt("tools: a"));
+        assertNull(retrieval.getSystemPrompt("tools: a, b"));
+    }
+}
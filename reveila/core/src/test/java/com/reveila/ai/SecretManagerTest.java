@@ -0,0 +1,140 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.reveila.system.Plugin;
+
+public class SecretManagerTest {
+
+    private static final String KEY = "reveila.test.secret";
+
+    /**
+     * Serves secrets from a map and counts how often the store was read.
+     */
+    private static class FakeStoreSecretManager extends SecretManager {
+        final Map<String, String> store = new ConcurrentHashMap<>();
+        final AtomicInteger loads = new AtomicInteger();
+        volatile CountDownLatch loading;
+        volatile CountDownLatch proceed;
+
+        @Override
+        Optional<String> loadFromStore(String secretKey) throws Exception {
+            loads.incrementAndGet();
+            String value = store.get(secretKey);
+            if (proceed != null) {
+                loading.countDown();
+                proceed.await(5, TimeUnit.SECONDS);
+            }
+            return Optional.ofNullable(value);
+        }
+    }
+
+    private final FakeStoreSecretManager manager = new FakeStoreSecretManager();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        manager.stop();
+    }
+
+    @Test
+    void cachedSecretsExpireAfterTheirTtl() throws Exception {
+        manager.setCacheTtlMs(100);
+        manager.setRefreshAheadFactor(1);
+        manager.start();
+        manager.store.put(KEY, "v1");
+
+        assertEquals("v1", manager.getSecret(KEY));
+        manager.store.put(KEY, "v2");
+        assertEquals("v1", manager.getSecret(KEY));
+        assertEquals(1, manager.loads.get());
+
+        Thread.sleep(150);
+        assertEquals("v2", manager.getSecret(KEY));
+        assertEquals(2, manager.loads.get());
+    }
+
+    @Test
+    void missingKeysAreRememberedForTheNegativeTtl() throws Exception {
+        manager.setNegativeTtlMs(100);
+        manager.start();
+
+        assertNull(manager.getSecret(KEY));
+        assertNull(manager.getSecret(KEY));
+        assertEquals(1, manager.loads.get());
+
+        manager.store.put(KEY, "created");
+        Thread.sleep(150);
+        assertEquals("created", manager.getSecret(KEY));
+        assertEquals(2, manager.loads.get());
+    }
+
+    @Test
+    void lateLookupsRefreshInTheBackground() throws Exception {
+        manager.setCacheTtlMs(400);
+        manager.setRefreshAheadFactor(0.25);
+        manager.start();
+        manager.store.put(KEY, "v1");
+
+        assertEquals("v1", manager.getSecret(KEY));
+        manager.store.put(KEY, "v2");
+        Thread.sleep(150);
+
+        // Served from the cache while the reload runs
+        assertEquals("v1", manager.getSecret(KEY));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (manager.loads.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals("v2", manager.getSecret(KEY));
+        assertEquals(2, manager.loads.get());
+    }
+
+    @Test
+    void aLoadThatRacedAnInvalidationIsNotCached() throws Exception {
+        manager.start();
+        manager.store.put(KEY, "old");
+        manager.loading = new CountDownLatch(1);
+        manager.proceed = new CountDownLatch(1);
+
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> manager.getSecret(KEY));
+        assertTrue(manager.loading.await(5, TimeUnit.SECONDS));
+        manager.store.put(KEY, "new");
+        manager.invalidate(KEY);
+        manager.proceed.countDown();
+        assertEquals("old", slow.get(5, TimeUnit.SECONDS));
+
+        manager.proceed = null;
+        assertEquals("new", manager.getSecret(KEY));
+    }
+
+    @Test
+    void jitTokensExpire() throws Exception {
+        manager.start();
+        Map<String, String> jit = manager.generateJitToken(Plugin.create("test-plugin", "tenant"), "read", 1);
+        String token = jit.get("REVEILA_JIT_TOKEN");
+
+        assertTrue(manager.validateToken(token));
+        Thread.sleep(1100);
+        assertFalse(manager.validateToken(token));
+
+        manager.generateJitToken(Plugin.create("test-plugin", "tenant"), "read", 1);
+        Thread.sleep(1100);
+        manager.sweep();
+        assertEquals(0L, manager.getCacheStats().get("jitTokens"));
+    }
+}
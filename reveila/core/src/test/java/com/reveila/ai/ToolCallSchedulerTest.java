@@ -0,0 +1,144 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class ToolCallSchedulerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static ToolCallScheduler.Call<String> sleeping(String value, long sleepMs, long timeoutMs) {
+        return new ToolCallScheduler.Call<>(() -> {
+            Thread.sleep(sleepMs);
+            return value;
+        }, timeoutMs);
+    }
+
+    @Test
+    void runsCallsConcurrentlyAndKeepsOrder() {
+        ToolCallScheduler scheduler = new ToolCallScheduler(executor, 4);
+        List<ToolCallScheduler.Call<String>> calls = List.of(
+                sleeping("a", 300, 0), sleeping("b", 100, 0), sleeping("c", 200, 0));
+
+        long start = System.currentTimeMillis();
+        List<ToolCallScheduler.Outcome<String>> outcomes = scheduler.runAll("s1", calls, null);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(List.of("a", "b", "c"), outcomes.stream().map(ToolCallScheduler.Outcome::value).toList());
+        assertTrue(elapsed < 550, "Calls should overlap, took " + elapsed + " ms");
+    }
+
+    @Test
+    void limitsConcurrencyPerSession() {
+        ToolCallScheduler scheduler = new ToolCallScheduler(executor, 2);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<ToolCallScheduler.Call<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            int n = i;
+            calls.add(new ToolCallScheduler.Call<>(() -> {
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                active.decrementAndGet();
+                return n;
+            }, 0));
+        }
+
+        List<ToolCallScheduler.Outcome<Integer>> outcomes = scheduler.runAll("s1", calls, null);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), outcomes.stream().map(ToolCallScheduler.Outcome::value).toList());
+        assertEquals(2, peak.get());
+    }
+
+    @Test
+    void reportsFailuresAndTimeoutsPerCall() {
+        ToolCallScheduler scheduler = new ToolCallScheduler(executor, 4);
+        List<ToolCallScheduler.Call<String>> calls = List.of(
+                sleeping("fast", 10, 1000),
+                sleeping("slow", 5000, 100),
+                new ToolCallScheduler.Call<>(() -> {
+                    throw new IllegalStateException("boom");
+                }, 1000));
+
+        long start = System.currentTimeMillis();
+        List<ToolCallScheduler.Outcome<String>> outcomes = scheduler.runAll("s1", calls, null);
+
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals("fast", outcomes.get(0).value());
+        assertInstanceOf(TimeoutException.class, outcomes.get(1).error());
+        assertInstanceOf(IllegalStateException.class, outcomes.get(2).error());
+    }
+
+    @Test
+    void cancelsRemainingCallsWhenKilled() {
+        ToolCallScheduler scheduler = new ToolCallScheduler(executor, 1);
+        AtomicBoolean killed = new AtomicBoolean();
+        List<ToolCallScheduler.Call<String>> calls = List.of(
+                new ToolCallScheduler.Call<>(() -> {
+                    killed.set(true);
+                    Thread.sleep(5000);
+                    return "never";
+                }, 0),
+                sleeping("queued", 10, 0));
+
+        long start = System.currentTimeMillis();
+        List<ToolCallScheduler.Outcome<String>> outcomes = scheduler.runAll("s1", calls, killed::get);
+
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertInstanceOf(CancellationException.class, outcomes.get(0).error());
+        assertInstanceOf(CancellationException.class, outcomes.get(1).error());
+
+        // Permits were returned, so the session can run again
+        List<ToolCallScheduler.Outcome<String>> again = scheduler.runAll("s1",
+                List.of(sleeping("ok", 10, 0)), null);
+        assertEquals("ok", again.get(0).value());
+    }
+
+    @Test
+    void keepsThePermitUntilATimedOutCallStops() {
+        ToolCallScheduler scheduler = new ToolCallScheduler(executor, 1);
+        AtomicLong stoppedAt = new AtomicLong();
+        AtomicLong startedAt = new AtomicLong();
+        List<ToolCallScheduler.Call<String>> calls = List.of(
+                new ToolCallScheduler.Call<>(() -> {
+                    // Ignores the interrupt, like a blocking call that cannot be cut short
+                    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+                    while (System.nanoTime() < end) {
+                        Thread.onSpinWait();
+                    }
+                    stoppedAt.set(System.nanoTime());
+                    return "late";
+                }, 50),
+                new ToolCallScheduler.Call<>(() -> {
+                    startedAt.set(System.nanoTime());
+                    return "next";
+                }, 0));
+
+        List<ToolCallScheduler.Outcome<String>> outcomes = scheduler.runAll("s1", calls, null);
+
+        assertInstanceOf(TimeoutException.class, outcomes.get(0).error());
+        assertEquals("next", outcomes.get(1).value());
+        assertTrue(startedAt.get() >= stoppedAt.get(), "second call ran while the first still held the permit");
+        assertEquals(0, scheduler.getSessionCount());
+    }
+}
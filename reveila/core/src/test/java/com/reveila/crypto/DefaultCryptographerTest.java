@@ -0,0 +1,65 @@
+package com.reveila.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class DefaultCryptographerTest {
+
+    @Test
+    void streamingAndByteArrayFormatsAreInterchangeable() throws Exception {
+        DefaultCryptographer crypto = new DefaultCryptographer(DefaultCryptographer.generateRandomKey());
+        byte[] payload = new byte[100_000];
+        new Random(7).nextBytes(payload);
+
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        crypto.encrypt(new ByteArrayInputStream(payload), encrypted);
+        assertArrayEquals(payload, crypto.decrypt(encrypted.toByteArray()));
+
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        crypto.decrypt(new ByteArrayInputStream(crypto.encrypt(payload)), decrypted);
+        assertArrayEquals(payload, decrypted.toByteArray());
+    }
+
+    @Test
+    void bulkOperationsRoundTrip() throws Exception {
+        DefaultCryptographer crypto = new DefaultCryptographer(DefaultCryptographer.generateRandomKey());
+        List<byte[]> items = List.of("a".getBytes(), new byte[0], "secret value".getBytes());
+
+        List<byte[]> decrypted = crypto.decryptAll(crypto.encryptAll(items));
+
+        assertEquals(items.size(), decrypted.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertArrayEquals(items.get(i), decrypted.get(i));
+        }
+    }
+
+    @Test
+    void tamperedCiphertextIsRejected() throws Exception {
+        DefaultCryptographer crypto = new DefaultCryptographer(DefaultCryptographer.generateRandomKey());
+        byte[] encrypted = crypto.encrypt("hello".getBytes(StandardCharsets.UTF_8));
+        encrypted[encrypted.length - 1] ^= 1;
+
+        assertThrows(Exception.class, () -> crypto.decrypt(encrypted));
+    }
+
+    @Test
+    void wrappedKeyUnwrapsWithCachedAndFreshDerivedKeys() throws Exception {
+        byte[] dek = DefaultCryptographer.generateRandomKey();
+        String salt = DefaultCryptographer.generateSaltHex();
+        String wrapped = DefaultCryptographer.wrapKeyToBase64(dek, "master", salt);
+
+        assertArrayEquals(dek, DefaultCryptographer.unwrapKeyFromBase64(wrapped, "master", salt));
+        DefaultCryptographer.clearDerivedKeyCache();
+        assertArrayEquals(dek, DefaultCryptographer.unwrapKeyFromBase64(wrapped, "master", salt));
+        assertThrows(Exception.class, () -> DefaultCryptographer.unwrapKeyFromBase64(wrapped, "wrong", salt));
+    }
+}
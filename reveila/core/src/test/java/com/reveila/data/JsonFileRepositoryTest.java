@@ -0,0 +1,174 @@
+package com.reveila.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.reveila.system.PlatformAdapter;
+
+public class JsonFileRepositoryTest {
+
+    public static class Item {
+        private String id;
+        private String owner;
+        private int score;
+
+        public Item() {
+        }
+
+        Item(String id, String owner, int score) {
+            this.id = id;
+            this.owner = owner;
+            this.score = score;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public void setOwner(String owner) {
+            this.owner = owner;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public void setScore(int score) {
+            this.score = score;
+        }
+    }
+
+    @TempDir
+    Path home;
+
+    /** Serves files from the temporary directory; nothing else is needed. */
+    private PlatformAdapter files() throws IOException {
+        Files.createDirectories(home.resolve("data"));
+        return (PlatformAdapter) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PlatformAdapter.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "getFileInputStream" -> {
+                        Path path = home.resolve((String) args[0]);
+                        if (!Files.exists(path)) {
+                            throw new IOException("File not found: " + path);
+                        }
+                        yield Files.newInputStream(path);
+                    }
+                    case "getFileOutputStream" -> new FileOutputStream(home.resolve((String) args[0]).toFile(),
+                            (Boolean) args[1]);
+                    case "deleteFile" -> Files.deleteIfExists(home.resolve((String) args[0]));
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private JsonFileRepository<Item, String> open(PlatformAdapter files) {
+        return new JsonFileRepository<>("data", "Item", Item.class, String.class, files);
+    }
+
+    private static List<String> ids(List<Item> items) {
+        return items.stream().map(Item::getId).toList();
+    }
+
+    @Test
+    void replaysTheLogAfterARestart() throws Exception {
+        PlatformAdapter files = files();
+        JsonFileRepository<Item, String> repo = open(files);
+        repo.store(new Item("a", "ann", 1));
+        repo.store(new Item("b", "bob", 2));
+        repo.store(new Item("a", "ann", 10));
+        repo.disposeById("b");
+        repo.close();
+
+        // A crash mid-append leaves a torn last line behind
+        Files.writeString(home.resolve("data/items.wal.jsonl"), "{\"op\":\"put\",\"val",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertFalse(Files.exists(home.resolve("data/items.json")));
+
+        JsonFileRepository<Item, String> reopened = open(files);
+        assertEquals(List.of("a"), ids(reopened.fetchAll()));
+        assertEquals(10, reopened.fetchById("a").orElseThrow().getScore());
+        reopened.close();
+    }
+
+    @Test
+    void compactionFoldsTheLogIntoTheSnapshot() throws Exception {
+        PlatformAdapter files = files();
+        JsonFileRepository<Item, String> repo = open(files);
+        repo.setCompactionThreshold(3);
+        repo.store(new Item("a", "ann", 1));
+        repo.store(new Item("b", "bob", 2));
+        repo.store(new Item("c", "cy", 3));
+
+        assertTrue(Files.exists(home.resolve("data/items.json")));
+        assertEquals(0, Files.size(home.resolve("data/items.wal.jsonl")));
+        assertFalse(Files.exists(home.resolve("data/items.json.tmp")));
+
+        // Writes after compaction go to a fresh log
+        repo.disposeById("a");
+        repo.close();
+        JsonFileRepository<Item, String> reopened = open(files);
+        assertEquals(List.of("b", "c"), ids(reopened.fetchAll()));
+        reopened.close();
+    }
+
+    @Test
+    void filtersSortsAndPages() throws Exception {
+        JsonFileRepository<Item, String> repo = open(files());
+        repo.storeAll(List.of(new Item("a", "ann", 5), new Item("b", "bob", 20), new Item("c", "ann", 12),
+                new Item("d", "dee", 7)));
+
+        Page<Item> page = repo.fetchPage(new Filter().add("owner", "ann"), Sort.desc("score"), null, 0, 10, true);
+        assertEquals(List.of("c", "a"), ids(page.content()));
+
+        Filter range = new Filter().add("score", 6, Filter.SearchOp.GREATER_THAN).add("score", 15,
+                Filter.SearchOp.LESS_THAN);
+        // Conditions are keyed by field, so the second replaces the first
+        assertEquals(List.of("a", "d", "c"),
+                ids(repo.fetchPage(range, Sort.asc("score"), null, 0, 10, true).content()));
+
+        Filter either = new Filter(Filter.LogicalOp.OR).add("owner", "dee").add("id", "B", Filter.SearchOp.LIKE);
+        assertEquals(List.of("b", "d"), ids(repo.fetchPage(either, Sort.asc("id"), null, 0, 10, true).content()));
+
+        Page<Item> second = repo.fetchPage(null, Sort.asc("score"), null, 1, 3, true);
+        assertEquals(List.of("b"), ids(second.content()));
+        assertEquals(4L, second.totalElements());
+        repo.close();
+    }
+
+    @Test
+    void indexedLookupsFollowUpdatesAndDeletes() throws Exception {
+        JsonFileRepository<Item, String> repo = open(files());
+        repo.storeAll(List.of(new Item("a", "ann", 1), new Item("b", "bob", 2), new Item("c", "ann", 3)));
+        repo.addIndex("owner");
+
+        repo.store(new Item("a", "bob", 1));
+        repo.disposeById("c");
+        repo.store(new Item("d", "ann", 4));
+
+        assertEquals(List.of("d"), ids(repo.fetchPage(new Filter().add("owner", "ann"), null, null, 0, 10, true)
+                .content()));
+        Filter in = new Filter().add("owner", List.of("bob", "ann"), Filter.SearchOp.IN);
+        assertEquals(List.of("a", "b", "d"), ids(repo.fetchPage(in, Sort.asc("id"), null, 0, 10, true).content()));
+        repo.close();
+    }
+}
@@ -0,0 +1,68 @@
+package com.reveila.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EventObject;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class EventManagerTest {
+
+    @Test
+    public void testEventsAreDeliveredInOrderPerConsumer() throws Exception {
+        EventManager manager = new EventManager();
+        manager.setThreads(4);
+        int count = 500;
+        CountDownLatch done = new CountDownLatch(2 * count);
+        List<Object> first = new CopyOnWriteArrayList<>();
+        List<Object> second = new CopyOnWriteArrayList<>();
+        manager.addEventWatcher(e -> { first.add(e.getSource()); done.countDown(); });
+        manager.addEventWatcher(e -> { second.add(e.getSource()); done.countDown(); });
+
+        for (int i = 0; i < count; i++) {
+            manager.dispatchEvent(new EventObject(i));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, first.get(i));
+            assertEquals(i, second.get(i));
+        }
+        assertEquals(0, manager.getDroppedCount());
+        manager.shutdown();
+    }
+
+    @Test
+    public void testSlowConsumerOverflowDropsOldest() throws Exception {
+        EventManager manager = new EventManager();
+        manager.setMailboxCapacity(2);
+        manager.setOverflowPolicy(EventManager.OverflowPolicy.DROP_OLDEST);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<Object> seen = new CopyOnWriteArrayList<>();
+        manager.addEventWatcher(e -> {
+            started.countDown();
+            release.await();
+            seen.add(e.getSource());
+        });
+
+        manager.dispatchEvent(new EventObject(0));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            manager.dispatchEvent(new EventObject(i));
+        }
+        assertEquals(3, manager.getDroppedCount());
+        release.countDown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (seen.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(0, 4, 5), seen);
+        manager.shutdown();
+    }
+}
@@ -0,0 +1,164 @@
+package com.reveila.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class HnswVectorStoreTest {
+
+    private static final int DIMENSION = 32;
+
+    private static float[][] randomVectors(int count, long seed) {
+        Random random = new Random(seed);
+        float[][] vectors = new float[count][DIMENSION];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+
+    @Test
+    public void testRecallAgainstExactSearch() {
+        float[][] data = randomVectors(2000, 1);
+        HnswVectorStore store = new HnswVectorStore(DIMENSION, HnswVectorStore.Metric.COSINE);
+        for (int i = 0; i < data.length; i++) {
+            store.insert("v" + i, data[i], "payload" + i);
+        }
+
+        float[][] queries = randomVectors(50, 2);
+        int hits = 0;
+        for (float[] query : queries) {
+            Set<String> exact = IntStream.range(0, data.length).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -cosine(query, data[i])))
+                    .limit(10)
+                    .map(i -> "v" + i)
+                    .collect(Collectors.toSet());
+            List<VectorMatch> matches = store.search(query, 10);
+            assertEquals(10, matches.size());
+            for (VectorMatch match : matches) {
+                if (exact.contains(match.id())) {
+                    hits++;
+                }
+            }
+        }
+        assertTrue(hits / 500.0 >= 0.9, "recall@10 too low: " + hits / 500.0);
+    }
+
+    @Test
+    public void testReplaceAndRemove() {
+        HnswVectorStore store = new HnswVectorStore(2, HnswVectorStore.Metric.DOT_PRODUCT);
+        store.insert("a", new float[] { 1, 0 }, "first");
+        store.insert("b", new float[] { 0, 1 }, "other");
+        store.insert("a", new float[] { 0, 2 }, "second");
+
+        List<VectorMatch> matches = store.search(new float[] { 0, 1 }, 5);
+        assertEquals(2, matches.size());
+        assertEquals("a", matches.get(0).id());
+        assertEquals("second", matches.get(0).payload());
+        assertEquals(2.0, matches.get(0).score(), 1e-6);
+
+        assertTrue(store.remove("a"));
+        assertEquals(List.of("b"), store.search(new float[] { 0, 1 }, 5).stream().map(VectorMatch::id).toList());
+        assertThrows(IllegalArgumentException.class, () -> store.insert("c", new float[] { 1 }, null));
+    }
+
+    @Test
+    public void testMIsFixedOnceVectorsExist() {
+        HnswVectorStore store = new HnswVectorStore(2, HnswVectorStore.Metric.DOT_PRODUCT);
+        store.setM(2);
+        store.insert("a", new float[] { 1, 0 }, null);
+        assertThrows(IllegalStateException.class, () -> store.setM(4));
+        for (int i = 0; i < 50; i++) {
+            store.insert("v" + i, new float[] { i, 1 }, null);
+        }
+        assertEquals(51, store.size());
+    }
+
+    @Test
+    public void testRemovedNodesAreCompactedAway() {
+        float[][] data = randomVectors(400, 5);
+        HnswVectorStore store = new HnswVectorStore(DIMENSION, HnswVectorStore.Metric.COSINE);
+        for (int i = 0; i < data.length; i++) {
+            store.insert("v" + i, data[i], "p" + i);
+        }
+        for (int i = 0; i < 100; i++) {
+            store.remove("v" + i);
+        }
+        // 100 of 400 is below the 30% threshold
+        assertEquals(400, store.graphSize());
+
+        for (int i = 100; i < 130; i++) {
+            store.remove("v" + i);
+        }
+        // The 121st removal crossed the threshold; the 9 after it wait for the next rebuild
+        assertEquals(279, store.graphSize());
+        assertEquals(270, store.size());
+
+        List<VectorMatch> matches = store.search(data[200], 5);
+        assertEquals("v200", matches.get(0).id());
+        assertEquals("p200", matches.get(0).payload());
+        assertTrue(matches.stream().noneMatch(m -> Integer.parseInt(m.id().substring(1)) < 130));
+
+        store.setCompactionThreshold(0);
+        store.remove("v200");
+        store.compact();
+        assertEquals(269, store.graphSize());
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        float[][] data = randomVectors(500, 3);
+        HnswVectorStore store = new HnswVectorStore(DIMENSION, HnswVectorStore.Metric.COSINE);
+        for (int i = 0; i < data.length; i++) {
+            store.insert("v" + i, data[i], i % 2 == 0 ? "p" + i : null);
+        }
+        store.remove("v7");
+
+        Path dir = Files.createTempDirectory("hnsw");
+        Path file = dir.resolve("tools.hnsw");
+        try {
+            store.snapshot(file);
+            HnswVectorStore restored = HnswVectorStore.restore(file);
+            assertEquals(store.size(), restored.size());
+
+            for (float[] query : randomVectors(20, 4)) {
+                List<VectorMatch> expected = store.search(query, 5);
+                List<VectorMatch> actual = restored.search(query, 5);
+                assertEquals(expected.stream().map(VectorMatch::id).toList(),
+                        actual.stream().map(VectorMatch::id).toList());
+                assertEquals(expected.stream().map(VectorMatch::payload).toList(),
+                        actual.stream().map(VectorMatch::payload).toList());
+            }
+            Set<String> ids = new HashSet<>();
+            restored.search(data[7], 10).forEach(m -> ids.add(m.id()));
+            assertTrue(!ids.contains("v7"));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
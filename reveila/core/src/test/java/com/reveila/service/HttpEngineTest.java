@@ -0,0 +1,109 @@
+package com.reveila.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpEngineTest {
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final HttpEngine engine = new HttpEngine();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // The first request of each path fails with 503, later ones succeed
+        server.createContext("/", exchange -> {
+            int hit = hits.incrementAndGet();
+            boolean flaky = exchange.getRequestURI().getPath().startsWith("/flaky") && hit == 1;
+            byte[] body = (flaky ? "busy" : "ok " + exchange.getRequestMethod()).getBytes(StandardCharsets.UTF_8);
+            int status = exchange.getRequestURI().getPath().startsWith("/broken") ? 500 : flaky ? 503 : 200;
+            if (flaky && exchange.getRequestURI().getPath().endsWith("/retry-after")) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        engine.define(HttpEngine.Profile.parse("default: baseBackoffMs=10, maxBackoffMs=50",
+                HttpEngine.Profile.defaults(HttpEngine.DEFAULT_PROFILE)));
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        engine.shutdown();
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    void retriesTransientStatusAndCompletesAsynchronously() throws Exception {
+        String body = engine.client("default")
+                .send(HttpEngine.newRequest(url("/flaky"), "GET", null, null, null))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("ok GET", body);
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void retriesNonIdempotentCallsOnlyWhenTheServerRejectedThem() throws Exception {
+        HttpEngine.Client client = engine.client("default");
+        IOException e = assertThrows(IOException.class, () -> client.execute(
+                HttpEngine.newRequest(url("/flaky"), "POST", "{}", HttpClientService.JSON, null)));
+        assertTrue(e.getMessage().contains("HTTP code 503"));
+        assertEquals(1, hits.get());
+
+        hits.set(0);
+        String body = client.send(
+                HttpEngine.newRequest(url("/flaky/retry-after"), "POST", "{}", HttpClientService.JSON, null))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals("ok POST", body);
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void doesNotRetryPermanentFailures() {
+        HttpEngine.Client client = engine.client("default");
+        IOException e = assertThrows(IOException.class,
+                () -> client.execute(HttpEngine.newRequest(url("/broken"), "GET", null, null, null)));
+
+        assertTrue(e.getMessage().contains("HTTP code 500"));
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void undefinedProfilesDeriveFromDefaultAndRetireOnRedefinition() {
+        HttpEngine.Client llm = engine.client("llm");
+        assertEquals(10, llm.getProfile().baseBackoffMs());
+
+        engine.define(HttpEngine.Profile.parse("llm: maxRequestsPerHost=64, http2=false", engine.profile("llm")));
+
+        assertTrue(llm.isRetired());
+        HttpEngine.Client renewed = engine.client("llm");
+        assertFalse(renewed.isRetired());
+        assertEquals(64, renewed.getProfile().maxRequestsPerHost());
+        assertThrows(IllegalArgumentException.class,
+                () -> HttpEngine.Profile.parse("llm: poolSize=3", renewed.getProfile()));
+    }
+}
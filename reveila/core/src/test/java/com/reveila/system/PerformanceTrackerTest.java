@@ -0,0 +1,100 @@
+package com.reveila.system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class PerformanceTrackerTest {
+
+    private static URL url(String host) throws Exception {
+        return new URI("http://" + host + ":8080/").toURL();
+    }
+
+    @Test
+    public void testLoadIsSpreadAcrossEqualNodes() throws Exception {
+        PerformanceTracker tracker = new PerformanceTracker();
+        URL a = url("a");
+        URL b = url("b");
+        tracker.register(a, 10);
+        tracker.register(b, 10);
+
+        Map<URL, Integer> picks = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            URL chosen = tracker.getBestNodeUrl();
+            picks.merge(chosen, 1, Integer::sum);
+            tracker.begin(chosen);
+        }
+        // In-flight requests raise a node's cost, so neither node takes everything
+        assertTrue(picks.getOrDefault(a, 0) > 300, picks.toString());
+        assertTrue(picks.getOrDefault(b, 0) > 300, picks.toString());
+    }
+
+    @Test
+    public void testCircuitOpensAfterConsecutiveFailures() throws Exception {
+        PerformanceTracker tracker = new PerformanceTracker();
+        tracker.setFailureThreshold(3);
+        tracker.setOpenDurationMs(50);
+        URL a = url("a");
+        tracker.register(a, 10);
+
+        for (int i = 0; i < 3; i++) {
+            tracker.begin(a);
+            tracker.fail(a, 5);
+        }
+        assertEquals(PerformanceTracker.CircuitState.OPEN, tracker.getStats(a).circuit());
+        assertNull(tracker.getBestNodeUrl());
+
+        Thread.sleep(60);
+        // Half-open: exactly one trial request is let through
+        assertEquals(a, tracker.getBestNodeUrl());
+        assertNull(tracker.getBestNodeUrl());
+
+        tracker.begin(a);
+        tracker.complete(a, 5);
+        assertEquals(PerformanceTracker.CircuitState.CLOSED, tracker.getStats(a).circuit());
+        assertEquals(a, tracker.getBestNodeUrl());
+    }
+
+    @Test
+    public void testUnfinishedTrialDoesNotBlockTheNode() throws Exception {
+        PerformanceTracker tracker = new PerformanceTracker();
+        tracker.setFailureThreshold(1);
+        tracker.setOpenDurationMs(20);
+        tracker.setTrialTimeoutMs(50);
+        URL a = url("a");
+        tracker.register(a, 10);
+
+        tracker.begin(a);
+        tracker.fail(a, 5);
+        Thread.sleep(30);
+
+        // The claimed trial is never sent; once it times out, another is let through
+        assertEquals(a, tracker.getBestNodeUrl());
+        assertNull(tracker.getBestNodeUrl());
+        Thread.sleep(60);
+        assertEquals(a, tracker.getBestNodeUrl());
+
+        // An abandoned trial is handed back at once
+        tracker.abandon(a);
+        assertEquals(a, tracker.getBestNodeUrl());
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        PerformanceTracker tracker = new PerformanceTracker();
+        URL a = url("a");
+        for (int i = 1; i <= 100; i++) {
+            tracker.track(i, a);
+        }
+        PerformanceTracker.NodeStats stats = tracker.getStats(a);
+        assertEquals(50, stats.p50Ms(), 50 * 0.13);
+        assertEquals(99, stats.p99Ms(), 99 * 0.13);
+    }
+}
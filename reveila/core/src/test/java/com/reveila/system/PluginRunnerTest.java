@@ -0,0 +1,99 @@
+package com.reveila.system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class PluginRunnerTest {
+
+    private static final String TOKEN = "REVEILA_JIT_TOKEN";
+
+    public static class Greeter {
+        public String greet(String name) {
+            String token = PluginRunner.getenv(TOKEN);
+            return "Hello, " + name + " (" + (token != null ? token : "no token") + ")";
+        }
+
+        public String fail(String reason) {
+            throw new IllegalStateException(reason);
+        }
+    }
+
+    @Test
+    void servesFramesUntilShutdown() throws Exception {
+        PipedOutputStream toWorker = new PipedOutputStream();
+        PipedInputStream fromWorker = new PipedInputStream(64 * 1024);
+        PipedInputStream workerIn = new PipedInputStream(toWorker, 64 * 1024);
+        PipedOutputStream workerOut = new PipedOutputStream(fromWorker);
+        CompletableFuture<Void> worker = CompletableFuture.runAsync(() -> {
+            try {
+                PluginRunner.serve(workerIn, workerOut);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        DataOutputStream out = new DataOutputStream(toWorker);
+        DataInputStream in = new DataInputStream(fromWorker);
+
+        assertEquals("ready", PluginRunner.readFrame(in).get("type"));
+
+        PluginRunner.writeFrame(out, Map.of("type", "ping", "id", 1));
+        assertEquals(Map.of("id", 1, "status", "PONG"), PluginRunner.readFrame(in));
+
+        PluginRunner.writeFrame(out, Map.of("type", "invoke", "id", 2, "pluginClass", Greeter.class.getName(),
+                "method", "greet", "args", List.of("Ann"), "env", Map.of(TOKEN, "t-42")));
+        Map<String, Object> greeted = PluginRunner.readFrame(in);
+        assertEquals(2, greeted.get("id"));
+        assertEquals("SUCCESS", greeted.get("status"));
+        assertEquals("Hello, Ann (t-42)", greeted.get("data"));
+        // Credentials do not outlive their invocation
+        assertNull(PluginRunner.getenv(TOKEN));
+        PluginRunner.writeFrame(out, Map.of("type", "invoke", "id", 5, "pluginClass", Greeter.class.getName(),
+                "method", "greet", "args", List.of("Bob")));
+        assertEquals("Hello, Bob (no token)", PluginRunner.readFrame(in).get("data"));
+
+        PluginRunner.writeFrame(out, Map.of("type", "invoke", "id", 3, "pluginClass", Greeter.class.getName(),
+                "method", "fail", "args", List.of("no greeting today")));
+        Map<String, Object> failed = PluginRunner.readFrame(in);
+        assertEquals("ERROR", failed.get("status"));
+        assertEquals(IllegalStateException.class.getName() + ": no greeting today", failed.get("error"));
+
+        PluginRunner.writeFrame(out, Map.of("type", "reboot", "id", 4));
+        assertEquals("Unknown frame type: reboot", PluginRunner.readFrame(in).get("error"));
+
+        PluginRunner.writeFrame(out, Map.of("type", "shutdown"));
+        worker.get(5, TimeUnit.SECONDS);
+        out.close();
+    }
+
+    @Test
+    void readFrameStopsCleanlyAtTheEndOfTheStream() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PluginRunner.writeFrame(new DataOutputStream(bytes), Map.of("type", "ping", "id", "a"));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals("a", PluginRunner.readFrame(in).get("id"));
+        assertNull(PluginRunner.readFrame(in));
+
+        byte[] oversized = { 0x7f, 0, 0, 0 };
+        IOException e = assertThrows(IOException.class,
+                () -> PluginRunner.readFrame(new DataInputStream(new ByteArrayInputStream(oversized))));
+        assertTrue(e.getMessage().startsWith("Invalid frame length"));
+    }
+}
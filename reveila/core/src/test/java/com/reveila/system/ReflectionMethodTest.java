@@ -0,0 +1,88 @@
+package com.reveila.system;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+
+public class ReflectionMethodTest {
+
+    public static class Target {
+        public long add(int a, long b) {
+            return a + b;
+        }
+
+        public String join(String prefix, String... parts) {
+            return prefix + String.join(",", parts);
+        }
+
+        public boolean flag(boolean value) {
+            return value;
+        }
+
+        public void fail() {
+            throw new IllegalStateException("boom");
+        }
+
+        public static String echo(String value) {
+            return value;
+        }
+    }
+
+    private Object call(Object target, String name, Object... args) throws Exception {
+        Method method = ReflectionMethod.findBestMethod(target.getClass(), name, args);
+        return ReflectionMethod.compile(method, args).invoke(target, args);
+    }
+
+    @Test
+    public void testNumericCoercionFromDouble() throws Exception {
+        assertEquals(5L, call(new Target(), "add", 2.0d, 3.0d));
+    }
+
+    @Test
+    public void testVarargsPackaging() throws Exception {
+        assertEquals("p:a,b", call(new Target(), "join", "p:", "a", "b"));
+        assertEquals("p:", call(new Target(), "join", "p:"));
+    }
+
+    @Test
+    public void testStaticMethod() throws Exception {
+        assertEquals("x", call(new Target(), "echo", "x"));
+    }
+
+    @Test
+    public void testTargetExceptionIsWrapped() {
+        InvocationTargetException e = assertThrows(InvocationTargetException.class,
+                () -> call(new Target(), "fail"));
+        assertEquals("boom", e.getCause().getMessage());
+    }
+
+    @Test
+    public void testMatchesCoerceArguments() throws Exception {
+        Object[] args = { 7.0d, 1.0d };
+        Method method = ReflectionMethod.findBestMethod(Target.class, "add", args);
+        assertArrayEquals(new Object[] { 7, 1L }, ReflectionMethod.coerceArguments(method, args));
+    }
+
+    @Test
+    public void testDispatchTableCachesBySignature() {
+        MethodDispatchTable table = new MethodDispatchTable();
+        ReflectionMethod.Invoker first = table.lookup(Target.class, "add", new Object[] { 1.0d, 2.0d });
+        ReflectionMethod.Invoker second = table.lookup(Target.class, "add", new Object[] { 3.0d, 4.0d });
+        assertSame(first, second);
+        assertEquals(1, table.size());
+
+        table.lookup(Target.class, "add", new Object[] { 1, 2L });
+        assertEquals(2, table.size());
+
+        assertNull(table.lookup(Target.class, "missing", null));
+        table.invalidate();
+        assertEquals(0, table.size());
+    }
+}
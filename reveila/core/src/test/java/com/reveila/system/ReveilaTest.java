@@ -0,0 +1,119 @@
+package com.reveila.system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.reveila.crypto.DefaultCryptographer;
+import com.reveila.error.SystemException;
+
+public class ReveilaTest {
+
+    private static final long SLOW_START_MS = 300;
+
+    public static class Idle extends SystemComponent {
+        @Override
+        protected void onStart() throws Exception {
+        }
+
+        @Override
+        protected void onStop() throws Exception {
+        }
+    }
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final Map<String, long[]> startedAt = new ConcurrentHashMap<>();
+    private final Reveila reveila = new Reveila();
+
+    @AfterEach
+    void tearDown() {
+        reveila.shutdown();
+        executor.shutdownNow();
+    }
+
+    private static String component(String name, String... dependencies) {
+        return "{\"component\": {\"name\": \"" + name + "\", \"class\": \"" + Idle.class.getName() + "\","
+                + " \"dependencies\": [" + String.join(",", List.of(dependencies).stream()
+                        .map(d -> "\"" + d + "\"").toList())
+                + "], \"runnable\": {\"method.name\": \"tick\", \"delay.seconds\": 60, \"interval.seconds\": 0}}}";
+    }
+
+    /**
+     * Serves one configuration file. Components take {@link #SLOW_START_MS} to
+     * register their auto-call, and the one named "Broken" fails to.
+     */
+    private PlatformAdapter platform(String... components) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("platform", "test");
+        byte[] config = ("[" + String.join(",", components) + "]").getBytes(StandardCharsets.UTF_8);
+        DefaultCryptographer cryptographer = new DefaultCryptographer(DefaultCryptographer.generateRandomKey());
+        Logger logger = Logger.getLogger(ReveilaTest.class.getName());
+        return (PlatformAdapter) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PlatformAdapter.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "getProperties" -> properties;
+                    case "getExecutor" -> executor;
+                    case "getLogger" -> logger;
+                    case "getCryptographer" -> cryptographer;
+                    case "listRelativePaths" -> "configs/test".equals(args[0])
+                            ? new String[] { "configs/test/components.json" }
+                            : new String[0];
+                    case "getFileInputStream" -> {
+                        if (!"configs/test/components.json".equals(args[0])) {
+                            throw new IOException("File not found: " + args[0]);
+                        }
+                        yield new ByteArrayInputStream(config);
+                    }
+                    case "registerAutoCall" -> {
+                        long begin = System.currentTimeMillis();
+                        Thread.sleep(SLOW_START_MS);
+                        if ("Broken".equals(args[0])) {
+                            throw new IllegalStateException("Broken cannot start");
+                        }
+                        startedAt.put((String) args[0], new long[] { begin, System.currentTimeMillis() });
+                        yield null;
+                    }
+                    default -> null;
+                });
+    }
+
+    @Test
+    void startsIndependentComponentsInParallel() throws Exception {
+        long begin = System.currentTimeMillis();
+        reveila.start(platform(component("A"), component("B"), component("C"), component("D", "A", "B")));
+        long elapsed = System.currentTimeMillis() - begin;
+
+        assertEquals(4, startedAt.size());
+        // A, B and C overlap; D waits for A and B only
+        assertTrue(elapsed < 3 * SLOW_START_MS, "Start-up took " + elapsed + " ms");
+        assertTrue(startedAt.get("D")[0] >= startedAt.get("A")[1]);
+        assertTrue(startedAt.get("D")[0] >= startedAt.get("B")[1]);
+        assertTrue(reveila.isRunning());
+    }
+
+    @Test
+    void strictModeUnregistersFailedAndSkippedComponents() throws Exception {
+        PlatformAdapter platform = platform(component("A"), component("Broken"), component("Dependent", "Broken"));
+
+        assertThrows(SystemException.class, () -> reveila.start(platform));
+
+        SystemContext context = reveila.getSystemContext();
+        assertThrows(IllegalArgumentException.class, () -> context.getProxy("Broken"));
+        assertThrows(IllegalArgumentException.class, () -> context.getProxy("Dependent"));
+        assertTrue(!startedAt.containsKey("Dependent"));
+    }
+}
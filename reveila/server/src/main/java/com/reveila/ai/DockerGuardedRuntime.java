@@ -1,7 +1,11 @@
 package com.reveila.ai;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.CreateContainerResponse;
@@ -19,13 +23,88 @@ import com.reveila.system.Plugin;
  * Docker-based implementation of GuardedRuntime using gVisor (runsc).
  * Maps SecurityPerimeter resource records to Docker HostConfig settings.
  * 
+ * By default invocations are served by a {@link WarmContainerPool} of
+ * pre-started worker containers, one partition per plugin, tenant and
+ * perimeter, which answer synchronously over their attached stdin/stdout.
+ * With pooling disabled every invocation starts a fresh container that
+ * reports its result through the callback URL. Calls that carry credentials
+ * also take that path, unless the plugin is known to read its per-call values
+ * through {@code PluginRunner.getenv}.
+ * 
  * Registered as "GuardedRuntime" in standard server environments.
  * 
  * @author CL
  */
 public class DockerGuardedRuntime extends AbstractGuardedRuntime {
-    
+
+    private static final String IMAGE = "reveila-plugin-executor:latest";
+
+    /**
+     * Pool partition. Workers are only reused for the same plugin, tenant and
+     * perimeter, so the isolation boundary is the same as one container per
+     * call.
+     */
+    record PoolKey(String pluginId, String tenantId, SecurityPerimeter perimeter) {
+    }
+
     private final DockerClient dockerClient;
+    private volatile WarmContainerPool<PoolKey> pool;
+    private boolean poolEnabled = true;
+    private int poolMinIdle = 1;
+    private int poolMaxSize = 4;
+    private int poolRecycleAfter = 100;
+    private long poolIdleTimeoutMs = 5 * 60 * 1000L;
+    private long poolHealthCheckIntervalMs = 30_000L;
+    private long workerReadyTimeoutMs = 15_000L;
+    private Set<String> warmCredentialPlugins = Set.of();
+
+    public void setPoolEnabled(boolean poolEnabled) {
+        this.poolEnabled = poolEnabled;
+    }
+
+    public void setPoolMinIdle(int poolMinIdle) {
+        this.poolMinIdle = poolMinIdle;
+    }
+
+    public void setPoolMaxSize(int poolMaxSize) {
+        this.poolMaxSize = poolMaxSize;
+    }
+
+    /**
+     * Number of invocations after which a worker container is replaced.
+     * 1 gives single-use containers that are still started ahead of time.
+     */
+    public void setPoolRecycleAfter(int poolRecycleAfter) {
+        this.poolRecycleAfter = poolRecycleAfter;
+    }
+
+    public void setPoolIdleTimeoutMs(long poolIdleTimeoutMs) {
+        this.poolIdleTimeoutMs = poolIdleTimeoutMs;
+    }
+
+    public void setPoolHealthCheckIntervalMs(long poolHealthCheckIntervalMs) {
+        this.poolHealthCheckIntervalMs = poolHealthCheckIntervalMs;
+    }
+
+    public void setWorkerReadyTimeoutMs(long workerReadyTimeoutMs) {
+        this.workerReadyTimeoutMs = workerReadyTimeoutMs;
+    }
+
+    /**
+     * Sets the plugins that read per-call values through
+     * {@link com.reveila.system.PluginRunner#getenv(String)} and may therefore
+     * be given credentials in a warm worker. Calls that carry credentials to
+     * any other plugin run in a fresh container, where the credentials are
+     * real environment variables.
+     */
+    public void setWarmCredentialPlugins(String[] pluginIds) {
+        this.warmCredentialPlugins = pluginIds == null ? Set.of() : Set.copyOf(List.of(pluginIds));
+    }
+
+    public Map<String, Object> getPoolStats() {
+        WarmContainerPool<PoolKey> p = this.pool;
+        return p == null ? Map.of() : p.getStats();
+    }
 
     public DockerGuardedRuntime(DockerClient dockerClient) {
         this.dockerClient = dockerClient;
@@ -54,51 +133,89 @@ public class DockerGuardedRuntime extends AbstractGuardedRuntime {
 
     @Override
     protected InvocationResult onExecute(Plugin plugin, SecurityPerimeter perimeter, Map<String, Object> arguments, Map<String, String> jitCredentials) {
+        WarmContainerPool<PoolKey> p = this.pool;
+        boolean credentials = jitCredentials != null && !jitCredentials.isEmpty();
+        if (p != null && (!credentials || warmCredentialPlugins.contains(plugin.getName()))) {
+            return executeWarm(p, plugin, perimeter, arguments, jitCredentials);
+        }
+        return executeCold(plugin, perimeter, arguments, jitCredentials);
+    }
+
+    private InvocationResult executeWarm(WarmContainerPool<PoolKey> p, Plugin plugin, SecurityPerimeter perimeter,
+            Map<String, Object> arguments, Map<String, String> jitCredentials) {
         String pluginId = plugin.getName();
         long startTime = System.currentTimeMillis();
-        logger.info("Executing via DockerGuardedRuntime for " + pluginId + " [Trace: " + plugin.getTraceId() + "] Started at: " + startTime);
+        PoolKey key = new PoolKey(pluginId, plugin.getTenantId(), perimeter);
 
-        // Filesystem Isolation: Mount the plugin JAR as a read-only volume
-        String pluginJarPath = "/opt/reveila/plugins/" + pluginId + ".jar";
-        Volume pluginVolume = new Volume("/app/plugin.jar");
+        Map<String, Object> argsMap = arguments != null ? new LinkedHashMap<>(arguments) : new LinkedHashMap<>();
+        Object method = argsMap.remove("method");
 
-        // RESOURCE MAPPING: SecurityPerimeter -> Docker HostConfig (cgroups)
-        HostConfig hostConfig = HostConfig.newHostConfig()
-                .withRuntime("runsc") // Force gVisor kernel isolation
-                .withMemory(perimeter.maxMemoryMb() * 1024 * 1024) // RAM Limit
-                .withCpuPeriod(100000L) // Default 100ms
-                .withCpuQuota((long) (perimeter.maxCpuCores() * 100000))   // CPU Quota
-                .withPidsLimit(100L) // Default limit
-                .withBinds(new Bind(pluginJarPath, pluginVolume, AccessMode.ro)) // Read-Only filesystem
-                .withAutoRemove(true);
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("type", "invoke");
+        request.put("pluginClass", resolvePluginClass(pluginId));
+        request.put("method", method != null ? method : "defaultMethod");
+        // Positional, matching how the one-shot runner maps PLUGIN_ARGS_JSON
+        request.put("args", new ArrayList<>(argsMap.values()));
+        request.put("env", callEnv(plugin, jitCredentials));
 
-        // Environment Variables & JIT Credentials
-        String callbackUrl = context.getProperties().getProperty("system.callback.url", "http://host.docker.internal:8080");
-        String jitToken = "JIT-" + java.util.UUID.randomUUID().toString(); // Temporary token generation
-        
-        java.util.List<String> envVars = new java.util.ArrayList<>(java.util.List.of(
-            "PLUGIN_ID=" + pluginId,
-            "TRACE_ID=" + plugin.getTraceId(),
-            "TENANT_ID=" + plugin.getTenantId(),
-            "REVEILA_CALLBACK_URL=" + callbackUrl,
-            "REVEILA_JIT_TOKEN=" + jitToken
-        ));
+        WarmContainerPool.Lease lease;
+        try {
+            lease = p.acquire(key);
+        } catch (Exception e) {
+            logger.warning("No sandbox worker for " + pluginId + ": " + e.getMessage());
+            return InvocationResult.error("Sandbox unavailable for " + pluginId + ": " + e.getMessage());
+        }
 
-        // ADR 0006: Get the actual implementation class from the system registry if available
-        String pluginClass = pluginId; // Fallback
+        boolean healthy = false;
         try {
-            com.reveila.system.Proxy proxy = context.getProxy(pluginId);
-            if (proxy instanceof com.reveila.system.SystemProxy sp) {
-                pluginClass = sp.getInstance().getClass().getName();
+            long timeoutMs = Math.max(1, perimeter.maxExecutionSec()) * 1000L;
+            Map<String, Object> response = lease.getWorker().invoke(request, timeoutMs);
+            // Plugin errors leave the worker usable; transport failures do not
+            healthy = true;
+            String containerId = lease.getWorker().getId();
+            logger.info(() -> "Executed " + pluginId + " in " + (lease.isWarm() ? "warm" : "new") + " container "
+                    + containerId + " [Trace: " + plugin.getTraceId() + "] in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+            if ("SUCCESS".equals(response.get("status"))) {
+                return InvocationResult.success(response.get("data"), "Executed in container " + containerId + " (gVisor)");
             }
+            return InvocationResult.error("Plugin " + pluginId + " failed: " + response.get("error"));
         } catch (Exception e) {
-            logger.warning("Could not resolve implementation class for plugin: " + pluginId);
+            logger.warning("Sandbox worker failed for " + pluginId + ": " + e.getMessage());
+            return InvocationResult.error("Sandbox execution failed for " + pluginId + ": " + e.getMessage());
+        } finally {
+            p.release(lease, healthy);
         }
-        envVars.add("PLUGIN_CLASS=" + pluginClass);
+    }
 
-        if (jitCredentials != null) {
-            jitCredentials.forEach((k, v) -> envVars.add(k + "=" + v));
-        }
+    private WarmContainerPool.Worker startWorker(PoolKey key) throws Exception {
+        List<String> envVars = new ArrayList<>(List.of(
+            "PLUGIN_ID=" + key.pluginId(),
+            "TENANT_ID=" + key.tenantId(),
+            "NETWORK_RESTRICTED=" + isNetworkRestricted(key.perimeter())
+        ));
+        Map<String, String> labels = Map.of(
+            "reveila.pool", "true",
+            "reveila.plugin", key.pluginId());
+        return DockerWorker.start(dockerClient, IMAGE, hostConfigFor(key.pluginId(), key.perimeter()).withAutoRemove(true),
+                envVars, labels, workerReadyTimeoutMs, logger);
+    }
+
+    private InvocationResult executeCold(Plugin plugin, SecurityPerimeter perimeter, Map<String, Object> arguments, Map<String, String> jitCredentials) {
+        String pluginId = plugin.getName();
+        long startTime = System.currentTimeMillis();
+        logger.info("Executing via DockerGuardedRuntime for " + pluginId + " [Trace: " + plugin.getTraceId() + "] Started at: " + startTime);
+
+        HostConfig hostConfig = hostConfigFor(pluginId, perimeter).withAutoRemove(true);
+
+        // Environment Variables & JIT Credentials
+        java.util.List<String> envVars = new java.util.ArrayList<>(java.util.List.of(
+            "PLUGIN_ID=" + pluginId,
+            "TENANT_ID=" + plugin.getTenantId()
+        ));
+        callEnv(plugin, jitCredentials).forEach((k, v) -> envVars.add(k + "=" + v));
+
+        envVars.add("PLUGIN_CLASS=" + resolvePluginClass(pluginId));
 
         String methodName = "defaultMethod";
         Map<String, Object> argsMap = null;
@@ -122,10 +239,10 @@ public class DockerGuardedRuntime extends AbstractGuardedRuntime {
 
         // Network Policy from Perimeter
         if (perimeter != null) {
-            envVars.add("NETWORK_RESTRICTED=" + (perimeter.internetAccessBlocked() || (perimeter.allowedDomains() != null && !perimeter.allowedDomains().isEmpty())));
+            envVars.add("NETWORK_RESTRICTED=" + isNetworkRestricted(perimeter));
         }
 
-        CreateContainerResponse container = dockerClient.createContainerCmd("reveila-plugin-executor:latest")
+        CreateContainerResponse container = dockerClient.createContainerCmd(IMAGE)
                 .withHostConfig(hostConfig)
                 .withEnv(envVars)
                 .withCmd("java", "-cp", "/app/plugin.jar:/app/reveila-core.jar", "com.reveila.system.PluginRunner")
@@ -136,8 +253,63 @@ public class DockerGuardedRuntime extends AbstractGuardedRuntime {
         return InvocationResult.success(null, "Execution started in Docker container " + container.getId() + " (gVisor)");
     }
 
+    /**
+     * The per-call variables a plugin sees, the same for warm and cold
+     * execution: environment variables in a fresh container, and the
+     * invocation's {@code env} in a warm worker.
+     */
+    private Map<String, String> callEnv(Plugin plugin, Map<String, String> jitCredentials) {
+        String callbackUrl = context.getProperties().getProperty("system.callback.url", "http://host.docker.internal:8080");
+        Map<String, String> env = new LinkedHashMap<>();
+        env.put("TRACE_ID", String.valueOf(plugin.getTraceId()));
+        env.put("REVEILA_CALLBACK_URL", callbackUrl);
+        env.put("REVEILA_JIT_TOKEN", "JIT-" + java.util.UUID.randomUUID().toString()); // Temporary token generation
+        if (jitCredentials != null) {
+            env.putAll(jitCredentials);
+        }
+        return env;
+    }
+
+    private HostConfig hostConfigFor(String pluginId, SecurityPerimeter perimeter) {
+        // Filesystem Isolation: Mount the plugin JAR as a read-only volume
+        String pluginJarPath = "/opt/reveila/plugins/" + pluginId + ".jar";
+        Volume pluginVolume = new Volume("/app/plugin.jar");
+
+        // RESOURCE MAPPING: SecurityPerimeter -> Docker HostConfig (cgroups)
+        return HostConfig.newHostConfig()
+                .withRuntime("runsc") // Force gVisor kernel isolation
+                .withMemory(perimeter.maxMemoryMb() * 1024 * 1024) // RAM Limit
+                .withCpuPeriod(100000L) // Default 100ms
+                .withCpuQuota((long) (perimeter.maxCpuCores() * 100000))   // CPU Quota
+                .withPidsLimit(100L) // Default limit
+                .withBinds(new Bind(pluginJarPath, pluginVolume, AccessMode.ro)); // Read-Only filesystem
+    }
+
+    private static boolean isNetworkRestricted(SecurityPerimeter perimeter) {
+        return perimeter.internetAccessBlocked()
+                || (perimeter.allowedDomains() != null && !perimeter.allowedDomains().isEmpty());
+    }
+
+    private String resolvePluginClass(String pluginId) {
+        // ADR 0006: Get the actual implementation class from the system registry if available
+        String pluginClass = pluginId; // Fallback
+        try {
+            com.reveila.system.Proxy proxy = context.getProxy(pluginId);
+            if (proxy instanceof com.reveila.system.SystemProxy sp) {
+                pluginClass = sp.getInstance().getClass().getName();
+            }
+        } catch (Exception e) {
+            logger.warning("Could not resolve implementation class for plugin: " + pluginId);
+        }
+        return pluginClass;
+    }
+
     @Override
     protected void onStop() throws Exception {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
         if (dockerClient != null) {
             try {
                 dockerClient.close();
@@ -158,5 +330,18 @@ public class DockerGuardedRuntime extends AbstractGuardedRuntime {
             logger.severe("Failed to initialize DockerGuardedRuntime: " + e.getMessage());
             throw new com.reveila.error.SystemException("Docker daemon not reachable", e);
         }
+
+        if (poolEnabled) {
+            WarmContainerPool<PoolKey> p = new WarmContainerPool<>(this::startWorker);
+            p.setLogger(logger);
+            p.setMinIdle(poolMinIdle);
+            p.setMaxSize(poolMaxSize);
+            p.setRecycleAfter(poolRecycleAfter);
+            p.setIdleTimeoutMs(poolIdleTimeoutMs);
+            p.setKeyIdleTimeoutMs(poolIdleTimeoutMs);
+            p.setHealthCheckIntervalMs(poolHealthCheckIntervalMs);
+            p.start();
+            this.pool = p;
+        }
     }
 }
@@ -0,0 +1,294 @@
+package com.reveila.ai;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.StreamType;
+import com.reveila.system.PluginRunner;
+
+/**
+ * A long-lived sandbox container running {@link PluginRunner} in serve mode.
+ * Invocations are exchanged as length-prefixed JSON frames over the
+ * container's attached stdin and stdout.
+ *
+ * @author CL
+ */
+public class DockerWorker implements WarmContainerPool.Worker {
+
+    private static final Map<String, Object> CLOSED = Map.of("type", "closed");
+
+    private final DockerClient dockerClient;
+    private final Logger logger;
+    private final AtomicLong sequence = new AtomicLong();
+    private final BlockingQueue<Map<String, Object>> responses = new LinkedBlockingQueue<>();
+    private final QueueInputStream stdin = new QueueInputStream();
+    private final QueueInputStream stdout = new QueueInputStream();
+    private final DataOutputStream requests = new DataOutputStream(new QueueOutputStream(stdin));
+
+    private String containerId;
+    private ResultCallback.Adapter<Frame> attachment;
+    private volatile boolean destroyed;
+
+    private DockerWorker(DockerClient dockerClient, Logger logger) {
+        this.dockerClient = dockerClient;
+        this.logger = logger;
+    }
+
+    /**
+     * Creates, attaches and starts a worker container and waits for the runner
+     * to report ready.
+     */
+    public static DockerWorker start(DockerClient dockerClient, String image, HostConfig hostConfig, List<String> env,
+            Map<String, String> labels, long readyTimeoutMs, Logger logger) throws Exception {
+        DockerWorker worker = new DockerWorker(dockerClient, logger);
+        try {
+            worker.create(image, hostConfig, env, labels, readyTimeoutMs);
+            return worker;
+        } catch (Exception e) {
+            worker.destroy();
+            throw e;
+        }
+    }
+
+    private void create(String image, HostConfig hostConfig, List<String> env, Map<String, String> labels,
+            long readyTimeoutMs) throws Exception {
+        CreateContainerResponse container = dockerClient.createContainerCmd(image)
+                .withHostConfig(hostConfig)
+                .withEnv(env)
+                .withLabels(labels)
+                .withTty(false)
+                .withStdinOpen(true)
+                .withAttachStdin(true)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .withCmd("java", "-cp", "/app/plugin.jar:/app/reveila-core.jar", "com.reveila.system.PluginRunner",
+                        PluginRunner.SERVE_FLAG)
+                .exec();
+        this.containerId = container.getId();
+
+        this.attachment = dockerClient.attachContainerCmd(containerId)
+                .withStdIn(stdin)
+                .withStdOut(true)
+                .withStdErr(true)
+                .withFollowStream(true)
+                .exec(new ResultCallback.Adapter<Frame>() {
+                    @Override
+                    public void onNext(Frame frame) {
+                        if (frame.getStreamType() == StreamType.STDOUT || frame.getStreamType() == StreamType.RAW) {
+                            stdout.offer(frame.getPayload());
+                        } else if (frame.getPayload() != null) {
+                            logger.fine(() -> "[" + shortId() + "] " + new String(frame.getPayload()).stripTrailing());
+                        }
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        stdout.close();
+                        super.onComplete();
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        stdout.close();
+                        super.onError(throwable);
+                    }
+                });
+
+        Thread.ofVirtual().name("Sandbox Reader - " + shortId()).start(this::readResponses);
+        dockerClient.startContainerCmd(containerId).exec();
+
+        Map<String, Object> ready = responses.poll(readyTimeoutMs, TimeUnit.MILLISECONDS);
+        if (ready == null || !"ready".equals(ready.get("type"))) {
+            throw new TimeoutException("Sandbox worker " + shortId() + " did not become ready within "
+                    + readyTimeoutMs + " ms");
+        }
+    }
+
+    private void readResponses() {
+        DataInputStream in = new DataInputStream(stdout);
+        try {
+            Map<String, Object> frame;
+            while ((frame = PluginRunner.readFrame(in)) != null) {
+                responses.offer(frame);
+            }
+        } catch (IOException e) {
+            if (!destroyed) {
+                logger.warning("Sandbox worker " + shortId() + " stream failed: " + e.getMessage());
+            }
+        } finally {
+            responses.offer(CLOSED);
+        }
+    }
+
+    @Override
+    public String getId() {
+        return containerId;
+    }
+
+    @Override
+    public Map<String, Object> invoke(Map<String, Object> request, long timeoutMs) throws Exception {
+        if (destroyed) {
+            throw new IllegalStateException("Sandbox worker " + shortId() + " is destroyed");
+        }
+        String id = Long.toString(sequence.incrementAndGet());
+        Map<String, Object> frame = new java.util.LinkedHashMap<>(request);
+        frame.put("id", id);
+        PluginRunner.writeFrame(requests, frame);
+
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            Map<String, Object> response = remaining > 0 ? responses.poll(remaining, TimeUnit.MILLISECONDS) : null;
+            if (response == null) {
+                throw new TimeoutException("Sandbox worker " + shortId() + " did not answer within " + timeoutMs + " ms");
+            }
+            if (response == CLOSED) {
+                responses.offer(CLOSED);
+                throw new IOException("Sandbox worker " + shortId() + " exited");
+            }
+            // Skip late answers to earlier, timed-out requests
+            if (Objects.equals(id, String.valueOf(response.get("id")))) {
+                return response;
+            }
+        }
+    }
+
+    @Override
+    public boolean ping(long timeoutMs) {
+        try {
+            return "PONG".equals(invoke(Map.of("type", "ping"), timeoutMs).get("status"));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (destroyed) {
+            return;
+        }
+        destroyed = true;
+        stdin.close();
+        if (attachment != null) {
+            try {
+                attachment.close();
+            } catch (IOException e) {
+                // Stream is going away with the container
+            }
+        }
+        if (containerId != null) {
+            try {
+                dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+            } catch (RuntimeException e) {
+                // Already gone (auto-remove) or daemon unreachable
+                logger.fine(() -> "Failed to remove sandbox container " + shortId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private String shortId() {
+        return containerId == null ? "?" : containerId.substring(0, Math.min(12, containerId.length()));
+    }
+
+    /**
+     * An input stream fed with byte chunks from another thread. Reads block
+     * until data arrives or the stream is closed.
+     */
+    static final class QueueInputStream extends InputStream {
+        private static final byte[] EOF = new byte[0];
+        private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+        private byte[] current;
+        private int position;
+        private boolean ended;
+
+        void offer(byte[] chunk) {
+            if (chunk != null && chunk.length > 0) {
+                chunks.offer(chunk);
+            }
+        }
+
+        @Override
+        public void close() {
+            chunks.offer(EOF);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (current == null || position >= current.length) {
+                if (ended) {
+                    return -1;
+                }
+                try {
+                    current = chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new java.io.InterruptedIOException();
+                }
+                position = 0;
+                if (current == EOF) {
+                    ended = true;
+                    current = null;
+                }
+            }
+            int n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+    }
+
+    /**
+     * Buffers writes and hands them to a {@link QueueInputStream} on flush.
+     */
+    private static final class QueueOutputStream extends OutputStream {
+        private final QueueInputStream target;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        QueueOutputStream(QueueInputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            target.offer(buffer.toByteArray());
+            buffer.reset();
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package com.reveila.ai;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool of pre-started sandbox workers, partitioned by key so a worker is only
+ * ever reused for invocations with the same plugin, tenant and perimeter.
+ * <p>
+ * Each key in use keeps at least {@code minIdle} started workers and never
+ * more than {@code maxSize} in total. A worker serves one invocation at a time
+ * and is recycled after {@code recycleAfter} uses or after any failure. A
+ * maintenance task reaps workers idle for longer than the idle timeout, health
+ * checks idle workers and tops every key in use back up to its minimum. A key
+ * that has not been leased for the key idle timeout is reaped down to zero
+ * and dropped, so keys that are no longer used do not keep containers alive.
+ * <p>
+ * The pool knows nothing about Docker; workers come from a
+ * {@link WorkerFactory}.
+ *
+ * @param <K> The partition key. Must implement equals and hashCode.
+ * @author CL
+ */
+public class WarmContainerPool<K> {
+
+    /**
+     * A started sandbox able to serve invocations one at a time.
+     */
+    public interface Worker {
+        String getId();
+
+        /**
+         * Sends one request and waits for its response.
+         */
+        Map<String, Object> invoke(Map<String, Object> request, long timeoutMs) throws Exception;
+
+        /**
+         * @return True if the worker answered a health check within the timeout.
+         */
+        boolean ping(long timeoutMs);
+
+        /**
+         * Stops the worker and releases its resources. Must not throw.
+         */
+        void destroy();
+    }
+
+    public interface WorkerFactory<K> {
+        /**
+         * Starts a worker for the key, returning once it is ready to serve.
+         */
+        Worker create(K key) throws Exception;
+    }
+
+    /**
+     * A worker checked out of the pool. Hand it back with
+     * {@link WarmContainerPool#release(Lease, boolean)}.
+     */
+    public static final class Lease {
+        private final Object key;
+        private final Slot slot;
+        private final Pooled pooled;
+        private final boolean warm;
+
+        private Lease(Object key, Slot slot, Pooled pooled, boolean warm) {
+            this.key = key;
+            this.slot = slot;
+            this.pooled = pooled;
+            this.warm = warm;
+        }
+
+        public Worker getWorker() {
+            return pooled.worker;
+        }
+
+        /**
+         * @return True if the worker was already running when acquired.
+         */
+        public boolean isWarm() {
+            return warm;
+        }
+    }
+
+    private static final class Pooled {
+        private final Worker worker;
+        private int uses;
+        private long lastUsed;
+        private long lastChecked;
+
+        Pooled(Worker worker, long now) {
+            this.worker = worker;
+            this.lastUsed = now;
+            this.lastChecked = now;
+        }
+    }
+
+    private static final class Slot {
+        // Most recently used first, so idle reaping takes from the tail
+        private final ArrayDeque<Pooled> idle = new ArrayDeque<>();
+        private int total;
+        private int creating;
+        private int leased;
+        private long lastLeased = System.currentTimeMillis();
+        // Set once the slot is dropped from the map; it is not used again
+        private boolean removed;
+    }
+
+    private final WorkerFactory<K> factory;
+    private final Map<K, Slot> slots = new ConcurrentHashMap<>();
+    private final LongAdder warmAcquires = new LongAdder();
+    private final LongAdder coldAcquires = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder failedHealthChecks = new LongAdder();
+
+    private int minIdle = 1;
+    private int maxSize = 4;
+    private int recycleAfter = 100;
+    private long idleTimeoutMs = 5 * 60 * 1000L;
+    private long keyIdleTimeoutMs = 10 * 60 * 1000L;
+    private long acquireTimeoutMs = 10_000L;
+    private long healthCheckIntervalMs = 30_000L;
+    private long healthCheckTimeoutMs = 2_000L;
+    private long maintenanceIntervalMs = 5_000L;
+
+    private ScheduledExecutorService maintenance;
+    private volatile boolean closed;
+    private Logger logger = Logger.getLogger(WarmContainerPool.class.getName());
+
+    public WarmContainerPool(WorkerFactory<K> factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException("Argument 'factory' must not be null");
+        }
+        this.factory = factory;
+    }
+
+    public void setLogger(Logger logger) {
+        if (logger != null) {
+            this.logger = logger;
+        }
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = Math.max(0, minIdle);
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Retires a worker after this many invocations. 1 means single use.
+     */
+    public void setRecycleAfter(int recycleAfter) {
+        this.recycleAfter = Math.max(1, recycleAfter);
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * Sets how long a key keeps its minimum of idle workers after its last
+     * lease. After that its workers are reaped and the key is dropped.
+     */
+    public void setKeyIdleTimeoutMs(long keyIdleTimeoutMs) {
+        this.keyIdleTimeoutMs = keyIdleTimeoutMs;
+    }
+
+    public void setAcquireTimeoutMs(long acquireTimeoutMs) {
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    public void setHealthCheckIntervalMs(long healthCheckIntervalMs) {
+        this.healthCheckIntervalMs = healthCheckIntervalMs;
+    }
+
+    public void setHealthCheckTimeoutMs(long healthCheckTimeoutMs) {
+        this.healthCheckTimeoutMs = healthCheckTimeoutMs;
+    }
+
+    public void setMaintenanceIntervalMs(long maintenanceIntervalMs) {
+        this.maintenanceIntervalMs = maintenanceIntervalMs;
+    }
+
+    /**
+     * Starts the background maintenance task.
+     */
+    public synchronized void start() {
+        if (maintenance != null) {
+            return;
+        }
+        closed = false;
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Warm Pool Maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintain, maintenanceIntervalMs, maintenanceIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Makes sure the key has its minimum number of idle workers, starting them
+     * in the background.
+     */
+    public void prewarm(K key) {
+        slots.computeIfAbsent(key, k -> new Slot());
+        ScheduledExecutorService executor = this.maintenance;
+        if (executor != null && !closed) {
+            executor.execute(() -> replenish(key));
+        }
+    }
+
+    /**
+     * Checks out a worker for the key, starting one if none is idle and the
+     * key is below its maximum, otherwise waiting up to the acquire timeout.
+     */
+    public Lease acquire(K key) throws Exception {
+        if (closed) {
+            throw new IllegalStateException("Pool is closed");
+        }
+        boolean newSlot = !slots.containsKey(key);
+        Slot slot = claimSlot(key);
+        if (newSlot) {
+            // First use of this key: start its minimum in the background
+            prewarm(key);
+        }
+
+        long deadline = System.currentTimeMillis() + acquireTimeoutMs;
+        synchronized (slot) {
+            while (true) {
+                Pooled pooled = slot.idle.pollFirst();
+                if (pooled != null) {
+                    warmAcquires.increment();
+                    return new Lease(key, slot, pooled, true);
+                }
+                if (slot.total < maxSize) {
+                    slot.total++;
+                    slot.creating++;
+                    break;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    slot.leased--;
+                    throw new TimeoutException("No sandbox worker available for " + key + " within "
+                            + acquireTimeoutMs + " ms (max " + maxSize + ")");
+                }
+                try {
+                    slot.wait(remaining);
+                } catch (InterruptedException e) {
+                    slot.leased--;
+                    throw e;
+                }
+            }
+        }
+
+        coldAcquires.increment();
+        Worker worker;
+        try {
+            worker = startReserved(key, slot);
+        } catch (Exception e) {
+            synchronized (slot) {
+                slot.leased--;
+            }
+            throw e;
+        }
+        return new Lease(key, slot, new Pooled(worker, System.currentTimeMillis()), false);
+    }
+
+    /**
+     * Returns a worker. Workers that failed, reached their use limit, or belong
+     * to a closed pool are destroyed instead of being reused.
+     */
+    @SuppressWarnings("unchecked")
+    public void release(Lease lease, boolean healthy) {
+        K key = (K) lease.key;
+        Pooled pooled = lease.pooled;
+        pooled.uses++;
+        pooled.lastUsed = System.currentTimeMillis();
+        Slot slot = lease.slot;
+
+        boolean retire = !healthy || closed || pooled.uses >= recycleAfter;
+        synchronized (slot) {
+            slot.leased--;
+            slot.lastLeased = pooled.lastUsed;
+            if (retire) {
+                slot.total--;
+            } else {
+                slot.idle.addFirst(pooled);
+            }
+            slot.notify();
+        }
+        if (!retire) {
+            return;
+        }
+        destroyLater(pooled.worker);
+        if (!closed) {
+            prewarm(key);
+        }
+    }
+
+    /**
+     * Destroys every worker and stops maintenance. Workers still checked out
+     * are destroyed when released.
+     */
+    public void close() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            closed = true;
+            executor = maintenance;
+            maintenance = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (Slot slot : slots.values()) {
+            List<Pooled> drained;
+            synchronized (slot) {
+                drained = new ArrayList<>(slot.idle);
+                slot.total -= drained.size();
+                slot.idle.clear();
+                slot.notifyAll();
+            }
+            drained.forEach(p -> destroy(p.worker));
+        }
+    }
+
+    /**
+     * @return Pool counters plus idle and total workers per key.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("warmAcquires", warmAcquires.sum());
+        stats.put("coldAcquires", coldAcquires.sum());
+        stats.put("created", created.sum());
+        stats.put("destroyed", destroyed.sum());
+        stats.put("failedHealthChecks", failedHealthChecks.sum());
+        Map<String, Object> keys = new LinkedHashMap<>();
+        slots.forEach((key, slot) -> {
+            synchronized (slot) {
+                keys.put(String.valueOf(key), Map.of("idle", slot.idle.size(), "total", slot.total));
+            }
+        });
+        stats.put("keys", keys);
+        return stats;
+    }
+
+    public int getIdleCount(K key) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            return 0;
+        }
+        synchronized (slot) {
+            return slot.idle.size();
+        }
+    }
+
+    public int getTotalCount(K key) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            return 0;
+        }
+        synchronized (slot) {
+            return slot.total;
+        }
+    }
+
+    /**
+     * Reaps, health checks and replenishes every key. Runs on the maintenance
+     * thread; exposed for tests.
+     */
+    void maintain() {
+        for (K key : new ArrayList<>(slots.keySet())) {
+            try {
+                reap(key);
+                healthCheck(key);
+                replenish(key);
+            } catch (Throwable t) {
+                logger.log(Level.WARNING, "Warm pool maintenance failed for " + key, t);
+            }
+        }
+    }
+
+    private void reap(K key) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Pooled> expired = new ArrayList<>();
+        synchronized (slot) {
+            boolean inUse = isInUse(slot, now);
+            int keep = inUse ? minIdle : 0;
+            Iterator<Pooled> it = slot.idle.descendingIterator();
+            while (it.hasNext() && slot.idle.size() > keep) {
+                Pooled pooled = it.next();
+                // An unused key gives up every worker, however recently started
+                if (inUse && now - pooled.lastUsed < idleTimeoutMs) {
+                    break;
+                }
+                it.remove();
+                slot.total--;
+                expired.add(pooled);
+            }
+            if (keep == 0 && slot.total == 0 && slot.creating == 0 && slot.leased == 0) {
+                slot.removed = true;
+                slots.remove(key, slot);
+            }
+        }
+        expired.forEach(p -> destroy(p.worker));
+    }
+
+    private void healthCheck(K key) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Pooled> due = new ArrayList<>();
+        synchronized (slot) {
+            // Take due workers out of the idle list so nobody acquires one mid-check
+            Iterator<Pooled> it = slot.idle.iterator();
+            while (it.hasNext()) {
+                Pooled pooled = it.next();
+                if (now - pooled.lastChecked >= healthCheckIntervalMs) {
+                    it.remove();
+                    due.add(pooled);
+                }
+            }
+        }
+        for (Pooled pooled : due) {
+            boolean alive;
+            try {
+                alive = pooled.worker.ping(healthCheckTimeoutMs);
+            } catch (RuntimeException e) {
+                alive = false;
+            }
+            synchronized (slot) {
+                if (alive && !closed) {
+                    pooled.lastChecked = System.currentTimeMillis();
+                    slot.idle.addLast(pooled);
+                    slot.notify();
+                    continue;
+                }
+                slot.total--;
+                slot.notify();
+            }
+            if (!alive) {
+                failedHealthChecks.increment();
+                logger.warning("Sandbox worker " + pooled.worker.getId() + " failed its health check; replacing it.");
+            }
+            destroy(pooled.worker);
+        }
+    }
+
+    private void replenish(K key) {
+        Slot slot = slots.get(key);
+        while (slot != null && !closed) {
+            synchronized (slot) {
+                // Workers being started will become idle, so count them
+                int floor = isInUse(slot, System.currentTimeMillis()) ? minIdle : 0;
+                if (slot.removed || slot.idle.size() + slot.creating >= floor || slot.total >= maxSize) {
+                    return;
+                }
+                slot.total++;
+                slot.creating++;
+            }
+            Worker worker;
+            try {
+                worker = startReserved(key, slot);
+            } catch (Exception e) {
+                logger.warning("Failed to prewarm sandbox worker for " + key + ": " + e.getMessage());
+                return;
+            }
+            synchronized (slot) {
+                if (closed) {
+                    slot.total--;
+                } else {
+                    slot.idle.addFirst(new Pooled(worker, System.currentTimeMillis()));
+                    slot.notify();
+                    continue;
+                }
+            }
+            destroy(worker);
+        }
+    }
+
+    /**
+     * Counts a lease against the key's slot so reaping cannot drop it while
+     * the lease is out, retrying if the slot was dropped meanwhile.
+     */
+    private Slot claimSlot(K key) {
+        while (true) {
+            Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+            synchronized (slot) {
+                if (!slot.removed) {
+                    slot.leased++;
+                    slot.lastLeased = System.currentTimeMillis();
+                    return slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if the key is leased right now or was within the key idle
+     *         timeout. Call while holding the slot's lock.
+     */
+    private boolean isInUse(Slot slot, long now) {
+        return slot.leased > 0 || now - slot.lastLeased < keyIdleTimeoutMs;
+    }
+
+    /**
+     * Starts a worker for a place already counted in the slot's total, giving
+     * the place back if the start fails.
+     */
+    private Worker startReserved(K key, Slot slot) throws Exception {
+        try {
+            Worker worker = factory.create(key);
+            created.increment();
+            return worker;
+        } catch (Exception e) {
+            synchronized (slot) {
+                slot.total--;
+                slot.notify();
+            }
+            throw e;
+        } finally {
+            synchronized (slot) {
+                slot.creating--;
+            }
+        }
+    }
+
+    private void destroyLater(Worker worker) {
+        ScheduledExecutorService executor = this.maintenance;
+        if (executor != null && !closed) {
+            try {
+                executor.execute(() -> destroy(worker));
+                return;
+            } catch (RuntimeException e) {
+                // Executor shut down concurrently; destroy inline
+            }
+        }
+        destroy(worker);
+    }
+
+    private void destroy(Worker worker) {
+        try {
+            worker.destroy();
+        } catch (RuntimeException e) {
+            logger.warning("Failed to destroy sandbox worker " + worker.getId() + ": " + e.getMessage());
+        }
+        destroyed.increment();
+    }
+}
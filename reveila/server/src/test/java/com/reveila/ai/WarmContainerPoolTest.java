@@ -0,0 +1,160 @@
+package com.reveila.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class WarmContainerPoolTest {
+
+    /** Stands in for a Docker-backed worker. */
+    private static class FakeWorker implements WarmContainerPool.Worker {
+        final String id;
+        volatile boolean alive = true;
+        volatile boolean destroyed;
+
+        FakeWorker(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public Map<String, Object> invoke(Map<String, Object> request, long timeoutMs) {
+            return Map.of("status", "SUCCESS", "data", id);
+        }
+
+        @Override
+        public boolean ping(long timeoutMs) {
+            return alive;
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+    }
+
+    private final AtomicInteger counter = new AtomicInteger();
+    private final List<FakeWorker> started = new CopyOnWriteArrayList<>();
+
+    private WarmContainerPool<String> newPool() {
+        WarmContainerPool<String> pool = new WarmContainerPool<>(key -> {
+            FakeWorker worker = new FakeWorker(key + "-" + counter.incrementAndGet());
+            started.add(worker);
+            return worker;
+        });
+        pool.setMinIdle(0);
+        return pool;
+    }
+
+    @Test
+    public void testWorkerIsReusedPerKey() throws Exception {
+        WarmContainerPool<String> pool = newPool();
+
+        WarmContainerPool.Lease first = pool.acquire("a");
+        assertFalse(first.isWarm());
+        pool.release(first, true);
+
+        WarmContainerPool.Lease second = pool.acquire("a");
+        assertTrue(second.isWarm());
+        assertSame(first.getWorker(), second.getWorker());
+        pool.release(second, true);
+
+        WarmContainerPool.Lease other = pool.acquire("b");
+        assertNotSame(first.getWorker(), other.getWorker());
+        pool.release(other, true);
+        pool.close();
+    }
+
+    @Test
+    public void testRecycleAfterAndFailureDestroyWorker() throws Exception {
+        WarmContainerPool<String> pool = newPool();
+        pool.setRecycleAfter(2);
+
+        WarmContainerPool.Lease lease = pool.acquire("a");
+        pool.release(lease, true);
+        lease = pool.acquire("a");
+        pool.release(lease, true);
+        assertTrue(((FakeWorker) lease.getWorker()).destroyed);
+        assertEquals(0, pool.getTotalCount("a"));
+
+        lease = pool.acquire("a");
+        pool.release(lease, false);
+        assertTrue(((FakeWorker) lease.getWorker()).destroyed);
+        pool.close();
+    }
+
+    @Test
+    public void testMaxSizeBlocksThenTimesOut() throws Exception {
+        WarmContainerPool<String> pool = newPool();
+        pool.setMaxSize(1);
+        pool.setAcquireTimeoutMs(50);
+
+        WarmContainerPool.Lease lease = pool.acquire("a");
+        assertThrows(TimeoutException.class, () -> pool.acquire("a"));
+        pool.release(lease, true);
+        pool.release(pool.acquire("a"), true);
+        pool.close();
+    }
+
+    @Test
+    public void testMaintenanceReapsReplacesAndReplenishes() throws Exception {
+        WarmContainerPool<String> pool = newPool();
+        pool.setMinIdle(1);
+        pool.setIdleTimeoutMs(0);
+        pool.setHealthCheckIntervalMs(0);
+
+        // Two idle workers, one more than the minimum
+        WarmContainerPool.Lease one = pool.acquire("a");
+        WarmContainerPool.Lease two = pool.acquire("a");
+        pool.release(one, true);
+        pool.release(two, true);
+        pool.maintain();
+        assertEquals(1, pool.getTotalCount("a"));
+
+        // The survivor fails its health check and is replaced
+        FakeWorker survivor = started.stream().filter(w -> !w.destroyed).findFirst().orElseThrow();
+        survivor.alive = false;
+        pool.maintain();
+        assertTrue(survivor.destroyed);
+        assertEquals(1, pool.getIdleCount("a"));
+        assertEquals(1, pool.getTotalCount("a"));
+
+        pool.close();
+        assertTrue(started.stream().allMatch(w -> w.destroyed));
+    }
+
+    @Test
+    public void testUnusedKeyIsReapedToZero() throws Exception {
+        WarmContainerPool<String> pool = newPool();
+        pool.setMinIdle(1);
+        pool.setKeyIdleTimeoutMs(0);
+
+        WarmContainerPool.Lease lease = pool.acquire("a");
+        pool.release(lease, true);
+        pool.maintain();
+        assertTrue(((FakeWorker) lease.getWorker()).destroyed);
+        assertEquals(0, pool.getTotalCount("a"));
+        assertTrue(((Map<?, ?>) pool.getStats().get("keys")).isEmpty());
+
+        // The key comes back on its next use
+        lease = pool.acquire("a");
+        assertFalse(lease.isWarm());
+        pool.release(lease, true);
+        pool.close();
+    }
+}
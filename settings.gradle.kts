@@ -37,6 +37,7 @@ includeBuild("build-logic") // Convention plugins
 // Example 2: include("reveila"); project(":reveila").projectDir = file("spring/reveila")
 include(":reveila:core")
 include(":reveila:server")
+include(":reveila:benchmarks")
 include(":spring:admin")
 include(":spring:core")
 include(":web:vue-project")
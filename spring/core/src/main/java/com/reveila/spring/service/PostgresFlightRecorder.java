@@ -1,10 +1,14 @@
 package com.reveila.spring.service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.lang.NonNull;
 import org.springframework.scheduling.annotation.Async;
 
+import com.reveila.ai.FlightRecord;
 import com.reveila.ai.FlightRecorder;
 import com.reveila.data.Repository;
 import com.reveila.spring.model.jpa.AuditLog;
@@ -41,39 +45,58 @@ public class PostgresFlightRecorder extends SystemComponent implements FlightRec
     @Override
     @Async
     public void recordStep(Plugin plugin, String stepName, Map<String, Object> data) {
-        AuditLog log = createBaseLog(plugin, stepName);
-        if (data != null) {
-            log.setMetadata(data.toString());
-        }
-        if (auditRepository != null) auditRepository.store(log);
+        store(toAuditLog(FlightRecord.step(plugin, stepName, data)));
     }
 
     @Override
     @Async
     public void recordReasoning(Plugin plugin, String reasoning) {
-        AuditLog log = createBaseLog(plugin, "REASONING_TRACE");
-        log.setReasoningTrace(reasoning);
-        if (auditRepository != null) auditRepository.store(log);
+        store(toAuditLog(FlightRecord.reasoning(plugin, reasoning)));
     }
 
     @Override
     @Async
     public void recordToolOutput(Plugin plugin, String toolName, Object output) {
-        AuditLog log = createBaseLog(plugin, "TOOL_OUTPUT: " + toolName);
-        if (output != null) {
-            log.setMetadata(output.toString());
-        }
-        if (auditRepository != null) auditRepository.store(log);
+        store(toAuditLog(FlightRecord.toolOutput(plugin, toolName, output)));
     }
 
     @Override
     @Async
     public void recordForensicMetadata(Plugin plugin, Map<String, Object> metadata) {
-        AuditLog log = createBaseLog(plugin, "FORENSIC_METRICS");
-        
+        store(toAuditLog(enrich(FlightRecord.forensic(plugin, metadata))));
+    }
+
+    /**
+     * Writes the whole batch with a single storeAll, which the JPA repository
+     * turns into one transaction of batched inserts.
+     */
+    @Override
+    public void recordAll(List<FlightRecord> records) {
+        if (auditRepository == null || records.isEmpty()) {
+            return;
+        }
+        List<AuditLog> logs = new ArrayList<>(records.size());
+        for (FlightRecord record : records) {
+            logs.add(toAuditLog(record));
+        }
+        auditRepository.storeAll(logs);
+    }
+
+    /**
+     * Forensic records pick up the oversight token of the current request here,
+     * on the calling thread, since a batching writer thread has no request
+     * context.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public FlightRecord enrich(FlightRecord record) {
+        if (record.kind() != FlightRecord.Kind.FORENSIC) {
+            return record;
+        }
+
         // ADR: Track "Who watches the watchers"
         java.util.Map<String, Object> forensicData = new java.util.HashMap<>();
-        if (metadata != null) forensicData.putAll(metadata);
+        if (record.data() != null) forensicData.putAll((Map<String, Object>) record.data());
         
         try {
             // Check for oversight token in current request context if available
@@ -91,10 +114,33 @@ public class PostgresFlightRecorder extends SystemComponent implements FlightRec
             // Not in a request context, skip token enrichment
         }
 
-        log.setMetadata(forensicData.toString());
+        return record.withData(forensicData);
+    }
+
+    private void store(AuditLog log) {
         if (auditRepository != null) auditRepository.store(log);
     }
 
+    private @NonNull AuditLog toAuditLog(FlightRecord record) {
+        Object data = record.data();
+        AuditLog log;
+        switch (record.kind()) {
+            case REASONING -> {
+                log = createBaseLog(record.plugin(), "REASONING_TRACE");
+                log.setReasoningTrace(data != null ? data.toString() : null);
+            }
+            case TOOL_OUTPUT -> log = createBaseLog(record.plugin(), "TOOL_OUTPUT: " + record.name());
+            case FORENSIC -> log = createBaseLog(record.plugin(), "FORENSIC_METRICS");
+            default -> log = createBaseLog(record.plugin(), record.name());
+        }
+        if (record.kind() != FlightRecord.Kind.REASONING && data != null) {
+            log.setMetadata(data.toString());
+        }
+        // Keep the capture time rather than the (possibly deferred) write time
+        log.setTimestamp(Instant.ofEpochMilli(record.timestamp()));
+        return log;
+    }
+
     private @NonNull AuditLog createBaseLog(Plugin plugin, String action) {
         AuditLog log = new AuditLog();
         log.setTraceId(plugin.getTraceId());
@@ -1,8 +1,13 @@
 package com.reveila.spring.system;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import javax.security.auth.Subject;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -12,9 +17,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.reveila.system.Reveila;
 import com.reveila.system.RolePrincipal;
 import com.reveila.system.SystemProxy;
+import com.reveila.ai.LlmChunk;
 import com.reveila.ai.ManagedInvocation;
 import java.util.Map;
 
@@ -38,6 +45,55 @@ public class ApiController {
         
         Object[] args = request.getArgs();
         String callerIp = httpRequest.getRemoteAddr();
+        Subject subject = currentSubject();
+
+        Object result = reveila.invoke(componentName, request.getMethodName(), args, callerIp, subject);
+        
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Streams an agent conversation turn as Server-Sent Events.
+     * Emits a "token" event for every generated text delta and a final
+     * "result" event carrying the same payload as AgenticFabric.askAgent.
+     */
+    @PostMapping(value = "/agent/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAgent(@RequestBody Map<String, String> payload) throws Exception {
+        String prompt = payload.get("prompt");
+        if (prompt == null || prompt.isBlank()) {
+            throw new IllegalArgumentException("Argument 'prompt' is required.");
+        }
+        String sessionId = payload.get("sessionId");
+        String systemPrompt = payload.get("systemPrompt");
+
+        SystemProxy fabric = reveila.getSystemContext().getProxy("AgenticFabric", currentSubject());
+
+        SseEmitter emitter = new SseEmitter(0L); // No timeout; the agent loop bounds the stream
+        Consumer<LlmChunk> listener = chunk -> {
+            if (chunk.done() || chunk.delta().isEmpty()) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name("token").data(chunk.delta()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Client went away
+            }
+        };
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                Object answer = fabric.invoke("askAgent",
+                        new Object[] { prompt, sessionId, systemPrompt, listener });
+                emitter.send(SseEmitter.event().name("result").data(answer.toString(), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    private Subject currentSubject() {
         Subject subject = new Subject();
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -57,9 +113,7 @@ public class ApiController {
             }
         }
 
-        Object result = reveila.invoke(componentName, request.getMethodName(), args, callerIp, subject);
-        
-        return ResponseEntity.ok(result);
+        return subject;
     }
 
     /**
@@ -27,6 +27,7 @@ public class SpringPlatformAdapter extends BasePlatformAdapter {
 
     private final ApplicationContext springContext;
     private boolean databaseAvailable = false;
+    private com.reveila.data.JsonFileRepository<?, ?> auditFallback;
 
     public SpringPlatformAdapter(ApplicationContext context, Properties commandLineArgs) throws Exception {
         super(commandLineArgs);
@@ -101,6 +102,9 @@ public class SpringPlatformAdapter extends BasePlatformAdapter {
             Class<?> auditLogClass = Class.forName("com.reveila.spring.model.jpa.AuditLog");
             com.reveila.data.JsonFileRepository<?, ?> auditRepo = new com.reveila.data.JsonFileRepository<>(
                     "system-home/standard/data", "AuditLog", auditLogClass, java.util.UUID.class, this);
+            // Audit lookups are by trace; keep them off the full scan
+            auditRepo.addIndex("traceId");
+            this.auditFallback = auditRepo;
 
             @SuppressWarnings("unchecked")
             Repository<Entity, Map<String, Map<String, Object>>> repository = (Repository<Entity, Map<String, Map<String, Object>>>)(Object) createGenericRepoFromGeneric(auditRepo);
@@ -111,6 +115,15 @@ public class SpringPlatformAdapter extends BasePlatformAdapter {
         }
     }
 
+    @Override
+    public synchronized void unplug() {
+        if (auditFallback != null) {
+            auditFallback.close();
+            auditFallback = null;
+        }
+        super.unplug();
+    }
+
     private <T, ID> GenericRepository<T, ID> createGenericRepoFromGeneric(
             com.reveila.data.JavaObjectRepository<T, ID> repo) {
         EntityMapper<T> mapper = repo.getEntityMapper();
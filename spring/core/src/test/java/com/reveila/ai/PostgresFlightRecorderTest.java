@@ -7,6 +7,8 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -75,4 +77,21 @@ class PostgresFlightRecorderTest {
         assertTrue(savedLog.getAction().contains(toolName));
         assertNotNull(savedLog.getMetadata());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchIsStoredInOneWrite() {
+        flightRecorder.recordAll(List.of(
+                FlightRecord.reasoning(plugin, "plan"),
+                FlightRecord.toolOutput(plugin, "budget-plugin", Map.of("total", 5000))));
+
+        ArgumentCaptor<Collection<AuditLog>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(auditRepository).storeAll(captor.capture());
+
+        List<AuditLog> logs = List.copyOf(captor.getValue());
+        assertEquals(2, logs.size());
+        assertEquals("REASONING_TRACE", logs.get(0).getAction());
+        assertEquals("plan", logs.get(0).getReasoningTrace());
+        assertEquals("TOOL_OUTPUT: budget-plugin", logs.get(1).getAction());
+    }
 }